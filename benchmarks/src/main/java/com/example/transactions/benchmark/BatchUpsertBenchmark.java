@@ -0,0 +1,89 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.dto.BatchTransactionRequest;
+import com.example.transactions.dto.TransactionRequest;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de un árbol de BATCH transacciones a nivel de service, en transacciones por
+ * segundo: una llamada a createOrUpdateTransaction() por transacción (lo que hace hoy un
+ * cliente con un PUT por nodo, en orden de padres a hijos) vs. un solo createOrUpdateBatch()
+ * con las mismas transacciones desordenadas.
+ *
+ *   java -jar benchmarks/target/benchmarks.jar BatchUpsertBenchmark
+ *
+ * Cada invocación carga el árbol en un repositorio nuevo; no incluye HTTP ni JSON, que el
+ * lote también ahorra (un request en lugar de BATCH).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class BatchUpsertBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    @Param({"materialized", "euler-tour"})
+    public String engine;
+
+    private final List<BatchTransactionRequest> inParentOrder = new ArrayList<>(BATCH);
+    private final List<BatchTransactionRequest> shuffled = new ArrayList<>(BATCH);
+    private TransactionService service;
+
+    @Setup(Level.Trial)
+    public void setUpTree() {
+        Random random = new Random(42);
+        for (long id = 0; id < BATCH; id++) {
+            Long parentId = id == 0 ? null : (long) random.nextInt((int) id);
+            inParentOrder.add(new BatchTransactionRequest(id, BigDecimal.valueOf(1 + random.nextInt(10_000), 2),
+                    "cars", parentId));
+        }
+        shuffled.addAll(inParentOrder);
+        Collections.shuffle(shuffled, random);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpService() {
+        service = new TransactionService(new TransactionRepositoryImpl(null, null, engine));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public TransactionService singlePuts() {
+        for (BatchTransactionRequest item : inParentOrder) {
+            service.createOrUpdateTransaction(item.getId(),
+                    new TransactionRequest(item.getAmount(), item.getType(), item.getParentId()));
+        }
+        return service;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public TransactionService batch() {
+        service.createOrUpdateBatch(shuffled);
+        return service;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.TransactionsApplication;
+import com.example.transactions.dto.BatchTransactionRequest;
+import com.example.transactions.reactive.ReactiveTransactionsApplication;
+import com.example.transactions.service.TransactionService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * La aplicación completa levantada en un puerto libre para las pruebas de carga sobre HTTP,
+ * con el WAL habilitado en un directorio temporal (los PUT esperan el fsync del group
+ * commit, como en producción) que se borra al cerrar.
+ */
+final class BenchmarkServer implements AutoCloseable {
+
+    private static final String[] TYPES = {"cars", "shopping", "travel", "food"};
+
+    private final ConfigurableApplicationContext context;
+    private final Path walDirectory;
+
+    private BenchmarkServer(ConfigurableApplicationContext context, Path walDirectory) {
+        this.context = context;
+        this.walDirectory = walDirectory;
+    }
+
+    /**
+     * Levanta TransactionsApplication (o la variante WebFlux si reactive), con los requests
+     * en hilos virtuales si virtual. applicationArgs pisa cualquier propiedad.
+     */
+    static BenchmarkServer start(boolean reactive, boolean virtual, String[] applicationArgs) throws IOException {
+        Path walDirectory = Files.createTempDirectory("load-benchmark");
+        SpringApplicationBuilder application = reactive
+                ? new SpringApplicationBuilder(ReactiveTransactionsApplication.class).web(WebApplicationType.REACTIVE)
+                : new SpringApplicationBuilder(TransactionsApplication.class).web(WebApplicationType.SERVLET);
+        ConfigurableApplicationContext context = application
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "transactions.wal.enabled=true",
+                        "transactions.wal.directory=" + walDirectory,
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run(applicationArgs);
+        return new BenchmarkServer(context, walDirectory);
+    }
+
+    /**
+     * Árbol binario balanceado de size transacciones (el padre de i es (i - 1) / 2), con los
+     * tipos de typeOf().
+     */
+    void preload(int size) {
+        List<BatchTransactionRequest> batch = new ArrayList<>(size);
+        for (long id = 0; id < size; id++) {
+            batch.add(new BatchTransactionRequest(id, BigDecimal.TEN, typeOf(id), id == 0 ? null : (id - 1) / 2));
+        }
+        context.getBean(TransactionService.class).createOrUpdateBatch(batch);
+    }
+
+    static String typeOf(long id) {
+        return TYPES[(int) (id % TYPES.length)];
+    }
+
+    URI baseUri() {
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        return URI.create("http://localhost:" + port);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (var paths = Files.walk(walDirectory)) {
+            for (Path path : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
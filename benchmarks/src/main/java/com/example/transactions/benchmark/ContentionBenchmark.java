@@ -0,0 +1,155 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectores y escritores concurrentes sobre el mismo repositorio: cada grupo corre 6 hilos
+ * lectores y 2 escritores a la vez, y JMH informa la latencia de cada lado por separado.
+ *
+ *   java -jar benchmarks/target/benchmarks.jar ContentionBenchmark -rf json -rff contention.json
+ *
+ * - point: findById mientras se cambian montos (solo los locks por franja de ID)
+ * - sumUnderUpdates: calculateSum mientras se cambian montos, que propagan deltas por la
+ *   jerarquía con el lock de jerarquía compartido
+ * - sumUnderReparents: calculateSum mientras se mueven subárboles entre el padre y el abuelo
+ *   originales (lock de jerarquía exclusivo)
+ * - cycleCheckUnderReparents: la validación de ciclos (isAncestor) contra los mismos cambios
+ *   de padre, que invalidan las etiquetas de ancestros
+ *
+ * Sin la forma chain: cada cambio de padre en una cadena de un millón reetiqueta la cadena
+ * entera y el grupo mediría solo eso.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss16m"})
+public class ContentionBenchmark {
+
+    private static final int ARITY = 4;
+    private static final int READERS = 6;
+    private static final int WRITERS = 2;
+    private static final long SEED = 42;
+
+    @Param({"materialized", "euler-tour"})
+    public String engine;
+
+    @Param({"kary", "powerlaw"})
+    public String shape;
+
+    @Param({"1000000"})
+    public int size;
+
+    private TransactionRepositoryImpl repository;
+    private TransactionService service;
+    private long[] parents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TransactionRepositoryImpl(null, null, engine);
+        service = new TransactionService(repository);
+        parents = SyntheticTree.parents(shape, size, ARITY, SEED);
+        SyntheticTree.load(repository, parents, SEED);
+    }
+
+    @Benchmark
+    @Group("point")
+    @GroupThreads(READERS)
+    public Transaction pointRead() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    @Group("point")
+    @GroupThreads(WRITERS)
+    public void pointWrite() {
+        updateAmount();
+    }
+
+    @Benchmark
+    @Group("sumUnderUpdates")
+    @GroupThreads(READERS)
+    public BigDecimal sumRead() {
+        return service.calculateSum(randomId());
+    }
+
+    @Benchmark
+    @Group("sumUnderUpdates")
+    @GroupThreads(WRITERS)
+    public void sumAmountWrite() {
+        updateAmount();
+    }
+
+    @Benchmark
+    @Group("sumUnderReparents")
+    @GroupThreads(READERS)
+    public BigDecimal sumReadDuringReparent() {
+        return service.calculateSum(randomId());
+    }
+
+    @Benchmark
+    @Group("sumUnderReparents")
+    @GroupThreads(WRITERS)
+    public void sumReparentWrite() {
+        reparent();
+    }
+
+    @Benchmark
+    @Group("cycleCheckUnderReparents")
+    @GroupThreads(READERS)
+    public boolean cycleCheck() {
+        return repository.isAncestor(randomId(), randomId());
+    }
+
+    @Benchmark
+    @Group("cycleCheckUnderReparents")
+    @GroupThreads(WRITERS)
+    public void cycleCheckReparentWrite() {
+        reparent();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+
+    private void updateAmount() {
+        long id = randomId();
+        repository.save(new Transaction(id, BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(10_000), 2),
+                SyntheticTree.typeOf(id), parents[(int) id] < 0 ? null : parents[(int) id]));
+    }
+
+    /**
+     * Cuelga una transacción al azar de su padre o de su abuelo originales: los dos tienen
+     * ID menor, así que con cualquier intercalado de escritores no se forma un ciclo.
+     */
+    private void reparent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = 1 + random.nextInt(size - 1);
+        long parent = parents[id];
+        long grandparent = Math.max(0, parents[(int) parent]);
+        Transaction existing = repository.findById((long) id);
+        repository.save(new Transaction((long) id, existing.getAmount(), existing.getType(),
+                random.nextBoolean() ? parent : grandparent));
+    }
+}
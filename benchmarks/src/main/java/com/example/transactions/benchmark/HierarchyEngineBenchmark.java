@@ -0,0 +1,125 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motores de jerarquía (transactions.hierarchy.engine): materialized vs euler-tour.
+ *
+ * Se mide sobre el repositorio, sin pasar por TransactionService, para aislar el costo
+ * del motor de la validación de ciclos del servicio.
+ *
+ * - shape=chain: cadena de profundidad size (el peor caso para propagar deltas)
+ * - shape=random: árbol recursivo aleatorio con una única raíz (profundidad ~ ln n)
+ *
+ * Operaciones:
+ * - sumRoot: suma del árbol completo
+ * - updateDeepLeaf: cambio de monto de la hoja más profunda
+ * - reparent: mueve un nodo al azar (con todo su subárbol) entre su padre y su abuelo
+ *   originales, lo que conserva la profundidad del árbol; los padres siempre tienen ID
+ *   menor, así que nunca se forman ciclos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class HierarchyEngineBenchmark {
+
+    @Param({"materialized", "euler-tour"})
+    public String engine;
+
+    @Param({"chain", "random"})
+    public String shape;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private TransactionRepositoryImpl repository;
+    private long[] originalParents;
+    private long[] currentParents;
+    private long deepestLeaf;
+    private int[] moves;
+    private int moveCursor;
+    private boolean leafToggle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TransactionRepositoryImpl(null, null, engine);
+        Random random = new Random(42);
+        originalParents = new long[size];
+        int[] depths = new int[size];
+        originalParents[0] = -1;
+        for (int id = 1; id < size; id++) {
+            originalParents[id] = "chain".equals(shape) ? id - 1 : random.nextInt(id);
+            depths[id] = depths[(int) originalParents[id]] + 1;
+            if (depths[id] > depths[(int) deepestLeaf]) {
+                deepestLeaf = id;
+            }
+        }
+        currentParents = originalParents.clone();
+
+        if ("chain".equals(shape)) {
+            // De la hoja a la raíz: cada alta encuentra a su padre todavía sin guardar,
+            // así la carga es O(n) también para el motor materializado
+            for (int id = size - 1; id >= 0; id--) {
+                repository.save(transaction(id, parentOf(id)));
+            }
+        } else {
+            for (int id = 0; id < size; id++) {
+                repository.save(transaction(id, parentOf(id)));
+            }
+        }
+
+        moves = new int[1 << 16];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = 2 + random.nextInt(size - 2);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumRoot() {
+        return repository.findSubtreeSum(0L);
+    }
+
+    @Benchmark
+    public void updateDeepLeaf() {
+        leafToggle = !leafToggle;
+        repository.save(new Transaction(deepestLeaf, leafToggle ? new BigDecimal("2.50") : BigDecimal.ONE,
+                "type", parentOf((int) deepestLeaf)));
+    }
+
+    @Benchmark
+    public void reparent() {
+        int id = moves[moveCursor++ & (moves.length - 1)];
+        long parent = originalParents[id];
+        long grandparent = Math.max(0, originalParents[(int) parent]);
+        currentParents[id] = currentParents[id] == parent ? grandparent : parent;
+        repository.save(transaction(id, parentOf(id)));
+    }
+
+    private Long parentOf(int id) {
+        return currentParents[id] < 0 ? null : currentParents[id];
+    }
+
+    private static Transaction transaction(long id, Long parentId) {
+        return new Transaction(id, BigDecimal.ONE, "type", parentId);
+    }
+}
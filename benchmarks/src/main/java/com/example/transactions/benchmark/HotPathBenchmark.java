@@ -0,0 +1,126 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de los caminos críticos del repositorio y del servicio, con un solo hilo, sobre
+ * las jerarquías sintéticas de SyntheticTree (chain, kary con k = 4 y powerlaw).
+ *
+ *   java -jar benchmarks/target/benchmarks.jar HotPathBenchmark -rf json -rff hotpaths.json
+ *
+ * Para 10M transacciones: -p size=10000000 (la carga tarda alrededor de un minuto).
+ *
+ * - save: cambio de monto de una transacción al azar, sin cambiar su padre
+ * - findById, findByParentId: lecturas de una transacción y de sus hijos directos
+ * - findIdsByType: una página de 100 IDs de un tipo desde un cursor al azar
+ * - calculateSum: TransactionService.calculateSum() de un nodo al azar (caché deshabilitada)
+ * - wouldCreateCycle: la validación de ciclos que hace save() al cambiar de padre, que es
+ *   isAncestor(id, nuevoPadre) sobre las etiquetas del motor de jerarquía, para pares al azar
+ *
+ * Los IDs de cada operación se sortean en el setup con semilla fija, así dos corridas con
+ * los mismos parámetros hacen las mismas operaciones y sus resultados se pueden comparar
+ * con JmhResultsDiff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Xss16m"})
+public class HotPathBenchmark {
+
+    private static final int ARITY = 4;
+    private static final int ID_PAGE = 100;
+    private static final long SEED = 42;
+
+    @Param({"materialized", "euler-tour"})
+    public String engine;
+
+    @Param({"chain", "kary", "powerlaw"})
+    public String shape;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private TransactionRepositoryImpl repository;
+    private TransactionService service;
+    private long[] parents;
+    private long[] probeIds;
+    private long[] cycleParents;
+    private int cursor;
+    private boolean amountToggle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new TransactionRepositoryImpl(null, null, engine);
+        service = new TransactionService(repository);
+        parents = SyntheticTree.parents(shape, size, ARITY, SEED);
+        SyntheticTree.load(repository, parents, SEED);
+
+        Random random = new Random(SEED);
+        probeIds = new long[1 << 16];
+        cycleParents = new long[probeIds.length];
+        for (int i = 0; i < probeIds.length; i++) {
+            probeIds[i] = random.nextInt(size);
+            cycleParents[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        long id = nextId();
+        amountToggle = !amountToggle;
+        repository.save(new Transaction(id, amountToggle ? new BigDecimal("2.50") : BigDecimal.ONE,
+                SyntheticTree.typeOf(id), parents[(int) id] < 0 ? null : parents[(int) id]));
+    }
+
+    @Benchmark
+    public Transaction findById() {
+        return repository.findById(nextId());
+    }
+
+    @Benchmark
+    public List<Transaction> findByParentId() {
+        return repository.findByParentId(nextId());
+    }
+
+    @Benchmark
+    public List<Long> findIdsByType() {
+        long after = nextId();
+        return repository.findIdsByType(SyntheticTree.typeOf(after), after, ID_PAGE);
+    }
+
+    @Benchmark
+    public BigDecimal calculateSum() {
+        return service.calculateSum(nextId());
+    }
+
+    @Benchmark
+    public boolean wouldCreateCycle() {
+        int i = cursor++ & (probeIds.length - 1);
+        return repository.isAncestor(probeIds[i], cycleParents[i]);
+    }
+
+    private long nextId() {
+        return probeIds[cursor++ & (probeIds.length - 1)];
+    }
+}
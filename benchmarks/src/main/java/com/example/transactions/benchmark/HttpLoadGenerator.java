@@ -0,0 +1,342 @@
+package com.example.transactions.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga en lazo abierto contra la aplicación completa sobre HTTP, con
+ * latencias en HdrHistogram corregidas por omisión coordinada.
+ *
+ * Levanta la aplicación en un puerto libre (BenchmarkServer), carga un árbol binario y
+ * manda requests a una tasa fija, sin esperar las respuestas: el request i tiene su hora
+ * de inicio prevista en inicio + i / rate, y su latencia se mide desde esa hora y no desde
+ * que se envió. Así, si el servidor (o el propio generador) se frena, los requests que
+ * debieron salir durante la pausa cuentan la espera que habría tenido un cliente real, en
+ * lugar de desaparecer de la muestra como en un lazo cerrado. Con más de max-in-flight
+ * requests sin responder el generador espera, y esa espera también se cuenta.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.transactions.benchmark.HttpLoadGenerator \
+ *     --rate=5000 --duration=60 --mix=put:20,get:50,types:10,sum:20 --histograms=target/load
+ * </pre>
+ *
+ * Opciones (las demás se pasan a la aplicación, por ejemplo --transactions.sum-cache.size=10000):
+ * - --rate: requests por segundo (1000)
+ * - --duration, --warmup: segundos medidos y de calentamiento previo (60 y 10)
+ * - --mix: pesos de cada operación (put:20,get:50,types:10,sum:20)
+ *   - put: PUT /transactions/{id} con un monto nuevo y el mismo padre
+ *   - get: GET /transactions/{id}
+ *   - types: GET /transactions/types/{type}?after={id}&amp;limit=100
+ *   - sum: GET /transactions/sum/{id} de los primeros niveles (los subárboles grandes)
+ * - --server: platform, virtual (Java 21) o reactive, como en ThreadModelLoadBenchmark (platform)
+ * - --tree-size: transacciones precargadas (100000)
+ * - --interval: segundos entre líneas del reporte en el tiempo (1)
+ * - --max-in-flight: requests sin responder antes de frenar el envío (10000)
+ * - --histograms: directorio donde escribir la distribución completa de cada operación en
+ *   formato .hgrm (graficable con el plotter de HdrHistogram)
+ *
+ * Durante la corrida imprime, por intervalo, los requests enviados y completados por
+ * segundo y los percentiles del intervalo; al final, los percentiles y el throughput de
+ * cada operación sobre la parte medida. Con la misma tasa, mezcla y árbol, dos corridas en
+ * la misma máquina son comparables.
+ */
+public final class HttpLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final String[] OPERATIONS = {"put", "get", "types", "sum"};
+    private static final int TYPES_PAGE = 100;
+    private static final int SUM_IDS = 1024;
+
+    private final Options options;
+    private final URI base;
+    private final HttpClient client;
+    private final int[] cumulativeWeights;
+
+    // Todas las respuestas, para el reporte por intervalo, y solo las posteriores al warmup
+    private final Recorder[] intervals = new Recorder[OPERATIONS.length];
+    private final Recorder[] measured = new Recorder[OPERATIONS.length];
+    private final LongAdder[] errors = new LongAdder[OPERATIONS.length];
+    private final LongAdder intervalSent = new LongAdder();
+    private final LongAdder intervalErrors = new LongAdder();
+
+    private HttpLoadGenerator(Options options, URI base) {
+        this.options = options;
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.cumulativeWeights = new int[OPERATIONS.length];
+        int total = 0;
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            total += options.weights[op];
+            cumulativeWeights[op] = total;
+            intervals[op] = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            measured[op] = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            errors[op] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        boolean virtual = options.server.equals("virtual");
+        boolean reactive = options.server.equals("reactive");
+        if (!virtual && !reactive && !options.server.equals("platform")) {
+            throw new IllegalArgumentException("Servidor desconocido: " + options.server);
+        }
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("--server=virtual necesita Java 21; esta JVM es " + Runtime.version());
+        }
+        try (BenchmarkServer server = BenchmarkServer.start(reactive, virtual, options.applicationArgs)) {
+            server.preload(options.treeSize);
+            new HttpLoadGenerator(options, server.baseUri()).run();
+        }
+    }
+
+    private void run() throws InterruptedException, IOException {
+        System.out.printf("server=%s rate=%d/s duration=%ds warmup=%ds mix=%s tree=%d%n", options.server,
+                options.rate, options.duration, options.warmup, options.mix, options.treeSize);
+        System.out.printf("%8s %10s %10s %8s %10s %10s %10s %10s%n",
+                "t(s)", "sent/s", "done/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(options.warmup);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(options.duration);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = TimeUnit.SECONDS.toNanos(options.interval);
+        reporter.scheduleAtFixedRate(() -> reportInterval(start, warmupEnd),
+                start - System.nanoTime() + intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double nanosPerRequest = 1e9 / options.rate;
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * nanosPerRequest);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            int op = pickOperation(random);
+            boolean measuredRequest = intended >= warmupEnd;
+            intervalSent.increment();
+            client.sendAsync(request(op, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (error != null || (response.statusCode() != 200 && response.statusCode() != 304)) {
+                            intervalErrors.increment();
+                            if (measuredRequest) {
+                                errors[op].increment();
+                            }
+                            return;
+                        }
+                        long micros = Math.min(HIGHEST_TRACKABLE_MICROS, (System.nanoTime() - intended) / 1000);
+                        intervals[op].recordValue(micros);
+                        if (measuredRequest) {
+                            measured[op].recordValue(micros);
+                        }
+                    });
+        }
+        // Espera las respuestas pendientes, que siguen contando desde su hora prevista
+        boolean drained = inFlight.tryAcquire(options.maxInFlight, 60, TimeUnit.SECONDS);
+        reporter.shutdown();
+        reporter.awaitTermination(options.interval + 1L, TimeUnit.SECONDS);
+        reportInterval(start, warmupEnd);
+        if (!drained) {
+            System.out.println("Quedaron requests sin respuesta después de 60 s; no se cuentan");
+        }
+        reportTotals();
+    }
+
+    private int pickOperation(ThreadLocalRandom random) {
+        int roll = random.nextInt(cumulativeWeights[OPERATIONS.length - 1]);
+        int op = 0;
+        while (roll >= cumulativeWeights[op]) {
+            op++;
+        }
+        return op;
+    }
+
+    private HttpRequest request(int op, ThreadLocalRandom random) {
+        int treeSize = options.treeSize;
+        return switch (OPERATIONS[op]) {
+            case "put" -> {
+                long id = 1 + random.nextInt(treeSize - 1);
+                String body = "{\"amount\": " + (1 + random.nextInt(1000)) + ", \"type\": \""
+                        + BenchmarkServer.typeOf(id) + "\", \"parent_id\": " + (id - 1) / 2 + "}";
+                yield HttpRequest.newBuilder(base.resolve("/transactions/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            case "get" -> HttpRequest.newBuilder(base.resolve("/transactions/" + random.nextInt(treeSize))).GET().build();
+            case "types" -> {
+                long after = random.nextInt(treeSize);
+                yield HttpRequest.newBuilder(base.resolve("/transactions/types/" + BenchmarkServer.typeOf(after)
+                        + "?after=" + after + "&limit=" + TYPES_PAGE)).GET().build();
+            }
+            default -> HttpRequest.newBuilder(base.resolve("/transactions/sum/"
+                    + random.nextInt(Math.min(SUM_IDS, treeSize)))).GET().build();
+        };
+    }
+
+    /**
+     * Una línea con lo enviado y completado desde la anterior, y los percentiles de las
+     * respuestas del intervalo (todas las operaciones).
+     */
+    private synchronized void reportInterval(long start, long warmupEnd) {
+        Histogram interval = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        for (Recorder recorder : intervals) {
+            interval.add(recorder.getIntervalHistogram());
+        }
+        long now = System.nanoTime();
+        long failed = intervalErrors.sumThenReset();
+        double seconds = options.interval;
+        System.out.printf("%8.1f %10.0f %10.0f %8d %10.2f %10.2f %10.2f %10.2f%s%n",
+                (now - start) / 1e9, intervalSent.sumThenReset() / seconds,
+                (interval.getTotalCount() + failed) / seconds, failed,
+                interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                interval.getValueAtPercentile(99.9) / 1000.0, interval.getMaxValue() / 1000.0,
+                now < warmupEnd ? "  (warmup)" : "");
+    }
+
+    private void reportTotals() throws IOException {
+        System.out.println();
+        System.out.printf("%-6s %10s %8s %10s %10s %10s %10s %10s %10s %10s %10s%n", "op", "requests", "errors",
+                "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "p99.99 ms", "max ms");
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        List<Histogram> histograms = new ArrayList<>();
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            Histogram histogram = measured[op].getIntervalHistogram();
+            histograms.add(histogram);
+            total.add(histogram);
+            totalErrors += errors[op].sum();
+            if (options.weights[op] > 0) {
+                printTotals(OPERATIONS[op], histogram, errors[op].sum());
+            }
+        }
+        printTotals("total", total, totalErrors);
+        double achieved = (total.getTotalCount() + totalErrors) / (double) options.duration;
+        if (achieved < options.rate * 0.95) {
+            System.out.printf("%nSolo se completaron %.0f req/s de los %d pedidos: el servidor o el generador "
+                    + "están saturados y las latencias incluyen la cola acumulada%n", achieved, options.rate);
+        }
+
+        if (options.histograms != null) {
+            Files.createDirectories(options.histograms);
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                writeHistogram(options.histograms.resolve(OPERATIONS[op] + ".hgrm"), histograms.get(op));
+            }
+            writeHistogram(options.histograms.resolve("total.hgrm"), total);
+            System.out.println("Histogramas en " + options.histograms.toAbsolutePath());
+        }
+    }
+
+    private void printTotals(String label, Histogram histogram, long failed) {
+        System.out.printf("%-6s %10d %8d %10.0f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", label,
+                histogram.getTotalCount(), failed, histogram.getTotalCount() / (double) options.duration,
+                histogram.getMean() / 1000.0, histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getValueAtPercentile(99.99) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    // Valores en milisegundos
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    /**
+     * Opciones --clave=valor; las que no son del generador quedan para la aplicación.
+     */
+    private static final class Options {
+        private int rate = 1000;
+        private int duration = 60;
+        private int warmup = 10;
+        private String mix = "put:20,get:50,types:10,sum:20";
+        private final int[] weights = new int[OPERATIONS.length];
+        private String server = "platform";
+        private int treeSize = 100_000;
+        private int interval = 1;
+        private int maxInFlight = 10_000;
+        private Path histograms;
+        private String[] applicationArgs;
+
+        private static Options parse(String[] args) {
+            Options options = new Options();
+            List<String> applicationArgs = new ArrayList<>();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                String key = equals > 0 ? arg.substring(0, equals) : arg;
+                String value = equals > 0 ? arg.substring(equals + 1) : "";
+                switch (key) {
+                    case "--rate" -> options.rate = positive(key, value);
+                    case "--duration" -> options.duration = positive(key, value);
+                    case "--warmup" -> options.warmup = Integer.parseInt(value);
+                    case "--mix" -> options.mix = value;
+                    case "--server" -> options.server = value;
+                    case "--tree-size" -> options.treeSize = positive(key, value);
+                    case "--interval" -> options.interval = positive(key, value);
+                    case "--max-in-flight" -> options.maxInFlight = positive(key, value);
+                    case "--histograms" -> options.histograms = Path.of(value);
+                    default -> applicationArgs.add(arg);
+                }
+            }
+            options.applicationArgs = applicationArgs.toArray(new String[0]);
+            options.parseMix();
+            return options;
+        }
+
+        private void parseMix() {
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.trim().split(":");
+                int op = List.of(OPERATIONS).indexOf(parts[0]);
+                if (op < 0 || parts.length != 2) {
+                    throw new IllegalArgumentException("--mix inválido: " + mix + " (operaciones: put, get, types, sum)");
+                }
+                weights[op] = Integer.parseInt(parts[1]);
+            }
+            if (java.util.Arrays.stream(weights).sum() <= 0) {
+                throw new IllegalArgumentException("--mix sin operaciones: " + mix);
+            }
+        }
+
+        private static int positive(String key, String value) {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 1) {
+                throw new IllegalArgumentException(key + " debe ser positivo: " + value);
+            }
+            return parsed;
+        }
+    }
+}
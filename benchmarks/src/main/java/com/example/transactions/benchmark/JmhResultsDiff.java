@@ -0,0 +1,129 @@
+package com.example.transactions.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dos archivos de resultados de JMH en JSON (-rf json), por ejemplo los de dos
+ * versiones:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.transactions.benchmark.JmhResultsDiff \
+ *     hotpaths-1.0.0.json hotpaths-1.1.0.json 10
+ * </pre>
+ *
+ * Empareja los resultados por benchmark, parámetros y modo; los de un @Group tienen además
+ * una fila por método. Un cambio es regresión (o mejora) si supera el umbral en porcentaje
+ * (10 por defecto) en el sentido del modo (en thrpt más es mejor, en los demás menos) y
+ * además la diferencia es mayor que la suma de los errores de las dos mediciones. Termina
+ * con código 1 si hay alguna regresión, para usarlo en CI.
+ */
+public final class JmhResultsDiff {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    private static final String PACKAGE_PREFIX = JmhResultsDiff.class.getPackageName() + ".";
+
+    private JmhResultsDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: JmhResultsDiff <base.json> <nuevo.json> [umbral %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> current = read(Path.of(args[1]));
+
+        int width = "benchmark".length();
+        for (String key : current.keySet()) {
+            width = Math.max(width, key.length());
+        }
+        for (String key : baseline.keySet()) {
+            width = Math.max(width, key.length());
+        }
+        String row = "%-" + width + "s %14s %14s %-8s %9s  %s%n";
+        System.out.printf(row, "benchmark", "base", "nuevo", "unidad", "cambio", "");
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf(row, entry.getKey(), "-", format(after.score()), after.unit(), "-", "nuevo");
+                continue;
+            }
+            double change = (after.score() - before.score()) / before.score() * 100;
+            double worse = after.higherIsBetter() ? -change : change;
+            boolean outsideError = Math.abs(after.score() - before.score()) > before.error() + after.error();
+            String verdict = "";
+            if (outsideError && worse > threshold) {
+                verdict = "REGRESION";
+                regressions++;
+            } else if (outsideError && worse < -threshold) {
+                verdict = "mejora";
+            }
+            System.out.printf(row, entry.getKey(), format(before.score()), format(after.score()), after.unit(),
+                    String.format("%+.1f%%", change), verdict);
+        }
+        for (Map.Entry<String, Score> entry : baseline.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                Score before = entry.getValue();
+                System.out.printf(row, entry.getKey(), format(before.score()), "-", before.unit(), "-", "eliminado");
+            }
+        }
+
+        System.out.printf("%d comparados, %d regresiones (umbral %.1f%%)%n",
+                current.keySet().stream().filter(baseline::containsKey).count(), regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Score de cada resultado, por "Benchmark.método{parámetros} modo" y, para los métodos
+     * de un @Group, "... modo :método". Las métricas de los profilers (·gc.alloc.rate...)
+     * no se comparan.
+     */
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            String mode = result.path("mode").asText();
+            boolean higherIsBetter = mode.equals("thrpt");
+            String benchmark = result.path("benchmark").asText();
+            if (benchmark.startsWith(PACKAGE_PREFIX)) {
+                benchmark = benchmark.substring(PACKAGE_PREFIX.length());
+            }
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            String key = benchmark + (params.isEmpty() ? "" : params.toString()) + " " + mode;
+
+            scores.put(key, score(result.path("primaryMetric"), higherIsBetter));
+            result.path("secondaryMetrics").fields().forEachRemaining(metric -> {
+                if (!metric.getKey().startsWith("·")) {
+                    scores.put(key + " :" + metric.getKey(), score(metric.getValue(), higherIsBetter));
+                }
+            });
+        }
+        return scores;
+    }
+
+    private static Score score(JsonNode metric, boolean higherIsBetter) {
+        // Con una sola iteración JMH escribe el error como "NaN"
+        double error = metric.path("scoreError").asDouble();
+        return new Score(metric.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                metric.path("scoreUnit").asText(), higherIsBetter);
+    }
+
+    private static String format(double score) {
+        return String.format(score >= 100 ? "%.0f" : "%.3f", score);
+    }
+
+    private record Score(double score, double error, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.repository.LongConcurrentMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de get/put del almacén principal: LongConcurrentMap vs ConcurrentHashMap&lt;Long, V&gt;.
+ *
+ * - keys=dense: IDs secuenciales 0..N-1 (el caso típico del servicio)
+ * - keys=sparse: IDs aleatorios de 64 bits
+ *
+ * Los put sobrescriben claves existentes para que el tamaño se mantenga estable.
+ * La cantidad de hilos se elige desde la línea de comandos:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar LongMapBenchmark -t 1
+ * java -jar benchmarks/target/benchmarks.jar LongMapBenchmark -t 32
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class LongMapBenchmark {
+
+    private static final int SIZE = 1 << 20;
+
+    @Param({"dense", "sparse"})
+    public String keys;
+
+    private long[] keySet;
+    private LongConcurrentMap<Object> longMap;
+    private ConcurrentHashMap<Long, Object> concurrentHashMap;
+    private final Object value = new Object();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        keySet = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keySet[i] = "dense".equals(keys) ? i : random.nextLong();
+        }
+        longMap = new LongConcurrentMap<>();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        for (long key : keySet) {
+            longMap.put(key, value);
+            concurrentHashMap.put(key, value);
+        }
+    }
+
+    /**
+     * Cursor propio de cada hilo sobre el arreglo de claves.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            position = new Random(Thread.currentThread().getId()).nextInt(SIZE);
+        }
+
+        int next() {
+            position = (position + 0x9E3779B1) & (SIZE - 1);
+            return position;
+        }
+    }
+
+    @Benchmark
+    public Object longMapGet(Cursor cursor) {
+        return longMap.get(keySet[cursor.next()]);
+    }
+
+    @Benchmark
+    public Object concurrentHashMapGet(Cursor cursor) {
+        return concurrentHashMap.get(keySet[cursor.next()]);
+    }
+
+    @Benchmark
+    public Object longMapPut(Cursor cursor) {
+        return longMap.put(keySet[cursor.next()], value);
+    }
+
+    @Benchmark
+    public Object concurrentHashMapPut(Cursor cursor) {
+        return concurrentHashMap.put(keySet[cursor.next()], value);
+    }
+}
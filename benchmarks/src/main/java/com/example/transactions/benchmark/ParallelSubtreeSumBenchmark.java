@@ -0,0 +1,104 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.LongConcurrentMap;
+import com.example.transactions.repository.ParallelSubtreeSum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de la suma de todos los subárboles (lo que hace MaterializedSumIndex al reaplicar
+ * el log sin snapshot) con ParallelSubtreeSum: en paralelo en el pool común vs. secuencial
+ * (umbral Integer.MAX_VALUE, un solo recorrido con SubtreeTraversal). perInsert es lo que
+ * se hacía antes: reaplicar cada alta propagando su monto a todos sus ancestros, en
+ * O(n · profundidad); en las formas profundas conviene limitarlo con -p.
+ *
+ *   java -jar benchmarks/target/benchmarks.jar ParallelSubtreeSumBenchmark
+ *
+ * - shape=balanced: árbol completo de aridad 8
+ * - shape=skewed: cada transacción cuelga de una de las últimas 16 (ramas largas y
+ *   desparejas, la estimación de tamaño se equivoca)
+ * - shape=chain: cadena de profundidad size; no hay nada que repartir y mide el costo del
+ *   modo paralelo cuando no ayuda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ParallelSubtreeSumBenchmark {
+
+    @Param({"balanced", "skewed", "chain"})
+    public String shape;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private final LongConcurrentMap<Transaction> transactions = new LongConcurrentMap<>();
+    private final Map<Long, Set<Long>> children = new ConcurrentHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (long id = 0; id < size; id++) {
+            Long parentId = id == 0 ? null : switch (shape) {
+                case "balanced" -> (id - 1) / 8;
+                case "skewed" -> Math.max(0, id - 1 - random.nextInt(16));
+                default -> id - 1;
+            };
+            transactions.put(id, new Transaction(id, BigDecimal.valueOf(1 + random.nextInt(10_000), 2), "type", parentId));
+            if (parentId != null) {
+                children.computeIfAbsent(parentId, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> sequential() {
+        Map<Long, BigDecimal> sums = new ConcurrentHashMap<>(size * 2);
+        ParallelSubtreeSum.computeAll(transactions, children, sums, ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        return sums;
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> perInsert() {
+        Map<Long, BigDecimal> sums = new ConcurrentHashMap<>(size * 2);
+        for (long id = 0; id < size; id++) {
+            Transaction transaction = transactions.get(id);
+            BigDecimal amount = transaction.getAmount();
+            sums.put(id, amount);
+            for (Long parentId = transaction.getParentId(); parentId != null;
+                 parentId = transactions.get(parentId).getParentId()) {
+                sums.merge(parentId, amount, BigDecimal::add);
+            }
+        }
+        return sums;
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> parallel() {
+        Map<Long, BigDecimal> sums = new ConcurrentHashMap<>(size * 2);
+        ParallelSubtreeSum.computeAll(transactions, children, sums, ForkJoinPool.commonPool(),
+                ParallelSubtreeSum.DEFAULT_SEQUENTIAL_THRESHOLD);
+        return sums;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.SnapshotStore;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.repository.WriteAheadLog;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tiempo hasta que el repositorio queda listo al arrancar: reaplicar el WAL completo
+ * vs mapear un snapshot y reconstruir los índices en paralelo.
+ *
+ * No es un benchmark JMH: cada modo debe medirse en una JVM nueva. Primero se generan
+ * el log y el snapshot con los mismos datos y después se mide cada recuperación:
+ *
+ * <pre>
+ * java -Xmx3g -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.RecoveryTime prepare 2000000 /tmp/recovery
+ * java -Xmx3g -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.RecoveryTime wal 2000000 /tmp/recovery
+ * java -Xmx3g -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.RecoveryTime snapshot 2000000 /tmp/recovery
+ * </pre>
+ */
+public final class RecoveryTime {
+
+    private RecoveryTime() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mode = args.length > 0 ? args[0] : "prepare";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Path directory = Path.of(args.length > 2 ? args[2] : "/tmp/recovery");
+        Path walDirectory = directory.resolve("wal");
+        Path snapshotDirectory = directory.resolve("snapshot");
+
+        switch (mode) {
+            case "prepare" -> {
+                List<Transaction> transactions = generate(rows);
+                long start = System.nanoTime();
+                try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ZERO, 1 << 20)) {
+                    log.replay(t -> { });
+                    long sequence = 0;
+                    for (Transaction transaction : transactions) {
+                        sequence = log.append(transaction);
+                    }
+                    log.awaitDurable(sequence);
+                }
+                System.out.printf("wal written:       %,d ms%n", (System.nanoTime() - start) / 1_000_000);
+                start = System.nanoTime();
+                new SnapshotStore(snapshotDirectory).write(0, transactions);
+                System.out.printf("snapshot written:  %,d ms%n", (System.nanoTime() - start) / 1_000_000);
+            }
+            case "wal" -> {
+                long start = System.nanoTime();
+                try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ZERO, 1 << 20)) {
+                    report("wal replay", start, new TransactionRepositoryImpl(log), rows);
+                }
+            }
+            case "snapshot" -> {
+                long start = System.nanoTime();
+                report("snapshot load", start,
+                        new TransactionRepositoryImpl(null, new SnapshotStore(snapshotDirectory)), rows);
+            }
+            default -> throw new IllegalArgumentException("Modo desconocido: " + mode);
+        }
+    }
+
+    private static void report(String label, long start, TransactionRepositoryImpl repository, int rows) {
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%s: %,d rows ready in %,d ms (sum of root: %s)%n",
+                label, repository.findAll().size(), elapsedMs, repository.findSubtreeSum(1L));
+    }
+
+    /**
+     * Mismo árbol aleatorio que RepositoryFootprint: 16 tipos, ~1% de raíces.
+     */
+    private static List<Transaction> generate(int rows) {
+        Random random = new Random(42);
+        List<Transaction> transactions = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            Long parentId = id == 1 || random.nextInt(100) == 0 ? null : 1 + (long) random.nextInt((int) id - 1);
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+            transactions.add(new Transaction(id, amount, "type-" + random.nextInt(16), parentId));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.OffHeapTransactionRepository;
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compara el footprint de heap y las pausas de GC entre el repositorio en heap
+ * (ConcurrentHashMap) y el repositorio columnar off-heap.
+ *
+ * No es un benchmark JMH: cada implementación debe medirse en una JVM separada
+ * para que el heap de una no contamine a la otra.
+ *
+ * <pre>
+ * java -Xmx512m -XX:MaxDirectMemorySize=2g -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.RepositoryFootprint offheap 2000000
+ * </pre>
+ *
+ * Carga N transacciones (árbol aleatorio, 16 tipos), fuerza un GC completo y reporta
+ * heap retenido, memoria directa, cantidad de pausas, pausa máxima y tiempo total de GC.
+ */
+public final class RepositoryFootprint {
+
+    private static final AtomicLong PAUSES = new AtomicLong();
+    private static final AtomicLong TOTAL_PAUSE_MS = new AtomicLong();
+    private static final AtomicLong MAX_PAUSE_MS = new AtomicLong();
+
+    private RepositoryFootprint() {
+    }
+
+    public static void main(String[] args) {
+        String implementation = args.length > 0 ? args[0] : "heap";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        TransactionRepository repository = "offheap".equals(implementation)
+                ? new OffHeapTransactionRepository()
+                : new TransactionRepositoryImpl();
+
+        fullGc();
+        long heapBefore = usedHeap();
+        listenToGcPauses();
+
+        long start = System.nanoTime();
+        Random random = new Random(42);
+        for (long id = 1; id <= rows; id++) {
+            Long parentId = id == 1 || random.nextInt(100) == 0 ? null : 1 + (long) random.nextInt((int) id - 1);
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+            // new String(): como al deserializar JSON, cada request trae su propia instancia del tipo
+            repository.save(new Transaction(id, amount, new String("type-" + random.nextInt(16)), parentId));
+        }
+        long loadMs = (System.nanoTime() - start) / 1_000_000;
+
+        long pausesDuringLoad = PAUSES.get();
+        long pauseMsDuringLoad = TOTAL_PAUSE_MS.get();
+        long maxPauseMs = MAX_PAUSE_MS.get();
+
+        fullGc();
+        long retainedHeap = Math.max(0, usedHeap() - heapBefore);
+
+        System.out.printf("implementation=%s rows=%d%n", implementation, rows);
+        System.out.printf("  load time:          %,d ms%n", loadMs);
+        System.out.printf("  retained heap:      %,d MB (%d bytes/row)%n", retainedHeap >> 20, retainedHeap / rows);
+        System.out.printf("  direct memory:      %,d MB%n", directMemory() >> 20);
+        System.out.printf("  GC pauses (load):   %d, total %,d ms, max %,d ms%n",
+                pausesDuringLoad, pauseMsDuringLoad, maxPauseMs);
+
+        // Mantener vivo el repositorio hasta después de la medición
+        System.out.printf("  checksum:           %s%n", repository.findSubtreeSum(1L));
+    }
+
+    private static void listenToGcPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // Los ciclos concurrentes no detienen la aplicación
+                if (info.getGcName().contains("Concurrent") || info.getGcName().contains("Cycles")) {
+                    return;
+                }
+                long duration = info.getGcInfo().getDuration();
+                PAUSES.incrementAndGet();
+                TOTAL_PAUSE_MS.addAndGet(duration);
+                MAX_PAUSE_MS.accumulateAndGet(duration, Math::max);
+            }, null, null);
+        }
+    }
+
+    private static void fullGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directMemory() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.LongConcurrentMap;
+import com.example.transactions.repository.SubtreeTraversal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorrido completo de un subárbol sumando montos: SubtreeTraversal vs. el recorrido
+ * recursivo original de TransactionService (un HashSet de visitados y una lista de hijos
+ * nueva por nodo).
+ *
+ * Ambos recorren las mismas estructuras que el repositorio en heap (LongConcurrentMap como
+ * almacén y parentId -> conjunto de hijos). La asignación por operación se ve con
+ * -prof gc (gc.alloc.rate.norm):
+ *
+ *   java -jar benchmarks/target/benchmarks.jar SubtreeTraversalBenchmark -prof gc
+ *
+ * - shape=chain: cadena de profundidad size; el recursivo necesita -Xss grande para no
+ *   desbordar la pila, el iterativo no
+ * - shape=random: árbol recursivo aleatorio con una única raíz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Xss256m"})
+public class SubtreeTraversalBenchmark {
+
+    @Param({"chain", "random"})
+    public String shape;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private final LongConcurrentMap<Transaction> transactions = new LongConcurrentMap<>();
+    private final Map<Long, Set<Long>> children = new ConcurrentHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (long id = 0; id < size; id++) {
+            Long parentId = id == 0 ? null : "chain".equals(shape) ? id - 1 : (long) random.nextInt((int) id);
+            transactions.put(id, new Transaction(id, BigDecimal.valueOf(1 + random.nextInt(10_000), 2), "type", parentId));
+            if (parentId != null) {
+                children.computeIfAbsent(parentId, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal recursive() {
+        return sumRecursive(0L, new HashSet<>());
+    }
+
+    @Benchmark
+    public BigDecimal iterative() {
+        BigDecimal[] total = {BigDecimal.ZERO};
+        SubtreeTraversal.walk(children, 0L, id -> {
+            Transaction transaction = transactions.get(id);
+            if (transaction == null) {
+                return false;
+            }
+            if (transaction.getAmount() != null) {
+                total[0] = total[0].add(transaction.getAmount());
+            }
+            return true;
+        });
+        return total[0];
+    }
+
+    private BigDecimal sumRecursive(Long id, Set<Long> visited) {
+        if (!visited.add(id)) {
+            return BigDecimal.ZERO;
+        }
+        Transaction transaction = transactions.get(id);
+        if (transaction == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal sum = transaction.getAmount() != null ? transaction.getAmount() : BigDecimal.ZERO;
+        Set<Long> childIds = children.get(id);
+        List<Transaction> childList = new ArrayList<>();
+        if (childIds != null) {
+            for (Long childId : childIds) {
+                childList.add(transactions.get(childId));
+            }
+        }
+        for (Transaction child : childList) {
+            sum = sum.add(sumRecursive(child.getId(), visited));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.dto.TransactionRequest;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de GET /transactions/sum/{id} (TransactionService.calculateSum)
+ * según la cantidad de transacciones almacenadas.
+ *
+ * El árbol es un árbol recursivo aleatorio con semilla fija: cada transacción
+ * cuelga de una transacción anterior elegida al azar, o es raíz con probabilidad 1/100.
+ *
+ * - sumSmallSubtree: suma de una raíz cuyo subárbol tiene tamaño acotado,
+ *   mide el costo de resolver los hijos independientemente del tamaño total.
+ * - sumRandomNode: suma de un nodo cualquiera.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss16m"})
+public class SumLatencyBenchmark {
+
+    private static final int SMALL_SUBTREE_SIZE = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private TransactionService service;
+    private long smallRootId;
+    private long[] probeIds;
+    private int probeCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new TransactionService(new TransactionRepositoryImpl());
+        Random random = new Random(42);
+
+        // Subárbol de tamaño fijo al principio, para aislar el efecto del tamaño total
+        smallRootId = 1L;
+        service.createOrUpdateTransaction(smallRootId, request(random, null));
+        for (long id = 2; id <= SMALL_SUBTREE_SIZE; id++) {
+            service.createOrUpdateTransaction(id, request(random, 1 + (long) random.nextInt((int) id - 1)));
+        }
+
+        for (long id = SMALL_SUBTREE_SIZE + 1; id <= size; id++) {
+            long earlier = id - SMALL_SUBTREE_SIZE - 1;
+            Long parentId = earlier == 0 || random.nextInt(100) == 0
+                    ? null
+                    : SMALL_SUBTREE_SIZE + 1 + (long) random.nextInt((int) earlier);
+            service.createOrUpdateTransaction(id, request(random, parentId));
+        }
+
+        probeIds = new long[1024];
+        for (int i = 0; i < probeIds.length; i++) {
+            probeIds[i] = 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumSmallSubtree() {
+        return service.calculateSum(smallRootId);
+    }
+
+    @Benchmark
+    public BigDecimal sumRandomNode() {
+        long id = probeIds[probeCursor++ & (probeIds.length - 1)];
+        return service.calculateSum(id);
+    }
+
+    private static TransactionRequest request(Random random, Long parentId) {
+        return new TransactionRequest(BigDecimal.valueOf(1 + random.nextInt(10_000), 2), "type-" + random.nextInt(16), parentId);
+    }
+}
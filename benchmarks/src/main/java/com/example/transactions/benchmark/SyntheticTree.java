@@ -0,0 +1,98 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jerarquías sintéticas de IDs 0..size-1 con una única raíz (0), generadas con semilla
+ * fija para que dos corridas midan exactamente el mismo árbol.
+ *
+ * - chain: cada transacción cuelga de la anterior (profundidad size)
+ * - kary: árbol k-ario balanceado, el padre de i es (i - 1) / k (profundidad log_k size)
+ * - powerlaw: conexión preferencial, cada transacción cuelga de una anterior elegida con
+ *   probabilidad proporcional a su grado; pocos nodos concentran miles de hijos y la
+ *   mayoría son hojas, como las cuentas con muchos movimientos
+ *
+ * En las tres el padre tiene siempre un ID menor que el hijo: mover una transacción a
+ * cualquier ancestro original nunca forma un ciclo.
+ */
+final class SyntheticTree {
+
+    private static final String[] TYPES = {"cars", "shopping", "travel", "food"};
+
+    // Transacciones por saveAll() al cargar
+    private static final int LOAD_CHUNK = 10_000;
+
+    private SyntheticTree() {
+    }
+
+    /**
+     * Padre de cada ID (-1 para la raíz).
+     */
+    static long[] parents(String shape, int size, int arity, long seed) {
+        long[] parents = new long[size];
+        if (size == 0) {
+            return parents;
+        }
+        parents[0] = -1;
+        switch (shape) {
+            case "chain" -> {
+                for (int id = 1; id < size; id++) {
+                    parents[id] = id - 1;
+                }
+            }
+            case "kary" -> {
+                for (int id = 1; id < size; id++) {
+                    parents[id] = (id - 1) / arity;
+                }
+            }
+            case "powerlaw" -> {
+                // Cada arista aporta sus dos extremos: elegir un extremo al azar es elegir un
+                // nodo con probabilidad proporcional a su grado
+                Random random = new Random(seed);
+                int[] endpoints = new int[2 * size];
+                int count = 0;
+                endpoints[count++] = 0;
+                for (int id = 1; id < size; id++) {
+                    int parent = endpoints[random.nextInt(count)];
+                    parents[id] = parent;
+                    endpoints[count++] = parent;
+                    endpoints[count++] = id;
+                }
+            }
+            default -> throw new IllegalArgumentException("Forma desconocida: " + shape);
+        }
+        return parents;
+    }
+
+    /**
+     * Tipo con el que se carga cada ID: los cuatro tipos intercalados.
+     */
+    static String typeOf(long id) {
+        return TYPES[(int) (id % TYPES.length)];
+    }
+
+    /**
+     * Guarda el árbol con montos pseudoaleatorios y los tipos de typeOf(), de las hojas hacia
+     * la raíz: cada alta encuentra a su padre todavía sin guardar, así la carga es O(n) con
+     * cualquier forma y motor de jerarquía.
+     */
+    static void load(TransactionRepository repository, long[] parents, long seed) {
+        Random random = new Random(seed);
+        List<Transaction> chunk = new ArrayList<>(LOAD_CHUNK);
+        for (int id = parents.length - 1; id >= 0; id--) {
+            chunk.add(new Transaction((long) id, BigDecimal.valueOf(1 + random.nextInt(100_000), 2),
+                    typeOf(id), parents[id] < 0 ? null : parents[id]));
+            if (chunk.size() == LOAD_CHUNK) {
+                repository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        repository.saveAll(chunk);
+    }
+}
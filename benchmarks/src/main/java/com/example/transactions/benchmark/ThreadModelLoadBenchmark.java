@@ -0,0 +1,198 @@
+package com.example.transactions.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencia (p50/p99) y throughput de la aplicación completa, sobre HTTP, con los requests
+ * corriendo en el pool de hilos de plataforma de Tomcat, en hilos virtuales o en el event
+ * loop de Netty de la variante WebFlux (módulo reactive).
+ *
+ * No es un benchmark JMH: levanta la aplicación en un puerto libre, carga un árbol y
+ * lanza clientes en lazo cerrado (cada uno manda el siguiente request al recibir la
+ * respuesta) con una mezcla de 20% PUT /transactions/{id}, 50% GET /transactions/{id} y
+ * 30% GET /transactions/sum/{id}. Con más clientes que hilos de Tomcat (200 por defecto)
+ * los requests esperan un hilo libre en modo platform; en modo virtual cada request tiene
+ * el suyo; en modo reactive las lecturas corren en los pocos hilos del event loop y solo
+ * los PUT pasan a un pool elástico. El WAL está habilitado en un directorio temporal para
+ * que los PUT esperen el fsync del group commit, que es lo que retiene un hilo sin usar CPU.
+ *
+ * Para comparar los stacks con muchas conexiones abiertas, usar miles de clientes (cada
+ * cliente mantiene su conexión): por ejemplo 2000 o 5000, con ulimit -n suficiente.
+ *
+ * Cada modo se mide en una JVM nueva; el modo virtual necesita Java 21:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.ThreadModelLoadBenchmark platform 400 30
+ * java -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.ThreadModelLoadBenchmark virtual 400 30
+ * java -cp benchmarks/target/benchmarks.jar \
+ *     com.example.transactions.benchmark.ThreadModelLoadBenchmark reactive 400 30
+ * </pre>
+ *
+ * Los argumentos después de la duración se pasan a la aplicación, por ejemplo
+ * --transactions.hierarchy.engine=euler-tour o --transactions.wal.enabled=false.
+ */
+public final class ThreadModelLoadBenchmark {
+
+    private static final int TREE_SIZE = 100_000;
+    private static final int WARMUP_SECONDS = 5;
+    private static final String[] OPERATIONS = {"put", "get", "sum"};
+
+    private ThreadModelLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "platform";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String[] applicationArgs = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : new String[0];
+
+        boolean virtual = mode.equals("virtual");
+        boolean reactive = mode.equals("reactive");
+        if (!virtual && !reactive && !mode.equals("platform")) {
+            throw new IllegalArgumentException("Modo desconocido: " + mode);
+        }
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("El modo virtual necesita Java 21; esta JVM es " + Runtime.version());
+        }
+
+        try (BenchmarkServer server = BenchmarkServer.start(reactive, virtual, applicationArgs)) {
+            server.preload(TREE_SIZE);
+            run(mode, clients, seconds, server.baseUri());
+        }
+    }
+
+    private static void run(String mode, int clients, int seconds, URI base) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Recorder[] recorders = new Recorder[clients];
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            Recorder recorder = recorders[c] = new Recorder();
+            Thread thread = new Thread(() -> {
+                try {
+                    drive(client, base, recorder, errors, warmupEnd, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        System.out.printf("mode=%s clients=%d duration=%ds errors=%d%n", mode, clients, seconds, errors.get());
+        System.out.printf("%-6s %12s %10s %10s %10s %10s%n", "op", "requests", "req/s", "p50 ms", "p99 ms", "max ms");
+        long[] all = new long[0];
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            long[] latencies = merge(recorders, op);
+            print(OPERATIONS[op], latencies, seconds);
+            all = concat(all, latencies);
+        }
+        print("total", all, seconds);
+    }
+
+    /**
+     * Lazo cerrado de un cliente: hasta warmupEnd no registra latencias.
+     */
+    private static void drive(HttpClient client, URI base, Recorder recorder, AtomicLong errors,
+                              long warmupEnd, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            int roll = random.nextInt(100);
+            int op = roll < 20 ? 0 : roll < 70 ? 1 : 2;
+            HttpRequest request = switch (op) {
+                case 0 -> {
+                    long id = 1 + random.nextInt(TREE_SIZE - 1);
+                    String body = "{\"amount\": " + (1 + random.nextInt(1000)) + ", \"type\": \"cars\", \"parent_id\": "
+                            + (id - 1) / 2 + "}";
+                    yield HttpRequest.newBuilder(base.resolve("/transactions/" + id))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                }
+                case 1 -> HttpRequest.newBuilder(base.resolve("/transactions/" + random.nextInt(TREE_SIZE))).GET().build();
+                // Sumas de los primeros niveles: los subárboles más grandes
+                default -> HttpRequest.newBuilder(base.resolve("/transactions/sum/" + random.nextInt(1024))).GET().build();
+            };
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (now >= warmupEnd) {
+                recorder.add(op, System.nanoTime() - now);
+            }
+        }
+    }
+
+    private static long[] merge(Recorder[] recorders, int op) {
+        long[] merged = new long[0];
+        for (Recorder recorder : recorders) {
+            merged = concat(merged, Arrays.copyOf(recorder.latencies[op], recorder.sizes[op]));
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static void print(String label, long[] latencies, int seconds) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-6s %12d %10.0f %10.2f %10.2f %10.2f%n", label, sorted.length,
+                (double) sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0.0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Latencias en nanosegundos de un cliente, por operación; solo lo escribe su hilo.
+     */
+    private static final class Recorder {
+        private final long[][] latencies = new long[OPERATIONS.length][1024];
+        private final int[] sizes = new int[OPERATIONS.length];
+
+        private void add(int op, long nanos) {
+            if (sizes[op] == latencies[op].length) {
+                latencies[op] = Arrays.copyOf(latencies[op], sizes[op] * 2);
+            }
+            latencies[op][sizes[op]++] = nanos;
+        }
+    }
+}
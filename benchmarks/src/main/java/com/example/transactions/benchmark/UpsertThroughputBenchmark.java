@@ -0,0 +1,94 @@
+package com.example.transactions.benchmark;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput de save() en el repositorio en heap con 32 escritores concurrentes.
+ *
+ *   java -jar benchmarks/target/benchmarks.jar UpsertThroughputBenchmark
+ *
+ * - update: cambio de monto y tipo de una transacción existente sin cambiar su padre; con
+ *   locks por franja de ID y el lock de jerarquía compartido, escala con los núcleos
+ * - insert: alta de una hoja nueva bajo una existente; como no tiene hijos guardados no
+ *   reordena la jerarquía y toma el lock de jerarquía compartido (con euler-tour se sigue
+ *   serializando en el lock propio del motor)
+ * - mixed: tres actualizaciones por cada alta
+ *
+ * Se puede comparar con un solo escritor con -t 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(32)
+public class UpsertThroughputBenchmark {
+
+    private static final String[] TYPES = {"cars", "shopping", "travel", "food"};
+
+    @Param({"materialized", "euler-tour"})
+    public String engine;
+
+    @Param({"100000"})
+    public int size;
+
+    private TransactionRepositoryImpl repository;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        repository = new TransactionRepositoryImpl(null, null, engine);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long id = 0; id < size; id++) {
+            Long parentId = id == 0 ? null : (long) random.nextInt((int) id);
+            repository.save(new Transaction(id, BigDecimal.ONE, TYPES[0], parentId));
+        }
+        nextId.set(size);
+    }
+
+    @Benchmark
+    public void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextInt(size);
+        Transaction existing = repository.findById(id);
+        repository.save(new Transaction(id, BigDecimal.valueOf(random.nextInt(10_000), 2),
+                TYPES[random.nextInt(TYPES.length)], existing.getParentId()));
+    }
+
+    @Benchmark
+    public void insert() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = nextId.getAndIncrement();
+        repository.save(new Transaction(id, BigDecimal.valueOf(random.nextInt(10_000), 2),
+                TYPES[random.nextInt(TYPES.length)], (long) random.nextInt(size)));
+    }
+
+    @Benchmark
+    public void mixed() {
+        if (ThreadLocalRandom.current().nextInt(4) == 0) {
+            insert();
+        } else {
+            update();
+        }
+    }
+}
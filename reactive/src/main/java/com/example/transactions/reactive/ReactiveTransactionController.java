@@ -0,0 +1,130 @@
+package com.example.transactions.reactive;
+
+import com.example.transactions.controller.ETags;
+import com.example.transactions.dto.StatusResponse;
+import com.example.transactions.dto.SumResponse;
+import com.example.transactions.dto.TransactionRequest;
+import com.example.transactions.dto.TransactionResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller WebFlux con los endpoints de TransactionController:
+ * - PUT /transactions/{id}, con If-Match
+ * - GET /transactions/{id}, con ETag e If-None-Match
+ * - GET /transactions/types/{type}
+ * - GET /transactions/sum/{id}, con ETag e If-None-Match
+ * y además GET /transactions/{id}/subtree.
+ *
+ * Los dos listados son Flux: con Accept: application/x-ndjson se escriben de a un elemento
+ * por línea a medida que se leen, sin armar la lista; con application/json (por defecto)
+ * se escriben como un arreglo JSON. Los ETags y los códigos de estado son los del stack
+ * servlet.
+ *
+ * NO contiene lógica de negocio (delegada al Service).
+ */
+@RestController
+@RequestMapping("/transactions")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionController {
+
+    private final ReactiveTransactionService transactionService;
+
+    @Autowired
+    public ReactiveTransactionController(ReactiveTransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    /**
+     * PUT /transactions/{id}
+     * Crea o actualiza una transacción. Con If-Match solo escribe si la versión coincide.
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<StatusResponse>> createOrUpdateTransaction(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody TransactionRequest request) {
+        // Un If-Match ilegible llega como error del Mono (412), igual que un conflicto de versión
+        return Mono.defer(() -> transactionService.createOrUpdateTransaction(id, request,
+                        ifMatch == null ? null : ETags.expectedVersions(ifMatch)))
+                .map(saved -> ResponseEntity.ok()
+                        .eTag(ETags.transaction(saved.getVersion()))
+                        .body(new StatusResponse("ok")));
+    }
+
+    /**
+     * GET /transactions/{id}
+     * Obtiene una transacción por ID. Con If-None-Match responde 304 si la versión no
+     * cambió, sin armar la respuesta.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<TransactionResponse>> getTransaction(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<TransactionResponse>> full = transactionService.getTransactionById(id)
+                .map(response -> ResponseEntity.ok()
+                        .eTag(ETags.transaction(response.getVersion()))
+                        .body(response));
+        if (ifNoneMatch == null) {
+            return full;
+        }
+        return transactionService.getTransactionVersion(id).flatMap(version -> {
+            String current = ETags.transaction(version);
+            if (ETags.matchesAny(ifNoneMatch, current)) {
+                return Mono.just(ReactiveTransactionController.<TransactionResponse>notModified(current));
+            }
+            return full;
+        });
+    }
+
+    /**
+     * GET /transactions/{id}/subtree
+     * La transacción y todas sus descendientes, por niveles desde ella.
+     */
+    @GetMapping(value = "/{id}/subtree", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<TransactionResponse> getSubtree(@PathVariable Long id) {
+        return transactionService.getSubtree(id);
+    }
+
+    /**
+     * GET /transactions/types/{type}
+     * Obtiene los IDs de transacciones de un tipo dado, en orden ascendente.
+     */
+    @GetMapping(value = "/types/{type}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Long> getTransactionIdsByType(@PathVariable String type) {
+        return transactionService.getTransactionIdsByType(type);
+    }
+
+    /**
+     * GET /transactions/sum/{id}
+     * Calcula el monto total de una transacción incluyendo todas sus descendientes. El ETag
+     * es la versión del subárbol de la suma servida, leída antes de calcularla (con
+     * stale-while-revalidate, la de la suma vencida); con If-None-Match responde 304 sin
+     * calcularla si coincide con la versión actual.
+     */
+    @GetMapping("/sum/{id}")
+    public Mono<ResponseEntity<SumResponse>> getTransactionSum(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return transactionService.getSubtreeVersion(id).flatMap(version -> {
+            String eTag = ETags.subtree(version);
+            if (ifNoneMatch != null && ETags.matchesAny(ifNoneMatch, eTag)) {
+                return Mono.just(ReactiveTransactionController.<SumResponse>notModified(eTag));
+            }
+            return transactionService.calculateVersionedSum(id)
+                    .map(sum -> ResponseEntity.ok().eTag(ETags.subtree(sum.version())).body(new SumResponse(sum.sum())));
+        });
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+}
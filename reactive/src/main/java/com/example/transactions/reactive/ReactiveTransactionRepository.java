@@ -0,0 +1,72 @@
+package com.example.transactions.reactive;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Fachada no bloqueante de lectura sobre TransactionRepository.
+ *
+ * El almacén está en memoria: una lectura no espera I/O, así que corre en el hilo que se
+ * suscribe (el event loop de Netty) sin pasar a otro scheduler. Lo que hay que cuidar son
+ * los listados grandes, que no se arman enteros: los IDs de un tipo se leen de a páginas
+ * de PAGE_SIZE con el cursor del índice por tipo, y un subárbol se recorre por niveles
+ * (findByParentId de cada transacción emitida). La página o los hijos siguientes se piden
+ * recién cuando el suscriptor pidió los anteriores, así que un cliente lento frena el
+ * recorrido en lugar de acumular la respuesta en memoria.
+ *
+ * Las escrituras no pasan por acá: pueden esperar el fsync del WAL (ver
+ * ReactiveTransactionService).
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionRepository {
+
+    /**
+     * IDs que se leen del índice por tipo en cada página.
+     */
+    static final int PAGE_SIZE = 1000;
+
+    private final TransactionRepository repository;
+
+    @Autowired
+    public ReactiveTransactionRepository(TransactionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * La transacción, o vacío si no existe.
+     */
+    public Mono<Transaction> findById(long id) {
+        return Mono.fromSupplier(() -> repository.findById(id));
+    }
+
+    /**
+     * IDs de las transacciones de un tipo, en orden ascendente.
+     */
+    public Flux<Long> findIdsByType(String type) {
+        return page(type, null)
+                .expand(ids -> ids.size() < PAGE_SIZE ? Mono.empty() : page(type, ids.get(ids.size() - 1)))
+                .flatMapIterable(ids -> ids);
+    }
+
+    /**
+     * La transacción y todas sus descendientes, por niveles desde la raíz del subárbol;
+     * vacío si la transacción no existe.
+     */
+    public Flux<Transaction> findSubtree(long id) {
+        return findById(id)
+                .flux()
+                .expand(parent -> Flux.defer(() -> Flux.fromIterable(repository.findByParentId(parent.getId()))));
+    }
+
+    private Mono<List<Long>> page(String type, Long after) {
+        return Mono.fromSupplier(() -> repository.findIdsByType(type, after, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.transactions.reactive;
+
+import com.example.transactions.dto.TransactionRequest;
+import com.example.transactions.dto.TransactionResponse;
+import com.example.transactions.exception.TransactionNotFoundException;
+import com.example.transactions.model.Transaction;
+import com.example.transactions.service.SumCache;
+import com.example.transactions.service.TransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Adaptador reactivo de TransactionService: la validación, las versiones y la caché de
+ * sumas son las mismas que en el stack servlet.
+ *
+ * Las lecturas corren en el hilo que se suscribe, como en ReactiveTransactionRepository.
+ * Las escrituras pueden quedar esperando el fsync del group commit del WAL, que bloquea el
+ * hilo, así que se ejecutan en writeScheduler y nunca en el event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionService {
+
+    private final TransactionService transactionService;
+    private final ReactiveTransactionRepository repository;
+    private final Scheduler writeScheduler;
+
+    @Autowired
+    public ReactiveTransactionService(TransactionService transactionService, ReactiveTransactionRepository repository) {
+        this(transactionService, repository, Schedulers.boundedElastic());
+    }
+
+    public ReactiveTransactionService(TransactionService transactionService, ReactiveTransactionRepository repository,
+                                      Scheduler writeScheduler) {
+        this.transactionService = transactionService;
+        this.repository = repository;
+        this.writeScheduler = writeScheduler;
+    }
+
+    /**
+     * Crea o actualiza una transacción; con expectedVersions solo si sigue en alguna de esas
+     * versiones.
+     */
+    public Mono<TransactionResponse> createOrUpdateTransaction(Long id, TransactionRequest request,
+                                                               long[] expectedVersions) {
+        return Mono.fromCallable(() -> expectedVersions == null
+                        ? transactionService.createOrUpdateTransaction(id, request)
+                        : transactionService.createOrUpdateTransaction(id, request, expectedVersions))
+                .subscribeOn(writeScheduler);
+    }
+
+    public Mono<TransactionResponse> getTransactionById(Long id) {
+        return Mono.fromCallable(() -> transactionService.getTransactionById(id));
+    }
+
+    public Mono<Long> getTransactionVersion(Long id) {
+        return Mono.fromCallable(() -> transactionService.getTransactionVersion(id));
+    }
+
+    public Mono<Long> getSubtreeVersion(Long id) {
+        return Mono.fromCallable(() -> transactionService.getSubtreeVersion(id));
+    }
+
+    /**
+     * Suma del subárbol, a través de la caché de sumas del servicio, con la versión que le
+     * corresponde (para el ETag).
+     */
+    public Mono<SumCache.VersionedSum> calculateVersionedSum(Long id) {
+        return Mono.fromCallable(() -> transactionService.calculateVersionedSum(id));
+    }
+
+    /**
+     * IDs de un tipo en orden ascendente, emitidos de a páginas del índice.
+     */
+    public Flux<Long> getTransactionIdsByType(String type) {
+        return repository.findIdsByType(type);
+    }
+
+    /**
+     * La transacción y todas sus descendientes, por niveles.
+     */
+    public Flux<TransactionResponse> getSubtree(Long id) {
+        return repository.findSubtree(id)
+                .map(ReactiveTransactionService::toResponse)
+                .switchIfEmpty(Mono.error(() -> new TransactionNotFoundException("Transacción con ID " + id + " no encontrada")));
+    }
+
+    private static TransactionResponse toResponse(Transaction transaction) {
+        TransactionResponse response = new TransactionResponse(
+                transaction.getId(),
+                transaction.getAmount(),
+                transaction.getType(),
+                transaction.getParentId()
+        );
+        response.setVersion(transaction.getVersion());
+        return response;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.transactions.reactive;
+
+import com.example.transactions.config.CacheConfig;
+import com.example.transactions.config.MetricsConfig;
+import com.example.transactions.config.PersistenceConfig;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Clase principal de la variante WebFlux/Netty.
+ *
+ * Reutiliza los repositorios, el servicio y la configuración de persistencia, caché y
+ * métricas de la aplicación, pero no sus controllers ni su manejador de excepciones, que
+ * son del stack servlet. Todos los componentes de este paquete son condicionales a una aplicación
+ * reactiva: si el paquete queda al alcance del escaneo de TransactionsApplication (como en
+ * el módulo benchmarks, que tiene los dos stacks), no se registran en la aplicación servlet.
+ */
+@SpringBootApplication(scanBasePackages = {
+        "com.example.transactions.repository",
+        "com.example.transactions.service",
+        "com.example.transactions.reactive"
+})
+@Import({PersistenceConfig.class, CacheConfig.class, MetricsConfig.class})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionsApplication {
+
+    /**
+     * Netty explícito: con Tomcat también en el classpath, Spring Boot elegiría Tomcat.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveTransactionsApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+}
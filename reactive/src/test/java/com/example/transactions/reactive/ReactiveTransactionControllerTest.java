@@ -0,0 +1,220 @@
+package com.example.transactions.reactive;
+
+import com.example.transactions.controller.ETags;
+import com.example.transactions.dto.TransactionRequest;
+import com.example.transactions.dto.TransactionResponse;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para ReactiveTransactionController.
+ *
+ * Usa WebTestClient contra el controller, sin servidor, con el servicio y el repositorio
+ * en memoria reales: lo que se prueba es que el stack reactivo responda igual que el
+ * servlet. Las escrituras corren en el hilo del test (Schedulers.immediate()).
+ */
+class ReactiveTransactionControllerTest {
+
+    private WebTestClient client;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionRepositoryImpl store = new TransactionRepositoryImpl();
+        transactionService = new TransactionService(store);
+        ReactiveTransactionService service = new ReactiveTransactionService(transactionService,
+                new ReactiveTransactionRepository(store), Schedulers.immediate());
+        client = WebTestClient.bindToController(new ReactiveTransactionController(service))
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testPut_CreatesAndReturnsETag() {
+        // Act & Assert
+        client.put().uri("/transactions/10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 5000, \"type\": \"cars\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.transaction(1))
+                .expectBody().jsonPath("$.status").isEqualTo("ok");
+        assertEquals(0, new BigDecimal("5000").compareTo(transactionService.getTransactionById(10L).getAmount()));
+    }
+
+    @Test
+    void testPut_InvalidBodyAndMissingParent() {
+        // Act & Assert - Campo requerido faltante: mapa de campos
+        client.put().uri("/transactions/10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"type\": \"cars\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.amount").exists();
+
+        // JSON ilegible
+        client.put().uri("/transactions/10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": ")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Cuerpo de la solicitud inválido");
+
+        // Padre inexistente
+        client.put().uri("/transactions/10")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 1, \"type\": \"cars\", \"parent_id\": 99}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").exists();
+    }
+
+    @Test
+    void testPut_IfMatch() {
+        // Arrange
+        save(10L, "100", null);
+
+        // Act & Assert - Versión vieja: 412; versión actual: escribe
+        client.put().uri("/transactions/10")
+                .header(HttpHeaders.IF_MATCH, ETags.transaction(7))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 200, \"type\": \"cars\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        client.put().uri("/transactions/10")
+                .header(HttpHeaders.IF_MATCH, "W/" + ETags.transaction(1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 200, \"type\": \"cars\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        client.put().uri("/transactions/10")
+                .header(HttpHeaders.IF_MATCH, ETags.transaction(1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 200, \"type\": \"cars\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.transaction(2));
+    }
+
+    @Test
+    void testGet_FoundNotModifiedAndNotFound() {
+        // Arrange
+        save(10L, "100", null);
+
+        // Act & Assert
+        client.get().uri("/transactions/10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.transaction(1))
+                .expectBody()
+                .jsonPath("$.type").isEqualTo("cars")
+                .jsonPath("$.amount").isEqualTo(100);
+        client.get().uri("/transactions/10")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + ETags.transaction(1))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.transaction(1))
+                .expectBody().isEmpty();
+        client.get().uri("/transactions/99")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").exists();
+    }
+
+    @Test
+    void testGetIdsByType_JsonArrayAndNdjson() {
+        // Arrange
+        save(3L, "1", null);
+        save(1L, "1", null);
+        transactionService.createOrUpdateTransaction(2L, new TransactionRequest(BigDecimal.ONE, "food", null));
+
+        // Act & Assert
+        client.get().uri("/transactions/types/cars")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[1, 3]");
+        client.get().uri("/transactions/types/cars")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo("1\n3\n");
+        client.get().uri("/transactions/types/unknown")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("[]");
+    }
+
+    @Test
+    void testGetSubtree_StreamsLevelsAndNotFound() {
+        // Arrange
+        save(10L, "100", null);
+        save(11L, "50", 10L);
+        save(12L, "5", 11L);
+
+        // Act
+        List<TransactionResponse> subtree = client.get().uri("/transactions/10/subtree")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(TransactionResponse.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // Assert
+        assertEquals(List.of(10L, 11L, 12L), subtree.stream().map(TransactionResponse::getId).toList());
+        assertEquals(11L, subtree.get(2).getParentId());
+        client.get().uri("/transactions/99/subtree")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetSum_ETagChangesWithDescendants() {
+        // Arrange
+        save(10L, "100", null);
+        save(11L, "50", 10L);
+
+        // Act
+        String eTag = client.get().uri("/transactions/sum/10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.sum").isEqualTo(150)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        // Assert - Sin cambios: 304; un nieto nuevo cambia la versión del subárbol
+        assertTrue(eTag.startsWith("\"s"));
+        client.get().uri("/transactions/sum/10")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+        save(12L, "5", 11L);
+        client.get().uri("/transactions/sum/10")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.sum").isEqualTo(155);
+        client.get().uri("/transactions/sum/99")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private void save(Long id, String amount, Long parentId) {
+        transactionService.createOrUpdateTransaction(id, new TransactionRequest(new BigDecimal(amount), "cars", parentId));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.transactions.reactive;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para ReactiveTransactionRepository.
+ */
+class ReactiveTransactionRepositoryTest {
+
+    private TransactionRepository store;
+    private ReactiveTransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        store = new TransactionRepositoryImpl();
+        repository = new ReactiveTransactionRepository(store);
+    }
+
+    @Test
+    void testFindById_ExistingAndMissing() {
+        // Arrange
+        store.save(new Transaction(1L, new BigDecimal("10"), "cars", null));
+
+        // Act & Assert
+        StepVerifier.create(repository.findById(1L))
+                .assertNext(transaction -> assertEquals("cars", transaction.getType()))
+                .verifyComplete();
+        StepVerifier.create(repository.findById(2L)).verifyComplete();
+    }
+
+    @Test
+    void testFindIdsByType_SpansSeveralPagesInOrder() {
+        // Arrange - Dos páginas y media de "cars" intercaladas con "food"
+        int count = ReactiveTransactionRepository.PAGE_SIZE * 5 / 2;
+        for (long id = 0; id < count * 2; id++) {
+            store.save(new Transaction(id, BigDecimal.ONE, id % 2 == 0 ? "cars" : "food", null));
+        }
+
+        // Act
+        List<Long> ids = repository.findIdsByType("cars").collectList().block();
+
+        // Assert
+        assertEquals(LongStream.range(0, count).map(i -> i * 2).boxed().toList(), ids);
+    }
+
+    @Test
+    void testFindIdsByType_ExactPageAndUnknownType() {
+        // Arrange - Exactamente una página: la segunda lectura viene vacía
+        for (long id = 0; id < ReactiveTransactionRepository.PAGE_SIZE; id++) {
+            store.save(new Transaction(id, BigDecimal.ONE, "cars", null));
+        }
+
+        // Act & Assert
+        StepVerifier.create(repository.findIdsByType("cars"))
+                .expectNextCount(ReactiveTransactionRepository.PAGE_SIZE)
+                .verifyComplete();
+        StepVerifier.create(repository.findIdsByType("unknown")).verifyComplete();
+    }
+
+    @Test
+    void testFindIdsByType_ReadsPagesOnDemand() {
+        // Arrange
+        for (long id = 0; id < ReactiveTransactionRepository.PAGE_SIZE * 3; id++) {
+            store.save(new Transaction(id, BigDecimal.ONE, "cars", null));
+        }
+
+        // Act & Assert - Pidiendo 10 IDs no hace falta recorrer el resto del tipo
+        StepVerifier.create(repository.findIdsByType("cars"), 10)
+                .expectNext(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testFindSubtree_LevelOrder() {
+        // Arrange
+        //      10
+        //     /  \
+        //   11    12
+        //   |
+        //   13
+        store.save(new Transaction(10L, new BigDecimal("1"), "cars", null));
+        store.save(new Transaction(11L, new BigDecimal("2"), "cars", 10L));
+        store.save(new Transaction(12L, new BigDecimal("3"), "cars", 10L));
+        store.save(new Transaction(13L, new BigDecimal("4"), "cars", 11L));
+        store.save(new Transaction(20L, new BigDecimal("5"), "cars", null));
+
+        // Act
+        List<Long> ids = repository.findSubtree(10L).map(Transaction::getId).collectList().block();
+
+        // Assert - La raíz primero y cada nivel antes del siguiente
+        assertEquals(4, ids.size());
+        assertEquals(10L, ids.get(0));
+        assertEquals(List.of(11L, 12L), ids.subList(1, 3).stream().sorted().toList());
+        assertEquals(13L, ids.get(3));
+    }
+
+    @Test
+    void testFindSubtree_MissingIsEmpty() {
+        // Act & Assert
+        StepVerifier.create(repository.findSubtree(99L)).verifyComplete();
+    }
+}
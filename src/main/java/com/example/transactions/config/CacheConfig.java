@@ -0,0 +1,41 @@
+package com.example.transactions.config;
+
+import com.example.transactions.service.SumCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuración de la caché de sumas de subárboles (GET /transactions/sum/{id}).
+ *
+ * Con transactions.sum-cache.size=0 (por defecto) la caché está deshabilitada: con el
+ * motor materialized la suma ya se lee en O(1) y la caché solo agregaría trabajo a las
+ * escrituras. Conviene con el motor euler-tour o el repositorio offheap, donde cada suma
+ * cuesta O(log n) o pasa por el lock de lectura.
+ *
+ * Los recálculos de stale-while-revalidate corren en un único hilo daemon con una cola
+ * acotada; si la cola se llena se descartan y se sigue sirviendo el valor vencido.
+ */
+@Configuration
+public class CacheConfig {
+
+    // Recálculos pendientes como máximo antes de descartar los nuevos
+    private static final int REFRESH_QUEUE_CAPACITY = 1024;
+
+    @Bean
+    public SumCache sumCache(
+            @Value("${transactions.sum-cache.size:0}") int size,
+            @Value("${transactions.sum-cache.stale-while-revalidate:false}") boolean staleWhileRevalidate) {
+        ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "sum-cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        return new SumCache(size, staleWhileRevalidate, refreshExecutor);
+    }
+}
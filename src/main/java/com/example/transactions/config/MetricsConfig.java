@@ -0,0 +1,38 @@
+package com.example.transactions.config;
+
+import com.example.transactions.repository.MeteredTransactionRepository;
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.service.SumCache;
+import com.example.transactions.service.TransactionStoreMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Métricas de Micrometer, expuestas por Actuator en /actuator/prometheus.
+ *
+ * Los endpoints los mide Spring Boot (http.server.requests, por método, URI y estado, con
+ * histograma de percentiles según application.properties). Acá se agregan los timers de
+ * cada operación del repositorio y los gauges del almacén y de la caché de sumas.
+ *
+ * El repositorio medido es el TransactionRepository primario; para construirlo se inyecta
+ * la implementación elegida por transactions.repository.type (Spring no se ofrece a sí
+ * mismo como candidato de su propio parámetro).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    @Primary
+    public MeteredTransactionRepository meteredTransactionRepository(TransactionRepository repository,
+                                                                     MeterRegistry registry) {
+        return new MeteredTransactionRepository(repository, registry);
+    }
+
+    @Bean
+    public TransactionStoreMetrics transactionStoreMetrics(MeteredTransactionRepository repository,
+                                                           SumCache sumCache) {
+        return new TransactionStoreMetrics(repository.getDelegate(), sumCache);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.transactions.config;
+
+import com.example.transactions.repository.SnapshotStore;
+import com.example.transactions.repository.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuración de la persistencia del repositorio en memoria.
+ *
+ * El write-ahead log se crea solo con transactions.wal.enabled=true; sin él, el
+ * repositorio funciona como antes y su contenido se pierde al reiniciar. Los snapshots
+ * (transactions.snapshot.enabled=true) acortan la recuperación: se cargan con un mapeo
+ * del archivo y solo se reaplica el log posterior al último checkpoint.
+ */
+@Configuration
+@EnableScheduling
+public class PersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "transactions.wal.enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(
+            @Value("${transactions.wal.directory:data}") Path directory,
+            @Value("${transactions.wal.group-commit-window:2ms}") Duration groupCommitWindow,
+            @Value("${transactions.wal.max-batch-bytes:1048576}") int maxBatchBytes) throws IOException {
+        return WriteAheadLog.open(directory, groupCommitWindow, maxBatchBytes);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "transactions.snapshot.enabled", havingValue = "true")
+    public SnapshotStore snapshotStore(
+            @Value("${transactions.snapshot.directory:data}") Path directory) throws IOException {
+        return new SnapshotStore(directory);
+    }
+}
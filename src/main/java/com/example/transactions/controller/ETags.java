@@ -0,0 +1,92 @@
+package com.example.transactions.controller;
+
+import com.example.transactions.exception.VersionConflictException;
+import com.example.transactions.service.TransactionService;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ETags de las respuestas de transacciones y lectura de If-Match / If-None-Match.
+ *
+ * Compartido por el controller servlet y el reactivo, para que los dos stacks emitan y
+ * acepten los mismos ETags.
+ *
+ * Las versiones de transacción vuelven a empezar en 1 en cada arranque si no se persisten
+ * (WAL deshabilitado, el modo por defecto), así que "2" después de reiniciar sería otro
+ * contenido con el mismo ETag. Como en SubtreeVersions, el ETag suma a la versión una
+ * época elegida al azar en cada arranque: un ETag de antes de reiniciar no coincide con
+ * ninguno nuevo (aun con WAL, donde la versión sí se conserva, el cliente recibe 412 o 200
+ * y vuelve a leer, que es lo seguro).
+ */
+public final class ETags {
+
+    private static final long TRANSACTION_EPOCH = ThreadLocalRandom.current().nextLong(1L << 32, 1L << 62);
+
+    private ETags() {
+    }
+
+    /**
+     * ETag fuerte con la versión de la transacción, desplazada por la época del arranque.
+     */
+    public static String transaction(long version) {
+        return "\"" + (TRANSACTION_EPOCH + version) + "\"";
+    }
+
+    /**
+     * ETag fuerte con la versión del subárbol; el prefijo lo distingue del de la transacción.
+     */
+    public static String subtree(long subtreeVersion) {
+        return "\"s" + subtreeVersion + "\"";
+    }
+
+    /**
+     * Si If-None-Match (una lista de ETags o *) incluye eTag. La comparación de
+     * If-None-Match es débil: W/"7" coincide con "7".
+     */
+    public static boolean matchesAny(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Traduce If-Match (* o una lista de ETags separados por comas) a las versiones
+     * esperadas; la escritura procede si la versión actual es cualquiera de ellas. * se
+     * traduce a ANY_EXISTING_VERSION. Un ETag débil, de otro arranque o que no es de este
+     * servicio nunca coincide (la comparación de If-Match es fuerte): se descarta, y si no
+     * queda ninguno la respuesta es 412.
+     */
+    public static long[] expectedVersions(String ifMatch) {
+        String[] candidates = ifMatch.split(",");
+        long[] versions = new long[candidates.length];
+        int count = 0;
+        for (String candidate : candidates) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return new long[] {TransactionService.ANY_EXISTING_VERSION};
+            }
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                try {
+                    long tag = Long.parseLong(value.substring(1, value.length() - 1));
+                    if (tag > TRANSACTION_EPOCH) {
+                        versions[count++] = tag - TRANSACTION_EPOCH;
+                    }
+                } catch (NumberFormatException e) {
+                    // No coincide con ninguna versión
+                }
+            }
+        }
+        if (count == 0) {
+            throw new VersionConflictException("If-Match no corresponde a una versión: " + ifMatch);
+        }
+        return Arrays.copyOf(versions, count);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.transactions.controller;
+
+import com.example.transactions.service.NdjsonExportService;
+import com.example.transactions.service.NdjsonIngestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller REST para la carga y la exportación masivas de transacciones en NDJSON.
+ *
+ * Ninguno de los dos arma el contenido completo en memoria: la carga lee el cuerpo mientras
+ * escribe la respuesta y la exportación escribe página por página, ambos fuera del hilo
+ * del request (StreamingResponseBody).
+ */
+@RestController
+@RequestMapping("/transactions")
+@Tag(name = "Transactions", description = "API para gestión de transacciones con soporte de jerarquías parent-child")
+public class TransactionBulkController {
+
+    private final NdjsonIngestService ingestService;
+    private final NdjsonExportService exportService;
+
+    @Autowired
+    public TransactionBulkController(NdjsonIngestService ingestService, NdjsonExportService exportService) {
+        this.ingestService = ingestService;
+        this.exportService = exportService;
+    }
+
+    /**
+     * POST /transactions/ingest
+     * Carga transacciones desde un cuerpo NDJSON de cualquier tamaño.
+     */
+    @Operation(
+            summary = "Carga masiva de transacciones (NDJSON)",
+            description = "Recibe una transacción JSON por línea ({\"id\": 10, \"amount\": 100.0, \"type\": \"cars\", \"parent_id\": 1}) " +
+                    "y las aplica en bloques a medida que llegan, como PUTs sucesivos. La respuesta es NDJSON y se escribe " +
+                    "mientras se carga: un evento por línea rechazada, el progreso después de cada bloque y el total al terminar."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Eventos de la carga, uno por línea",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            examples = @ExampleObject(value = "{\"event\":\"rejected\",\"line\":2,\"id\":11,\"error\":\"La transacción padre con ID 99 no existe\"}\n" +
+                                    "{\"event\":\"progress\",\"lines\":2,\"applied\":1,\"rejected\":1}\n" +
+                                    "{\"event\":\"done\",\"lines\":2,\"applied\":1,\"rejected\":1}"))),
+            @ApiResponse(responseCode = "415", description = "El cuerpo no es application/x-ndjson")
+    })
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> ingest(HttpServletRequest request) {
+        StreamingResponseBody body = output -> ingestService.ingest(request.getInputStream(), output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * GET /transactions/export
+     * Exporta todas las transacciones como NDJSON, en orden de ID salvo que cada una sale
+     * después de su padre.
+     */
+    @Operation(
+            summary = "Exportar transacciones (NDJSON)",
+            description = "Escribe una transacción JSON por línea, en orden de ID, a medida que recorre el almacén; " +
+                    "una transacción cuyo padre tiene un ID mayor se escribe justo después de él. El formato es el " +
+                    "mismo que acepta POST /transactions/ingest. Con after se retoma después de ese ID."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transacciones, una por línea",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            examples = @ExampleObject(value = "{\"id\":10,\"amount\":5000.0,\"type\":\"cars\",\"parent_id\":null}\n" +
+                                    "{\"id\":11,\"amount\":10000.0,\"type\":\"shopping\",\"parent_id\":10}")))
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Exportar solo las transacciones con ID mayor que este", example = "10")
+            @RequestParam(required = false) Long after) {
+        StreamingResponseBody body = output -> exportService.export(after, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.transactions.controller;
 
+import com.example.transactions.dto.BatchResponse;
+import com.example.transactions.dto.BatchTransactionRequest;
+import com.example.transactions.dto.CountResponse;
+import com.example.transactions.dto.IdPage;
 import com.example.transactions.dto.StatusResponse;
+import com.example.transactions.dto.SumCacheStatsResponse;
 import com.example.transactions.dto.SumResponse;
+import com.example.transactions.dto.TransactionPage;
 import com.example.transactions.dto.TransactionRequest;
 import com.example.transactions.dto.TransactionResponse;
+import com.example.transactions.dto.TypeStatsResponse;
+import com.example.transactions.service.SumCache;
 import com.example.transactions.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,8 +23,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -44,94 +55,309 @@ public class TransactionController {
 
     /**
      * PUT /transactions/{id}
-     * Crea o actualiza una transacción.
+     * Crea o actualiza una transacción. Con If-Match solo escribe si la versión coincide.
      */
     @Operation(
             summary = "Crear o actualizar transacción",
-            description = "Crea una nueva transacción o actualiza una existente. El parent_id es opcional y debe apuntar a una transacción válida."
+            description = "Crea una nueva transacción o actualiza una existente. El parent_id es opcional y debe apuntar a una transacción válida. " +
+                    "Con el header If-Match (el ETag de un GET previo, o *) la escritura solo se aplica si la transacción sigue en esa versión."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Transacción creada/actualizada exitosamente",
+            @ApiResponse(responseCode = "200", description = "Transacción creada/actualizada exitosamente; el ETag es la nueva versión",
                     content = @Content(schema = @Schema(implementation = StatusResponse.class),
                             examples = @ExampleObject(value = "{\"status\": \"ok\"}"))),
             @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos o parent_id no existe"),
             @ApiResponse(responseCode = "409", description = "ID duplicado"),
+            @ApiResponse(responseCode = "412", description = "If-Match no coincide con la versión actual"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PutMapping("/{id}")
     public ResponseEntity<StatusResponse> createOrUpdateTransaction(
             @Parameter(description = "ID de la transacción", required = true, example = "10")
             @PathVariable Long id,
+            @Parameter(description = "ETag de la versión esperada, o * para exigir que exista", example = "\"3\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody TransactionRequest request) {
-        transactionService.createOrUpdateTransaction(id, request);
-        return ResponseEntity.ok(new StatusResponse("ok"));
+        TransactionResponse saved = ifMatch == null
+                ? transactionService.createOrUpdateTransaction(id, request)
+                : transactionService.createOrUpdateTransaction(id, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ETags.transaction(saved.getVersion()))
+                .body(new StatusResponse("ok"));
+    }
+
+    /**
+     * PUT /transactions/batch
+     * Crea o actualiza un lote de transacciones en una sola llamada.
+     */
+    @Operation(
+            summary = "Crear o actualizar un lote de transacciones",
+            description = "Recibe una lista de transacciones con su id. Se ordenan por parent_id, así un padre y sus hijos " +
+                    "pueden venir en el mismo lote y en cualquier orden. Cada una se valida por separado: las inválidas " +
+                    "(campos faltantes, padre inexistente o rechazado, ciclos, ids repetidos) se informan y las demás se aplican."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote procesado; el resultado de cada transacción en el orden recibido",
+                    content = @Content(schema = @Schema(implementation = BatchResponse.class),
+                            examples = @ExampleObject(value = "{\"applied\": 1, \"rejected\": 1, \"results\": [" +
+                                    "{\"id\": 10, \"status\": \"ok\", \"version\": 1}, " +
+                                    "{\"id\": 11, \"status\": \"error\", \"error\": \"La transacción padre con ID 99 no existe\"}]}"))),
+            @ApiResponse(responseCode = "400", description = "El cuerpo no es una lista de transacciones"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResponse> createOrUpdateBatch(@RequestBody List<BatchTransactionRequest> items) {
+        return ResponseEntity.ok(transactionService.createOrUpdateBatch(items));
+    }
+
+    /**
+     * GET /transactions
+     * Lista las transacciones en orden de ID, paginadas por cursor.
+     */
+    @Operation(
+            summary = "Listar transacciones",
+            description = "Retorna hasta limit transacciones en orden de ID. Para la página siguiente se envía el next_cursor " +
+                    "de la respuesta como after; next_cursor es null en la última página. Para recorrer todo el almacén de " +
+                    "una vez, ver GET /transactions/export."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de transacciones",
+                    content = @Content(schema = @Schema(implementation = TransactionPage.class))),
+            @ApiResponse(responseCode = "400", description = "limit fuera de rango"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping
+    public ResponseEntity<TransactionPage> getTransactions(
+            @Parameter(description = "Cursor: retornar las transacciones con ID mayor que este", example = "10")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Tamaño de la página (1 a " + TransactionService.MAX_PAGE_SIZE + ")", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(transactionService.getTransactionsPage(after, limit));
     }
 
     /**
      * GET /transactions/{id}
-     * Obtiene una transacción por ID.
+     * Obtiene una transacción por ID. Con If-None-Match responde 304 si la versión no
+     * cambió, sin armar la respuesta.
      */
     @Operation(
             summary = "Obtener transacción por ID",
-            description = "Retorna los datos de una transacción específica identificada por su ID."
+            description = "Retorna los datos de una transacción específica identificada por su ID. " +
+                    "Con el header If-None-Match (el ETag de un GET previo) responde 304 sin cuerpo si la transacción no cambió."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Transacción encontrada",
+            @ApiResponse(responseCode = "200", description = "Transacción encontrada; el ETag es su versión",
                     content = @Content(schema = @Schema(implementation = TransactionResponse.class))),
+            @ApiResponse(responseCode = "304", description = "If-None-Match coincide con la versión actual"),
             @ApiResponse(responseCode = "404", description = "Transacción no encontrada"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/{id}")
     public ResponseEntity<TransactionResponse> getTransaction(
             @Parameter(description = "ID de la transacción", required = true, example = "10")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "ETag de un GET previo", example = "\"3\"")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String current = ETags.transaction(transactionService.getTransactionVersion(id));
+            if (ETags.matchesAny(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+            }
+        }
         TransactionResponse response = transactionService.getTransactionById(id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(ETags.transaction(response.getVersion()))
+                .body(response);
+    }
+
+    /**
+     * GET /transactions/{id}/ancestors
+     * Obtiene los IDs de los ancestros de una transacción.
+     */
+    @Operation(
+            summary = "Obtener ancestros",
+            description = "Retorna los IDs de los ancestros de una transacción, desde su padre hasta la raíz de la jerarquía."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de ancestros encontrada",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            examples = @ExampleObject(value = "[11, 10]"))),
+            @ApiResponse(responseCode = "404", description = "Transacción no encontrada"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/{id}/ancestors")
+    public ResponseEntity<List<Long>> getTransactionAncestors(
+            @Parameter(description = "ID de la transacción", required = true, example = "12")
+            @PathVariable Long id) {
+        List<Long> ancestorIds = transactionService.getAncestorIds(id);
+        return ResponseEntity.ok(ancestorIds);
+    }
+
+    /**
+     * GET /transactions/types
+     * Resumen de los agregados de todos los tipos.
+     */
+    @Operation(
+            summary = "Resumen por tipo",
+            description = "Retorna, para cada tipo con transacciones y ordenados por tipo, la cantidad de transacciones, " +
+                    "la suma de sus montos y el monto mínimo y máximo."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agregados de todos los tipos",
+                    content = @Content(schema = @Schema(implementation = List.class),
+                            examples = @ExampleObject(value = "[{\"type\": \"cars\", \"count\": 2, \"total_amount\": 150.0, " +
+                                    "\"min_amount\": 50.0, \"max_amount\": 100.0}]"))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/types")
+    public ResponseEntity<List<TypeStatsResponse>> getAllTypeStats() {
+        return ResponseEntity.ok(transactionService.getAllTypeStats());
     }
 
     /**
      * GET /transactions/types/{type}
-     * Obtiene todos los IDs de transacciones de un tipo dado.
+     * Obtiene los IDs de transacciones de un tipo dado en orden ascendente, todos o
+     * paginados por cursor.
      */
     @Operation(
             summary = "Obtener IDs por tipo",
-            description = "Retorna una lista con todos los IDs de transacciones que tienen el tipo especificado."
+            description = "Retorna los IDs de transacciones que tienen el tipo especificado, en orden ascendente. " +
+                    "Sin after ni limit retorna todos; con alguno de los dos retorna una página (limit de 1 a 10000, " +
+                    "1000 por defecto) y, si hay más, el header Link con rel=\"next\" apunta a la siguiente."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de IDs encontrada",
                     content = @Content(schema = @Schema(implementation = List.class),
                             examples = @ExampleObject(value = "[1, 3, 7]"))),
+            @ApiResponse(responseCode = "400", description = "limit fuera de rango"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/types/{type}")
     public ResponseEntity<List<Long>> getTransactionIdsByType(
+            @Parameter(description = "Tipo de transacción", required = true, example = "cars")
+            @PathVariable String type,
+            @Parameter(description = "Último ID ya recibido; la página empieza en el siguiente", example = "7")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Cantidad máxima de IDs de la página", example = "1000")
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(transactionService.getTransactionIdsByType(type));
+        }
+        int pageSize = limit != null ? limit : TransactionService.DEFAULT_ID_PAGE_SIZE;
+        IdPage page = transactionService.getTransactionIdsByType(type, after, pageSize);
+        if (page.getNextCursor() == null) {
+            return ResponseEntity.ok(page.getIds());
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", page.getNextCursor())
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page.getIds());
+    }
+
+    /**
+     * GET /transactions/types/{type}/count
+     * Cuenta las transacciones de un tipo dado sin listar sus IDs.
+     */
+    @Operation(
+            summary = "Contar transacciones por tipo",
+            description = "Retorna la cantidad de transacciones que tienen el tipo especificado (0 si no hay ninguna)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cantidad calculada",
+                    content = @Content(schema = @Schema(implementation = CountResponse.class),
+                            examples = @ExampleObject(value = "{\"count\": 3}"))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/types/{type}/count")
+    public ResponseEntity<CountResponse> countTransactionsByType(
             @Parameter(description = "Tipo de transacción", required = true, example = "cars")
             @PathVariable String type) {
-        List<Long> ids = transactionService.getTransactionIdsByType(type);
-        return ResponseEntity.ok(ids);
+        return ResponseEntity.ok(new CountResponse(transactionService.countTransactionsByType(type)));
+    }
+
+    /**
+     * GET /transactions/types/{type}/stats
+     * Agregados de las transacciones de un tipo dado.
+     */
+    @Operation(
+            summary = "Agregados por tipo",
+            description = "Retorna la cantidad de transacciones del tipo, la suma de sus montos y el monto mínimo y máximo, " +
+                    "mantenidos en cada escritura. Un tipo sin transacciones tiene cantidad y total 0."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agregados del tipo",
+                    content = @Content(schema = @Schema(implementation = TypeStatsResponse.class),
+                            examples = @ExampleObject(value = "{\"type\": \"cars\", \"count\": 2, \"total_amount\": 150.0, " +
+                                    "\"min_amount\": 50.0, \"max_amount\": 100.0}"))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/types/{type}/stats")
+    public ResponseEntity<TypeStatsResponse> getTypeStats(
+            @Parameter(description = "Tipo de transacción", required = true, example = "cars")
+            @PathVariable String type) {
+        return ResponseEntity.ok(transactionService.getTypeStats(type));
     }
 
     /**
      * GET /transactions/sum/{id}
-     * Calcula el monto total de una transacción incluyendo todas sus descendientes.
+     * Calcula el monto total de una transacción incluyendo todas sus descendientes. El ETag
+     * es la versión del subárbol de la suma servida, leída antes de calcularla (con
+     * stale-while-revalidate, la de la suma vencida); con If-None-Match responde 304 sin
+     * calcularla si coincide con la versión actual.
      */
     @Operation(
             summary = "Calcular suma total",
             description = "Calcula el monto total de una transacción incluyendo el monto de la transacción misma " +
-                    "y el monto de todas sus transacciones hijas (recursivamente)."
+                    "y el monto de todas sus transacciones hijas (recursivamente). Con el header If-None-Match " +
+                    "(el ETag de un GET previo) responde 304 sin cuerpo si ninguna transacción del subárbol cambió."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Suma calculada exitosamente",
+            @ApiResponse(responseCode = "200", description = "Suma calculada exitosamente; el ETag es la versión del subárbol",
                     content = @Content(schema = @Schema(implementation = SumResponse.class),
                             examples = @ExampleObject(value = "{\"sum\": 205.0}"))),
+            @ApiResponse(responseCode = "304", description = "If-None-Match coincide con la versión actual del subárbol"),
             @ApiResponse(responseCode = "404", description = "Transacción no encontrada"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping("/sum/{id}")
     public ResponseEntity<SumResponse> getTransactionSum(
             @Parameter(description = "ID de la transacción", required = true, example = "10")
-            @PathVariable Long id) {
-        BigDecimal sum = transactionService.calculateSum(id);
-        return ResponseEntity.ok(new SumResponse(sum));
+            @PathVariable Long id,
+            @Parameter(description = "ETag de un GET previo", example = "\"s4294967300\"")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = ETags.subtree(transactionService.getSubtreeVersion(id));
+        if (ifNoneMatch != null && ETags.matchesAny(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        SumCache.VersionedSum sum = transactionService.calculateVersionedSum(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.subtree(sum.version()))
+                .body(new SumResponse(sum.sum()));
+    }
+
+    /**
+     * GET /transactions/sum-cache
+     * Estado y contadores de la caché de sumas.
+     */
+    @Operation(
+            summary = "Contadores de la caché de sumas",
+            description = "Retorna las entradas actuales y máximas de la caché de sumas y sus aciertos, fallos, " +
+                    "sumas vencidas servidas con stale-while-revalidate y desalojos. Con maximum_size 0 la caché " +
+                    "está deshabilitada y los contadores quedan en 0."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contadores de la caché",
+                    content = @Content(schema = @Schema(implementation = SumCacheStatsResponse.class),
+                            examples = @ExampleObject(value = "{\"size\": 120, \"maximum_size\": 10000, \"hits\": 5400, " +
+                                    "\"misses\": 130, \"stale_hits\": 0, \"evictions\": 10, \"stale_while_revalidate\": false}"))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/sum-cache")
+    public ResponseEntity<SumCacheStatsResponse> getSumCacheStats() {
+        return ResponseEntity.ok(transactionService.getSumCacheStats());
     }
 }
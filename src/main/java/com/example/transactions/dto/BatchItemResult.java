@@ -0,0 +1,65 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de una transacción dentro de un PUT /transactions/batch.
+ * status es "ok" (con la versión asignada) o "error" (con el motivo).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private Long id;
+    private String status;
+    private Long version;
+    private String error;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(Long id, String status, Long version, String error) {
+        this.id = id;
+        this.status = status;
+        this.version = version;
+        this.error = error;
+    }
+
+    public static BatchItemResult ok(Long id, long version) {
+        return new BatchItemResult(id, "ok", version, null);
+    }
+
+    public static BatchItemResult error(Long id, String error) {
+        return new BatchItemResult(id, "error", null, error);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
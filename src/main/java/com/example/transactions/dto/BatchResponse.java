@@ -0,0 +1,46 @@
+package com.example.transactions.dto;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta de PUT /transactions/batch: cantidad de transacciones aplicadas y
+ * rechazadas, y el resultado de cada una en el orden en que se enviaron.
+ */
+public class BatchResponse {
+    private int applied;
+    private int rejected;
+    private List<BatchItemResult> results;
+
+    public BatchResponse() {
+    }
+
+    public BatchResponse(int applied, int rejected, List<BatchItemResult> results) {
+        this.applied = applied;
+        this.rejected = rejected;
+        this.results = results;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
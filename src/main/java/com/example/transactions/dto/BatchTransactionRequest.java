@@ -0,0 +1,29 @@
+package com.example.transactions.dto;
+
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * DTO para cada transacción de un PUT /transactions/batch: los mismos campos que
+ * TransactionRequest más el ID, que en el PUT individual viene en la URL.
+ */
+public class BatchTransactionRequest extends TransactionRequest {
+    @NotNull(message = "id es requerido")
+    private Long id;
+
+    public BatchTransactionRequest() {
+    }
+
+    public BatchTransactionRequest(Long id, BigDecimal amount, String type, Long parentId) {
+        super(amount, type, parentId);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.transactions.dto;
+
+/**
+ * DTO para la respuesta de los endpoints de conteo.
+ */
+public class CountResponse {
+    private long count;
+
+    public CountResponse() {
+    }
+
+    public CountResponse(long count) {
+        this.count = count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Una página de IDs en orden ascendente y el cursor para pedir la siguiente (null si no
+ * hay más). GET /transactions/types/{type} responde solo los IDs y envía el cursor en el
+ * header Link.
+ */
+public class IdPage {
+    private List<Long> ids;
+
+    @JsonProperty("next_cursor")
+    private Long nextCursor;
+
+    public IdPage() {
+    }
+
+    public IdPage(List<Long> ids, Long nextCursor) {
+        this.ids = ids;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO con el estado y los contadores de la caché de sumas: entradas actuales y máximas,
+ * aciertos, fallos, valores vencidos servidos (stale-while-revalidate) y desalojos.
+ */
+public class SumCacheStatsResponse {
+    private int size;
+
+    @JsonProperty("maximum_size")
+    private int maximumSize;
+
+    private long hits;
+    private long misses;
+
+    @JsonProperty("stale_hits")
+    private long staleHits;
+
+    private long evictions;
+
+    @JsonProperty("stale_while_revalidate")
+    private boolean staleWhileRevalidate;
+
+    public SumCacheStatsResponse() {
+    }
+
+    public SumCacheStatsResponse(int size, int maximumSize, long hits, long misses, long staleHits, long evictions,
+                                 boolean staleWhileRevalidate) {
+        this.size = size;
+        this.maximumSize = maximumSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.staleHits = staleHits;
+        this.evictions = evictions;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    public void setStaleHits(long staleHits) {
+        this.staleHits = staleHits;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+}
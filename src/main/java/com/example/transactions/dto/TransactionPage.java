@@ -0,0 +1,40 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta de GET /transactions: una página de transacciones en orden de ID y el
+ * cursor para pedir la siguiente (null si no hay más).
+ */
+public class TransactionPage {
+    private List<TransactionResponse> items;
+
+    @JsonProperty("next_cursor")
+    private Long nextCursor;
+
+    public TransactionPage() {
+    }
+
+    public TransactionPage(List<TransactionResponse> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TransactionResponse> items) {
+        this.items = items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.transactions.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 
@@ -14,6 +15,10 @@ public class TransactionResponse {
     @JsonProperty("parent_id")
     private Long parentId;
 
+    // Se envía en el header ETag, no en el cuerpo
+    @JsonIgnore
+    private long version;
+
     public TransactionResponse() {
     }
 
@@ -55,4 +60,12 @@ public class TransactionResponse {
     public void setParentId(Long parentId) {
         this.parentId = parentId;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
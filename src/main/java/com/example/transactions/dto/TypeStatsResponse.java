@@ -0,0 +1,74 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con los agregados de un tipo: cantidad de transacciones, suma de sus montos y monto
+ * mínimo y máximo (null si ninguna tiene monto).
+ */
+public class TypeStatsResponse {
+    private String type;
+    private long count;
+
+    @JsonProperty("total_amount")
+    private BigDecimal totalAmount;
+
+    @JsonProperty("min_amount")
+    private BigDecimal minAmount;
+
+    @JsonProperty("max_amount")
+    private BigDecimal maxAmount;
+
+    public TypeStatsResponse() {
+    }
+
+    public TypeStatsResponse(String type, long count, BigDecimal totalAmount, BigDecimal minAmount, BigDecimal maxAmount) {
+        this.type = type;
+        this.count = count;
+        this.totalAmount = totalAmount;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+}
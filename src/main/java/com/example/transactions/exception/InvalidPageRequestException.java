@@ -0,0 +1,14 @@
+package com.example.transactions.exception;
+
+/**
+ * Excepción lanzada cuando los parámetros de paginación (limit) están fuera de rango.
+ */
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidPageRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.transactions.exception;
+
+/**
+ * Excepción lanzada cuando un PUT condicional (If-Match) no coincide con la versión
+ * actual de la transacción.
+ */
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+
+    public VersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
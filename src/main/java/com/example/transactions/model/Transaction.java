@@ -8,12 +8,16 @@ import java.util.Objects;
  * 
  * Nota: Se usa BigDecimal para manejar montos con precisión decimal
  * y evitar problemas de redondeo que ocurren con double/float.
+ *
+ * version la asigna el repositorio al guardar: 1 en el alta y +1 en cada actualización.
+ * Se expone como ETag para que los clientes detecten actualizaciones perdidas.
  */
 public class Transaction {
     private Long id;
     private BigDecimal amount;
     private String type;
     private Long parentId;
+    private long version;
 
     public Transaction() {
     }
@@ -57,6 +61,14 @@ public class Transaction {
         this.parentId = parentId;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -77,6 +89,7 @@ public class Transaction {
                 ", amount=" + amount +
                 ", type='" + type + '\'' +
                 ", parentId=" + parentId +
+                ", version=" + version +
                 '}';
     }
 }
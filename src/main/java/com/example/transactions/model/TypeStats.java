@@ -0,0 +1,44 @@
+package com.example.transactions.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Agregados de las transacciones de un tipo: cantidad, suma de los montos y monto mínimo
+ * y máximo. Las transacciones sin monto solo cuentan en la cantidad; min y max son null si
+ * ninguna tiene monto.
+ */
+public class TypeStats {
+    private final String type;
+    private final long count;
+    private final BigDecimal total;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    public TypeStats(String type, long count, BigDecimal total, BigDecimal min, BigDecimal max) {
+        this.type = type;
+        this.count = count;
+        this.total = total;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Etiquetas de ancestros para responder "¿X es ancestro de Y?" sin recorrer la cadena.
+ *
+ * Cada transacción guardada tiene una etiqueta con su profundidad, su padre, su raíz y un
+ * único puntero de salto (skew-binary, Myers 1983): la consulta compara las raíces en O(1)
+ * y, si coinciden, baja hasta la profundidad de X en O(log profundidad) saltos.
+ *
+ * Un alta o un cambio de padre reetiqueta el subárbol de la transacción (sus descendientes
+ * cambian de profundidad y de raíz). Las etiquetas son inmutables y se reemplazan, así las
+ * lecturas no toman ningún lock. Un padre que todavía no fue guardado no es ancestro: los
+ * hijos que lo referencian son raíces hasta que se da de alta.
+ *
+ * Dar de alta un padre después de sus hijos obligaría a reetiquetar todo lo que cuelga de
+ * él, y una carga de hoja a raíz sería cuadrática. Por eso esas altas solo marcan las
+ * etiquetas como vencidas: la siguiente consulta las reconstruye todas de una vez, en O(n).
+ *
+ * onSave() corre antes de que la fila nueva se publique en el almacén (ver HierarchyIndex),
+ * así que una reconstrucción que corre en ese intervalo no ve un alta cuyo onSave() no la
+ * etiquetó por encontrar las etiquetas vencidas. Por eso una consulta sobre una transacción
+ * que está en el almacén y no tiene etiqueta también reconstruye.
+ *
+ * Las escrituras de etiquetas se serializan con un ReentrantLock y no con un monitor: una
+ * reconstrucción tarda O(n), y un hilo virtual que espera para entrar a un synchronized
+ * fija su hilo portador (Java 21) mientras que uno que espera un ReentrantLock lo libera.
+ */
+final class AncestorLabels {
+
+    private final LongConcurrentMap<Transaction> transactions;
+    private final Map<Long, Set<Long>> childrenIndex;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // ID -> etiqueta vigente; se reemplaza entero al reconstruir
+    private volatile LongConcurrentMap<Label> labels = new LongConcurrentMap<>();
+
+    // true si hay altas de padres sin reetiquetar; las escrituras no mantienen las etiquetas
+    // hasta la próxima reconstrucción
+    private volatile boolean stale;
+
+    AncestorLabels(LongConcurrentMap<Transaction> transactions, Map<Long, Set<Long>> childrenIndex) {
+        this.transactions = transactions;
+        this.childrenIndex = childrenIndex;
+    }
+
+    /**
+     * Reetiqueta el subárbol de la transacción si es un alta o si cambió su padre, o marca
+     * las etiquetas como vencidas si es el alta de un padre con hijos ya guardados.
+     */
+    void onSave(Transaction existing, Transaction transaction) {
+        // Un cambio de monto o de tipo no toca las etiquetas ni el lock
+        if (existing != null && Objects.equals(existing.getParentId(), transaction.getParentId())) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (stale) {
+                return;
+            }
+            long id = transaction.getId();
+            if (existing == null && childrenIndex.containsKey(id)) {
+                stale = true;
+            } else {
+                relabel(id, transaction.getParentId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indica si ancestorId es ancestro estricto de id; false si alguna no existe.
+     */
+    boolean isAncestor(long ancestorId, long id) {
+        if (stale || unlabeled(ancestorId) || unlabeled(id)) {
+            lock.lock();
+            try {
+                if (stale || unlabeled(ancestorId) || unlabeled(id)) {
+                    rebuildLocked();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return isLabeledAncestor(ancestorId, id);
+    }
+
+    /**
+     * Una transacción publicada sin etiqueta: su alta encontró las etiquetas vencidas y la
+     * reconstrucción corrió antes de que se publicara.
+     */
+    private boolean unlabeled(long id) {
+        return labels.get(id) == null && transactions.containsKey(id);
+    }
+
+    private boolean isLabeledAncestor(long ancestorId, long id) {
+        LongConcurrentMap<Label> labels = this.labels;
+        Label ancestor = labels.get(ancestorId);
+        Label label = labels.get(id);
+        if (ancestor == null || label == null || ancestor.root != label.root || ancestor.depth >= label.depth) {
+            return false;
+        }
+        return levelAncestor(label, ancestor.depth) == ancestor;
+    }
+
+    /**
+     * Etiqueta todas las transacciones del almacén, por ejemplo después de cargar un snapshot.
+     * Mientras tanto, las consultas esperan.
+     */
+    void rebuild() {
+        lock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        stale = true;
+        labels = new LongConcurrentMap<>();
+        transactions.forEachValue(transaction -> {
+            Long parentId = transaction.getParentId();
+            if (parentId == null || !transactions.containsKey(parentId)) {
+                relabel(transaction.getId(), parentId);
+            }
+        });
+        // Lo que quedó sin etiquetar forma ciclos (solo posibles escribiendo directo en el
+        // repositorio): cada ciclo se etiqueta como un árbol a partir de cualquiera de sus nodos
+        transactions.forEachValue(transaction -> {
+            if (labels.get(transaction.getId()) == null) {
+                relabel(transaction.getId(), transaction.getParentId());
+            }
+        });
+        stale = false;
+    }
+
+    /**
+     * Etiqueta la transacción a partir de su padre (el de la fila nueva, que en un cambio de
+     * padre todavía no está en el almacén) y después, en preorden, todo su subárbol.
+     * Si el padre quedó dentro del propio subárbol (un ciclo escrito directo en el
+     * repositorio), la transacción se etiqueta como raíz para que las etiquetas sigan
+     * formando un bosque.
+     */
+    private void relabel(long id, Long parentId) {
+        Label parent = parentId != null ? labels.get(parentId) : null;
+        if (parent != null && closesCycle(id, parent)) {
+            parent = null;
+        }
+        labels.put(id, new Label(id, parent));
+
+        SubtreeTraversal.walk(childrenIndex, id, childId -> {
+            if (childId == id) {
+                return true;
+            }
+            Transaction child = transactions.get(childId);
+            if (child == null) {
+                return false;
+            }
+            labels.put(childId, new Label(childId, labels.get(child.getParentId())));
+            return true;
+        });
+    }
+
+    /**
+     * Indica si colgar id de parent cerraría un ciclo: parent es id o id ya es su ancestro.
+     * Las altas de padres con hijos no pasan por acá (se reconstruye todo), y al reconstruir
+     * las raíces y los ciclos se etiquetan sin padre.
+     */
+    private boolean closesCycle(long id, Label parent) {
+        return parent.id == id || isLabeledAncestor(id, parent.id);
+    }
+
+    /**
+     * Ancestro de label a la profundidad indicada (no mayor que la de label).
+     */
+    private static Label levelAncestor(Label label, int depth) {
+        while (label.depth > depth) {
+            label = label.jump.depth >= depth ? label.jump : label.parent;
+        }
+        return label;
+    }
+
+    /**
+     * Etiqueta de una transacción. Para una raíz, parent es null y jump y root apuntan a
+     * la propia etiqueta.
+     */
+    private static final class Label {
+        private final long id;
+        private final int depth;
+        private final Label parent;
+        private final Label jump;
+        private final Label root;
+
+        private Label(long id, Label parent) {
+            this.id = id;
+            this.parent = parent;
+            if (parent == null) {
+                this.depth = 0;
+                this.jump = this;
+                this.root = this;
+                return;
+            }
+            this.depth = parent.depth + 1;
+            this.root = parent.root;
+            Label parentJump = parent.jump;
+            // Si los dos saltos anteriores cubren la misma distancia, se combinan en uno
+            this.jump = parent.depth - parentJump.depth == parentJump.depth - parentJump.jump.depth
+                    ? parentJump.jump
+                    : parent;
+        }
+    }
+}
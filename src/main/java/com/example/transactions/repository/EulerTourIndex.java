@@ -0,0 +1,482 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Motor de jerarquía basado en Euler-tour trees.
+ *
+ * Cada árbol de transacciones se representa como su recorrido de Euler: un token de
+ * apertura y uno de cierre por transacción, de modo que el subárbol de una transacción es
+ * el tramo contiguo entre sus dos tokens. Cada secuencia se guarda en un treap implícito
+ * (por posición) cuyos nodos llevan la suma de los montos de su subárbol del treap.
+ *
+ * Con eso, en O(log n) esperado:
+ * - suma de un subárbol: suma del tramo [apertura, cierre], leyendo los agregados en el
+ *   camino hacia el ancestro común de ambos tokens (sin modificar el treap)
+ * - alta: se inserta el par de tokens después de la apertura del padre
+ * - cambio de monto: se actualizan los agregados en el camino hasta la raíz del treap
+ * - cambio de padre: se corta el tramo del subárbol y se inserta bajo el nuevo padre,
+ *   sin importar la profundidad ni el tamaño del subárbol
+ * - ancestros: X es ancestro de Y si la apertura de Y cae dentro del tramo de X
+ *
+ * Las escrituras y las lecturas de sumas se coordinan con un lock de lectura/escritura.
+ */
+final class EulerTourIndex implements HierarchyIndex {
+
+    private final LongConcurrentMap<Transaction> transactions;
+    private final Map<Long, Set<Long>> childrenIndex;
+
+    // ID -> token de apertura; el de cierre es open.partner
+    private final LongConcurrentMap<Node> opens = new LongConcurrentMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Estado del generador de prioridades (xorshift); solo se usa con el lock de escritura
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    EulerTourIndex(LongConcurrentMap<Transaction> transactions, Map<Long, Set<Long>> childrenIndex) {
+        this.transactions = transactions;
+        this.childrenIndex = childrenIndex;
+    }
+
+    @Override
+    public void onSave(Transaction existing, Transaction transaction) {
+        long id = transaction.getId();
+        lock.writeLock().lock();
+        try {
+            if (existing == null) {
+                Node open = newToken(id, MaterializedSumIndex.amountOf(transaction));
+                merge(open, open.partner);
+                link(open, transaction.getParentId());
+                // Hijos guardados antes que su padre: hasta ahora eran raíces de su propio árbol
+                Set<Long> childIds = childrenIndex.get(id);
+                if (childIds != null) {
+                    for (Long childId : childIds) {
+                        Node child = opens.get(childId);
+                        if (child != null && child != open) {
+                            move(child, id);
+                        }
+                    }
+                }
+                return;
+            }
+
+            Node open = opens.get(id);
+            BigDecimal newAmount = MaterializedSumIndex.amountOf(transaction);
+            if (!newAmount.equals(open.value)) {
+                setValue(open, newAmount);
+            }
+            if (!Objects.equals(existing.getParentId(), transaction.getParentId())) {
+                move(open, transaction.getParentId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal subtreeSum(long id) {
+        Node open = opens.get(id);
+        if (open == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return rangeSum(open, open.partner);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isAncestor(long ancestorId, long id) {
+        Node ancestor = opens.get(ancestorId);
+        Node open = opens.get(id);
+        if (ancestor == null || open == null || ancestor == open) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return contains(ancestor, open);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void restore(SnapshotStore.Snapshot snapshot, int row) {
+        // Los treaps se construyen de una vez en rebuild()
+    }
+
+    @Override
+    public void restoreCompleted() {
+        rebuild();
+    }
+
+    /**
+     * Construye los treaps a partir del almacén y el índice de hijos: un recorrido en
+     * profundidad iterativo arma la secuencia de Euler de cada árbol y el treap se arma en
+     * O(tamaño) como árbol cartesiano de las prioridades.
+     */
+    @Override
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            TourBuilder builder = new TourBuilder();
+            transactions.forEachValue(transaction -> {
+                Long parentId = transaction.getParentId();
+                if (parentId == null || !transactions.containsKey(parentId)) {
+                    builder.build(transaction.getId());
+                }
+            });
+            // Lo que quedó sin visitar forma ciclos (solo posibles escribiendo directo en el
+            // repositorio): cada ciclo se arma como un árbol a partir de cualquiera de sus nodos
+            transactions.forEachValue(transaction -> {
+                if (opens.get(transaction.getId()) == null) {
+                    builder.build(transaction.getId());
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mueve el subárbol de open bajo parentId (o lo deja como raíz si el padre no existe).
+     * Si el nuevo padre está dentro del propio subárbol, el movimiento formaría un ciclo
+     * y el subárbol queda donde estaba.
+     */
+    private void move(Node open, Long parentId) {
+        Node parent = parentId != null ? opens.get(parentId) : null;
+        if (parent != null && contains(open, parent)) {
+            return;
+        }
+        cut(open);
+        link(open, parentId);
+    }
+
+    /**
+     * Separa el tramo [apertura, cierre] de su secuencia; queda como un treap propio.
+     */
+    private void cut(Node open) {
+        Node root = root(open);
+        int from = rank(open);
+        int to = rank(open.partner);
+        Node[] head = split(root, from);
+        Node[] middle = split(head[1], to - from + 1);
+        merge(head[0], middle[1]);
+    }
+
+    /**
+     * Inserta la secuencia de open (que debe ser un treap propio) después de la apertura
+     * del padre. Si el padre no existe, la transacción queda como raíz.
+     */
+    private void link(Node open, Long parentId) {
+        Node parent = parentId != null ? opens.get(parentId) : null;
+        if (parent == null) {
+            return;
+        }
+        Node segment = root(open);
+        Node[] parts = split(root(parent), rank(parent) + 1);
+        merge(merge(parts[0], segment), parts[1]);
+    }
+
+    /**
+     * Indica si node está en el subárbol cuya apertura es open.
+     */
+    private static boolean contains(Node open, Node node) {
+        if (root(open) != root(node)) {
+            return false;
+        }
+        int position = rank(node);
+        return rank(open) <= position && position <= rank(open.partner);
+    }
+
+    private void setValue(Node open, BigDecimal value) {
+        open.value = value;
+        for (Node node = open; node != null; node = node.parent) {
+            node.sum = plus(plus(node.value, sum(node.left)), sum(node.right));
+        }
+    }
+
+    /**
+     * Suma de los valores entre first y last (inclusive, first antes que last en el mismo
+     * treap). Suma el tramo de first hasta el final del subárbol izquierdo del ancestro
+     * común, el ancestro común y el tramo desde el inicio de su subárbol derecho hasta last.
+     */
+    private static BigDecimal rangeSum(Node first, Node last) {
+        Node common = lowestCommonAncestor(first, last);
+        BigDecimal total = null;
+
+        if (first != common) {
+            total = plus(plus(total, first.value), sum(first.right));
+            for (Node node = first; node.parent != common; node = node.parent) {
+                if (node == node.parent.left) {
+                    total = plus(plus(total, node.parent.value), sum(node.parent.right));
+                }
+            }
+        }
+        total = plus(total, common.value);
+        if (last != common) {
+            total = plus(plus(total, last.value), sum(last.left));
+            for (Node node = last; node.parent != common; node = node.parent) {
+                if (node == node.parent.right) {
+                    total = plus(plus(total, node.parent.value), sum(node.parent.left));
+                }
+            }
+        }
+        return total;
+    }
+
+    private static Node lowestCommonAncestor(Node a, Node b) {
+        int depthA = depth(a);
+        int depthB = depth(b);
+        while (depthA > depthB) {
+            a = a.parent;
+            depthA--;
+        }
+        while (depthB > depthA) {
+            b = b.parent;
+            depthB--;
+        }
+        while (a != b) {
+            a = a.parent;
+            b = b.parent;
+        }
+        return a;
+    }
+
+    // ========== Treap implícito ==========
+
+    private Node newToken(long id, BigDecimal amount) {
+        Node open = new Node(amount, nextPriority());
+        Node close = new Node(null, nextPriority());
+        open.partner = close;
+        opens.put(id, open);
+        return open;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 32);
+    }
+
+    /**
+     * Divide el treap en los primeros count nodes y el resto.
+     */
+    private static Node[] split(Node root, int count) {
+        Node[] parts = splitRecursive(root, count);
+        if (parts[0] != null) {
+            parts[0].parent = null;
+        }
+        if (parts[1] != null) {
+            parts[1].parent = null;
+        }
+        return parts;
+    }
+
+    private static Node[] splitRecursive(Node node, int count) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (size(node.left) >= count) {
+            Node[] parts = splitRecursive(node.left, count);
+            node.left = parts[1];
+            pull(node);
+            parts[1] = node;
+            return parts;
+        }
+        Node[] parts = splitRecursive(node.right, count - size(node.left) - 1);
+        node.right = parts[0];
+        pull(node);
+        parts[0] = node;
+        return parts;
+    }
+
+    /**
+     * Concatena dos treaps y retorna la raíz del resultado.
+     */
+    private static Node merge(Node left, Node right) {
+        Node root = mergeRecursive(left, right);
+        if (root != null) {
+            root.parent = null;
+        }
+        return root;
+    }
+
+    private static Node mergeRecursive(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = mergeRecursive(left.right, right);
+            pull(left);
+            return left;
+        }
+        right.left = mergeRecursive(left, right.left);
+        pull(right);
+        return right;
+    }
+
+    private static void pull(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        node.sum = plus(plus(node.value, sum(node.left)), sum(node.right));
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    private static int rank(Node node) {
+        int rank = size(node.left);
+        for (Node current = node; current.parent != null; current = current.parent) {
+            if (current == current.parent.right) {
+                rank += size(current.parent.left) + 1;
+            }
+        }
+        return rank;
+    }
+
+    private static Node root(Node node) {
+        while (node.parent != null) {
+            node = node.parent;
+        }
+        return node;
+    }
+
+    private static int depth(Node node) {
+        int depth = 0;
+        for (Node current = node; current.parent != null; current = current.parent) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static BigDecimal sum(Node node) {
+        return node != null ? node.sum : null;
+    }
+
+    /**
+     * Suma que trata null como "sin valor" (tokens de cierre), para que la escala del
+     * resultado dependa solo de los montos sumados.
+     */
+    private static BigDecimal plus(BigDecimal a, BigDecimal b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.add(b);
+    }
+
+    /**
+     * Arma el treap de un árbol completo a partir de su raíz, sin recursión: la secuencia
+     * de Euler sale de un SubtreeTraversal (apertura en preorden, cierre en postorden).
+     */
+    private final class TourBuilder {
+        private Node[] tour = new Node[64];
+        private Node[] nodes = new Node[64];
+        private int length;
+
+        void build(long rootId) {
+            length = 0;
+            SubtreeTraversal.walk(childrenIndex, rootId, id -> {
+                if (id != rootId && (opens.get(id) != null || !transactions.containsKey(id))) {
+                    return false;
+                }
+                append(newToken(id, MaterializedSumIndex.amountOf(transactions.get(id))));
+                return true;
+            }, id -> append(opens.get(id).partner));
+            buildTreap(length);
+        }
+
+        private void append(Node token) {
+            tour = ensure(tour, length + 1);
+            tour[length++] = token;
+        }
+
+        /**
+         * Árbol cartesiano de las prioridades sobre la secuencia de Euler (pila monótona),
+         * seguido de un pull en postorden para calcular tamaños y sumas.
+         */
+        private void buildTreap(int length) {
+            nodes = ensure(nodes, length);
+            int top = 0;
+            for (int i = 0; i < length; i++) {
+                Node node = tour[i];
+                Node last = null;
+                while (top > 0 && nodes[top - 1].priority < node.priority) {
+                    last = nodes[--top];
+                }
+                node.left = last;
+                if (top > 0) {
+                    nodes[top - 1].right = node;
+                }
+                nodes[top++] = node;
+            }
+            Node root = nodes[0];
+            root.parent = null;
+
+            // Preorden raíz-derecha-izquierda; recorrido al revés es un postorden
+            int count = 0;
+            top = 0;
+            nodes[top++] = root;
+            while (top > 0) {
+                Node node = nodes[--top];
+                tour[count++] = node;
+                if (node.left != null) {
+                    nodes[top++] = node.left;
+                }
+                if (node.right != null) {
+                    nodes[top++] = node.right;
+                }
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                pull(tour[i]);
+            }
+            Arrays.fill(tour, 0, length, null);
+            Arrays.fill(nodes, 0, length, null);
+        }
+
+        private Node[] ensure(Node[] array, int capacity) {
+            return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, capacity));
+        }
+    }
+
+    /**
+     * Token del recorrido de Euler. La apertura lleva el monto de la transacción; el
+     * cierre no lleva valor.
+     */
+    private static final class Node {
+        private final int priority;
+        private BigDecimal value;
+        private BigDecimal sum;
+        private int size = 1;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private Node partner;
+
+        private Node(BigDecimal value, int priority) {
+            this.value = value;
+            this.sum = value;
+            this.priority = priority;
+        }
+    }
+}
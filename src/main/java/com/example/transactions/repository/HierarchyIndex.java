@@ -0,0 +1,71 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Motor de jerarquía: mantiene la suma de cada subárbol a medida que se guardan transacciones.
+ *
+ * TransactionRepositoryImpl lo invoca antes de publicar la fila en el almacén y de agregarla
+ * al índice de hijos de su padre: durante onSave() el almacén tiene la versión anterior (o
+ * nada, en un alta), y una transacción que está en el almacén ya pasó por onSave().
+ * Las altas de padres con hijos ya guardados y los cambios de padre llegan de a uno (lock
+ * de jerarquía exclusivo); las actualizaciones que no cambian el padre y las altas de hojas
+ * bajo un padre ya guardado pueden llegar en paralelo para IDs distintos, nunca para el
+ * mismo ID. Implementaciones (transactions.hierarchy.engine):
+ * - materialized: MaterializedSumIndex, suma en O(1) y escrituras O(profundidad); los
+ *   ancestros se resuelven con AncestorLabels en O(log profundidad)
+ * - euler-tour: EulerTourIndex, suma, alta, cambio de padre y ancestros en O(log n)
+ */
+interface HierarchyIndex {
+
+    /**
+     * Refleja un alta (existing == null) o una actualización de monto y/o padre.
+     * Una actualización sin cambio de padre o el alta de una hoja pueden correr en paralelo
+     * con otras iguales.
+     */
+    void onSave(Transaction existing, Transaction transaction);
+
+    /**
+     * Suma del subárbol de la transacción, o null si no existe.
+     */
+    BigDecimal subtreeSum(long id);
+
+    /**
+     * Indica si ancestorId es ancestro estricto de id; false si alguna de las dos no existe.
+     */
+    boolean isAncestor(long ancestorId, long id);
+
+    /**
+     * Restaura una fila de un snapshot. Se llama en paralelo para filas distintas, después
+     * de cargar la fila en el almacén.
+     */
+    void restore(SnapshotStore.Snapshot snapshot, int row);
+
+    /**
+     * Se llama una vez que todas las filas del snapshot están en el almacén y en el índice de hijos.
+     */
+    void restoreCompleted();
+
+    /**
+     * Recalcula el motor completo a partir del almacén y el índice de hijos, con el motor
+     * vacío. Se usa al reaplicar el log sin snapshot, en lugar de invocar onSave() por cada
+     * registro.
+     */
+    void rebuild();
+
+    /**
+     * Crea el motor indicado por transactions.hierarchy.engine.
+     */
+    static HierarchyIndex create(String engine, LongConcurrentMap<Transaction> transactions,
+                                 Map<Long, Set<Long>> childrenIndex) {
+        return switch (engine) {
+            case "materialized" -> new MaterializedSumIndex(transactions, childrenIndex);
+            case "euler-tour" -> new EulerTourIndex(transactions, childrenIndex);
+            default -> throw new IllegalArgumentException("Motor de jerarquía desconocido: " + engine);
+        };
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.transactions.repository;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Conjunto comprimido de valores long al estilo Roaring.
+ *
+ * Cada valor se divide en una parte alta (los 48 bits superiores, con signo) y una
+ * parte baja de 16 bits. Las partes altas se guardan ordenadas y cada una apunta a un
+ * contenedor con las partes bajas:
+ * - ArrayContainer: arreglo ordenado de short, para hasta 4096 valores (2 bytes por valor)
+ * - BitmapContainer: 1024 long (8 KB fijos), para contenedores más poblados
+ *
+ * La iteración es en orden ascendente y la cardinalidad se mantiene en O(1).
+ * No es thread-safe: quien lo use debe sincronizar el acceso.
+ */
+final class LongBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private long[] highs = new long[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    private long cardinality;
+
+    /**
+     * Agrega un valor. Retorna true si no estaba presente.
+     */
+    boolean add(long value) {
+        long high = value >> 16;
+        int index = Arrays.binarySearch(highs, 0, size, high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add((char) value);
+        boolean added = containers[index].cardinality() > before;
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * Quita un valor. Retorna true si estaba presente.
+     */
+    boolean remove(long value) {
+        int index = Arrays.binarySearch(highs, 0, size, value >> 16);
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        Container updated = container.remove((char) value);
+        if (updated.cardinality() == before) {
+            return false;
+        }
+        cardinality--;
+        if (updated.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = updated;
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        int index = Arrays.binarySearch(highs, 0, size, value >> 16);
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    long cardinality() {
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Recorre los valores en orden ascendente.
+     */
+    void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(highs[i] << 16, action);
+        }
+    }
+
+    /**
+     * Recorre en orden ascendente los valores mayores o iguales a from mientras action
+     * retorne true; el primer contenedor se ubica con búsqueda binaria, sin recorrer los
+     * anteriores. Retorna false si action cortó el recorrido.
+     */
+    boolean forEachFrom(long from, LongPredicate action) {
+        int index = Arrays.binarySearch(highs, 0, size, from >> 16);
+        char fromLow = (char) from;
+        if (index < 0) {
+            index = -index - 1;
+            fromLow = 0;
+        }
+        for (int i = index; i < size; i++) {
+            if (!containers[i].forEachFrom(highs[i] << 16, i == index ? fromLow : 0, action)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copia independiente: los contenedores se copian con arraycopy, sin boxing.
+     */
+    LongBitmap copy() {
+        LongBitmap copy = new LongBitmap();
+        copy.highs = Arrays.copyOf(highs, Math.max(4, size));
+        copy.containers = new Container[copy.highs.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    private void insertContainer(int index, long high, Container container) {
+        if (size == highs.length) {
+            highs = Arrays.copyOf(highs, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(highs, index, highs, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        highs[index] = high;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(highs, index + 1, highs, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    // ========== Contenedores ==========
+
+    /**
+     * Contenedor de partes bajas. add/remove retornan el contenedor a usar de ahí en
+     * adelante, que puede ser de otro tipo si cambió la densidad.
+     */
+    private interface Container {
+        Container add(char low);
+
+        Container remove(char low);
+
+        boolean contains(char low);
+
+        int cardinality();
+
+        void forEach(long base, LongConsumer action);
+
+        boolean forEachFrom(long base, char fromLow, LongPredicate action);
+
+        Container copy();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public void forEach(long base, LongConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        public boolean forEachFrom(long base, char fromLow, LongPredicate action) {
+            int start = Arrays.binarySearch(values, 0, cardinality, fromLow);
+            for (int i = start >= 0 ? start : -start - 1; i < cardinality; i++) {
+                if (!action.test(base | values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char low) {
+            long before = words[low >>> 6];
+            long after = before | (1L << low);
+            if (after != before) {
+                words[low >>> 6] = after;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            long before = words[low >>> 6];
+            long after = before & ~(1L << low);
+            if (after != before) {
+                words[low >>> 6] = after;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public void forEach(long base, LongConsumer action) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    action.accept(base | ((long) w << 6) | bit);
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public boolean forEachFrom(long base, char fromLow, LongPredicate action) {
+            for (int w = fromLow >>> 6; w < words.length; w++) {
+                long word = w == fromLow >>> 6 ? words[w] & (-1L << fromLow) : words[w];
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    if (!action.test(base | ((long) w << 6) | bit)) {
+                        return false;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int index = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[index++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.transactions.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Mapa concurrente con claves long primitivas, sin boxing en get/put.
+ *
+ * Combina dos segmentos:
+ * - Denso: los IDs no negativos que crecen en forma secuencial se guardan en un arreglo
+ *   indexado directamente, dividido en chunks de 1024 posiciones. Un chunk se crea cuando
+ *   se escribe el primer ID que cae en él y es contiguo al último existente.
+ * - Hash: el resto de las claves (negativas, muy dispersas o adelantadas respecto del
+ *   segmento denso) usan direccionamiento abierto con sondeo lineal sobre un long[].
+ *   Cuando el segmento denso alcanza esas claves, se migran a él.
+ *
+ * Las lecturas no toman locks. Las escrituras sobre chunks existentes usan getAndSet
+ * atómico; las del segmento hash, la creación de chunks y el redimensionamiento se
+ * serializan con un lock. Un redimensionamiento construye una tabla nueva y la publica
+ * con una escritura volátil, así que los lectores nunca esperan: siguen leyendo la
+ * tabla anterior, que ya no se modifica.
+ */
+public final class LongConcurrentMap<V> {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << 20;
+    private static final Object TOMBSTONE = new Object();
+
+    // Segmento denso: directorio de chunks; chunkCount chunks contiguos desde el ID 0
+    private volatile AtomicReferenceArray<AtomicReferenceArray<Object>> chunks = new AtomicReferenceArray<>(16);
+    private volatile int chunkCount;
+
+    // Segmento hash
+    private volatile Table table = new Table(16);
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Extiende el segmento denso hasta cubrir maxKey, para que una carga masiva en
+     * paralelo (claves que no llegan en orden) escriba directo en los chunks en lugar
+     * de pasar por el segmento hash. No hace nada si maxKey excede el segmento denso.
+     */
+    public void reserveDense(long maxKey) {
+        if (maxKey < 0 || (maxKey >>> CHUNK_SHIFT) >= MAX_CHUNKS) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            while (chunkCount <= (maxKey >>> CHUNK_SHIFT)) {
+                appendChunk();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Retorna el valor asociado a la clave o null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Object value = denseGet(key);
+        if (value != null) {
+            return (V) value;
+        }
+        value = table.get(key);
+        if (value != null) {
+            return (V) value;
+        }
+        // La clave pudo migrar al segmento denso entre las dos lecturas anteriores
+        return (V) denseGet(key);
+    }
+
+    /**
+     * Verifica si la clave tiene un valor asociado.
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Asocia un valor no nulo a la clave y retorna el valor anterior o null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        AtomicReferenceArray<Object> chunk = chunkFor(key);
+        if (chunk != null) {
+            Object previous = chunk.getAndSet((int) key & CHUNK_MASK, value);
+            if (previous == null) {
+                size.increment();
+            }
+            return (V) previous;
+        }
+
+        writeLock.lock();
+        try {
+            if (isNextChunk(key)) {
+                chunk = appendChunk();
+                Object previous = chunk.getAndSet((int) key & CHUNK_MASK, value);
+                if (previous == null) {
+                    size.increment();
+                }
+                return (V) previous;
+            }
+            chunk = chunkFor(key);
+            if (chunk != null) {
+                // Otro escritor creó el chunk mientras se esperaba el lock
+                Object previous = chunk.getAndSet((int) key & CHUNK_MASK, value);
+                if (previous == null) {
+                    size.increment();
+                }
+                return (V) previous;
+            }
+            Object previous = hashPut(key, value);
+            if (previous == null) {
+                size.increment();
+            }
+            return (V) previous;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Cantidad de claves. Es exacta cuando no hay escrituras en curso.
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Recorre los valores: primero el segmento denso en orden de ID, luego el segmento hash.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        AtomicReferenceArray<AtomicReferenceArray<Object>> directory = chunks;
+        int count = Math.min(chunkCount, directory.length());
+        for (int c = 0; c < count; c++) {
+            AtomicReferenceArray<Object> chunk = directory.get(c);
+            if (chunk == null) {
+                continue;
+            }
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                Object value = chunk.get(i);
+                if (value != null) {
+                    action.accept((V) value);
+                }
+            }
+        }
+        Table current = table;
+        for (int slot = 0; slot < current.values.length(); slot++) {
+            Object value = current.values.get(slot);
+            if (value != null && value != TOMBSTONE) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Copia de todos los valores.
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        forEachValue(values::add);
+        return values;
+    }
+
+    /**
+     * Verifica si la clave se resuelve en el segmento denso.
+     */
+    boolean isDense(long key) {
+        return chunkFor(key) != null;
+    }
+
+    // ========== Segmento denso ==========
+
+    private Object denseGet(long key) {
+        AtomicReferenceArray<Object> chunk = chunkFor(key);
+        return chunk != null ? chunk.get((int) key & CHUNK_MASK) : null;
+    }
+
+    private AtomicReferenceArray<Object> chunkFor(long key) {
+        if (key < 0) {
+            return null;
+        }
+        long index = key >>> CHUNK_SHIFT;
+        AtomicReferenceArray<AtomicReferenceArray<Object>> directory = chunks;
+        return index < directory.length() ? directory.get((int) index) : null;
+    }
+
+    private boolean isNextChunk(long key) {
+        return key >= 0 && (key >>> CHUNK_SHIFT) == chunkCount && chunkCount < MAX_CHUNKS;
+    }
+
+    /**
+     * Crea el siguiente chunk, le migra las claves del segmento hash que caen en su rango
+     * y recién entonces lo publica. Se ejecuta con el lock de escritura tomado.
+     */
+    private AtomicReferenceArray<Object> appendChunk() {
+        int index = chunkCount;
+        AtomicReferenceArray<Object> chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+        long firstKey = (long) index << CHUNK_SHIFT;
+        Table current = table;
+        if (current.live > 0) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                Object value = current.get(firstKey + i);
+                if (value != null) {
+                    chunk.set(i, value);
+                }
+            }
+        }
+
+        AtomicReferenceArray<AtomicReferenceArray<Object>> directory = chunks;
+        if (index == directory.length()) {
+            AtomicReferenceArray<AtomicReferenceArray<Object>> grown = new AtomicReferenceArray<>(index * 2);
+            for (int c = 0; c < index; c++) {
+                grown.set(c, directory.get(c));
+            }
+            grown.set(index, chunk);
+            chunks = grown;
+        } else {
+            directory.set(index, chunk);
+        }
+        chunkCount = index + 1;
+
+        // Publicado el chunk, las copias del segmento hash ya no se leen
+        if (current.live > 0) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                current.remove(firstKey + i);
+            }
+        }
+        return chunk;
+    }
+
+    // ========== Segmento hash ==========
+
+    private Object hashPut(long key, Object value) {
+        Table current = table;
+        if ((current.used + 1) * 2 > current.capacity()) {
+            current = current.resized();
+            table = current;
+        }
+        return current.put(key, value);
+    }
+
+    /**
+     * Tabla de direccionamiento abierto. Un slot con valor null está libre; las claves
+     * se escriben antes que su valor, por lo que un lector que ve un valor ve su clave.
+     * Las bajas dejan una lápida para no cortar las cadenas de sondeo de los lectores.
+     */
+    private static final class Table {
+        final long[] keys;
+        final AtomicReferenceArray<Object> values;
+        final int mask;
+        int used;
+        int live;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        Object get(long key) {
+            int slot = mix(key) & mask;
+            while (true) {
+                Object value = values.get(slot);
+                if (value == null) {
+                    return null;
+                }
+                if (keys[slot] == key) {
+                    return value == TOMBSTONE ? null : value;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        Object put(long key, Object value) {
+            int slot = mix(key) & mask;
+            while (true) {
+                Object current = values.get(slot);
+                if (current == null) {
+                    keys[slot] = key;
+                    values.set(slot, value);
+                    used++;
+                    live++;
+                    return null;
+                }
+                if (keys[slot] == key) {
+                    values.set(slot, value);
+                    if (current == TOMBSTONE) {
+                        live++;
+                        return null;
+                    }
+                    return current;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        void remove(long key) {
+            int slot = mix(key) & mask;
+            while (true) {
+                Object current = values.get(slot);
+                if (current == null) {
+                    return;
+                }
+                if (keys[slot] == key) {
+                    if (current != TOMBSTONE) {
+                        values.set(slot, TOMBSTONE);
+                        live--;
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * Copia las entradas vivas (sin lápidas) a una tabla nueva.
+         */
+        Table resized() {
+            int capacity = capacity();
+            while (live * 4 >= capacity) {
+                capacity <<= 1;
+            }
+            Table grown = new Table(capacity);
+            for (int slot = 0; slot < values.length(); slot++) {
+                Object value = values.get(slot);
+                if (value != null && value != TOMBSTONE) {
+                    grown.put(keys[slot], value);
+                }
+            }
+            return grown;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
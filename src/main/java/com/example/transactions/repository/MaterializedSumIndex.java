@@ -0,0 +1,193 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Motor de jerarquía con la suma de cada subárbol materializada.
+ *
+ * findSubtreeSum() responde en O(1) y sin locks; a cambio, cada escritura propaga su
+ * delta a todos los ancestros, por lo que cuesta O(profundidad). Las consultas de
+ * ancestros las responde AncestorLabels. Una reconstrucción completa calcula todas las
+ * sumas en paralelo con ParallelSubtreeSum.
+ */
+final class MaterializedSumIndex implements HierarchyIndex {
+
+    private final LongConcurrentMap<Transaction> transactions;
+    private final Map<Long, Set<Long>> childrenIndex;
+
+    // Suma materializada: ID -> monto propio + montos de todas las descendientes
+    private final Map<Long, BigDecimal> subtreeSums = new ConcurrentHashMap<>();
+
+    private final AncestorLabels ancestors;
+
+    MaterializedSumIndex(LongConcurrentMap<Transaction> transactions, Map<Long, Set<Long>> childrenIndex) {
+        this.transactions = transactions;
+        this.childrenIndex = childrenIndex;
+        this.ancestors = new AncestorLabels(transactions, childrenIndex);
+    }
+
+    /**
+     * Actualiza las sumas materializadas después de guardar una transacción.
+     * - Alta: el total es el monto propio más los totales de los hijos que ya
+     *   existían (guardados antes que su padre), y se suma a los ancestros.
+     * - Cambio de monto: se propaga el delta a la transacción y sus ancestros.
+     * - Cambio de padre: el total del subárbol se resta de la cadena anterior
+     *   y se suma a la nueva.
+     */
+    @Override
+    public void onSave(Transaction existing, Transaction transaction) {
+        ancestors.onSave(existing, transaction);
+        Long id = transaction.getId();
+        BigDecimal newAmount = amountOf(transaction);
+
+        if (existing == null) {
+            BigDecimal total = newAmount;
+            Set<Long> childIds = childrenIndex.get(id);
+            if (childIds != null) {
+                for (Long childId : childIds) {
+                    BigDecimal childSum = subtreeSums.get(childId);
+                    if (childSum != null) {
+                        total = total.add(childSum);
+                    }
+                }
+            }
+            subtreeSums.put(id, total);
+            addToAncestors(id, transaction.getParentId(), total);
+            return;
+        }
+
+        BigDecimal delta = newAmount.subtract(amountOf(existing));
+        if (Objects.equals(existing.getParentId(), transaction.getParentId())) {
+            // Puede correr en paralelo con otras actualizaciones: el total propio también
+            // recibe deltas de las descendientes, así que se suma con merge() y no se reemplaza
+            subtreeSums.merge(id, delta, BigDecimal::add);
+            if (delta.signum() != 0) {
+                addToAncestors(id, transaction.getParentId(), delta);
+            }
+            return;
+        }
+
+        BigDecimal oldTotal = subtreeSums.get(id);
+        BigDecimal newTotal = oldTotal.add(delta);
+        subtreeSums.put(id, newTotal);
+        addToAncestors(id, existing.getParentId(), oldTotal.negate());
+        addToAncestors(id, transaction.getParentId(), newTotal);
+    }
+
+    @Override
+    public BigDecimal subtreeSum(long id) {
+        return subtreeSums.get(id);
+    }
+
+    @Override
+    public boolean isAncestor(long ancestorId, long id) {
+        return ancestors.isAncestor(ancestorId, id);
+    }
+
+    /**
+     * Las sumas ya vienen calculadas en el snapshot.
+     */
+    @Override
+    public void restore(SnapshotStore.Snapshot snapshot, int row) {
+        subtreeSums.put(snapshot.id(row), snapshot.subtreeSum(row));
+    }
+
+    /**
+     * Las etiquetas de ancestros se arman cuando el almacén y el índice de hijos están completos.
+     */
+    @Override
+    public void restoreCompleted() {
+        ancestors.rebuild();
+    }
+
+    /**
+     * Calcula todas las sumas en paralelo con ParallelSubtreeSum y después las etiquetas de
+     * ancestros. Es O(n), contra O(n · profundidad) de propagar cada alta a sus ancestros.
+     */
+    @Override
+    public void rebuild() {
+        subtreeSums.clear();
+        ParallelSubtreeSum.computeAll(transactions, childrenIndex, subtreeSums, ForkJoinPool.commonPool(),
+                ParallelSubtreeSum.DEFAULT_SEQUENTIAL_THRESHOLD);
+        ancestors.rebuild();
+    }
+
+    /**
+     * Suma un delta a cada ancestro existente a partir de parentId.
+     * El recorrido termina en una raíz, en un padre que todavía no fue guardado
+     * (su total se calculará al darlo de alta), al volver a la transacción de origen o al
+     * repetir un ID.
+     *
+     * Un ciclo que no pasa por id (solo posible con datos escritos antes de que save()
+     * rechazara los ciclos) se detecta con el algoritmo de Brent, sin conjunto de visitados:
+     * una tortuga se queda en el nodo visitado en cada potencia de 2 y el ciclo aparece
+     * cuando el recorrido vuelve a ella. Para entonces algunos nodos del ciclo recibieron el
+     * delta dos veces, y se les descuenta; así cada ancestro lo recibe exactamente una vez.
+     */
+    private void addToAncestors(Long id, Long parentId, BigDecimal delta) {
+        Transaction first = ancestor(id, parentId);
+        Long tortoise = null;
+        int power = 1;
+        int lambda = 0;
+        int steps = 0;
+        for (Transaction current = first; current != null; current = ancestor(id, current.getParentId())) {
+            Long currentId = current.getId();
+            if (currentId.equals(tortoise)) {
+                undoRepeatedAncestors(id, first, lambda + 1, steps, delta);
+                return;
+            }
+            subtreeSums.merge(currentId, delta, BigDecimal::add);
+            steps++;
+            if (++lambda == power) {
+                tortoise = currentId;
+                power *= 2;
+                lambda = 0;
+            }
+        }
+    }
+
+    /**
+     * El recorrido desde first entró en un ciclo de largo cycleLength y aplicó el delta en
+     * sus primeros steps nodos. Los nodos distintos son los primeros mu + cycleLength,
+     * donde mu es el largo del tramo anterior al ciclo; a los siguientes se les resta el
+     * delta que recibieron de más.
+     */
+    private void undoRepeatedAncestors(Long id, Transaction first, int cycleLength, int steps, BigDecimal delta) {
+        Transaction slow = first;
+        Transaction fast = first;
+        for (int i = 0; i < cycleLength; i++) {
+            fast = ancestor(id, fast.getParentId());
+        }
+        int mu = 0;
+        while (!slow.getId().equals(fast.getId())) {
+            slow = ancestor(id, slow.getParentId());
+            fast = ancestor(id, fast.getParentId());
+            mu++;
+        }
+        // fast es el nodo en la posición mu + cycleLength, el primero que se repitió
+        BigDecimal undo = delta.negate();
+        for (int i = mu + cycleLength; i < steps; i++) {
+            subtreeSums.merge(fast.getId(), undo, BigDecimal::add);
+            fast = ancestor(id, fast.getParentId());
+        }
+    }
+
+    /**
+     * La transacción ancestorId si el recorrido de ancestros de id sigue por ella: existe y
+     * no es id. null si el recorrido termina.
+     */
+    private Transaction ancestor(Long id, Long ancestorId) {
+        return ancestorId == null || ancestorId.equals(id) ? null : transactions.get(ancestorId);
+    }
+
+    static BigDecimal amountOf(Transaction transaction) {
+        return transaction.getAmount() != null ? transaction.getAmount() : BigDecimal.ZERO;
+    }
+}
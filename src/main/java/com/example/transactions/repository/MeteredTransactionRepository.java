@@ -0,0 +1,167 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Decorador que mide cada operación del repositorio con un Timer de Micrometer:
+ * transactions.repository con la etiqueta method (save, findById, findSubtreeSum...).
+ *
+ * Los timers publican un histograma de percentiles, así en Prometheus se puede calcular
+ * el p99 de una operación agregando varias instancias (histogram_quantile sobre los
+ * buckets), cosa que no se puede hacer con percentiles ya calculados por instancia.
+ *
+ * MetricsConfig lo registra como el TransactionRepository primario: el servicio, la carga
+ * masiva y la variante reactiva pasan por él. Lo que depende de la implementación concreta
+ * (SnapshotCheckpointer) la sigue recibiendo sin medir.
+ */
+public class MeteredTransactionRepository implements TransactionRepository {
+
+    public static final String TIMER = "transactions.repository";
+
+    private final TransactionRepository delegate;
+
+    private final Timer save;
+    private final Timer saveIfVersion;
+    private final Timer saveAll;
+    private final Timer findById;
+    private final Timer existsById;
+    private final Timer findIdsByType;
+    private final Timer findIdsByTypePage;
+    private final Timer countByType;
+    private final Timer findTypeStats;
+    private final Timer findAllTypeStats;
+    private final Timer findByParentId;
+    private final Timer findSubtreeSum;
+    private final Timer isAncestor;
+    private final Timer findAncestorIds;
+    private final Timer findAll;
+    private final Timer findPage;
+
+    public MeteredTransactionRepository(TransactionRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.save = timer(registry, "save");
+        this.saveIfVersion = timer(registry, "saveIfVersion");
+        this.saveAll = timer(registry, "saveAll");
+        this.findById = timer(registry, "findById");
+        this.existsById = timer(registry, "existsById");
+        this.findIdsByType = timer(registry, "findIdsByType");
+        this.findIdsByTypePage = timer(registry, "findIdsByTypePage");
+        this.countByType = timer(registry, "countByType");
+        this.findTypeStats = timer(registry, "findTypeStats");
+        this.findAllTypeStats = timer(registry, "findAllTypeStats");
+        this.findByParentId = timer(registry, "findByParentId");
+        this.findSubtreeSum = timer(registry, "findSubtreeSum");
+        this.isAncestor = timer(registry, "isAncestor");
+        this.findAncestorIds = timer(registry, "findAncestorIds");
+        this.findAll = timer(registry, "findAll");
+        this.findPage = timer(registry, "findPage");
+    }
+
+    private static Timer timer(MeterRegistry registry, String method) {
+        return Timer.builder(TIMER)
+                .description("Duración de las operaciones del repositorio de transacciones")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * El repositorio sin medir, para lecturas internas que no deben aparecer en los timers
+     * (por ejemplo las de TransactionStoreMetrics).
+     */
+    public TransactionRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void save(Transaction transaction) {
+        save.record(() -> delegate.save(transaction));
+    }
+
+    @Override
+    public boolean saveIfVersion(Transaction transaction, long expectedVersion) {
+        return saveIfVersion.record(() -> delegate.saveIfVersion(transaction, expectedVersion));
+    }
+
+    @Override
+    public void saveAll(List<Transaction> transactions) {
+        saveAll.record(() -> delegate.saveAll(transactions));
+    }
+
+    @Override
+    public void setSubtreeListener(LongConsumer listener) {
+        delegate.setSubtreeListener(listener);
+    }
+
+    @Override
+    public Transaction findById(Long id) {
+        return findById.record(() -> delegate.findById(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return existsById.record(() -> delegate.existsById(id));
+    }
+
+    @Override
+    public List<Long> findIdsByType(String type) {
+        return findIdsByType.record(() -> delegate.findIdsByType(type));
+    }
+
+    @Override
+    public List<Long> findIdsByType(String type, Long afterId, int limit) {
+        return findIdsByTypePage.record(() -> delegate.findIdsByType(type, afterId, limit));
+    }
+
+    @Override
+    public long countByType(String type) {
+        return countByType.record(() -> delegate.countByType(type));
+    }
+
+    @Override
+    public TypeStats findTypeStats(String type) {
+        return findTypeStats.record(() -> delegate.findTypeStats(type));
+    }
+
+    @Override
+    public List<TypeStats> findAllTypeStats() {
+        return findAllTypeStats.record(delegate::findAllTypeStats);
+    }
+
+    @Override
+    public List<Transaction> findByParentId(Long parentId) {
+        return findByParentId.record(() -> delegate.findByParentId(parentId));
+    }
+
+    @Override
+    public BigDecimal findSubtreeSum(Long id) {
+        return findSubtreeSum.record(() -> delegate.findSubtreeSum(id));
+    }
+
+    @Override
+    public boolean isAncestor(Long ancestorId, Long id) {
+        return isAncestor.record(() -> delegate.isAncestor(ancestorId, id));
+    }
+
+    @Override
+    public List<Long> findAncestorIds(Long id) {
+        return findAncestorIds.record(() -> delegate.findAncestorIds(id));
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return findAll.record(delegate::findAll);
+    }
+
+    @Override
+    public List<Transaction> findPage(Long afterId, int limit) {
+        return findPage.record(() -> delegate.findPage(afterId, limit));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.transactions.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Mapa long -> int con direccionamiento abierto (sondeo lineal) almacenado fuera del heap.
+ *
+ * Se usa como índice ID -> fila en OffHeapTransactionRepository. No es thread-safe:
+ * el repositorio lo protege con su propio lock.
+ */
+final class OffHeapLongIntMap {
+
+    static final int MISSING = -1;
+
+    private LongBuffer keys;
+    // Se guarda valor + 1, de modo que 0 marca un slot libre
+    private IntBuffer values;
+    private int mask;
+    private int size;
+
+    OffHeapLongIntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Retorna el valor asociado a la clave o MISSING.
+     */
+    int get(long key) {
+        int slot = mix(key) & mask;
+        while (true) {
+            int stored = values.get(slot);
+            if (stored == 0) {
+                return MISSING;
+            }
+            if (keys.get(slot) == key) {
+                return stored - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Asocia un valor no negativo a la clave, reemplazando el anterior si existía.
+     */
+    void put(long key, int value) {
+        if ((size + 1) * 2L > mask + 1L) {
+            resize();
+        }
+        if (insert(keys, values, mask, key, value)) {
+            size++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bytes reservados fuera del heap por la tabla.
+     */
+    long offHeapBytes() {
+        return (mask + 1L) * (Long.BYTES + Integer.BYTES);
+    }
+
+    private void resize() {
+        LongBuffer oldKeys = keys;
+        IntBuffer oldValues = values;
+        int oldCapacity = mask + 1;
+        allocate(oldCapacity * 2);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int stored = oldValues.get(slot);
+            if (stored != 0) {
+                insert(keys, values, mask, oldKeys.get(slot), stored - 1);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        values = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        mask = capacity - 1;
+    }
+
+    private static boolean insert(LongBuffer keys, IntBuffer values, int mask, long key, int value) {
+        int slot = mix(key) & mask;
+        while (values.get(slot) != 0) {
+            if (keys.get(slot) == key) {
+                values.put(slot, value + 1);
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys.put(slot, key);
+        values.put(slot, value + 1);
+        return true;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
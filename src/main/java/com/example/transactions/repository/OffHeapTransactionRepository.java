@@ -0,0 +1,1071 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.exception.InvalidParentException;
+import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Implementación columnar fuera del heap del repositorio de transacciones.
+ * Se activa con transactions.repository.type=offheap.
+ *
+ * Cada transacción ocupa una fila y cada atributo vive en su propia columna
+ * (ByteBuffer directo), por lo que el heap no crece con la cantidad de filas y
+ * el GC no tiene objetos que recorrer:
+ * - id, referencia a la fila padre y código de tipo (ver TypeDictionary)
+ * - monto en punto fijo: valor sin escala (long) + escala (byte)
+ * - suma materializada del subárbol, con la misma representación que el monto
+ * - versión (1 en el alta, +1 en cada actualización) para los PUT condicionales
+ * - listas doblemente enlazadas intrusivas para los hijos de cada fila
+ * - etiquetas de ancestros: profundidad, fila raíz y un puntero de salto skew-binary, que
+ *   responden isAncestor() en O(log profundidad); un alta o un cambio de padre reetiqueta
+ *   el subárbol de la fila. El alta de una fila fantasma que ya tiene hijos solo marca las
+ *   etiquetas como vencidas, y la siguiente consulta las reconstruye todas en O(n)
+ *
+ * Un padre referenciado antes de ser guardado ocupa una fila "fantasma" (sin el flag
+ * EXISTS) que sirve de ancla para sus hijos hasta que se da de alta.
+ *
+ * Las lecturas toman el lock de lectura y las escrituras el de escritura.
+ * Los montos deben tener una escala entre -128 y 127 y un valor sin escala que
+ * entre en un long; en caso contrario, o si la suma de algún subárbol quedaría fuera de
+ * ese rango, save() lanza IllegalArgumentException sin modificar nada.
+ */
+@Repository
+@ConditionalOnProperty(name = "transactions.repository.type", havingValue = "offheap")
+public class OffHeapTransactionRepository implements TransactionRepository {
+
+    static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private static final int NONE = -1;
+    private static final byte EXISTS = 1;
+    private static final byte HAS_AMOUNT = 2;
+
+    // expectedVersion de un save() incondicional
+    private static final long ANY_VERSION = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TypeDictionary types = new TypeDictionary();
+    private final OffHeapLongIntMap rowsById;
+
+    // Columnas
+    private LongBuffer ids;
+    private IntBuffer parentRows;
+    private IntBuffer typeCodes;
+    private ByteBuffer flags;
+    private LongBuffer amountValues;
+    private ByteBuffer amountScales;
+    private LongBuffer subtreeValues;
+    private ByteBuffer subtreeScales;
+    private LongBuffer versions;
+
+    // Listas enlazadas de hijos
+    private IntBuffer firstChild;
+    private IntBuffer nextSibling;
+    private IntBuffer prevSibling;
+
+    // Etiquetas de ancestros
+    private IntBuffer depths;
+    private IntBuffer jumps;
+    private IntBuffer roots;
+
+    // IDs de cada tipo en orden ascendente, indexados por código de tipo; como sortedIds,
+    // bitmaps comprimidos en el heap, para paginar por tipo sin ordenar
+    private LongBitmap[] typeIds = new LongBitmap[0];
+
+    // Cantidad, total, mínimo y máximo por tipo (en el heap, uno por tipo)
+    private final TypeAggregates typeAggregates = new TypeAggregates();
+
+    private int capacity;
+    private int rowCount;
+    private int liveCount;
+
+    // IDs de las filas existentes en orden ascendente, para paginar por cursor; es un
+    // bitmap comprimido en el heap (unos 2 bytes por ID si son densos)
+    private final LongBitmap sortedIds = new LongBitmap();
+
+    // Pila del reetiquetado; solo se usa con el lock de escritura
+    private int[] relabelStack = new int[64];
+
+    // Sumas de ancestros calculadas por planSubtreeSums() antes de escribir; solo se usan
+    // con el lock de escritura
+    private int[] plannedRows = new int[64];
+    private BigDecimal[] plannedSums = new BigDecimal[64];
+    private int plannedCount;
+
+    // true si hay altas de filas fantasma con hijos sin reetiquetar
+    private volatile boolean labelsStale;
+
+    // Recibe los IDs cuya suma de subárbol pudo cambiar; null si no hay ninguno registrado
+    private volatile LongConsumer subtreeListener;
+
+    public OffHeapTransactionRepository() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    @Autowired
+    public OffHeapTransactionRepository(
+            @Value("${transactions.offheap.initial-capacity:" + DEFAULT_INITIAL_CAPACITY + "}") int initialCapacity) {
+        int initial = Math.max(16, initialCapacity);
+        rowsById = new OffHeapLongIntMap(initial);
+        allocateColumns(initial);
+    }
+
+    /**
+     * Guarda o actualiza una transacción.
+     */
+    @Override
+    public void save(Transaction transaction) {
+        save(transaction, ANY_VERSION);
+    }
+
+    /**
+     * Compara la versión y guarda bajo el mismo lock de escritura.
+     */
+    @Override
+    public boolean saveIfVersion(Transaction transaction, long expectedVersion) {
+        return save(transaction, expectedVersion);
+    }
+
+    /**
+     * Valida todas las filas antes de tomar el lock, así un monto no representable no deja
+     * el lote aplicado a medias, y las aplica con una única toma del lock de escritura. Una
+     * suma de subárbol que se desborda se detecta al aplicar cada fila, antes de escribirla,
+     * y deja aplicadas las anteriores del lote. Con
+     * el lock tomado y antes de aplicar ninguna se verifica que el lote no cierre un ciclo;
+     * si lo hace se rechaza entero con InvalidParentException. Las sumas que cambiaron se
+     * notifican al final, cuando todas las del lote ya están aplicadas.
+     */
+    @Override
+    public void saveAll(List<Transaction> batch) {
+        for (Transaction transaction : batch) {
+            checkWritable(transaction);
+        }
+        lock.writeLock().lock();
+        try {
+            checkAcyclic(batch);
+            LongConsumer listener = subtreeListener;
+            Set<Long> changed = new HashSet<>();
+            for (Transaction transaction : batch) {
+                apply(transaction);
+                if (listener != null) {
+                    changed.add(transaction.getId());
+                    for (int i = 0; i < plannedCount; i++) {
+                        changed.add(ids.get(plannedRows[i]));
+                    }
+                }
+            }
+            if (listener != null) {
+                changed.forEach(listener::accept);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * La verificación de ciclos y la escritura se hacen bajo el mismo lock de escritura, así
+     * dos cambios de padre concurrentes (1 bajo 2 y 2 bajo 1) no pueden aceptarse los dos.
+     */
+    private boolean save(Transaction transaction, long expectedVersion) {
+        checkWritable(transaction);
+        lock.writeLock().lock();
+        try {
+            long id = transaction.getId();
+            if (expectedVersion != ANY_VERSION && expectedVersion != versionOf(id)) {
+                return false;
+            }
+            if (!existsId(id) || !Objects.equals(parentOf(id, Map.of()), transaction.getParentId())) {
+                checkAcyclic(transaction, Map.of(), Set.of());
+            }
+            apply(transaction);
+            LongConsumer listener = subtreeListener;
+            if (listener != null) {
+                listener.accept(id);
+                for (int i = 0; i < plannedCount; i++) {
+                    listener.accept(ids.get(plannedRows[i]));
+                }
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void checkWritable(Transaction transaction) {
+        Objects.requireNonNull(transaction.getType(), "type");
+        if (transaction.getAmount() != null) {
+            checkRepresentable(transaction.getAmount());
+        }
+    }
+
+    /**
+     * Verifica el lote en orden: pending superpone a las filas los padres de las
+     * transacciones anteriores que cambian la forma (altas y cambios de padre), todavía sin
+     * aplicar, y pendingParents son los padres que referencian.
+     */
+    private void checkAcyclic(List<Transaction> batch) {
+        Map<Long, Long> pending = new HashMap<>();
+        Set<Long> pendingParents = new HashSet<>();
+        for (Transaction transaction : batch) {
+            Long id = transaction.getId();
+            Long parentId = transaction.getParentId();
+            boolean known = pending.containsKey(id) || existsId(id);
+            if (known && Objects.equals(parentId, parentOf(id, pending))) {
+                continue;
+            }
+            checkAcyclic(transaction, pending, pendingParents);
+            pending.put(id, parentId);
+            if (parentId != null) {
+                pendingParents.add(parentId);
+            }
+        }
+    }
+
+    /**
+     * Lanza InvalidParentException si colgar la transacción de su padre cerraría un ciclo:
+     * el padre es ella misma o una de sus descendientes. Se llama con el lock de escritura.
+     *
+     * Si no hay nada pendiente, para una fila existente lo responden las etiquetas de
+     * ancestros. Un alta solo puede cerrar un ciclo si ya tiene hijos (una fila fantasma);
+     * en ese caso, y en un lote con cambios pendientes, se sube la cadena de padres.
+     */
+    private void checkAcyclic(Transaction transaction, Map<Long, Long> pending, Set<Long> pendingParents) {
+        Long id = transaction.getId();
+        Long parentId = transaction.getParentId();
+        if (parentId == null) {
+            return;
+        }
+        boolean cycle;
+        if (parentId.equals(id)) {
+            cycle = true;
+        } else if (pending.containsKey(id) || existsId(id)) {
+            cycle = pending.isEmpty() ? isAncestorId(id, parentId) : reachesByParents(parentId, id, pending);
+        } else {
+            int row = rowsById.get(id);
+            cycle = (row != NONE && firstChild.get(row) != NONE || pendingParents.contains(id))
+                    && reachesByParents(parentId, id, pending);
+        }
+        if (cycle) {
+            throw new InvalidParentException("Asignar parentId " + parentId + " a la transacción " + id
+                    + " crearía un ciclo en la jerarquía");
+        }
+    }
+
+    /**
+     * isAncestor() con el lock de escritura ya tomado: reconstruye las etiquetas vencidas
+     * en el lugar en vez de pasar por refreshLabels().
+     */
+    private boolean isAncestorId(long ancestorId, long id) {
+        int ancestor = rowsById.get(ancestorId);
+        int row = rowsById.get(id);
+        if (ancestor == NONE || row == NONE || !exists(ancestor) || !exists(row)) {
+            return false;
+        }
+        if (labelsStale) {
+            rebuildLabels();
+            labelsStale = false;
+        }
+        return isAncestorRow(ancestor, row);
+    }
+
+    /**
+     * Indica si la cadena de padres desde from llega a id. Un ciclo ya guardado que no pasa
+     * por id corta el recorrido por cantidad de pasos.
+     */
+    private boolean reachesByParents(Long from, Long id, Map<Long, Long> pending) {
+        long maxSteps = (long) rowCount + pending.size();
+        Long current = from;
+        for (long step = 0; current != null && step <= maxSteps; step++) {
+            if (current.equals(id)) {
+                return true;
+            }
+            current = parentOf(current, pending);
+        }
+        return false;
+    }
+
+    /**
+     * Padre de una transacción según el lote pendiente o las filas; null si no existe.
+     */
+    private Long parentOf(Long id, Map<Long, Long> pending) {
+        if (pending.containsKey(id)) {
+            return pending.get(id);
+        }
+        int row = rowsById.get(id);
+        if (row == NONE || !exists(row) || parentRows.get(row) == NONE) {
+            return null;
+        }
+        return ids.get(parentRows.get(row));
+    }
+
+    private boolean existsId(long id) {
+        int row = rowsById.get(id);
+        return row != NONE && exists(row);
+    }
+
+    @Override
+    public void setSubtreeListener(LongConsumer listener) {
+        this.subtreeListener = listener;
+    }
+
+    /**
+     * Aplica una escritura con el lock de escritura tomado. Al terminar, plannedRows tiene
+     * los ancestros cuya suma cambió (los de las dos cadenas si cambió de padre).
+     */
+    private void apply(Transaction transaction) {
+        long id = transaction.getId();
+        BigDecimal amount = transaction.getAmount();
+        // Las sumas nuevas se calculan y validan antes de escribir cualquier columna
+        Long parentId = transaction.getParentId();
+        BigDecimal total = planSubtreeSums(rowsById.get(id), amount != null ? amount : BigDecimal.ZERO,
+                parentId != null ? rowsById.get(parentId) : NONE);
+        int row = rowOrPlaceholder(id);
+        boolean existed = exists(row);
+        BigDecimal oldAmount = existed ? amountAt(row) : BigDecimal.ZERO;
+        BigDecimal oldStoredAmount = existed ? storedAmount(row) : null;
+        String oldType = existed ? types.nameOf(typeCodes.get(row)) : null;
+        int oldParentRow = parentRows.get(row);
+
+        // Índice por tipo
+        int typeCode = types.intern(transaction.getType());
+        if (!existed) {
+            linkType(row, id, typeCode);
+        } else if (typeCodes.get(row) != typeCode) {
+            typeIds[typeCodes.get(row)].remove(id);
+            linkType(row, id, typeCode);
+        }
+
+        // Índice de hijos
+        int newParentRow = parentId != null ? rowOrPlaceholder(parentId) : NONE;
+        if (oldParentRow != newParentRow) {
+            if (oldParentRow != NONE) {
+                unlinkChild(oldParentRow, row);
+            }
+            if (newParentRow != NONE) {
+                linkChild(newParentRow, row);
+            }
+            parentRows.put(row, newParentRow);
+        }
+
+        // Columnas de datos
+        if (amount != null) {
+            amountValues.put(row, amount.unscaledValue().longValueExact());
+            amountScales.put(row, (byte) amount.scale());
+            flags.put(row, (byte) (EXISTS | HAS_AMOUNT));
+        } else {
+            amountValues.put(row, 0L);
+            amountScales.put(row, (byte) 0);
+            flags.put(row, EXISTS);
+        }
+        if (!existed) {
+            liveCount++;
+            sortedIds.add(id);
+        }
+        // Volver a guardar el mismo tipo y monto no toca los agregados: quitar el mínimo o el
+        // máximo los invalidaría y la próxima lectura recorrería todo el tipo
+        if (!existed || !transaction.getType().equals(oldType) || !Objects.equals(amount, oldStoredAmount)) {
+            typeAggregates.add(transaction.getType(), amount);
+            if (existed) {
+                typeAggregates.remove(oldType, oldStoredAmount);
+            }
+        }
+        long version = existed ? versions.get(row) + 1 : 1;
+        versions.put(row, version);
+        transaction.setVersion(version);
+
+        putSubtree(row, total);
+        for (int i = 0; i < plannedCount; i++) {
+            putSubtree(plannedRows[i], plannedSums[i]);
+            plannedSums[i] = null;
+        }
+        // Una fila fantasma que se da de alta con hijos vence todas las etiquetas
+        if (!existed && firstChild.get(row) != NONE) {
+            labelsStale = true;
+        } else if (!labelsStale && (!existed || oldParentRow != newParentRow)) {
+            relabel(row);
+        }
+    }
+
+    /**
+     * Busca una transacción por ID.
+     */
+    @Override
+    public Transaction findById(Long id) {
+        long key = id;
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(key);
+            return row != NONE && exists(row) ? materialize(row) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Verifica si existe una transacción con el ID dado.
+     */
+    @Override
+    public boolean existsById(Long id) {
+        long key = id;
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(key);
+            return row != NONE && exists(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene todos los IDs de transacciones de un tipo dado.
+     */
+    @Override
+    public List<Long> findIdsByType(String type) {
+        int code = types.codeOf(Objects.requireNonNull(type, "type"));
+        lock.readLock().lock();
+        try {
+            if (code == TypeDictionary.NO_CODE || code >= typeIds.length) {
+                return new ArrayList<>();
+            }
+            List<Long> result = new ArrayList<>((int) typeIds[code].cardinality());
+            typeIds[code].forEach(result::add);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agregados de un tipo. Con el lock de lectura tomado no hay escrituras concurrentes,
+     * así que si hay que recalcular los extremos el recorrido se publica al primer intento.
+     */
+    @Override
+    public TypeStats findTypeStats(String type) {
+        Objects.requireNonNull(type, "type");
+        lock.readLock().lock();
+        try {
+            return typeAggregates.stats(type, this::forEachAmount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agregados de todos los tipos con transacciones.
+     */
+    @Override
+    public List<TypeStats> findAllTypeStats() {
+        lock.readLock().lock();
+        try {
+            return typeAggregates.all(this::forEachAmount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre los montos de un tipo; se llama con el lock de lectura tomado.
+     */
+    private void forEachAmount(String type, Consumer<BigDecimal> action) {
+        int code = types.codeOf(type);
+        if (code == TypeDictionary.NO_CODE || code >= typeIds.length) {
+            return;
+        }
+        typeIds[code].forEach(id -> {
+            BigDecimal amount = storedAmount(rowsById.get(id));
+            if (amount != null) {
+                action.accept(amount);
+            }
+        });
+    }
+
+    /**
+     * Obtiene una página de IDs de un tipo en orden ascendente.
+     */
+    @Override
+    public List<Long> findIdsByType(String type, Long afterId, int limit) {
+        int code = types.codeOf(Objects.requireNonNull(type, "type"));
+        List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        if (limit <= 0 || (afterId != null && afterId == Long.MAX_VALUE)) {
+            return page;
+        }
+        lock.readLock().lock();
+        try {
+            if (code != TypeDictionary.NO_CODE && code < typeIds.length) {
+                typeIds[code].forEachFrom(afterId != null ? afterId + 1 : Long.MIN_VALUE, id -> {
+                    page.add(id);
+                    return page.size() < limit;
+                });
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de transacciones de un tipo.
+     */
+    @Override
+    public long countByType(String type) {
+        int code = types.codeOf(Objects.requireNonNull(type, "type"));
+        lock.readLock().lock();
+        try {
+            return code == TypeDictionary.NO_CODE || code >= typeIds.length ? 0 : typeIds[code].cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene todas las transacciones hijas de un parentId dado.
+     */
+    @Override
+    public List<Transaction> findByParentId(Long parentId) {
+        long key = parentId;
+        lock.readLock().lock();
+        try {
+            int parentRow = rowsById.get(key);
+            List<Transaction> children = new ArrayList<>();
+            if (parentRow == NONE) {
+                return children;
+            }
+            for (int row = firstChild.get(parentRow); row != NONE; row = nextSibling.get(row)) {
+                children.add(materialize(row));
+            }
+            return children;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la suma materializada del subárbol de una transacción.
+     */
+    @Override
+    public BigDecimal findSubtreeSum(Long id) {
+        long key = id;
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(key);
+            if (row == NONE || !exists(row)) {
+                return null;
+            }
+            return BigDecimal.valueOf(subtreeValues.get(row), subtreeScales.get(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compara las etiquetas de ancestros: misma raíz y, bajando por los punteros de salto,
+     * la fila de id llega a la de ancestorId.
+     */
+    @Override
+    public boolean isAncestor(Long ancestorId, Long id) {
+        long ancestorKey = ancestorId;
+        long key = id;
+        refreshLabels();
+        lock.readLock().lock();
+        try {
+            int ancestor = rowsById.get(ancestorKey);
+            int row = rowsById.get(key);
+            if (ancestor == NONE || row == NONE || !exists(ancestor) || !exists(row)) {
+                return false;
+            }
+            return isAncestorRow(ancestor, row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene los IDs de los ancestros de una transacción, desde su padre hasta la raíz.
+     */
+    @Override
+    public List<Long> findAncestorIds(Long id) {
+        long key = id;
+        refreshLabels();
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(key);
+            if (row == NONE || !exists(row)) {
+                return null;
+            }
+            List<Long> ancestorIds = new ArrayList<>(depths.get(row));
+            for (int current = labelParent(row); current != NONE; current = labelParent(current)) {
+                ancestorIds.add(ids.get(current));
+            }
+            return ancestorIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene todas las transacciones almacenadas.
+     */
+    @Override
+    public List<Transaction> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Transaction> all = new ArrayList<>(liveCount);
+            for (int row = 0; row < rowCount; row++) {
+                if (exists(row)) {
+                    all.add(materialize(row));
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene una página de transacciones en orden de ID.
+     */
+    @Override
+    public List<Transaction> findPage(Long afterId, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        if (limit <= 0 || (afterId != null && afterId == Long.MAX_VALUE)) {
+            return page;
+        }
+        lock.readLock().lock();
+        try {
+            sortedIds.forEachFrom(afterId != null ? afterId + 1 : Long.MIN_VALUE, id -> {
+                page.add(materialize(rowsById.get(id)));
+                return page.size() < limit;
+            });
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes reservados fuera del heap por las columnas y el índice de IDs.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytesPerRow = 4L * Long.BYTES + 8L * Integer.BYTES + 3L;
+            return capacity * bytesPerRow + rowsById.offHeapBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Sumas materializadas ==========
+
+    /**
+     * Misma semántica que TransactionRepositoryImpl: alta, cambio de monto o cambio de padre
+     * se reflejan en la fila y en sus ancestros existentes. No escribe nada: retorna la suma
+     * nueva de la fila y deja las de los ancestros en plannedRows/plannedSums, después de
+     * verificar que todas sean representables. Así una suma que se desborda lanza
+     * IllegalArgumentException antes de que apply() toque cualquier columna.
+     *
+     * row y newParentRow son las filas actuales (NONE si todavía no existen). Al cambiar de
+     * padre, un ancestro común a las dos cadenas recibe un único valor con los dos deltas.
+     */
+    private BigDecimal planSubtreeSums(int row, BigDecimal newAmount, int newParentRow) {
+        plannedCount = 0;
+        BigDecimal newTotal;
+        if (row == NONE || !exists(row)) {
+            newTotal = newAmount;
+            if (row != NONE) {
+                for (int child = firstChild.get(row); child != NONE; child = nextSibling.get(child)) {
+                    newTotal = newTotal.add(subtreeAt(child));
+                }
+            }
+            planAncestors(row, newParentRow, newTotal, null);
+        } else {
+            BigDecimal oldTotal = subtreeAt(row);
+            BigDecimal delta = newAmount.subtract(amountAt(row));
+            newTotal = oldTotal.add(delta);
+            int oldParentRow = parentRows.get(row);
+            if (oldParentRow == newParentRow) {
+                if (delta.signum() != 0) {
+                    planAncestors(row, newParentRow, delta, null);
+                }
+            } else {
+                planAncestors(row, oldParentRow, oldTotal.negate(), null);
+                Map<Integer, Integer> oldChain = new HashMap<>(plannedCount * 2);
+                for (int i = 0; i < plannedCount; i++) {
+                    oldChain.put(plannedRows[i], i);
+                }
+                planAncestors(row, newParentRow, newTotal, oldChain);
+            }
+        }
+
+        checkRepresentable(newTotal);
+        for (int i = 0; i < plannedCount; i++) {
+            checkRepresentable(plannedSums[i]);
+        }
+        return newTotal;
+    }
+
+    /**
+     * Agrega al plan el delta de cada ancestro existente desde parentRow. Los que ya están
+     * en planned (la cadena anterior al cambiar de padre) suman el delta a su valor planeado.
+     * Las filas no forman ciclos (save() los rechaza), pero el recorrido igual se corta
+     * después de rowCount pasos.
+     */
+    private void planAncestors(int row, int parentRow, BigDecimal delta, Map<Integer, Integer> planned) {
+        int current = parentRow;
+        for (int steps = 0; current != NONE && current != row && exists(current) && steps < rowCount; steps++) {
+            Integer index = planned != null ? planned.get(current) : null;
+            if (index != null) {
+                plannedSums[index] = plannedSums[index].add(delta);
+            } else {
+                if (plannedCount == plannedRows.length) {
+                    plannedRows = Arrays.copyOf(plannedRows, plannedCount * 2);
+                    plannedSums = Arrays.copyOf(plannedSums, plannedCount * 2);
+                }
+                plannedRows[plannedCount] = current;
+                plannedSums[plannedCount++] = subtreeAt(current).add(delta);
+            }
+            current = parentRows.get(current);
+        }
+    }
+
+    private BigDecimal subtreeAt(int row) {
+        return BigDecimal.valueOf(subtreeValues.get(row), subtreeScales.get(row));
+    }
+
+    private void putSubtree(int row, BigDecimal value) {
+        subtreeValues.put(row, value.unscaledValue().longValueExact());
+        subtreeScales.put(row, (byte) value.scale());
+    }
+
+    // ========== Etiquetas de ancestros ==========
+
+    /**
+     * Etiqueta la fila a partir de su padre y después, en preorden, todo su subárbol.
+     * Un padre fantasma no es ancestro, y un padre que quedó dentro del propio subárbol
+     * (un ciclo escrito directo en el repositorio) tampoco: en ambos casos la fila se
+     * etiqueta como raíz para que las etiquetas sigan formando un bosque.
+     */
+    private void relabel(int row) {
+        int parentRow = parentRows.get(row);
+        if (parentRow != NONE && (!exists(parentRow) || depths.get(parentRow) < 0 || closesCycle(row, parentRow))) {
+            parentRow = NONE;
+        }
+        label(row, parentRow);
+
+        int top = 0;
+        for (int child = firstChild.get(row); child != NONE; child = nextSibling.get(child)) {
+            top = pushRelabel(child, top);
+        }
+        while (top > 0) {
+            int current = relabelStack[--top];
+            if (current == row) {
+                continue;
+            }
+            label(current, parentRows.get(current));
+            for (int child = firstChild.get(current); child != NONE; child = nextSibling.get(child)) {
+                top = pushRelabel(child, top);
+            }
+        }
+    }
+
+    /**
+     * Indica si colgar row de parentRow cerraría un ciclo: parentRow es row o row ya es su
+     * ancestro. Una fila sin etiqueta (depth -1 durante la reconstrucción) no tiene ancestros.
+     */
+    private boolean closesCycle(int row, int parentRow) {
+        return parentRow == row || (depths.get(row) >= 0 && isAncestorRow(row, parentRow));
+    }
+
+    /**
+     * Reconstruye las etiquetas si quedaron vencidas, con el lock de escritura.
+     */
+    private void refreshLabels() {
+        if (!labelsStale) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (labelsStale) {
+                rebuildLabels();
+                labelsStale = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Etiqueta todas las filas desde sus raíces. Lo que queda sin etiquetar forma ciclos
+     * (solo posibles escribiendo directo en el repositorio): cada ciclo se etiqueta como
+     * un árbol a partir de cualquiera de sus filas.
+     */
+    private void rebuildLabels() {
+        for (int row = 0; row < rowCount; row++) {
+            depths.put(row, -1);
+        }
+        for (int row = 0; row < rowCount; row++) {
+            int parentRow = parentRows.get(row);
+            if (exists(row) && (parentRow == NONE || !exists(parentRow))) {
+                relabel(row);
+            }
+        }
+        for (int row = 0; row < rowCount; row++) {
+            if (exists(row) && depths.get(row) < 0) {
+                relabel(row);
+            }
+        }
+    }
+
+    /**
+     * Profundidad, raíz y salto de la fila. Si los dos saltos anteriores cubren la misma
+     * distancia se combinan en uno; las raíces saltan a sí mismas.
+     */
+    private void label(int row, int parentRow) {
+        if (parentRow == NONE) {
+            depths.put(row, 0);
+            jumps.put(row, row);
+            roots.put(row, row);
+            return;
+        }
+        int parentDepth = depths.get(parentRow);
+        int parentJump = jumps.get(parentRow);
+        int parentJumpDepth = depths.get(parentJump);
+        depths.put(row, parentDepth + 1);
+        roots.put(row, roots.get(parentRow));
+        jumps.put(row, parentDepth - parentJumpDepth == parentJumpDepth - depths.get(jumps.get(parentJump))
+                ? jumps.get(parentJump)
+                : parentRow);
+    }
+
+    private boolean isAncestorRow(int ancestor, int row) {
+        int depth = depths.get(ancestor);
+        if (roots.get(ancestor) != roots.get(row) || depth >= depths.get(row)) {
+            return false;
+        }
+        int current = row;
+        while (depths.get(current) > depth) {
+            int jump = jumps.get(current);
+            current = depths.get(jump) >= depth ? jump : parentRows.get(current);
+        }
+        return current == ancestor;
+    }
+
+    /**
+     * Padre según las etiquetas: NONE para las raíces, aunque referencien a un padre
+     * fantasma o cierren un ciclo.
+     */
+    private int labelParent(int row) {
+        return depths.get(row) > 0 ? parentRows.get(row) : NONE;
+    }
+
+    private int pushRelabel(int row, int top) {
+        if (top == relabelStack.length) {
+            relabelStack = Arrays.copyOf(relabelStack, top * 2);
+        }
+        relabelStack[top] = row;
+        return top + 1;
+    }
+
+    // ========== Filas ==========
+
+    private int rowOrPlaceholder(long id) {
+        int row = rowsById.get(id);
+        if (row != NONE) {
+            return row;
+        }
+        if (rowCount == capacity) {
+            growColumns(capacity * 2);
+        }
+        row = rowCount++;
+        ids.put(row, id);
+        parentRows.put(row, NONE);
+        typeCodes.put(row, NONE);
+        flags.put(row, (byte) 0);
+        amountValues.put(row, 0L);
+        amountScales.put(row, (byte) 0);
+        subtreeValues.put(row, 0L);
+        subtreeScales.put(row, (byte) 0);
+        versions.put(row, 0L);
+        firstChild.put(row, NONE);
+        nextSibling.put(row, NONE);
+        prevSibling.put(row, NONE);
+        depths.put(row, 0);
+        jumps.put(row, row);
+        roots.put(row, row);
+        rowsById.put(id, row);
+        return row;
+    }
+
+    /**
+     * Versión actual de la transacción, o 0 si no existe (no crea filas fantasma).
+     */
+    private long versionOf(long id) {
+        int row = rowsById.get(id);
+        return row != NONE && exists(row) ? versions.get(row) : 0;
+    }
+
+    private boolean exists(int row) {
+        return (flags.get(row) & EXISTS) != 0;
+    }
+
+    private BigDecimal amountAt(int row) {
+        if ((flags.get(row) & HAS_AMOUNT) == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(amountValues.get(row), amountScales.get(row));
+    }
+
+    /**
+     * Monto de la fila, o null si se guardó sin monto.
+     */
+    private BigDecimal storedAmount(int row) {
+        return (flags.get(row) & HAS_AMOUNT) != 0
+                ? BigDecimal.valueOf(amountValues.get(row), amountScales.get(row))
+                : null;
+    }
+
+    private Transaction materialize(int row) {
+        BigDecimal amount = storedAmount(row);
+        int parentRow = parentRows.get(row);
+        Long parentId = parentRow != NONE ? ids.get(parentRow) : null;
+        Transaction transaction = new Transaction(ids.get(row), amount, types.nameOf(typeCodes.get(row)), parentId);
+        transaction.setVersion(versions.get(row));
+        return transaction;
+    }
+
+    private static void checkRepresentable(BigDecimal value) {
+        if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE
+                || value.unscaledValue().bitLength() > 63) {
+            throw new IllegalArgumentException(
+                    "El monto " + value + " excede el rango del almacenamiento off-heap");
+        }
+    }
+
+    // ========== Listas enlazadas ==========
+
+    private void linkChild(int parentRow, int row) {
+        int head = firstChild.get(parentRow);
+        nextSibling.put(row, head);
+        prevSibling.put(row, NONE);
+        if (head != NONE) {
+            prevSibling.put(head, row);
+        }
+        firstChild.put(parentRow, row);
+    }
+
+    private void unlinkChild(int parentRow, int row) {
+        int prev = prevSibling.get(row);
+        int next = nextSibling.get(row);
+        if (prev != NONE) {
+            nextSibling.put(prev, next);
+        } else {
+            firstChild.put(parentRow, next);
+        }
+        if (next != NONE) {
+            prevSibling.put(next, prev);
+        }
+        nextSibling.put(row, NONE);
+        prevSibling.put(row, NONE);
+    }
+
+    private void linkType(int row, long id, int typeCode) {
+        if (typeCode >= typeIds.length) {
+            int oldLength = typeIds.length;
+            int newLength = Math.max(16, Math.max(typeCode + 1, oldLength * 2));
+            typeIds = Arrays.copyOf(typeIds, newLength);
+            for (int code = oldLength; code < newLength; code++) {
+                typeIds[code] = new LongBitmap();
+            }
+        }
+        typeIds[typeCode].add(id);
+        typeCodes.put(row, typeCode);
+    }
+
+    // ========== Reserva de columnas ==========
+
+    private void allocateColumns(int newCapacity) {
+        ids = longColumn(null, newCapacity);
+        parentRows = intColumn(null, newCapacity);
+        typeCodes = intColumn(null, newCapacity);
+        flags = byteColumn(null, newCapacity);
+        amountValues = longColumn(null, newCapacity);
+        amountScales = byteColumn(null, newCapacity);
+        subtreeValues = longColumn(null, newCapacity);
+        subtreeScales = byteColumn(null, newCapacity);
+        versions = longColumn(null, newCapacity);
+        firstChild = intColumn(null, newCapacity);
+        nextSibling = intColumn(null, newCapacity);
+        prevSibling = intColumn(null, newCapacity);
+        depths = intColumn(null, newCapacity);
+        jumps = intColumn(null, newCapacity);
+        roots = intColumn(null, newCapacity);
+        capacity = newCapacity;
+    }
+
+    private void growColumns(int newCapacity) {
+        ids = longColumn(ids, newCapacity);
+        parentRows = intColumn(parentRows, newCapacity);
+        typeCodes = intColumn(typeCodes, newCapacity);
+        flags = byteColumn(flags, newCapacity);
+        amountValues = longColumn(amountValues, newCapacity);
+        amountScales = byteColumn(amountScales, newCapacity);
+        subtreeValues = longColumn(subtreeValues, newCapacity);
+        subtreeScales = byteColumn(subtreeScales, newCapacity);
+        versions = longColumn(versions, newCapacity);
+        firstChild = intColumn(firstChild, newCapacity);
+        nextSibling = intColumn(nextSibling, newCapacity);
+        prevSibling = intColumn(prevSibling, newCapacity);
+        depths = intColumn(depths, newCapacity);
+        jumps = intColumn(jumps, newCapacity);
+        roots = intColumn(roots, newCapacity);
+        capacity = newCapacity;
+    }
+
+    private LongBuffer longColumn(LongBuffer old, int newCapacity) {
+        LongBuffer column = direct(newCapacity * Long.BYTES).asLongBuffer();
+        if (old != null) {
+            column.put(old.duplicate().clear().limit(rowCount)).clear();
+        }
+        return column;
+    }
+
+    private IntBuffer intColumn(IntBuffer old, int newCapacity) {
+        IntBuffer column = direct(newCapacity * Integer.BYTES).asIntBuffer();
+        if (old != null) {
+            column.put(old.duplicate().clear().limit(rowCount)).clear();
+        }
+        return column;
+    }
+
+    private ByteBuffer byteColumn(ByteBuffer old, int newCapacity) {
+        ByteBuffer column = direct(newCapacity);
+        if (old != null) {
+            column.put(old.duplicate().clear().limit(rowCount)).clear();
+        }
+        return column;
+    }
+
+    private static ByteBuffer direct(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
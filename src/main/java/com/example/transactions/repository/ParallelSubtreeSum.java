@@ -0,0 +1,199 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Cálculo en paralelo de la suma del subárbol de todas las transacciones del almacén.
+ *
+ * Se usa para reconstruir las sumas materializadas de una vez (por ejemplo al reaplicar el
+ * log completo) en lugar de propagar cada alta a sus ancestros. El trabajo se reparte con
+ * RecursiveTask de un ForkJoinPool, partiendo por subárboles hijos:
+ * - Cada tarea recibe un tramo de IDs (raíces o hermanos) y un tamaño estimado por
+ *   subárbol: el de la raíz es n / raíces y el de cada hijo es el de su padre dividido por
+ *   la cantidad de hijos. No se cuenta nada de antemano.
+ * - Un tramo cuyo tamaño estimado total no supera sequentialThreshold se resuelve en el
+ *   hilo actual con SubtreeTraversal (postorden: la suma de una transacción es su monto
+ *   más las sumas de sus hijos). Con un umbral de Integer.MAX_VALUE todo es secuencial.
+ * - Un tramo más grande se parte en dos mitades; un subárbol grande con varios hijos se
+ *   parte en sus hijos. Las cadenas de hijos únicos se bajan en un bucle, sin recursión,
+ *   porque no hay nada que repartir.
+ *
+ * La estimación es pesimista en árboles sesgados (un hijo puede tener casi todo el subárbol
+ * y recibir solo una fracción del tamaño estimado), pero un tramo secuencial grande sigue
+ * siendo correcto: solo se pierde paralelismo en esa rama.
+ */
+public final class ParallelSubtreeSum {
+
+    /**
+     * Tamaño estimado por debajo del cual no conviene crear más tareas.
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 4096;
+
+    private final LongConcurrentMap<Transaction> transactions;
+    private final Map<Long, Set<Long>> childrenIndex;
+    private final Map<Long, BigDecimal> sums;
+    private final int sequentialThreshold;
+
+    private ParallelSubtreeSum(LongConcurrentMap<Transaction> transactions, Map<Long, Set<Long>> childrenIndex,
+                               Map<Long, BigDecimal> sums, int sequentialThreshold) {
+        this.transactions = transactions;
+        this.childrenIndex = childrenIndex;
+        this.sums = sums;
+        this.sequentialThreshold = Math.max(1, sequentialThreshold);
+    }
+
+    /**
+     * Guarda en sums (que debe admitir escrituras concurrentes) la suma del subárbol de cada
+     * transacción del almacén. Los ciclos escritos directo en el repositorio se suman como
+     * un árbol a partir de cualquiera de sus nodos.
+     */
+    public static void computeAll(LongConcurrentMap<Transaction> transactions, Map<Long, Set<Long>> childrenIndex,
+                                  Map<Long, BigDecimal> sums, ForkJoinPool pool, int sequentialThreshold) {
+        ParallelSubtreeSum sum = new ParallelSubtreeSum(transactions, childrenIndex, sums, sequentialThreshold);
+        long[] roots = sum.roots();
+        if (roots.length > 0) {
+            pool.invoke(sum.new SumTask(roots, 0, roots.length, Math.max(1, transactions.size() / roots.length)));
+        }
+        transactions.forEachValue(transaction -> {
+            if (!sums.containsKey(transaction.getId())) {
+                sum.sequential(transaction.getId());
+            }
+        });
+    }
+
+    private long[] roots() {
+        long[][] roots = {new long[256]};
+        int[] count = {0};
+        transactions.forEachValue(transaction -> {
+            Long parentId = transaction.getParentId();
+            if (parentId == null || !transactions.containsKey(parentId)) {
+                if (count[0] == roots[0].length) {
+                    roots[0] = Arrays.copyOf(roots[0], count[0] * 2);
+                }
+                roots[0][count[0]++] = transaction.getId();
+            }
+        });
+        return Arrays.copyOf(roots[0], count[0]);
+    }
+
+    /**
+     * Suma los subárboles de ids[from, to), cada uno con el tamaño estimado indicado, y
+     * retorna el total.
+     */
+    private final class SumTask extends RecursiveTask<BigDecimal> {
+        private final long[] ids;
+        private final int from;
+        private final int to;
+        private final long estimate;
+
+        private SumTask(long[] ids, int from, int to, long estimate) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.estimate = estimate;
+        }
+
+        @Override
+        protected BigDecimal compute() {
+            if (to - from == 1) {
+                return subtree(ids[from], estimate);
+            }
+            if ((to - from) * estimate <= sequentialThreshold) {
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = from; i < to; i++) {
+                    total = total.add(sequential(ids[i]));
+                }
+                return total;
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(ids, from, middle, estimate);
+            left.fork();
+            BigDecimal right = new SumTask(ids, middle, to, estimate).compute();
+            return left.join().add(right);
+        }
+
+        /**
+         * Suma el subárbol de id: baja por la cadena de hijos únicos y, en el primer nodo
+         * con varios hijos, reparte los hijos en tareas si el subárbol es grande.
+         */
+        private BigDecimal subtree(long id, long estimate) {
+            Transaction transaction = transactions.get(id);
+            if (transaction == null) {
+                return BigDecimal.ZERO;
+            }
+            if (estimate <= sequentialThreshold) {
+                return sequential(id);
+            }
+            long[] path = new long[16];
+            int depth = 0;
+            long current = id;
+            long[] childIds = existingChildren(current, id);
+            while (childIds.length == 1) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                }
+                path[depth++] = current;
+                current = childIds[0];
+                childIds = existingChildren(current, id);
+            }
+
+            BigDecimal total = MaterializedSumIndex.amountOf(transactions.get(current));
+            if (childIds.length > 0) {
+                total = total.add(new SumTask(childIds, 0, childIds.length, Math.max(1, estimate / childIds.length)).compute());
+            }
+            sums.put(current, total);
+            // La cadena recorrida suma su propio monto de abajo hacia arriba
+            for (int i = depth - 1; i >= 0; i--) {
+                total = total.add(MaterializedSumIndex.amountOf(transactions.get(path[i])));
+                sums.put(path[i], total);
+            }
+            return total;
+        }
+
+        /**
+         * Hijos de id que existen en el almacén, sin volver a rootId (un ciclo).
+         */
+        private long[] existingChildren(long id, long rootId) {
+            Set<Long> childIds = childrenIndex.get(id);
+            if (childIds == null) {
+                return new long[0];
+            }
+            long[] result = new long[childIds.size()];
+            int count = 0;
+            for (Long childId : childIds) {
+                if (childId != rootId && count < result.length && transactions.containsKey(childId)) {
+                    result[count++] = childId;
+                }
+            }
+            return count == result.length ? result : Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * Suma el subárbol de rootId en el hilo actual y guarda la suma de cada transacción.
+     */
+    private BigDecimal sequential(long rootId) {
+        SubtreeTraversal.walk(childrenIndex, rootId, transactions::containsKey, id -> {
+            BigDecimal total = MaterializedSumIndex.amountOf(transactions.get(id));
+            Set<Long> childIds = childrenIndex.get(id);
+            if (childIds != null) {
+                for (Long childId : childIds) {
+                    BigDecimal childSum = childId != rootId ? sums.get(childId) : null;
+                    if (childSum != null) {
+                        total = total.add(childSum);
+                    }
+                }
+            }
+            sums.put(id, total);
+        });
+        BigDecimal total = sums.get(rootId);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.transactions.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Ejecuta checkpoints periódicos del repositorio heap (transactions.snapshot.interval)
+ * y uno final al apagar la aplicación, para que el próximo arranque solo tenga que
+ * mapear el snapshot.
+ */
+@Component
+@ConditionalOnExpression("${transactions.snapshot.enabled:false} and '${transactions.repository.type:heap}' == 'heap'")
+public class SnapshotCheckpointer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCheckpointer.class);
+
+    private final TransactionRepositoryImpl repository;
+
+    public SnapshotCheckpointer(TransactionRepositoryImpl repository) {
+        this.repository = repository;
+    }
+
+    @Scheduled(fixedDelayString = "${transactions.snapshot.interval:5m}",
+            initialDelayString = "${transactions.snapshot.interval:5m}")
+    public void checkpoint() {
+        try {
+            long start = System.nanoTime();
+            repository.checkpoint();
+            logger.info("Checkpoint completado en {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            // El log sigue conteniendo todo lo posterior al último snapshot válido
+            logger.error("No se pudo escribir el checkpoint", e);
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+}
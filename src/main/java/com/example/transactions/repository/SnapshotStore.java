@@ -0,0 +1,386 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot binario y columnar del contenido del repositorio.
+ *
+ * Formato del archivo:
+ * - Encabezado: magic, versión, generación del WAL, cantidad de filas, tipos y valores anchos
+ * - Diccionario de tipos (código -> nombre en UTF-8)
+ * - Valores anchos: montos cuyo valor sin escala no entra en un long
+ * - Columnas de ancho fijo, ordenadas por ID: id, parentId, monto y suma del subárbol
+ *   (valor sin escala + escala), versión, código de tipo y flags
+ * - CRC32C de todo lo anterior
+ *
+ * La escritura va a un archivo temporal que reemplaza al anterior con un rename atómico,
+ * así una caída durante el checkpoint deja intacto el snapshot previo; después se fuerza
+ * el directorio, para que el rename sea durable antes de que el checkpoint borre los
+ * segmentos del log que el snapshot nuevo reemplaza. La carga mapea el
+ * archivo con FileChannel.map y expone las filas por índice, de modo que el repositorio
+ * puede reconstruir sus índices en paralelo sin parsear registros uno por uno.
+ */
+public final class SnapshotStore {
+
+    static final String FILE_NAME = "transactions.snapshot";
+
+    private static final long MAGIC = 0x54584E534E415031L; // "TXNSNAP1"
+    private static final int VERSION = 2;
+    private static final byte HAS_PARENT = 1;
+    private static final byte HAS_AMOUNT = 2;
+    private static final byte WIDE_AMOUNT = 4;
+    private static final byte WIDE_SUM = 8;
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Escribe un snapshot con las filas dadas. generation es la primera generación del WAL
+     * que no está incluida en el snapshot.
+     *
+     * Las sumas de los subárboles se recalculan a partir de las filas recibidas, para que
+     * sean consistentes con ellas aunque el repositorio haya seguido recibiendo escrituras.
+     */
+    public void write(long generation, List<Transaction> rows) throws IOException {
+        Transaction[] sorted = rows.toArray(new Transaction[0]);
+        Arrays.parallelSort(sorted, Comparator.comparingLong(Transaction::getId));
+        int n = sorted.length;
+
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = sorted[i].getId();
+        }
+
+        Map<String, Integer> typeCodes = new HashMap<>();
+        List<String> typeNames = new ArrayList<>();
+        int[] codes = new int[n];
+        for (int i = 0; i < n; i++) {
+            String type = sorted[i].getType();
+            Integer code = typeCodes.get(type);
+            if (code == null) {
+                code = typeNames.size();
+                typeCodes.put(type, code);
+                typeNames.add(type);
+            }
+            codes[i] = code;
+        }
+
+        BigDecimal[] sums = subtreeSums(sorted, ids);
+
+        List<byte[]> wide = new ArrayList<>();
+        long[] amountValues = new long[n];
+        int[] amountScales = new int[n];
+        long[] sumValues = new long[n];
+        int[] sumScales = new int[n];
+        byte[] flags = new byte[n];
+        for (int i = 0; i < n; i++) {
+            Transaction transaction = sorted[i];
+            byte flag = 0;
+            if (transaction.getParentId() != null) {
+                flag |= HAS_PARENT;
+            }
+            BigDecimal amount = transaction.getAmount();
+            if (amount != null) {
+                flag |= HAS_AMOUNT;
+                amountScales[i] = amount.scale();
+                BigInteger unscaled = amount.unscaledValue();
+                if (unscaled.bitLength() < Long.SIZE) {
+                    amountValues[i] = unscaled.longValue();
+                } else {
+                    flag |= WIDE_AMOUNT;
+                    amountValues[i] = wide.size();
+                    wide.add(unscaled.toByteArray());
+                }
+            }
+            sumScales[i] = sums[i].scale();
+            BigInteger unscaledSum = sums[i].unscaledValue();
+            if (unscaledSum.bitLength() < Long.SIZE) {
+                sumValues[i] = unscaledSum.longValue();
+            } else {
+                flag |= WIDE_SUM;
+                sumValues[i] = wide.size();
+                wide.add(unscaledSum.toByteArray());
+            }
+            flags[i] = flag;
+        }
+
+        long columnBytes = (long) n * (5 * Long.BYTES + 3 * Integer.BYTES + 1);
+        if (columnBytes > Integer.MAX_VALUE - (1 << 24)) {
+            // Un único MappedByteBuffer no puede superar los 2 GB
+            throw new IOException("Demasiadas filas para un snapshot: " + n);
+        }
+
+        Path target = directory.resolve(FILE_NAME);
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(n);
+            out.writeInt(typeNames.size());
+            out.writeInt(wide.size());
+            for (String type : typeNames) {
+                byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (byte[] bytes : wide) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            // Las columnas empiezan alineadas a 8 bytes
+            while (out.size() % Long.BYTES != 0) {
+                out.writeByte(0);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeLong(ids[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                Long parentId = sorted[i].getParentId();
+                out.writeLong(parentId != null ? parentId : 0L);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeLong(amountValues[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeLong(sumValues[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeLong(sorted[i].getVersion());
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeInt(amountScales[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeInt(sumScales[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeInt(codes[i]);
+            }
+            out.write(flags);
+            out.flush();
+            // El CRC se escribe directo al archivo, fuera del rango que cubre
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // El rename vive en la entrada del directorio: sin forzarlo, una caída podría volver
+        // al snapshot anterior cuando el log que lo completaba ya se borró
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Mapea el snapshot existente, o retorna null si todavía no se escribió ninguno.
+     */
+    public Snapshot load() throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = buffer.capacity();
+        if (size < Long.BYTES * 2 || buffer.getLong(0) != MAGIC) {
+            throw new IOException("El archivo no es un snapshot de transacciones: " + file);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(size - Long.BYTES));
+        if (crc.getValue() != buffer.getLong(size - Long.BYTES)) {
+            throw new IOException("Snapshot corrupto (CRC inválido): " + file);
+        }
+        int version = buffer.getInt(Long.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Versión de snapshot no soportada: " + version);
+        }
+        return new Snapshot(buffer);
+    }
+
+    /**
+     * Suma de cada subárbol calculada de las hojas hacia la raíz (orden topológico),
+     * sin recursión. Un padre que no está entre las filas se trata como raíz.
+     */
+    private static BigDecimal[] subtreeSums(Transaction[] sorted, long[] ids) {
+        int n = sorted.length;
+        int[] parentRows = new int[n];
+        int[] pendingChildren = new int[n];
+        BigDecimal[] sums = new BigDecimal[n];
+        for (int i = 0; i < n; i++) {
+            Long parentId = sorted[i].getParentId();
+            int parentRow = parentId != null ? Arrays.binarySearch(ids, parentId) : -1;
+            parentRows[i] = parentRow >= 0 ? parentRow : -1;
+            if (parentRows[i] >= 0) {
+                pendingChildren[parentRows[i]]++;
+            }
+            BigDecimal amount = sorted[i].getAmount();
+            sums[i] = amount != null ? amount : BigDecimal.ZERO;
+        }
+
+        int[] ready = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (pendingChildren[i] == 0) {
+                ready[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int row = ready[head++];
+            int parentRow = parentRows[row];
+            if (parentRow >= 0) {
+                sums[parentRow] = sums[parentRow].add(sums[row]);
+                if (--pendingChildren[parentRow] == 0) {
+                    ready[tail++] = parentRow;
+                }
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Snapshot mapeado en memoria. Las lecturas son por índice absoluto, así que
+     * varios hilos pueden recorrer rangos distintos a la vez.
+     */
+    static final class Snapshot {
+
+        private final long generation;
+        private final int rowCount;
+        private final String[] typeNames;
+        private final BigInteger[] wide;
+        private final LongBuffer ids;
+        private final LongBuffer parentIds;
+        private final LongBuffer amountValues;
+        private final LongBuffer sumValues;
+        private final LongBuffer versions;
+        private final IntBuffer amountScales;
+        private final IntBuffer sumScales;
+        private final IntBuffer typeCodes;
+        private final ByteBuffer flags;
+
+        private Snapshot(MappedByteBuffer buffer) {
+            ByteBuffer header = buffer.duplicate();
+            header.position(Long.BYTES + Integer.BYTES);
+            this.generation = header.getLong();
+            this.rowCount = header.getInt();
+            this.typeNames = new String[header.getInt()];
+            this.wide = new BigInteger[header.getInt()];
+            for (int i = 0; i < typeNames.length; i++) {
+                byte[] bytes = new byte[header.getInt()];
+                header.get(bytes);
+                typeNames[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            for (int i = 0; i < wide.length; i++) {
+                byte[] bytes = new byte[header.getInt()];
+                header.get(bytes);
+                wide[i] = new BigInteger(bytes);
+            }
+
+            int offset = (header.position() + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+            int longColumn = rowCount * Long.BYTES;
+            int intColumn = rowCount * Integer.BYTES;
+            this.ids = slice(buffer, offset, longColumn).asLongBuffer();
+            offset += longColumn;
+            this.parentIds = slice(buffer, offset, longColumn).asLongBuffer();
+            offset += longColumn;
+            this.amountValues = slice(buffer, offset, longColumn).asLongBuffer();
+            offset += longColumn;
+            this.sumValues = slice(buffer, offset, longColumn).asLongBuffer();
+            offset += longColumn;
+            this.versions = slice(buffer, offset, longColumn).asLongBuffer();
+            offset += longColumn;
+            this.amountScales = slice(buffer, offset, intColumn).asIntBuffer();
+            offset += intColumn;
+            this.sumScales = slice(buffer, offset, intColumn).asIntBuffer();
+            offset += intColumn;
+            this.typeCodes = slice(buffer, offset, intColumn).asIntBuffer();
+            offset += intColumn;
+            this.flags = slice(buffer, offset, rowCount);
+        }
+
+        long generation() {
+            return generation;
+        }
+
+        int rowCount() {
+            return rowCount;
+        }
+
+        int typeCount() {
+            return typeNames.length;
+        }
+
+        String typeName(int code) {
+            return typeNames[code];
+        }
+
+        int typeCode(int row) {
+            return typeCodes.get(row);
+        }
+
+        long id(int row) {
+            return ids.get(row);
+        }
+
+        /**
+         * Transacción de la fila dada. Todas las filas de un tipo comparten el mismo String.
+         */
+        Transaction transaction(int row) {
+            byte flag = flags.get(row);
+            BigDecimal amount = null;
+            if ((flag & HAS_AMOUNT) != 0) {
+                amount = decimal(amountValues.get(row), amountScales.get(row), (flag & WIDE_AMOUNT) != 0);
+            }
+            Long parentId = (flag & HAS_PARENT) != 0 ? parentIds.get(row) : null;
+            Transaction transaction = new Transaction(ids.get(row), amount, typeNames[typeCodes.get(row)], parentId);
+            transaction.setVersion(versions.get(row));
+            return transaction;
+        }
+
+        BigDecimal subtreeSum(int row) {
+            return decimal(sumValues.get(row), sumScales.get(row), (flags.get(row) & WIDE_SUM) != 0);
+        }
+
+        private BigDecimal decimal(long value, int scale, boolean isWide) {
+            return isWide ? new BigDecimal(wide[(int) value], scale) : BigDecimal.valueOf(value, scale);
+        }
+
+        private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+            return buffer.slice(offset, length);
+        }
+    }
+}
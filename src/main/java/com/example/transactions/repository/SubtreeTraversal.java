@@ -0,0 +1,103 @@
+package com.example.transactions.repository;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Recorrido en profundidad de un subárbol sobre el índice de hijos (parentId -> IDs).
+ *
+ * Es iterativo: la pila es un long[] y no la pila del hilo, así que una cadena de un
+ * millón de niveles no produce StackOverflowError. Cada hilo reutiliza sus propios
+ * arreglos entre recorridos, por lo que un recorrido no asigna memoria salvo cuando la
+ * pila tiene que crecer; tampoco hay conjunto de visitados ni listas de hijos. Una pila
+ * que creció mucho (cadenas muy profundas) no se retiene después del recorrido.
+ *
+ * Por cada transacción se invoca enter (preorden) y, si enter retorna true, se recorren
+ * sus hijos y al terminar se invoca exit (postorden). Si enter retorna false, la
+ * transacción se omite junto con su subárbol. Volver a la raíz (un ciclo escrito directo
+ * en el repositorio) corta el recorrido en ese punto.
+ */
+public final class SubtreeTraversal {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Capacidad máxima que un hilo retiene entre recorridos; una pila más grande se descarta
+    private static final int RETAINED_CAPACITY = 1 << 16;
+
+    private static final ThreadLocal<SubtreeTraversal> BUFFERS = ThreadLocal.withInitial(SubtreeTraversal::new);
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private boolean[] exits = new boolean[INITIAL_CAPACITY];
+    private boolean inUse;
+
+    private SubtreeTraversal() {
+    }
+
+    /**
+     * Recorre el subárbol de rootId, incluida la raíz.
+     */
+    public static void walk(Map<Long, Set<Long>> childrenIndex, long rootId, LongPredicate enter, LongConsumer exit) {
+        SubtreeTraversal buffers = BUFFERS.get();
+        // Un recorrido anidado en el mismo hilo (desde enter o exit) usa arreglos propios
+        if (buffers.inUse) {
+            buffers = new SubtreeTraversal();
+        }
+        buffers.inUse = true;
+        try {
+            buffers.run(childrenIndex, rootId, enter, exit);
+        } finally {
+            buffers.inUse = false;
+            if (buffers.ids.length > RETAINED_CAPACITY) {
+                buffers.ids = new long[INITIAL_CAPACITY];
+                buffers.exits = new boolean[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    /**
+     * Recorre el subárbol de rootId solo en preorden.
+     */
+    public static void walk(Map<Long, Set<Long>> childrenIndex, long rootId, LongPredicate enter) {
+        walk(childrenIndex, rootId, enter, null);
+    }
+
+    private void run(Map<Long, Set<Long>> childrenIndex, long rootId, LongPredicate enter, LongConsumer exit) {
+        int top = 0;
+        ids[top] = rootId;
+        exits[top++] = false;
+        while (top > 0) {
+            long id = ids[--top];
+            if (exits[top]) {
+                exit.accept(id);
+                continue;
+            }
+            if (!enter.test(id)) {
+                continue;
+            }
+            if (exit != null) {
+                top = push(top, id, true);
+            }
+            Set<Long> childIds = childrenIndex.get(id);
+            if (childIds != null) {
+                for (Long childId : childIds) {
+                    if (childId != rootId) {
+                        top = push(top, childId, false);
+                    }
+                }
+            }
+        }
+    }
+
+    private int push(int top, long id, boolean exit) {
+        if (top == ids.length) {
+            ids = Arrays.copyOf(ids, top * 2);
+            exits = Arrays.copyOf(exits, top * 2);
+        }
+        ids[top] = id;
+        exits[top] = exit;
+        return top + 1;
+    }
+}
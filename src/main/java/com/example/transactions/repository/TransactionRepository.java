@@ -1,8 +1,11 @@
 package com.example.transactions.repository;
 
 import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 /**
  * Interfaz del repositorio para transacciones.
@@ -10,10 +13,37 @@ import java.util.List;
 public interface TransactionRepository {
     
     /**
-     * Guarda o actualiza una transacción.
+     * Guarda o actualiza una transacción. Asigna su versión: 1 en el alta y la anterior
+     * más uno en una actualización. Lanza InvalidParentException sin modificar nada si su
+     * parentId es ella misma o una de sus descendientes; la verificación es atómica con la
+     * escritura.
      */
     void save(Transaction transaction);
 
+    /**
+     * Guarda la transacción solo si su versión actual es expectedVersion (compare-and-set);
+     * una transacción que no existe tiene versión 0. Retorna false sin modificar nada si
+     * la versión no coincide.
+     */
+    boolean saveIfVersion(Transaction transaction, long expectedVersion);
+
+    /**
+     * Guarda varias transacciones en el orden dado, con el mismo efecto que llamar a save()
+     * por cada una pero tomando los locks y esperando la durabilidad una sola vez. Ninguna
+     * otra escritura se intercala entre ellas. Si alguna cerraría un ciclo, lanza
+     * InvalidParentException sin guardar ninguna.
+     */
+    void saveAll(List<Transaction> transactions);
+
+    /**
+     * Registra quién recibe, después de cada escritura, los IDs cuya suma de subárbol pudo
+     * cambiar: la transacción guardada y sus ancestros y, si cambió de padre, los ancestros
+     * de su padre anterior. Se llama con las sumas ya actualizadas y con los locks de la
+     * escritura todavía tomados, así los caminos son los que vio la escritura; no debe
+     * volver a entrar al repositorio. Reemplaza al anterior; null no registra ninguno.
+     */
+    void setSubtreeListener(LongConsumer listener);
+
     /**
      * Busca una transacción por ID.
      */
@@ -29,13 +59,60 @@ public interface TransactionRepository {
      */
     List<Long> findIdsByType(String type);
 
+    /**
+     * Obtiene hasta limit IDs de un tipo mayores que afterId (desde el primero si afterId
+     * es null), en orden ascendente.
+     */
+    List<Long> findIdsByType(String type, Long afterId, int limit);
+
+    /**
+     * Cantidad de transacciones de un tipo, sin materializar sus IDs.
+     */
+    long countByType(String type);
+
+    /**
+     * Agregados (cantidad, total, mínimo y máximo) de las transacciones de un tipo, sin
+     * recorrerlas. Un tipo sin transacciones tiene cantidad y total 0.
+     */
+    TypeStats findTypeStats(String type);
+
+    /**
+     * Agregados de cada tipo con al menos una transacción, ordenados por tipo.
+     */
+    List<TypeStats> findAllTypeStats();
+
     /**
      * Obtiene todas las transacciones hijas de un parentId dado.
      */
     List<Transaction> findByParentId(Long parentId);
 
+    /**
+     * Obtiene el monto total de una transacción incluyendo todas sus descendientes.
+     * Retorna null si la transacción no existe.
+     */
+    BigDecimal findSubtreeSum(Long id);
+
+    /**
+     * Indica si ancestorId es ancestro (padre, abuelo, ...) de la transacción id.
+     * Retorna false si alguna de las dos no existe.
+     */
+    boolean isAncestor(Long ancestorId, Long id);
+
+    /**
+     * Obtiene los IDs de los ancestros de una transacción, desde su padre hasta la raíz.
+     * Retorna null si la transacción no existe.
+     */
+    List<Long> findAncestorIds(Long id);
+
     /**
      * Obtiene todas las transacciones almacenadas.
      */
     List<Transaction> findAll();
+
+    /**
+     * Obtiene hasta limit transacciones con ID mayor que afterId (desde la primera si
+     * afterId es null), en orden ascendente de ID. Permite recorrer el almacén por páginas
+     * sin copiarlo entero.
+     */
+    List<Transaction> findPage(Long afterId, int limit);
 }
@@ -1,48 +1,619 @@
 package com.example.transactions.repository;
 
+import com.example.transactions.exception.InvalidParentException;
 import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Implementación en memoria del repositorio para transacciones.
- * Usa ConcurrentHashMap para garantizar thread-safety.
+ * Usa LongConcurrentMap como almacén principal y ConcurrentHashMap para los índices
+ * secundarios, garantizando thread-safety.
+ *
+ * Las sumas de los subárboles las mantiene un HierarchyIndex elegido con
+ * transactions.hierarchy.engine: materialized (suma en O(1), por defecto) o euler-tour
+ * (suma, alta y cambio de padre en O(log n), para jerarquías profundas).
+ *
+ * Cada save() es atómico sobre el almacén y todos los índices: las escrituras sobre un
+ * mismo ID se serializan con un lock por franja (lock striping por ID), y el orden
+ * respecto del motor de jerarquía lo da un lock de lectura/escritura. Una actualización
+ * que no cambia el padre (monto y/o tipo) y el alta de una hoja (sin hijos guardados, como
+ * raíz o bajo un padre ya guardado) toman su parte compartida, así corren en paralelo para
+ * IDs distintos; el alta de un padre después de sus hijos, un alta bajo un padre todavía no
+ * guardado y un cambio de padre reordenan la jerarquía y toman la parte exclusiva. Las
+ * lecturas del almacén y de los índices no toman ningún lock; como la fila se publica en el
+ * almacén después de actualizar el motor, una transacción visible ya tiene su suma.
+ *
+ * Límites: con transactions.hierarchy.engine=euler-tour cada escritura se serializa igual
+ * en el lock propio del motor (los treaps no admiten modificaciones concurrentes), y un
+ * saveAll() toma la parte exclusiva durante todo el lote, así que los lotes no corren en
+ * paralelo entre sí ni con escrituras individuales.
+ *
+ * Si hay un WriteAheadLog configurado (transactions.wal.enabled=true), cada save()
+ * se registra en el log y al arrancar se reaplica su contenido, reconstruyendo el
+ * almacén y todos los índices (las sumas se recalculan al final, en paralelo, y no
+ * registro por registro). Con un SnapshotStore (transactions.snapshot.enabled=true),
+ * checkpoint() vuelca el contenido a un snapshot y descarta los segmentos del log ya
+ * incluidos; al arrancar se mapea el snapshot, se reconstruyen los índices en paralelo y
+ * solo se reaplica el log posterior.
+ *
+ * Es la implementación por defecto (transactions.repository.type=heap).
  */
 @Repository
+@ConditionalOnProperty(name = "transactions.repository.type", havingValue = "heap", matchIfMissing = true)
 public class TransactionRepositoryImpl implements TransactionRepository {
+
+    // Cantidad de franjas (potencia de 2); con 32 escritores la probabilidad de que dos
+    // IDs distintos compartan franja es baja
+    private static final int STRIPES = 256;
+
+    // expectedVersion de un save() incondicional
+    private static final long ANY_VERSION = -1;
+
+    // Almacén principal de transacciones por ID (claves long sin boxing)
+    private final LongConcurrentMap<Transaction> transactions = new LongConcurrentMap<>();
     
-    // Almacén principal de transacciones por ID
-    private final Map<Long, Transaction> transactions = new ConcurrentHashMap<>();
-    
-    // Índice inverso: tipo -> conjunto de IDs de transacciones
-    private final Map<String, Set<Long>> typeIndex = new ConcurrentHashMap<>();
+    // Índice inverso: tipo (internado como código) -> bitmap comprimido de IDs
+    private final TypeIndex typeIndex = new TypeIndex();
+
+    // Cantidad, total, mínimo y máximo por tipo, mantenidos en cada escritura
+    private final TypeAggregates typeAggregates = new TypeAggregates();
+
+    // Índice de adyacencia: parentId -> conjunto de IDs de transacciones hijas
+    private final Map<Long, Set<Long>> childrenIndex = new ConcurrentHashMap<>();
+
+    // Todos los IDs en orden ascendente, para paginar por cursor (el almacén no está ordenado)
+    private final LongBitmap sortedIds = new LongBitmap();
+    private final ReentrantReadWriteLock sortedIdsLock = new ReentrantReadWriteLock();
+
+    // Motor de jerarquía que mantiene las sumas de los subárboles
+    private final HierarchyIndex hierarchy;
+
+    // Locks por franja de IDs: serializan las escrituras sobre una misma transacción
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // Orden respecto del motor de jerarquía: compartido para las actualizaciones que no
+    // cambian el padre y las altas de hojas, exclusivo para las demás altas, cambios de
+    // padre, lotes y checkpoints
+    private final ReentrantReadWriteLock hierarchyLock = new ReentrantReadWriteLock();
+
+    // Log de durabilidad; null si la persistencia está deshabilitada
+    private final WriteAheadLog log;
+
+    // Snapshots para checkpoints; null si están deshabilitados
+    private final SnapshotStore snapshots;
+
+    // Evita que dos checkpoints se ejecuten a la vez
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    // Recibe los IDs cuya suma de subárbol pudo cambiar; null si no hay ninguno registrado
+    private volatile LongConsumer subtreeListener;
+
+    public TransactionRepositoryImpl() {
+        this(null, null);
+    }
+
+    public TransactionRepositoryImpl(@Nullable WriteAheadLog log) {
+        this(log, null);
+    }
+
+    public TransactionRepositoryImpl(@Nullable WriteAheadLog log, @Nullable SnapshotStore snapshots) {
+        this(log, snapshots, "materialized");
+    }
+
+    /**
+     * Crea el repositorio y recupera su contenido antes de atender pedidos:
+     * primero el snapshot (si hay) y después los segmentos del log posteriores a él.
+     */
+    @Autowired
+    public TransactionRepositoryImpl(@Nullable WriteAheadLog log, @Nullable SnapshotStore snapshots,
+                                     @Value("${transactions.hierarchy.engine:materialized}") String hierarchyEngine) {
+        this.log = log;
+        this.snapshots = snapshots;
+        this.hierarchy = HierarchyIndex.create(hierarchyEngine, transactions, childrenIndex);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        try {
+            SnapshotStore.Snapshot snapshot = snapshots != null ? snapshots.load() : null;
+            if (snapshot != null) {
+                loadSnapshot(snapshot);
+                if (log != null) {
+                    log.replay(snapshot.generation(), this::doSave);
+                }
+            } else if (log != null) {
+                // Sin snapshot se reaplica todo el log y el motor se calcula una sola vez al final
+                log.replay(0, this::apply);
+                hierarchy.rebuild();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el contenido del repositorio", e);
+        }
+    }
 
     /**
      * Guarda o actualiza una transacción.
      */
     @Override
     public void save(Transaction transaction) {
+        save(transaction, ANY_VERSION);
+    }
+
+    /**
+     * Compara la versión con el lock de la franja del ID tomado, así dos escrituras
+     * condicionales sobre la misma versión no pueden ganar ambas.
+     */
+    @Override
+    public boolean saveIfVersion(Transaction transaction, long expectedVersion) {
+        return save(transaction, expectedVersion);
+    }
+
+    /**
+     * Con el lock de la franja del ID tomado se compara la versión (si se pidió) y se
+     * decide si la escritura reordena la jerarquía para tomar el lock de jerarquía
+     * correspondiente (ver lockHierarchy()). Con el lock exclusivo se verifica que no se
+     * cierre un ciclo, así dos cambios de padre concurrentes (1 bajo 2 y 2 bajo 1) no pueden
+     * aceptarse los dos; un alta de hoja no puede cerrar ninguno. El registro se agrega al log y se aplica en
+     * memoria bajo esos locks, así el orden del log coincide con el orden de aplicación para
+     * cada ID y para cada cambio de forma. La espera del fsync se hace fuera de los locks para que
+     * escrituras concurrentes compartan el mismo group commit.
+     */
+    private boolean save(Transaction transaction, long expectedVersion) {
+        // El tipo es clave del índice: se valida antes de modificar cualquier estructura
+        Objects.requireNonNull(transaction.getType(), "type");
+        long sequence = 0;
+        ReentrantLock stripe = stripeOf(transaction.getId());
+        stripe.lock();
+        try {
+            Transaction existing = transactions.get(transaction.getId());
+            if (expectedVersion != ANY_VERSION && expectedVersion != (existing != null ? existing.getVersion() : 0)) {
+                return false;
+            }
+            Lock order = lockHierarchy(existing, transaction);
+            try {
+                if (order == hierarchyLock.writeLock()) {
+                    checkAcyclic(transaction, Map.of(), Set.of());
+                }
+                if (log != null) {
+                    sequence = log.append(transaction);
+                }
+                doSave(transaction);
+                notifySubtrees(existing, transaction, null);
+            } finally {
+                order.unlock();
+            }
+        } finally {
+            stripe.unlock();
+        }
+        if (log != null) {
+            log.awaitDurable(sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Toma las franjas de los IDs del lote (en orden ascendente, así dos lotes no pueden
+     * esperarse mutuamente) y el lock de jerarquía exclusivo una vez para todo el lote; los registros se agregan al
+     * log en orden y se espera un único fsync por el último. Antes de escribir nada se
+     * verifica, con los locks tomados, que ninguna transacción del lote cierre un ciclo; si
+     * alguna lo hace se rechaza el lote entero con InvalidParentException. Los caminos que
+     * cambiaron se notifican al final, cuando todas las sumas del lote ya están aplicadas.
+     */
+    @Override
+    public void saveAll(List<Transaction> batch) {
+        for (Transaction transaction : batch) {
+            Objects.requireNonNull(transaction.getType(), "type");
+        }
+        long sequence = 0;
+        int[] locked = batch.stream().mapToInt(transaction -> stripeIndex(transaction.getId()))
+                .sorted().distinct().toArray();
+        for (int stripe : locked) {
+            stripes[stripe].lock();
+        }
+        try {
+            hierarchyLock.writeLock().lock();
+            try {
+                checkAcyclic(batch);
+                Transaction[] previous = new Transaction[batch.size()];
+                for (int i = 0; i < batch.size(); i++) {
+                    Transaction transaction = batch.get(i);
+                    if (log != null) {
+                        sequence = log.append(transaction);
+                    }
+                    previous[i] = doSave(transaction);
+                }
+                Set<Long> notified = new HashSet<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    notifySubtrees(previous[i], batch.get(i), notified);
+                }
+            } finally {
+                hierarchyLock.writeLock().unlock();
+            }
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                stripes[locked[i]].unlock();
+            }
+        }
+        if (log != null && !batch.isEmpty()) {
+            log.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Verifica el lote en orden: pending superpone al almacén los padres de las
+     * transacciones anteriores que cambian la forma (altas y cambios de padre), todavía sin
+     * aplicar, y pendingParents son los padres que referencian.
+     */
+    private void checkAcyclic(List<Transaction> batch) {
+        Map<Long, Long> pending = new HashMap<>();
+        Set<Long> pendingParents = new HashSet<>();
+        for (Transaction transaction : batch) {
+            Long id = transaction.getId();
+            Long parentId = transaction.getParentId();
+            boolean known = pending.containsKey(id) || transactions.containsKey(id);
+            if (known && Objects.equals(parentId, parentOf(id, pending))) {
+                continue;
+            }
+            checkAcyclic(transaction, pending, pendingParents);
+            pending.put(id, parentId);
+            if (parentId != null) {
+                pendingParents.add(parentId);
+            }
+        }
+    }
+
+    /**
+     * Lanza InvalidParentException si colgar la transacción de su padre cerraría un ciclo:
+     * el padre es ella misma o una de sus descendientes. Se llama con el lock de jerarquía
+     * exclusivo, así la forma no cambia entre la verificación y la escritura.
+     *
+     * Si no hay nada pendiente, para una transacción existente lo responden las etiquetas del
+     * motor de jerarquía. Un alta solo puede cerrar un ciclo si algo ya cuelga de ella
+     * (hijos guardados antes que su padre); en ese caso, y en un lote con cambios
+     * pendientes, se sube la cadena de padres.
+     */
+    private void checkAcyclic(Transaction transaction, Map<Long, Long> pending, Set<Long> pendingParents) {
         Long id = transaction.getId();
-        Transaction existing = transactions.get(id);
-        
-        // Si existe una transacción anterior, removemos su tipo del índice
-        if (existing != null) {
-            String oldType = existing.getType();
-            typeIndex.getOrDefault(oldType, ConcurrentHashMap.newKeySet()).remove(id);
+        Long parentId = transaction.getParentId();
+        if (parentId == null) {
+            return;
+        }
+        boolean cycle;
+        if (parentId.equals(id)) {
+            cycle = true;
+        } else if (pending.containsKey(id) || transactions.containsKey(id)) {
+            cycle = pending.isEmpty() ? hierarchy.isAncestor(id, parentId) : reachesByParents(parentId, id, pending);
+        } else {
+            cycle = (childrenIndex.containsKey(id) || pendingParents.contains(id))
+                    && reachesByParents(parentId, id, pending);
+        }
+        if (cycle) {
+            throw new InvalidParentException("Asignar parentId " + parentId + " a la transacción " + id
+                    + " crearía un ciclo en la jerarquía");
+        }
+    }
+
+    /**
+     * Indica si la cadena de padres desde from llega a id. Un ciclo ya guardado que no pasa
+     * por id (escrito antes de que se rechazaran) corta el recorrido por cantidad de pasos.
+     */
+    private boolean reachesByParents(Long from, Long id, Map<Long, Long> pending) {
+        long maxSteps = (long) transactions.size() + pending.size();
+        Long current = from;
+        for (long step = 0; current != null && step <= maxSteps; step++) {
+            if (current.equals(id)) {
+                return true;
+            }
+            current = parentOf(current, pending);
+        }
+        return false;
+    }
+
+    private Long parentOf(Long id, Map<Long, Long> pending) {
+        if (pending.containsKey(id)) {
+            return pending.get(id);
+        }
+        Transaction transaction = transactions.get(id);
+        return transaction != null ? transaction.getParentId() : null;
+    }
+
+    private ReentrantLock stripeOf(long id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private static int stripeIndex(long id) {
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return hash >>> (Integer.SIZE - Integer.numberOfTrailingZeros(STRIPES));
+    }
+
+    /**
+     * Toma el lock de jerarquía para una escritura, con la franja de su ID ya tomada, y
+     * retorna el lock tomado. Una actualización que no cambia el padre y el alta de una hoja
+     * toman la parte compartida; el resto, la exclusiva.
+     *
+     * Que un alta sea de una hoja se vuelve a verificar con la parte compartida tomada: antes
+     * pudo colgarle hijos una escritura exclusiva en curso. Una vez tomada, ninguna escritura
+     * concurrente puede hacerlo, porque un alta bajo un padre que todavía no está en el
+     * almacén no es de una hoja y espera la parte exclusiva.
+     */
+    private Lock lockHierarchy(Transaction existing, Transaction transaction) {
+        if (existing != null ? Objects.equals(existing.getParentId(), transaction.getParentId()) : isLeaf(transaction)) {
+            Lock shared = hierarchyLock.readLock();
+            shared.lock();
+            if (existing != null || isLeaf(transaction)) {
+                return shared;
+            }
+            shared.unlock();
+        }
+        Lock exclusive = hierarchyLock.writeLock();
+        exclusive.lock();
+        return exclusive;
+    }
+
+    /**
+     * Indica si el alta es de una hoja: no tiene hijos guardados y es una raíz o su padre ya
+     * está en el almacén, donde se publica recién al terminar su paso por el motor (ver
+     * doSave()).
+     */
+    private boolean isLeaf(Transaction transaction) {
+        Long parentId = transaction.getParentId();
+        return !childrenIndex.containsKey(transaction.getId())
+                && (parentId == null || transactions.containsKey(parentId));
+    }
+
+    /**
+     * Actualiza el motor de jerarquía antes de publicar la fila en el almacén: quien
+     * encuentra la transacción (por findById() o recorriendo los ancestros de una hija nueva)
+     * también encuentra su suma y las de sus ancestros ya actualizadas. Hasta entonces el
+     * motor recibe la fila nueva como parámetro y el almacén tiene la anterior.
+     */
+    private Transaction doSave(Transaction transaction) {
+        Transaction existing = transactions.get(transaction.getId());
+        hierarchy.onSave(existing, transaction);
+        apply(transaction, existing);
+        return existing;
+    }
+
+    @Override
+    public void setSubtreeListener(LongConsumer listener) {
+        this.subtreeListener = listener;
+    }
+
+    /**
+     * Notifica el camino de la transacción guardada hasta la raíz y, si cambió de padre, el
+     * de su padre anterior. Se llama con los locks de la escritura tomados: la forma de esos
+     * caminos solo la cambia una escritura con el lock de jerarquía exclusivo.
+     * notified (en los lotes) acumula los IDs ya notificados y un camino que llega a uno de
+     * ellos se corta; sin notified, los ancestros comunes de los dos caminos se notifican
+     * dos veces, lo que es más barato que registrarlos.
+     */
+    private void notifySubtrees(Transaction existing, Transaction transaction, Set<Long> notified) {
+        LongConsumer listener = subtreeListener;
+        if (listener == null) {
+            return;
+        }
+        notifyPath(transaction.getId(), listener, notified);
+        if (existing != null && existing.getParentId() != null
+                && !existing.getParentId().equals(transaction.getParentId())) {
+            notifyPath(existing.getParentId(), listener, notified);
+        }
+    }
+
+    /**
+     * Notifica id y sus ancestros. Como en reachesByParents(), un ciclo escrito antes de que
+     * se rechazaran corta el recorrido por cantidad de pasos.
+     */
+    private void notifyPath(Long id, LongConsumer listener, Set<Long> notified) {
+        long maxSteps = transactions.size();
+        Long current = id;
+        for (long step = 0; current != null && step <= maxSteps && (notified == null || notified.add(current)); step++) {
+            listener.accept(current);
+            Transaction transaction = transactions.get(current);
+            current = transaction != null ? transaction.getParentId() : null;
         }
+    }
+
+    /**
+     * Asigna la versión y actualiza el almacén y los índices de tipo y de hijos, sin el
+     * motor de jerarquía. Retorna la versión anterior de la transacción, o null si es un alta.
+     * Al reaplicar el log las versiones se vuelven a numerar igual, porque se aplican las
+     * mismas escrituras en el mismo orden.
+     */
+    private Transaction apply(Transaction transaction) {
+        Transaction existing = transactions.get(transaction.getId());
+        apply(transaction, existing);
+        return existing;
+    }
+
+    private void apply(Transaction transaction, Transaction existing) {
+        Long id = transaction.getId();
+        transaction.setVersion(existing != null ? existing.getVersion() + 1 : 1);
         
         // Guardamos la nueva transacción
         transactions.put(id, transaction);
+        if (existing == null) {
+            sortedIdsLock.writeLock().lock();
+            try {
+                sortedIds.add(id);
+            } finally {
+                sortedIdsLock.writeLock().unlock();
+            }
+        }
         
-        // Actualizamos el índice por tipo
-        typeIndex.computeIfAbsent(transaction.getType(), k -> ConcurrentHashMap.newKeySet())
-                .add(id);
+        // Actualizamos el índice por tipo solo si es un alta o cambió el tipo;
+        // si el tipo anterior se queda sin IDs, su entrada se elimina
+        String oldType = existing != null ? existing.getType() : null;
+        if (!transaction.getType().equals(oldType)) {
+            if (oldType != null) {
+                typeIndex.remove(oldType, id);
+            }
+            typeIndex.add(transaction.getType(), id);
+        }
+
+        // Agregados por tipo: primero se suma el monto nuevo, así reemplazar el máximo por
+        // uno mayor (o el mínimo por uno menor) no obliga a recalcular los extremos. Volver a
+        // guardar el mismo tipo y monto no los toca: quitar el monto que es el mínimo o el
+        // máximo invalidaría los extremos y la próxima lectura recorrería todo el tipo
+        if (existing == null || !transaction.getType().equals(oldType)
+                || !Objects.equals(transaction.getAmount(), existing.getAmount())) {
+            typeAggregates.add(transaction.getType(), transaction.getAmount());
+            if (existing != null) {
+                typeAggregates.remove(oldType, existing.getAmount());
+            }
+        }
+
+        // Actualizamos el índice de hijos solo si cambió el parentId
+        Long oldParentId = existing != null ? existing.getParentId() : null;
+        Long newParentId = transaction.getParentId();
+        if (!Objects.equals(oldParentId, newParentId)) {
+            if (oldParentId != null) {
+                removeChild(oldParentId, id);
+            }
+            if (newParentId != null) {
+                addChild(newParentId, id);
+            }
+        }
+    }
+
+    /**
+     * Escribe un snapshot con el contenido actual y, si hay log, borra los segmentos
+     * que quedaron incluidos en él. SnapshotStore.write() retorna con el rename ya forzado
+     * en el directorio, así los segmentos se borran solo cuando el snapshot nuevo es durable.
+     *
+     * Las escrituras se bloquean (lock de jerarquía exclusivo) solo mientras se capturan
+     * las referencias a las filas y se rota el log; el snapshot se escribe fuera del lock.
+     */
+    public void checkpoint() throws IOException {
+        if (snapshots == null) {
+            throw new IllegalStateException("Los snapshots no están habilitados");
+        }
+        checkpointLock.lock();
+        try {
+            List<Transaction> rows;
+            long generation;
+            hierarchyLock.writeLock().lock();
+            try {
+                rows = transactions.values();
+                generation = log != null ? log.rotate() : 0;
+            } finally {
+                hierarchyLock.writeLock().unlock();
+            }
+            snapshots.write(generation, rows);
+            if (log != null) {
+                log.deleteSegmentsBefore(generation);
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /**
+     * Carga las filas de un snapshot repartiéndolas en rangos que se procesan en paralelo.
+     * Cada rango arma bitmaps y agregados locales por tipo (las filas vienen ordenadas por
+     * ID) que al final se agregan de una vez a los índices; las sumas de los subárboles ya
+     * vienen calculadas en el snapshot.
+     */
+    private void loadSnapshot(SnapshotStore.Snapshot snapshot) {
+        int rows = snapshot.rowCount();
+        int typeCount = snapshot.typeCount();
+        int ranges = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, rows / 4096));
+        LongBitmap[][] typeIds = new LongBitmap[ranges][];
+        TypeStats[][] typeStats = new TypeStats[ranges][];
+
+        // Si los IDs son mayormente secuenciales, el segmento denso se extiende de una vez
+        // para que los rangos no lleguen adelantados y caigan en el segmento hash
+        if (rows > 0 && snapshot.id(0) >= 0 && snapshot.id(rows - 1) <= 2L * rows + 1024) {
+            transactions.reserveDense(snapshot.id(rows - 1));
+        }
+
+        IntStream.range(0, ranges).parallel().forEach(range -> {
+            LongBitmap[] local = new LongBitmap[typeCount];
+            long[] counts = new long[typeCount];
+            BigDecimal[] totals = new BigDecimal[typeCount];
+            BigDecimal[] mins = new BigDecimal[typeCount];
+            BigDecimal[] maxs = new BigDecimal[typeCount];
+            int from = (int) ((long) rows * range / ranges);
+            int to = (int) ((long) rows * (range + 1) / ranges);
+            for (int row = from; row < to; row++) {
+                Transaction transaction = snapshot.transaction(row);
+                long id = transaction.getId();
+                transactions.put(id, transaction);
+                if (transaction.getParentId() != null) {
+                    addChild(transaction.getParentId(), id);
+                }
+                hierarchy.restore(snapshot, row);
+                int code = snapshot.typeCode(row);
+                if (local[code] == null) {
+                    local[code] = new LongBitmap();
+                }
+                local[code].add(id);
+                counts[code]++;
+                BigDecimal amount = transaction.getAmount();
+                if (amount != null) {
+                    totals[code] = totals[code] == null ? amount : totals[code].add(amount);
+                    mins[code] = mins[code] == null || amount.compareTo(mins[code]) < 0 ? amount : mins[code];
+                    maxs[code] = maxs[code] == null || amount.compareTo(maxs[code]) > 0 ? amount : maxs[code];
+                }
+            }
+            typeIds[range] = local;
+            TypeStats[] stats = new TypeStats[typeCount];
+            for (int code = 0; code < typeCount; code++) {
+                if (counts[code] > 0) {
+                    stats[code] = new TypeStats(null, counts[code],
+                            totals[code] != null ? totals[code] : BigDecimal.ZERO, mins[code], maxs[code]);
+                }
+            }
+            typeStats[range] = stats;
+        });
+
+        // Las filas vienen ordenadas por ID: cada alta se agrega al final del bitmap
+        sortedIdsLock.writeLock().lock();
+        try {
+            for (int row = 0; row < rows; row++) {
+                sortedIds.add(snapshot.id(row));
+            }
+        } finally {
+            sortedIdsLock.writeLock().unlock();
+        }
+
+        IntStream.range(0, typeCount).parallel().forEach(code -> {
+            for (LongBitmap[] local : typeIds) {
+                if (local[code] != null) {
+                    typeIndex.addAll(snapshot.typeName(code), local[code]);
+                }
+            }
+            for (TypeStats[] stats : typeStats) {
+                TypeStats partial = stats[code];
+                if (partial != null) {
+                    typeAggregates.addAll(snapshot.typeName(code), partial.getCount(), partial.getTotal(),
+                            partial.getMin(), partial.getMax());
+                }
+            }
+        });
+        hierarchy.restoreCompleted();
     }
 
     /**
@@ -62,22 +633,123 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     }
 
     /**
-     * Obtiene todos los IDs de transacciones de un tipo dado.
+     * Obtiene todos los IDs de transacciones de un tipo dado, en orden ascendente.
      */
     @Override
     public List<Long> findIdsByType(String type) {
-        Set<Long> ids = typeIndex.getOrDefault(type, ConcurrentHashMap.newKeySet());
-        return new ArrayList<>(ids);
+        return typeIndex.ids(type);
+    }
+
+    /**
+     * Agregados de un tipo, mantenidos en cada escritura.
+     */
+    @Override
+    public TypeStats findTypeStats(String type) {
+        return typeAggregates.stats(Objects.requireNonNull(type, "type"), this::forEachAmount);
+    }
+
+    /**
+     * Agregados de todos los tipos con transacciones.
+     */
+    @Override
+    public List<TypeStats> findAllTypeStats() {
+        return typeAggregates.all(this::forEachAmount);
+    }
+
+    /**
+     * Recorre los montos actuales de un tipo para recalcular sus extremos. Lee una copia
+     * del bitmap del tipo y descarta las transacciones que cambiaron de tipo desde entonces.
+     */
+    private void forEachAmount(String type, Consumer<BigDecimal> action) {
+        LongBitmap ids = typeIndex.snapshot(type);
+        if (ids == null) {
+            return;
+        }
+        ids.forEach(id -> {
+            Transaction transaction = transactions.get(id);
+            if (transaction != null && transaction.getAmount() != null && type.equals(transaction.getType())) {
+                action.accept(transaction.getAmount());
+            }
+        });
+    }
+
+    /**
+     * Obtiene una página de IDs de un tipo en orden ascendente.
+     */
+    @Override
+    public List<Long> findIdsByType(String type, Long afterId, int limit) {
+        if (afterId != null && afterId == Long.MAX_VALUE) {
+            return new ArrayList<>();
+        }
+        return typeIndex.page(type, afterId != null ? afterId + 1 : Long.MIN_VALUE, limit);
+    }
+
+    /**
+     * Cantidad de transacciones de un tipo.
+     */
+    @Override
+    public long countByType(String type) {
+        return typeIndex.count(type);
     }
 
     /**
      * Obtiene todas las transacciones hijas de un parentId dado.
+     * Usa el índice de adyacencia, por lo que el costo es O(hijos) y no O(n).
      */
     @Override
     public List<Transaction> findByParentId(Long parentId) {
-        return transactions.values().stream()
-                .filter(t -> parentId.equals(t.getParentId()))
-                .collect(Collectors.toList());
+        Set<Long> childIds = childrenIndex.get(parentId);
+        if (childIds == null) {
+            return new ArrayList<>();
+        }
+        List<Transaction> children = new ArrayList<>(childIds.size());
+        for (Long childId : childIds) {
+            Transaction child = transactions.get(childId);
+            if (child != null) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Obtiene la suma del subárbol de una transacción desde el motor de jerarquía.
+     * No recorre la jerarquía: el motor se mantiene actualizado en cada save().
+     */
+    @Override
+    public BigDecimal findSubtreeSum(Long id) {
+        return hierarchy.subtreeSum(id);
+    }
+
+    /**
+     * Consulta las etiquetas de ancestros del motor de jerarquía, sin recorrer la cadena.
+     */
+    @Override
+    public boolean isAncestor(Long ancestorId, Long id) {
+        return hierarchy.isAncestor(ancestorId, id);
+    }
+
+    /**
+     * Recorre la cadena de padres hasta una raíz, un padre que todavía no fue guardado
+     * o la vuelta a la transacción de origen.
+     */
+    @Override
+    public List<Long> findAncestorIds(Long id) {
+        Transaction transaction = transactions.get(id);
+        if (transaction == null) {
+            return null;
+        }
+        List<Long> ancestorIds = new ArrayList<>();
+        Long currentId = transaction.getParentId();
+        while (currentId != null && !currentId.equals(id)) {
+            Transaction current = transactions.get(currentId);
+            if (current == null) {
+                break;
+            }
+            ancestorIds.add(currentId);
+            currentId = current.getParentId();
+        }
+        return ancestorIds;
     }
 
     /**
@@ -85,6 +757,51 @@ public class TransactionRepositoryImpl implements TransactionRepository {
      */
     @Override
     public List<Transaction> findAll() {
-        return new ArrayList<>(transactions.values());
+        return transactions.values();
+    }
+
+    /**
+     * Recorre el bitmap de IDs desde afterId con su lock de lectura, tomado solo mientras
+     * se arma la página.
+     */
+    @Override
+    public List<Transaction> findPage(Long afterId, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        if (limit <= 0 || (afterId != null && afterId == Long.MAX_VALUE)) {
+            return page;
+        }
+        sortedIdsLock.readLock().lock();
+        try {
+            sortedIds.forEachFrom(afterId != null ? afterId + 1 : Long.MIN_VALUE, id -> {
+                page.add(transactions.get(id));
+                return page.size() < limit;
+            });
+        } finally {
+            sortedIdsLock.readLock().unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Agrega un hijo al índice de adyacencia. La inserción se hace dentro de
+     * compute() para no competir con removeChild() sobre la misma entrada.
+     */
+    private void addChild(Long parentId, Long childId) {
+        childrenIndex.compute(parentId, (k, children) -> {
+            Set<Long> result = children != null ? children : ConcurrentHashMap.newKeySet();
+            result.add(childId);
+            return result;
+        });
+    }
+
+    /**
+     * Quita un hijo del índice de adyacencia y elimina la entrada del padre
+     * cuando se queda sin hijos, para no acumular conjuntos vacíos.
+     */
+    private void removeChild(Long parentId, Long childId) {
+        childrenIndex.computeIfPresent(parentId, (k, children) -> {
+            children.remove(childId);
+            return children.isEmpty() ? null : children;
+        });
     }
 }
@@ -0,0 +1,200 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.TypeStats;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Agregados por tipo (cantidad, monto total, mínimo y máximo) mantenidos en cada escritura,
+ * para responder estadísticas sin recorrer las transacciones.
+ *
+ * Están pensados para escritores concurrentes que no comparten lock entre sí (las
+ * actualizaciones de monto o tipo de TransactionRepositoryImpl corren en paralelo):
+ * - cantidad: un LongAdder
+ * - total: celdas BigDecimal repartidas por hilo (como las de LongAdder) que se actualizan
+ *   con compare-and-set; leer el total suma las celdas
+ * - mínimo y máximo: un par inmutable que se reemplaza con compare-and-set. Agregar un
+ *   monto solo puede moverlos; quitar el monto que es el mínimo o el máximo los invalida,
+ *   y la próxima lectura los recalcula recorriendo los montos actuales del tipo. Los
+ *   repositorios no llaman a add() ni a remove() cuando una escritura deja el tipo y el
+ *   monto como estaban, así solo invalida los extremos cambiar la transacción que los tiene.
+ *   Un multiconjunto ordenado por tipo evitaría también esos recorridos, pero costaría un
+ *   nodo por monto distinto en cada repositorio (también en el off-heap, que guarda los
+ *   montos fuera del heap justamente para no tener objetos por fila)
+ *
+ * Las lecturas no son una foto atómica de los cuatro valores: con escrituras concurrentes
+ * pueden reflejar una escritura en el total y todavía no en la cantidad. Los montos null
+ * cuentan en la cantidad pero no en el total ni en los extremos.
+ *
+ * Los tipos que se quedan sin transacciones conservan su entrada con cantidad 0 (retirarla
+ * competiría con los escritores sin lock) y no se informan.
+ */
+final class TypeAggregates {
+
+    // Celdas del total por tipo: potencia de 2, el doble de procesadores y a lo sumo 64
+    private static final int CELLS = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1));
+
+    // Intentos de publicar los extremos recalculados antes de devolverlos sin publicar
+    private static final int RESCAN_ATTEMPTS = 3;
+
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * Recorre los montos actuales (no null) de las transacciones de un tipo.
+     */
+    @FunctionalInterface
+    interface AmountScanner {
+        void forEachAmount(String type, Consumer<BigDecimal> action);
+    }
+
+    /**
+     * Suma una transacción al tipo. Se llama después de guardarla en el almacén.
+     */
+    void add(String type, BigDecimal amount) {
+        Aggregate aggregate = aggregates.computeIfAbsent(type, k -> new Aggregate());
+        aggregate.count.increment();
+        if (amount != null) {
+            aggregate.addToTotal(amount);
+        }
+        aggregate.extremes.updateAndGet(current -> current.with(amount));
+    }
+
+    /**
+     * Resta una transacción del tipo. Se llama después de reemplazarla en el almacén.
+     */
+    void remove(String type, BigDecimal amount) {
+        Aggregate aggregate = aggregates.get(type);
+        if (aggregate == null) {
+            return;
+        }
+        aggregate.count.decrement();
+        if (amount != null) {
+            aggregate.addToTotal(amount.negate());
+        }
+        aggregate.extremes.updateAndGet(current -> current.without(amount));
+    }
+
+    /**
+     * Agrega de una vez los agregados parciales de un grupo de transacciones del tipo
+     * (min y max null si ninguna tiene monto). Se usa al cargar un snapshot.
+     */
+    void addAll(String type, long count, BigDecimal total, BigDecimal min, BigDecimal max) {
+        Aggregate aggregate = aggregates.computeIfAbsent(type, k -> new Aggregate());
+        aggregate.count.add(count);
+        aggregate.addToTotal(total);
+        aggregate.extremes.updateAndGet(current -> current.with(min).with(max));
+    }
+
+    /**
+     * Agregados de un tipo; cantidad 0 y extremos null si no tiene transacciones.
+     */
+    TypeStats stats(String type, AmountScanner scanner) {
+        Aggregate aggregate = aggregates.get(type);
+        if (aggregate == null) {
+            return new TypeStats(type, 0, BigDecimal.ZERO, null, null);
+        }
+        return aggregate.stats(type, scanner);
+    }
+
+    /**
+     * Agregados de todos los tipos con al menos una transacción, ordenados por tipo.
+     */
+    List<TypeStats> all(AmountScanner scanner) {
+        List<TypeStats> result = new ArrayList<>();
+        aggregates.forEach((type, aggregate) -> {
+            if (aggregate.count.sum() > 0) {
+                result.add(aggregate.stats(type, scanner));
+            }
+        });
+        result.sort(Comparator.comparing(TypeStats::getType));
+        return result;
+    }
+
+    private static final class Aggregate {
+        private final LongAdder count = new LongAdder();
+        private final AtomicReferenceArray<BigDecimal> totals = new AtomicReferenceArray<>(CELLS);
+        private final AtomicReference<Extremes> extremes = new AtomicReference<>(Extremes.EMPTY);
+
+        private Aggregate() {
+            for (int i = 0; i < CELLS; i++) {
+                totals.set(i, BigDecimal.ZERO);
+            }
+        }
+
+        private void addToTotal(BigDecimal amount) {
+            long threadId = Thread.currentThread().getId();
+            int cell = (int) (threadId * 0x9E3779B97F4A7C15L >>> 32) & (CELLS - 1);
+            totals.accumulateAndGet(cell, amount, BigDecimal::add);
+        }
+
+        private TypeStats stats(String type, AmountScanner scanner) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < CELLS; i++) {
+                total = total.add(totals.get(i));
+            }
+            long size = count.sum();
+            Extremes current = extremes.get();
+            // Cada escritura sobre extremos inválidos los reemplaza por otra instancia, así
+            // que si el compare-and-set funciona ninguna escritura se perdió durante el recorrido
+            for (int attempt = 0; !current.valid && attempt < RESCAN_ATTEMPTS; attempt++) {
+                Extremes[] scanned = {Extremes.EMPTY};
+                scanner.forEachAmount(type, amount -> scanned[0] = scanned[0].with(amount));
+                current = extremes.compareAndSet(current, scanned[0]) ? scanned[0] : extremes.get();
+                if (!current.valid && attempt == RESCAN_ATTEMPTS - 1) {
+                    current = scanned[0];
+                }
+            }
+            return new TypeStats(type, size, total, current.min, current.max);
+        }
+    }
+
+    /**
+     * Mínimo y máximo de los montos de un tipo, o un marcador de que hay que recalcularlos.
+     */
+    private static final class Extremes {
+        private static final Extremes EMPTY = new Extremes(null, null, true);
+
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final boolean valid;
+
+        private Extremes(BigDecimal min, BigDecimal max, boolean valid) {
+            this.min = min;
+            this.max = max;
+            this.valid = valid;
+        }
+
+        private Extremes with(BigDecimal amount) {
+            if (!valid) {
+                return new Extremes(null, null, false);
+            }
+            if (amount == null) {
+                return this;
+            }
+            BigDecimal newMin = min == null || amount.compareTo(min) < 0 ? amount : min;
+            BigDecimal newMax = max == null || amount.compareTo(max) > 0 ? amount : max;
+            return newMin == min && newMax == max ? this : new Extremes(newMin, newMax, true);
+        }
+
+        private Extremes without(BigDecimal amount) {
+            if (!valid) {
+                return new Extremes(null, null, false);
+            }
+            // Sin extremos, un recorrido ya reflejó esta escritura (no queda monto que quitar)
+            if (amount == null || min == null || (amount.compareTo(min) != 0 && amount.compareTo(max) != 0)) {
+                return this;
+            }
+            return new Extremes(null, null, false);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.transactions.repository;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Diccionario de tipos: asigna a cada String de tipo un código int denso (0, 1, 2...).
+ *
+ * Las búsquedas no toman locks; solo el alta y la baja de un tipo se serializan.
+ * Los códigos liberados se guardan en una lista libre y el próximo tipo nuevo reutiliza
+ * uno, así los nombres ocupan tantas posiciones como tipos registrados a la vez y no
+ * crecen con cada tipo que aparece y desaparece. Por eso un código leído puede pasar a
+ * nombrar a otro tipo: quien lo use después de soltar el tipo tiene que verificar que
+ * sigue siendo el suyo (TypeIndex guarda el tipo en cada entrada).
+ */
+final class TypeDictionary {
+
+    static final int NO_CODE = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final ReentrantLock internLock = new ReentrantLock();
+    private volatile String[] names = new String[16];
+    private int size;
+
+    // Códigos liberados, para reutilizar; solo se usan con internLock
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+
+    /**
+     * Retorna el código del tipo, asignándole uno si todavía no existe: uno liberado si hay,
+     * o el siguiente sin usar.
+     */
+    int intern(String type) {
+        Integer code = codes.get(type);
+        if (code != null) {
+            return code;
+        }
+        internLock.lock();
+        try {
+            code = codes.get(type);
+            if (code != null) {
+                return code;
+            }
+            int newCode = freeCount > 0 ? freeCodes[--freeCount] : size;
+            String[] current = names;
+            if (newCode == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            // El nombre se publica antes que el código, para que quien lea el código
+            // encuentre siempre su nombre
+            current[newCode] = type;
+            names = current;
+            size = Math.max(size, newCode + 1);
+            codes.put(type, newCode);
+            return newCode;
+        } finally {
+            internLock.unlock();
+        }
+    }
+
+    /**
+     * Libera el tipo si sigue asociado al código dado, para que el diccionario
+     * no retenga tipos que ya no usa ninguna transacción. El código queda libre para el
+     * próximo tipo nuevo.
+     */
+    void release(String type, int code) {
+        internLock.lock();
+        try {
+            if (codes.remove(type, code)) {
+                names[code] = null;
+                if (freeCount == freeCodes.length) {
+                    freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+                }
+                freeCodes[freeCount++] = code;
+            }
+        } finally {
+            internLock.unlock();
+        }
+    }
+
+    /**
+     * Retorna el código del tipo o NO_CODE si no está registrado.
+     */
+    int codeOf(String type) {
+        Integer code = codes.get(type);
+        return code != null ? code : NO_CODE;
+    }
+
+    /**
+     * Retorna el nombre del tipo asociado a un código.
+     */
+    String nameOf(int code) {
+        return names[code];
+    }
+
+    /**
+     * Cantidad de tipos registrados (sin contar los liberados).
+     */
+    int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.transactions.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice inverso tipo -> IDs de transacciones.
+ *
+ * Cada tipo se interna en un código int (TypeDictionary) y sus IDs se guardan en un
+ * LongBitmap comprimido. Cada tipo tiene su propio lock de lectura/escritura, así que
+ * escrituras sobre tipos distintos no compiten entre sí.
+ *
+ * Las entradas están en un arreglo indexado por código, que se lee sin locks y se
+ * reemplaza por una copia cuando aparece o se retira un tipo (algo raro comparado con las
+ * escrituras de IDs).
+ *
+ * Cuando un tipo se queda sin IDs (por ejemplo, porque su última transacción cambió de
+ * tipo), su entrada se retira y el tipo se libera del diccionario, que puede reutilizar el
+ * código para otro tipo. Por eso cada entrada guarda su tipo y se verifica con su lock
+ * tomado que sea el pedido.
+ */
+final class TypeIndex {
+
+    private final TypeDictionary dictionary = new TypeDictionary();
+    private final ReentrantLock entriesLock = new ReentrantLock();
+    private volatile Entry[] entries = new Entry[16];
+
+    /**
+     * Agrega un ID al conjunto de su tipo.
+     */
+    void add(String type, long id) {
+        while (true) {
+            int code = dictionary.intern(type);
+            Entry entry = entryOrCreate(code, type);
+            entry.lock.writeLock().lock();
+            try {
+                // La entrada pudo retirarse mientras se esperaba el lock
+                if (entry.holds(type) && dictionary.codeOf(type) == code) {
+                    entry.ids.add(id);
+                    return;
+                }
+                if (entry.type.equals(type) && entry.ids.isEmpty()) {
+                    retire(code, entry);
+                }
+            } finally {
+                entry.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Agrega de una vez todos los IDs de un bitmap al conjunto de su tipo.
+     * Se usa al reconstruir el índice desde un snapshot.
+     */
+    void addAll(String type, LongBitmap ids) {
+        while (true) {
+            int code = dictionary.intern(type);
+            Entry entry = entryOrCreate(code, type);
+            entry.lock.writeLock().lock();
+            try {
+                if (entry.holds(type) && dictionary.codeOf(type) == code) {
+                    ids.forEach(entry.ids::add);
+                    return;
+                }
+                if (entry.type.equals(type) && entry.ids.isEmpty()) {
+                    retire(code, entry);
+                }
+            } finally {
+                entry.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Quita un ID del conjunto de su tipo y retira la entrada si queda vacía.
+     */
+    void remove(String type, long id) {
+        int code = dictionary.codeOf(type);
+        if (code == TypeDictionary.NO_CODE) {
+            return;
+        }
+        Entry entry = entryAt(code);
+        if (entry == null) {
+            return;
+        }
+        entry.lock.writeLock().lock();
+        try {
+            // Se retira antes de liberar el código, así quien reciba el código para otro
+            // tipo no encuentra esta entrada
+            if (entry.holds(type) && entry.ids.remove(id) && entry.ids.isEmpty()) {
+                retire(code, entry);
+                dictionary.release(type, code);
+            }
+        } finally {
+            entry.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copia de los IDs de un tipo, o null si el tipo no tiene transacciones.
+     * La copia se toma con el lock de lectura; recorrerla no bloquea a los escritores.
+     */
+    LongBitmap snapshot(String type) {
+        Entry entry = entryFor(type);
+        if (entry == null) {
+            return null;
+        }
+        entry.lock.readLock().lock();
+        try {
+            return entry.holds(type) ? entry.ids.copy() : null;
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de un tipo en orden ascendente.
+     */
+    List<Long> ids(String type) {
+        LongBitmap snapshot = snapshot(type);
+        if (snapshot == null) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>((int) snapshot.cardinality());
+        snapshot.forEach(ids::add);
+        return ids;
+    }
+
+    /**
+     * Hasta limit IDs de un tipo mayores o iguales que from, en orden ascendente. Recorre
+     * el bitmap con el lock de lectura desde la posición de from, sin copiarlo.
+     */
+    List<Long> page(String type, long from, int limit) {
+        List<Long> page = new ArrayList<>(Math.min(limit, 1024));
+        Entry entry = entryFor(type);
+        if (entry == null || limit <= 0) {
+            return page;
+        }
+        entry.lock.readLock().lock();
+        try {
+            if (entry.holds(type)) {
+                entry.ids.forEachFrom(from, id -> {
+                    page.add(id);
+                    return page.size() < limit;
+                });
+            }
+            return page;
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de IDs de un tipo, sin materializarlos.
+     */
+    long count(String type) {
+        Entry entry = entryFor(type);
+        if (entry == null) {
+            return 0;
+        }
+        entry.lock.readLock().lock();
+        try {
+            return entry.holds(type) ? entry.ids.cardinality() : 0;
+        } finally {
+            entry.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de tipos con al menos una transacción.
+     */
+    int typeCount() {
+        return dictionary.size();
+    }
+
+    private Entry entryFor(String type) {
+        int code = dictionary.codeOf(type);
+        return code == TypeDictionary.NO_CODE ? null : entryAt(code);
+    }
+
+    private Entry entryAt(int code) {
+        Entry[] current = entries;
+        return code < current.length ? current[code] : null;
+    }
+
+    /**
+     * La entrada del código, o una nueva para el tipo si no hay. La que ya estaba puede ser
+     * de otro tipo que todavía no terminó de retirarse; add() lo verifica con su lock.
+     */
+    private Entry entryOrCreate(int code, String type) {
+        Entry entry = entryAt(code);
+        if (entry != null) {
+            return entry;
+        }
+        entriesLock.lock();
+        try {
+            Entry[] current = entries;
+            entry = code < current.length ? current[code] : null;
+            if (entry == null) {
+                int length = current.length;
+                while (code >= length) {
+                    length *= 2;
+                }
+                Entry[] next = Arrays.copyOf(current, length);
+                entry = new Entry(type);
+                next[code] = entry;
+                entries = next;
+            }
+            return entry;
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Marca la entrada como retirada y la saca del arreglo si sigue en su código. Se llama
+     * con el lock de la entrada.
+     */
+    private void retire(int code, Entry entry) {
+        entry.retired = true;
+        entriesLock.lock();
+        try {
+            Entry[] current = entries;
+            if (code < current.length && current[code] == entry) {
+                Entry[] next = current.clone();
+                next[code] = null;
+                entries = next;
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final String type;
+        private final LongBitmap ids = new LongBitmap();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private boolean retired;
+
+        Entry(String type) {
+            this.type = type;
+        }
+
+        /**
+         * Indica si la entrada sigue vigente para el tipo; se llama con su lock.
+         */
+        boolean holds(String type) {
+            return !retired && this.type.equals(type);
+        }
+    }
+}
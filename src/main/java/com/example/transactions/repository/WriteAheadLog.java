@@ -0,0 +1,486 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log de solo escritura al final para las transacciones guardadas.
+ *
+ * Formato de cada registro: [longitud int][CRC32C int][payload], donde el payload contiene
+ * id, parentId, monto (escala + valor sin escala) y tipo en UTF-8.
+ *
+ * Group commit: append() solo copia el registro a un buffer en memoria y retorna su número
+ * de secuencia. Un hilo dedicado escribe los registros acumulados y hace un único fsync
+ * por lote; antes de cada lote espera hasta groupCommitWindow (o hasta juntar
+ * maxBatchBytes) para sumar más registros. awaitDurable() bloquea al llamador hasta que
+ * su registro quedó en disco.
+ *
+ * El log se divide en segmentos numerados (transactions-&lt;generación&gt;.wal). Un checkpoint
+ * llama a rotate() para empezar un segmento nuevo y, una vez escrito el snapshot, borra los
+ * anteriores con deleteSegmentsBefore().
+ *
+ * Al arrancar, replay() aplica los registros válidos en orden y trunca la cola del último
+ * segmento a partir del primer registro incompleto o con CRC inválido (escritura
+ * interrumpida por una caída).
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "transactions-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final byte HAS_PARENT = 1;
+    private static final byte HAS_AMOUNT = 2;
+
+    private final Path directory;
+    private FileChannel channel;
+    private long generation;
+    private final long groupCommitWindowNanos;
+    private final int maxBatchBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingRecords = lock.newCondition();
+    private final Condition durableRecords = lock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appendedSequence;
+    private long durableSequence;
+    private long syncCount;
+    private IOException failure;
+    private boolean recovered;
+    private boolean closed;
+
+    private final Thread flusher;
+
+    private WriteAheadLog(Path directory, Duration groupCommitWindow, int maxBatchBytes) {
+        this.directory = directory;
+        this.groupCommitWindowNanos = groupCommitWindow.toNanos();
+        this.maxBatchBytes = maxBatchBytes;
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Abre (o crea) el log en el directorio dado. Antes de agregar registros hay que
+     * llamar a replay() para recuperar el contenido existente.
+     */
+    public static WriteAheadLog open(Path directory, Duration groupCommitWindow, int maxBatchBytes) throws IOException {
+        Files.createDirectories(directory);
+        return new WriteAheadLog(directory, groupCommitWindow, maxBatchBytes);
+    }
+
+    /**
+     * Aplica en orden cada registro válido de todos los segmentos.
+     */
+    public long replay(Consumer<Transaction> consumer) throws IOException {
+        return replay(0, consumer);
+    }
+
+    /**
+     * Aplica en orden los registros de los segmentos con generación mayor o igual a
+     * fromGeneration (los anteriores ya están incluidos en un snapshot y se borran) y deja
+     * el último segmento listo para agregar al final de su último registro válido.
+     * Retorna la cantidad de registros aplicados.
+     */
+    public long replay(long fromGeneration, Consumer<Transaction> consumer) throws IOException {
+        deleteSegmentsBefore(fromGeneration);
+        List<Long> generations = segmentGenerations();
+        long records = 0;
+        FileChannel last = null;
+        long lastGeneration = fromGeneration;
+        long validEnd = 0;
+        for (int i = 0; i < generations.size(); i++) {
+            if (last != null) {
+                last.close();
+            }
+            lastGeneration = generations.get(i);
+            last = openSegment(lastGeneration);
+            long size = last.size();
+            long[] counters = replaySegment(last, consumer);
+            records += counters[0];
+            validEnd = counters[1];
+            // Solo el último segmento puede tener una cola incompleta: rotate() sincroniza
+            // todo el segmento antes de pasar al siguiente
+            if (validEnd < size && i < generations.size() - 1) {
+                last.close();
+                throw new IOException("Segmento de log corrupto: " + segmentPath(directory, lastGeneration));
+            }
+        }
+        if (last == null) {
+            last = openSegment(lastGeneration);
+        }
+        if (last.size() > validEnd) {
+            last.truncate(validEnd);
+            last.force(true);
+        }
+        last.position(validEnd);
+
+        lock.lock();
+        try {
+            channel = last;
+            generation = lastGeneration;
+            recovered = true;
+        } finally {
+            lock.unlock();
+        }
+        return records;
+    }
+
+    /**
+     * Aplica los registros válidos de un segmento. Retorna {registros, fin del último válido}.
+     */
+    private static long[] replaySegment(FileChannel channel, Consumer<Transaction> consumer) throws IOException {
+        long records = 0;
+        long validEnd = 0;
+        channel.position(0);
+        InputStream stream = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+        DataInputStream input = new DataInputStream(stream);
+        CRC32C crc = new CRC32C();
+        byte[] payload = new byte[256];
+        while (true) {
+            int length;
+            int checksum;
+            try {
+                length = input.readInt();
+                checksum = input.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                input.readFully(payload, 0, length);
+            } catch (EOFException tornTail) {
+                break;
+            }
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            consumer.accept(decode(ByteBuffer.wrap(payload, 0, length)));
+            records++;
+            validEnd += HEADER_BYTES + length;
+        }
+        return new long[]{records, validEnd};
+    }
+
+    /**
+     * Empieza un segmento nuevo y retorna su generación. Espera a que todos los registros
+     * agregados estén en disco, por lo que el llamador debe impedir appends concurrentes
+     * (el repositorio lo llama con su lock de escritura tomado). Al retornar, todo lo
+     * registrado hasta ese momento está en segmentos de generación menor.
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            if (!recovered || closed) {
+                throw new IllegalStateException("El log no está abierto para escritura");
+            }
+            while (durableSequence < appendedSequence && failure == null) {
+                durableRecords.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new IOException("El log no está disponible", failure);
+            }
+            FileChannel next = openSegment(generation + 1);
+            channel.force(true);
+            channel.close();
+            channel = next;
+            generation++;
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Borra los segmentos de generación menor a la dada (ya incluidos en un snapshot).
+     */
+    public void deleteSegmentsBefore(long generation) throws IOException {
+        for (long segment : segmentGenerations()) {
+            if (segment < generation) {
+                Files.deleteIfExists(segmentPath(directory, segment));
+            }
+        }
+    }
+
+    /**
+     * Agrega el registro de una transacción al lote pendiente y retorna su número de
+     * secuencia. No espera al disco: ver awaitDurable().
+     */
+    public long append(Transaction transaction) {
+        byte[] type = transaction.getType().getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = transaction.getAmount() != null
+                ? transaction.getAmount().unscaledValue().toByteArray()
+                : new byte[0];
+        int length = 1 + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES + unscaled.length
+                + Integer.BYTES + type.length;
+        if (length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("El registro excede el tamaño máximo del log: " + length + " bytes");
+        }
+
+        lock.lock();
+        try {
+            if (!recovered || closed) {
+                throw new IllegalStateException("El log no está abierto para escritura");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("El log no está disponible", failure);
+            }
+            boolean wasEmpty = pending.position() == 0;
+            ensurePendingCapacity(HEADER_BYTES + length);
+            int headerPosition = pending.position();
+            pending.position(headerPosition + HEADER_BYTES);
+            int payloadPosition = pending.position();
+            encode(pending, transaction, unscaled, type);
+            CRC32C crc = new CRC32C();
+            crc.update(pending.array(), payloadPosition, length);
+            pending.putInt(headerPosition, length);
+            pending.putInt(headerPosition + Integer.BYTES, (int) crc.getValue());
+
+            appendedSequence++;
+            if (wasEmpty || pending.position() >= maxBatchBytes) {
+                pendingRecords.signal();
+            }
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bloquea hasta que el registro con el número de secuencia dado esté en disco.
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("No se pudo escribir el log", failure);
+                }
+                durableRecords.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cantidad de fsync realizados; con group commit es menor que la cantidad de registros.
+     */
+    public long syncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Generación del segmento en el que se agregan los registros.
+     */
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static Path segmentPath(Path directory, long generation) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, generation, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Abre el segmento, creándolo si no existe. La entrada de un segmento nuevo vive en el
+     * directorio: se fuerza antes de retornar, así el fsync de los registros que se agreguen
+     * después (que solo sincroniza el archivo) alcanza para que una caída no los pierda con
+     * el segmento entero, como en SnapshotStore.write().
+     */
+    private FileChannel openSegment(long generation) throws IOException {
+        Path path = segmentPath(directory, generation);
+        if (Files.exists(path)) {
+            return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        FileChannel segment = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (FileChannel parent = FileChannel.open(directory, StandardOpenOption.READ)) {
+            parent.force(true);
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    private List<Long> segmentGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (var files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> generations.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    /**
+     * Escribe los registros pendientes y cierra el archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingRecords.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // ========== Group commit ==========
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchSequence;
+            FileChannel target;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    pendingRecords.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                // Ventana de group commit: se esperan más registros para el mismo fsync
+                long remaining = groupCommitWindowNanos;
+                while (remaining > 0 && pending.position() < maxBatchBytes && !closed) {
+                    try {
+                        remaining = pendingRecords.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                batch = pending;
+                pending = spare;
+                batchSequence = appendedSequence;
+                target = channel;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    target.write(batch);
+                }
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                batch.clear();
+                spare = batch;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSequence = batchSequence;
+                    syncCount++;
+                }
+                durableRecords.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void ensurePendingCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    // ========== Codificación ==========
+
+    private static void encode(ByteBuffer buffer, Transaction transaction, byte[] unscaled, byte[] type) {
+        byte flags = 0;
+        if (transaction.getParentId() != null) {
+            flags |= HAS_PARENT;
+        }
+        if (transaction.getAmount() != null) {
+            flags |= HAS_AMOUNT;
+        }
+        buffer.put(flags);
+        buffer.putLong(transaction.getId());
+        buffer.putLong(transaction.getParentId() != null ? transaction.getParentId() : 0L);
+        buffer.putInt(transaction.getAmount() != null ? transaction.getAmount().scale() : 0);
+        buffer.putInt(unscaled.length);
+        buffer.put(unscaled);
+        buffer.putInt(type.length);
+        buffer.put(type);
+    }
+
+    private static Transaction decode(ByteBuffer buffer) {
+        byte flags = buffer.get();
+        long id = buffer.getLong();
+        long parentId = buffer.getLong();
+        int scale = buffer.getInt();
+        byte[] unscaled = new byte[buffer.getInt()];
+        buffer.get(unscaled);
+        byte[] type = new byte[buffer.getInt()];
+        buffer.get(type);
+        BigDecimal amount = (flags & HAS_AMOUNT) != 0 ? new BigDecimal(new BigInteger(unscaled), scale) : null;
+        return new Transaction(id, amount, new String(type, StandardCharsets.UTF_8),
+                (flags & HAS_PARENT) != 0 ? parentId : null);
+    }
+}
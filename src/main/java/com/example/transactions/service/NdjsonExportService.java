@@ -0,0 +1,122 @@
+package com.example.transactions.service;
+
+import com.example.transactions.dto.TransactionPage;
+import com.example.transactions.dto.TransactionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exportación de todas las transacciones como NDJSON, en el mismo formato que acepta
+ * NdjsonIngestService (id, amount, type, parent_id), así un export se puede volver a cargar.
+ *
+ * Recorre el almacén por páginas de TransactionService.getTransactionsPage() siguiendo el
+ * cursor y escribe cada página en output antes de pedir la siguiente. El ingest exige que el
+ * padre ya exista (o venga antes en el mismo bloque), así que cada transacción sale después
+ * de su padre: las que cuelgan de un padre de ID mayor, o de uno que todavía espera, quedan
+ * retenidas y se escriben justo después de él. En memoria hay una página más esas
+ * transacciones retenidas, sin importar cuántas haya en total. Un padre con ID menor o igual
+ * a after se considera ya exportado.
+ *
+ * No es una foto: las escrituras que ocurren durante el recorrido se ven si caen en una
+ * página todavía no leída. Las retenidas cuyo padre no llega a escribirse (por ejemplo,
+ * porque un PUT concurrente cambió la jerarquía) se escriben al final.
+ */
+@Service
+public class NdjsonExportService {
+
+    private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NdjsonExportService(TransactionService transactionService, ObjectMapper objectMapper) {
+        this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe en output las transacciones con ID mayor que after (todas si es null), cada
+     * una después de su padre. Retorna la cantidad escrita.
+     */
+    public long export(Long after, OutputStream output) throws IOException {
+        long count = 0;
+        // Padre -> transacciones retenidas hasta escribirlo, y los IDs de todas las retenidas
+        Map<Long, List<TransactionResponse>> waiting = new HashMap<>();
+        Set<Long> held = new HashSet<>();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Long cursor = after;
+            do {
+                TransactionPage page = transactionService.getTransactionsPage(cursor, TransactionService.MAX_PAGE_SIZE);
+                for (TransactionResponse item : page.getItems()) {
+                    Long parentId = item.getParentId();
+                    if (parentId != null && (parentId > item.getId() || held.contains(parentId))) {
+                        waiting.computeIfAbsent(parentId, k -> new ArrayList<>()).add(item);
+                        held.add(item.getId());
+                    } else {
+                        count += write(generator, item, waiting, held);
+                    }
+                }
+                generator.flush();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            // Padres que no se escribieron: sus retenidas salen igual, cada una antes que las suyas
+            List<Long> missing = waiting.keySet().stream().filter(id -> !held.contains(id)).sorted().toList();
+            for (Long parentId : missing) {
+                for (TransactionResponse item : waiting.remove(parentId)) {
+                    count += write(generator, item, waiting, held);
+                }
+            }
+            // Solo queda algo si las páginas leyeron una fila antes y otra después de un cambio
+            // de padre concurrente y entre las dos forman un ciclo
+            for (List<TransactionResponse> items : waiting.values()) {
+                for (TransactionResponse item : items) {
+                    writeLine(generator, item);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Escribe la transacción y, detrás, las retenidas que esperaban por ella o por alguna de
+     * sus descendientes. Retorna la cantidad escrita.
+     */
+    private long write(JsonGenerator generator, TransactionResponse item,
+                       Map<Long, List<TransactionResponse>> waiting, Set<Long> held) throws IOException {
+        long count = 0;
+        Deque<TransactionResponse> pending = new ArrayDeque<>();
+        pending.push(item);
+        while (!pending.isEmpty()) {
+            TransactionResponse next = pending.pop();
+            writeLine(generator, next);
+            count++;
+            held.remove(next.getId());
+            List<TransactionResponse> children = waiting.remove(next.getId());
+            if (children != null) {
+                children.forEach(pending::push);
+            }
+        }
+        return count;
+    }
+
+    private static void writeLine(JsonGenerator generator, TransactionResponse item) throws IOException {
+        generator.writeObject(item);
+        generator.writeRaw('\n');
+    }
+}
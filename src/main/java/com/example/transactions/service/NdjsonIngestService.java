@@ -0,0 +1,275 @@
+package com.example.transactions.service;
+
+import com.example.transactions.dto.BatchItemResult;
+import com.example.transactions.dto.BatchResponse;
+import com.example.transactions.dto.BatchTransactionRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carga masiva de transacciones desde NDJSON (una transacción JSON por línea).
+ *
+ * El cuerpo se lee de a una línea en un buffer reutilizado y cada línea se parsea con el
+ * parser de streaming de Jackson, token por token y sin pasar por databind. Las filas se
+ * acumulan en bloques de a lo sumo batchSize que se aplican con
+ * TransactionService.createOrUpdateBatch(); la memoria usada no depende del tamaño del
+ * cuerpo. La siguiente línea no se lee hasta aplicar el bloque anterior y escribir su
+ * progreso, así que si el almacén o el cliente que lee la respuesta van más lento, el
+ * control de flujo de TCP frena al que sube el cuerpo.
+ *
+ * Las líneas se aplican en orden, como PUTs sucesivos: un ID repetido cierra el bloque
+ * antes de volver a agregarse (se actualiza, no se rechaza), y un padre puede venir
+ * después de sus hijos solo dentro del mismo bloque.
+ *
+ * La respuesta también es NDJSON, con un evento por línea:
+ * - {"event":"rejected","line":7,"id":12,"error":"..."} por cada línea rechazada
+ * - {"event":"progress","lines":10000,"applied":9998,"rejected":2} después de cada bloque
+ * - {"event":"done","lines":...,"applied":...,"rejected":...} al terminar
+ */
+@Service
+public class NdjsonIngestService {
+
+    /**
+     * Filas por bloque si no se configura transactions.ingest.batch-size.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    /**
+     * Largo máximo de una línea; las más largas se rechazan sin parsearlas.
+     */
+    static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final TransactionService transactionService;
+    private final JsonFactory jsonFactory;
+    private final int batchSize;
+
+    @Autowired
+    public NdjsonIngestService(TransactionService transactionService, ObjectMapper objectMapper,
+                               @Value("${transactions.ingest.batch-size:" + DEFAULT_BATCH_SIZE + "}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize debe ser positivo: " + batchSize);
+        }
+        this.transactionService = transactionService;
+        this.jsonFactory = objectMapper.getFactory();
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Lee input hasta el final, aplica las transacciones y escribe los eventos en output.
+     */
+    public void ingest(InputStream input, OutputStream output) throws IOException {
+        LineReader reader = new LineReader(input);
+        List<BatchTransactionRequest> batch = new ArrayList<>(batchSize);
+        int[] batchLines = new int[batchSize];
+        Set<Long> batchIds = new HashSet<>(batchSize * 2);
+        long[] totals = new long[3]; // líneas leídas hasta el último bloque, aplicadas, rechazadas
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            int lineNumber = 0;
+            while (reader.next()) {
+                lineNumber++;
+                if (reader.isBlank()) {
+                    continue;
+                }
+                BatchTransactionRequest item;
+                try {
+                    item = parse(reader);
+                } catch (JsonProcessingException e) {
+                    totals[2]++;
+                    writeRejected(generator, lineNumber, null, "Línea inválida: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize || (item.getId() != null && !batchIds.add(item.getId()))) {
+                    flush(generator, batch, batchLines, totals);
+                    batchIds.clear();
+                    if (item.getId() != null) {
+                        batchIds.add(item.getId());
+                    }
+                }
+                batchLines[batch.size()] = lineNumber;
+                batch.add(item);
+            }
+            totals[0] = lineNumber;
+            flush(generator, batch, batchLines, totals);
+            writeTotals(generator, "done", totals);
+        }
+    }
+
+    private void flush(JsonGenerator generator, List<BatchTransactionRequest> batch, int[] batchLines,
+                       long[] totals) throws IOException {
+        if (!batch.isEmpty()) {
+            totals[0] = Math.max(totals[0], batchLines[batch.size() - 1]);
+            BatchResponse response = transactionService.createOrUpdateBatch(batch);
+            List<BatchItemResult> results = response.getResults();
+            for (int i = 0; i < results.size(); i++) {
+                BatchItemResult result = results.get(i);
+                if (result.getError() != null) {
+                    writeRejected(generator, batchLines[i], result.getId(), result.getError());
+                }
+            }
+            totals[1] += response.getApplied();
+            totals[2] += response.getRejected();
+            batch.clear();
+        }
+        writeTotals(generator, "progress", totals);
+        generator.flush();
+    }
+
+    /**
+     * Parsea la línea actual del reader: un objeto con id, amount, type y parent_id; los
+     * demás campos se ignoran. Los campos faltantes los rechaza después createOrUpdateBatch().
+     */
+    private BatchTransactionRequest parse(LineReader reader) throws IOException {
+        if (reader.isTooLong()) {
+            throw new JsonParseException(null, "la línea supera " + MAX_LINE_BYTES + " bytes");
+        }
+        try (JsonParser parser = jsonFactory.createParser(reader.line, 0, reader.length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "se esperaba un objeto JSON");
+            }
+            BatchTransactionRequest item = new BatchTransactionRequest();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> item.setId(longValue(parser, value, field));
+                    case "parent_id" -> item.setParentId(longValue(parser, value, field));
+                    case "amount" -> item.setAmount(value == JsonToken.VALUE_NULL ? null : parser.getDecimalValue());
+                    case "type" -> {
+                        if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                            throw new JsonParseException(parser, "type debe ser un string");
+                        }
+                        item.setType(parser.getValueAsString());
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "hay más de un valor JSON en la línea");
+            }
+            return item;
+        }
+    }
+
+    private static Long longValue(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            throw new JsonParseException(parser, field + " debe ser un entero");
+        }
+        return parser.getLongValue();
+    }
+
+    private static void writeRejected(JsonGenerator generator, int line, Long id, String error) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("event", "rejected");
+        generator.writeNumberField("line", line);
+        if (id != null) {
+            generator.writeNumberField("id", id);
+        }
+        generator.writeStringField("error", error);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static void writeTotals(JsonGenerator generator, String event, long[] totals) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("event", event);
+        generator.writeNumberField("lines", totals[0]);
+        generator.writeNumberField("applied", totals[1]);
+        generator.writeNumberField("rejected", totals[2]);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Separa el cuerpo en líneas sin crear objetos por línea: los bytes se leen en un
+     * buffer fijo y cada línea se copia a line (sin el \n ni un \r final). De una línea de
+     * más de MAX_LINE_BYTES solo se guarda el principio y se marca como demasiado larga.
+     */
+    private static final class LineReader {
+        private final InputStream input;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+        private boolean endOfInput;
+
+        private final byte[] line = new byte[MAX_LINE_BYTES];
+        private int length;
+        private boolean tooLong;
+
+        private LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * Avanza a la siguiente línea; retorna false al final del cuerpo.
+         */
+        private boolean next() throws IOException {
+            length = 0;
+            tooLong = false;
+            boolean found = false;
+            while (true) {
+                if (position == limit) {
+                    int read = endOfInput ? -1 : input.read(buffer, 0, buffer.length);
+                    if (read < 0) {
+                        endOfInput = true;
+                        break;
+                    }
+                    position = 0;
+                    limit = read;
+                }
+                found = true;
+                int newline = position;
+                while (newline < limit && buffer[newline] != '\n') {
+                    newline++;
+                }
+                int chunk = Math.min(newline - position, line.length - length);
+                System.arraycopy(buffer, position, line, length, chunk);
+                length += chunk;
+                tooLong |= newline - position > chunk;
+                if (newline < limit) {
+                    position = newline + 1;
+                    break;
+                }
+                position = limit;
+            }
+            if (length > 0 && line[length - 1] == '\r' && !tooLong) {
+                length--;
+            }
+            return found;
+        }
+
+        private boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (line[i] != ' ' && line[i] != '\t') {
+                    return false;
+                }
+            }
+            return !tooLong;
+        }
+
+        private boolean isTooLong() {
+            return tooLong;
+        }
+    }
+}
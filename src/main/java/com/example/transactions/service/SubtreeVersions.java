@@ -0,0 +1,74 @@
+package com.example.transactions.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Versiones de los subárboles: un contador por ID que se incrementa después de cada
+ * escritura que puede cambiar la suma del subárbol de ese ID (las de sus descendientes,
+ * incluidas las que lo agregan o lo sacan de la jerarquía). Los incrementa el repositorio,
+ * con los locks de la escritura tomados, a través del listener que registra
+ * TransactionService.
+ *
+ * Sirven para validar sumas sin calcularlas: la caché de sumas guarda cada valor con la
+ * versión que tenía su ID antes de calcularlo, y GET /transactions/sum/{id} arma su ETag
+ * con la versión. Una versión se lee siempre antes de calcular la suma, así que nunca es
+ * más nueva que la suma que acompaña.
+ *
+ * Los contadores van en franjas (dos IDs de la misma franja cambian de versión juntos, lo
+ * que solo cuesta algún recálculo o 200 de más) y no se persisten: la época parte de un
+ * valor al azar en cada arranque para que una versión vieja no coincida con una nueva.
+ * bumpAll() mueve la época, que se suma a todas las versiones.
+ */
+public class SubtreeVersions {
+
+    /**
+     * Franjas por defecto.
+     */
+    public static final int DEFAULT_STRIPES = 1 << 16;
+
+    private final AtomicLongArray stripes;
+    private final AtomicLong epoch = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 32, 1L << 62));
+
+    public SubtreeVersions() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * stripes se redondea a la potencia de 2 siguiente.
+     */
+    public SubtreeVersions(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes debe ser positivo: " + stripes);
+        }
+        this.stripes = new AtomicLongArray(stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1);
+    }
+
+    /**
+     * Versión actual del subárbol de id. Los dos contadores solo crecen, así que su suma
+     * también.
+     */
+    public long version(long id) {
+        return epoch.get() + stripes.get(stripe(id));
+    }
+
+    /**
+     * Cambia la versión del subárbol de id.
+     */
+    public void bump(long id) {
+        stripes.incrementAndGet(stripe(id));
+    }
+
+    /**
+     * Cambia la versión de todos los subárboles, para cuando no se sabe cuáles cambiaron.
+     */
+    public void bumpAll() {
+        epoch.incrementAndGet();
+    }
+
+    private int stripe(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) ((h ^ (h >>> 29)) >>> 32) & (stripes.length() - 1);
+    }
+}
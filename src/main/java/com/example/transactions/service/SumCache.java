@@ -0,0 +1,356 @@
+package com.example.transactions.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Caché acotada de sumas de subárboles delante de TransactionService.calculateSum().
+ *
+ * Admisión y desalojo al estilo TinyLFU: un count-min sketch estima cuántas veces se
+ * pidió cada ID (con envejecimiento, los contadores se dividen a la mitad cada 10 veces
+ * el tamaño de la caché). Con la caché llena, un ID nuevo entra solo si se pidió más
+ * que la víctima, que es la de menor frecuencia entre unas pocas entradas que recorre un
+ * reloj; así un recorrido de IDs que se piden una sola vez no desplaza a las raíces
+ * calientes.
+ *
+ * Invalidación: cada valor guardado recuerda la versión de su subárbol (SubtreeVersions)
+ * leída antes de calcularlo. Un valor cuya versión quedó atrás está vencido, así que
+ * invalidar es O(1) y sin locks, y un cálculo que empezó antes de una escritura no puede
+ * publicar un valor vencido como vigente.
+ *
+ * Con stale-while-revalidate, un valor vencido se sirve igual (contado como stale) y se
+ * recalcula en segundo plano, a lo sumo un recálculo por entrada a la vez; si el ejecutor
+ * rechaza la tarea se sigue sirviendo el valor vencido. Pensado para períodos de
+ * sobrecarga en los que conviene responder una suma apenas vieja antes que encolar.
+ *
+ * Con tamaño 0 la caché está deshabilitada: get() delega en el loader sin contar nada.
+ */
+public class SumCache {
+
+    // Entradas que revisa el reloj para elegir la víctima
+    private static final int SAMPLE = 8;
+
+    private final int maximumSize;
+    private final ConcurrentHashMap<Long, Entry> entries;
+    private final FrequencySketch sketch;
+    private final SubtreeVersions versions;
+    private final Executor refreshExecutor;
+    private volatile boolean staleWhileRevalidate;
+
+    // Reloj de desalojo: IDs por posición; solo se modifica con evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final long[] slots;
+    private int size;
+    private int hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SumCache(int maximumSize, boolean staleWhileRevalidate, Executor refreshExecutor) {
+        this(maximumSize, staleWhileRevalidate, refreshExecutor,
+                new SubtreeVersions(Math.max(SubtreeVersions.DEFAULT_STRIPES, Math.min(1 << 20, maximumSize * 16))));
+    }
+
+    public SumCache(int maximumSize, boolean staleWhileRevalidate, Executor refreshExecutor,
+                    SubtreeVersions versions) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize no puede ser negativo: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = new ConcurrentHashMap<>(maximumSize * 2);
+        this.slots = new long[maximumSize];
+        this.sketch = maximumSize > 0 ? new FrequencySketch(maximumSize) : null;
+        this.versions = versions;
+    }
+
+    /**
+     * Caché deshabilitada; sus versiones de subárbol siguen funcionando.
+     */
+    public static SumCache disabled() {
+        return new SumCache(0, false, Runnable::run);
+    }
+
+    public boolean isEnabled() {
+        return maximumSize > 0;
+    }
+
+    /**
+     * Suma del subárbol de id desde la caché, o calculada con loader si no está o está
+     * vencida. Un resultado null (la transacción no existe) no se guarda.
+     */
+    public BigDecimal get(long id, LongFunction<BigDecimal> loader) {
+        VersionedSum value = getVersioned(id, loader);
+        return value != null ? value.sum() : null;
+    }
+
+    /**
+     * Como get(), pero junto con la versión del subárbol de la suma que se sirve: la leída
+     * antes de calcularla o, con stale-while-revalidate, la de la suma vencida. Quien arma
+     * un ETag debe usar esta versión y no la actual, o una suma vieja quedaría asociada a la
+     * versión nueva. null si la transacción no existe.
+     */
+    public VersionedSum getVersioned(long id, LongFunction<BigDecimal> loader) {
+        // La versión se lee antes de calcular: si una escritura la mueve mientras tanto, el
+        // valor queda guardado ya vencido
+        long version = versions.version(id);
+        if (!isEnabled()) {
+            BigDecimal sum = loader.apply(id);
+            return sum != null ? new VersionedSum(sum, version) : null;
+        }
+        sketch.increment(id);
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            VersionedSum value = entry.value.get();
+            if (value.version() == version) {
+                hits.increment();
+                return value;
+            }
+            if (staleWhileRevalidate) {
+                staleHits.increment();
+                refresh(entry, loader);
+                return value;
+            }
+        }
+        misses.increment();
+        BigDecimal sum = loader.apply(id);
+        if (sum == null) {
+            return null;
+        }
+        VersionedSum value = new VersionedSum(sum, version);
+        store(id, value);
+        return value;
+    }
+
+    /**
+     * Vence la suma guardada de id (si la hay) y cualquier cálculo de ella en curso.
+     */
+    public void invalidate(long id) {
+        versions.bump(id);
+    }
+
+    /**
+     * Vence todas las sumas guardadas.
+     */
+    public void invalidateAll() {
+        versions.bumpAll();
+    }
+
+    /**
+     * Versiones de subárbol con las que se validan las sumas guardadas.
+     */
+    public SubtreeVersions getVersions() {
+        return versions;
+    }
+
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long staleHitCount() {
+        return staleHits.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void store(long id, VersionedSum value) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            entry.update(value);
+            return;
+        }
+        evictionLock.lock();
+        try {
+            entry = entries.get(id);
+            if (entry != null) {
+                entry.update(value);
+                return;
+            }
+            int slot;
+            if (size < maximumSize) {
+                slot = size++;
+            } else {
+                slot = victim();
+                if (sketch.frequency(id) <= sketch.frequency(slots[slot])) {
+                    return;
+                }
+                entries.remove(slots[slot]);
+                evictions.increment();
+            }
+            slots[slot] = id;
+            entries.put(id, new Entry(id, value));
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Posición de la entrada de menor frecuencia entre las SAMPLE siguientes al reloj.
+     */
+    private int victim() {
+        int victim = hand;
+        int lowest = Integer.MAX_VALUE;
+        for (int k = 0; k < Math.min(SAMPLE, size); k++) {
+            int slot = (hand + k) % size;
+            int frequency = sketch.frequency(slots[slot]);
+            if (frequency < lowest) {
+                lowest = frequency;
+                victim = slot;
+            }
+        }
+        hand = (hand + SAMPLE) % size;
+        return victim;
+    }
+
+    private void refresh(Entry entry, LongFunction<BigDecimal> loader) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long id = entry.id;
+                    long version = versions.version(id);
+                    BigDecimal sum = loader.apply(id);
+                    if (sum != null) {
+                        entry.update(new VersionedSum(sum, version));
+                    }
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Suma calculada y versión de su subárbol al momento de empezar el cálculo.
+     */
+    public record VersionedSum(BigDecimal sum, long version) {
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final AtomicReference<VersionedSum> value;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(long id, VersionedSum value) {
+            this.id = id;
+            this.value = new AtomicReference<>(value);
+        }
+
+        /**
+         * Reemplaza el valor solo por uno calculado con una versión posterior, así un cálculo
+         * viejo que termina tarde no pisa a uno nuevo.
+         */
+        private void update(VersionedSum newValue) {
+            VersionedSum current = value.get();
+            while (current.version() < newValue.version() && !value.compareAndSet(current, newValue)) {
+                current = value.get();
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch con 4 filas de 8 contadores por entrada de la caché, de un byte que
+     * satura en 15 (con menos contadores, las colisiones de un recorrido de IDs fríos llegan
+     * a igualar la frecuencia de los calientes). Los incrementos
+     * que encuentran el sketch ocupado por otro hilo se descartan: solo se pierde precisión
+     * en la estimación, nunca se bloquea una lectura.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+        private final byte[][] rows = new byte[SEEDS.length][];
+        private final int mask;
+        private final int sampleSize;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize * 8) - 1) << 1;
+            for (int row = 0; row < rows.length; row++) {
+                rows[row] = new byte[width];
+            }
+            mask = width - 1;
+            sampleSize = 10 * maximumSize;
+        }
+
+        private void increment(long id) {
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                boolean added = false;
+                for (int row = 0; row < rows.length; row++) {
+                    int index = index(id, row);
+                    if (rows[row][index] < 15) {
+                        rows[row][index]++;
+                        added = true;
+                    }
+                }
+                if (added && ++additions >= sampleSize) {
+                    reset();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int frequency(long id) {
+            int frequency = 15;
+            for (int row = 0; row < rows.length; row++) {
+                frequency = Math.min(frequency, rows[row][index(id, row)]);
+            }
+            return frequency;
+        }
+
+        // Envejecimiento: todas las frecuencias a la mitad
+        private void reset() {
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(long id, int row) {
+            long h = (id + SEEDS[row]) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
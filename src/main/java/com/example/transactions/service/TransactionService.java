@@ -1,20 +1,34 @@
 package com.example.transactions.service;
 
+import com.example.transactions.dto.BatchItemResult;
+import com.example.transactions.dto.BatchResponse;
+import com.example.transactions.dto.BatchTransactionRequest;
+import com.example.transactions.dto.IdPage;
+import com.example.transactions.dto.SumCacheStatsResponse;
+import com.example.transactions.dto.TransactionPage;
 import com.example.transactions.dto.TransactionRequest;
 import com.example.transactions.dto.TransactionResponse;
+import com.example.transactions.dto.TypeStatsResponse;
 import com.example.transactions.exception.DuplicateTransactionException;
+import com.example.transactions.exception.InvalidPageRequestException;
 import com.example.transactions.exception.InvalidParentException;
 import com.example.transactions.exception.TransactionNotFoundException;
+import com.example.transactions.exception.VersionConflictException;
 import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
 import com.example.transactions.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Servicio que contiene toda la lógica de negocio para transacciones.
@@ -22,11 +36,44 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionService {
 
+    /**
+     * expectedVersion que acepta cualquier versión de una transacción existente (If-Match: *).
+     */
+    public static final long ANY_EXISTING_VERSION = -1;
+
+    /**
+     * Tamaño máximo de una página de GET /transactions.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Tamaño por defecto y máximo de una página de GET /transactions/types/{type}; los IDs
+     * son chicos, así que las páginas pueden ser más grandes que las de transacciones.
+     */
+    public static final int DEFAULT_ID_PAGE_SIZE = 1000;
+    public static final int MAX_ID_PAGE_SIZE = 10_000;
+
+    /**
+     * Veces que se valida y se intenta guardar un lote que el repositorio rechaza porque
+     * una escritura concurrente hizo que cerrara un ciclo.
+     */
+    static final int MAX_BATCH_ATTEMPTS = 3;
+
     private final TransactionRepository repository;
+    private final SumCache sumCache;
+    private final SubtreeVersions versions;
 
-    @Autowired
     public TransactionService(TransactionRepository repository) {
+        this(repository, SumCache.disabled());
+    }
+
+    @Autowired
+    public TransactionService(TransactionRepository repository, SumCache sumCache) {
         this.repository = repository;
+        this.sumCache = sumCache;
+        this.versions = sumCache.getVersions();
+        // El repositorio cambia las versiones de los subárboles que toca cada escritura
+        repository.setSubtreeListener(versions::bump);
     }
 
     /**
@@ -34,9 +81,31 @@ public class TransactionService {
      * Valida:
      * - No permite IDs duplicados (excepto al actualizar la misma transacción)
      * - parentId debe apuntar a una transacción válida si se proporciona
-     * - Evita ciclos en la jerarquía
+     * - Evita ciclos en la jerarquía (lo verifica el repositorio al guardar)
      */
     public TransactionResponse createOrUpdateTransaction(Long id, TransactionRequest request) {
+        return createOrUpdateTransaction(id, request, (long[]) null);
+    }
+
+    /**
+     * Crea o actualiza una transacción solo si su versión actual es expectedVersion
+     * (PUT con If-Match). La comparación la hace el repositorio de forma atómica con la
+     * escritura, así una escritura concurrente sobre la misma versión falla enseguida con
+     * VersionConflictException en lugar de esperar y pisarla. Con expectedVersion null la
+     * escritura es incondicional; con ANY_EXISTING_VERSION solo exige que la transacción exista.
+     */
+    public TransactionResponse createOrUpdateTransaction(Long id, TransactionRequest request, Long expectedVersion) {
+        return createOrUpdateTransaction(id, request, expectedVersion != null ? new long[] {expectedVersion} : null);
+    }
+
+    /**
+     * Como createOrUpdateTransaction(id, request, expectedVersion), pero acepta cualquiera de
+     * varias versiones (un If-Match con una lista de ETags). Con una sola versión la compara
+     * el repositorio; con varias se lee la versión actual y, si está en la lista, se guarda
+     * condicionado a ella: si otra escritura la cambió en el medio, se vuelve a leer. Las
+     * versiones solo crecen, así que se reintenta a lo sumo una vez por versión de la lista.
+     */
+    public TransactionResponse createOrUpdateTransaction(Long id, TransactionRequest request, long[] expectedVersions) {
         // Validar que el ID no sea nulo
         if (id == null) {
             throw new IllegalArgumentException("El ID de la transacción no puede ser nulo");
@@ -59,13 +128,159 @@ public class TransactionService {
                 request.getParentId()
         );
 
-        // Guardar la transacción
-        repository.save(transaction);
+        // Guardar la transacción; las transacciones no se borran, así que una que existe
+        // sigue existiendo al guardar
+        if (expectedVersions == null) {
+            repository.save(transaction);
+        } else if (expectedVersions.length == 1 && expectedVersions[0] == ANY_EXISTING_VERSION) {
+            if (!isUpdate) {
+                throw new VersionConflictException("La transacción con ID " + id + " no existe");
+            }
+            repository.save(transaction);
+        } else if (!saveIfAnyVersion(transaction, expectedVersions)) {
+            throw new VersionConflictException(expectedVersions.length == 1
+                    ? "La transacción con ID " + id + " no tiene la versión " + expectedVersions[0]
+                    : "La transacción con ID " + id + " no tiene ninguna de las versiones "
+                            + Arrays.toString(expectedVersions));
+        }
 
         // Convertir a DTO de respuesta
         return toResponse(transaction);
     }
 
+    /**
+     * Crea o actualiza un lote de transacciones (PUT /transactions/batch).
+     *
+     * Las transacciones se ordenan topológicamente por parent_id (algoritmo de Kahn), así
+     * los padres que vienen en el lote se validan antes que sus hijos sin importar el orden
+     * en que se enviaron. Cada una se valida contra el almacén y contra las ya aceptadas
+     * del lote:
+     * - los mismos campos requeridos que el PUT individual, y un ID que no se repita
+     * - el padre existe en el almacén o fue aceptado antes en el lote
+     * - no se forma un ciclo: dentro del lote (lo que Kahn no puede ordenar) o, al cambiar
+     *   el padre de una transacción existente, con el almacén
+     * Una transacción rechazada no impide aplicar las demás; sus hijos del lote que no
+     * existan en el almacén se rechazan con ella. Las aceptadas se guardan con
+     * repository.saveAll() en una sola pasada, que vuelve a verificar los ciclos de forma
+     * atómica con la escritura: si una escritura concurrente hizo que el lote cerrara uno,
+     * se valida de nuevo (hasta MAX_BATCH_ATTEMPTS veces), y después se cambian las versiones de sus
+     * subárboles recorriendo cada ancestro una sola vez aunque lo compartan varias.
+     */
+    public BatchResponse createOrUpdateBatch(List<BatchTransactionRequest> items) {
+        int n = items.size();
+        String[] errors = new String[n];
+        Map<Long, Integer> indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            errors[i] = validateFields(items.get(i));
+            if (errors[i] == null && indexById.putIfAbsent(items.get(i).getId(), i) != null) {
+                errors[i] = "ID duplicado en el lote: " + items.get(i).getId();
+            }
+        }
+
+        // Orden topológico: cada transacción cuyo padre está en el lote espera a su padre
+        int[] firstChild = new int[n];
+        int[] nextSibling = new int[n];
+        boolean[] waiting = new boolean[n];
+        Arrays.fill(firstChild, -1);
+        for (int i = 0; i < n; i++) {
+            Long parentId = errors[i] == null ? items.get(i).getParentId() : null;
+            Integer parent = parentId != null ? indexById.get(parentId) : null;
+            if (parent != null && parent != i) {
+                waiting[i] = true;
+                nextSibling[i] = firstChild[parent];
+                firstChild[parent] = i;
+            }
+        }
+        int[] order = new int[n];
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (errors[i] == null && !waiting[i]) {
+                order[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int child = firstChild[order[head]]; child != -1; child = nextSibling[child]) {
+                order[tail++] = child;
+                waiting[child] = false;
+            }
+        }
+        // Lo que sigue esperando tiene un padre que nunca se liberó: un ciclo dentro del lote
+        for (int i = 0; i < n; i++) {
+            if (waiting[i]) {
+                errors[i] = "El parent_id " + items.get(i).getParentId() + " forma un ciclo dentro del lote";
+            }
+        }
+
+        // Validación en orden topológico. acceptedParents superpone el lote al almacén;
+        // anchors guarda, para cada alta aceptada, su primer ancestro que ya está en el almacén.
+        // Si entre la validación y saveAll() otra escritura cambió la jerarquía de forma que
+        // el lote cerraría un ciclo, el repositorio lo rechaza entero y se valida de nuevo
+        String[] orderErrors = errors.clone();
+        List<Transaction> accepted = new ArrayList<>(tail);
+        int[] acceptedRows = new int[tail];
+        for (int attempt = 1; ; attempt++) {
+            System.arraycopy(orderErrors, 0, errors, 0, n);
+            accepted.clear();
+            Map<Long, Long> acceptedParents = new HashMap<>(tail * 2);
+            Map<Long, Long> anchors = new HashMap<>(tail * 2);
+            boolean reparented = false;
+            for (int k = 0; k < tail; k++) {
+                int i = order[k];
+                BatchTransactionRequest item = items.get(i);
+                Long id = item.getId();
+                Long parentId = item.getParentId();
+                Transaction existing = repository.findById(id);
+                if (parentId != null) {
+                    Integer parent = indexById.get(parentId);
+                    if (parentId.equals(id)) {
+                        errors[i] = "Una transacción no puede ser su propio padre. ID: " + id;
+                    } else if (!acceptedParents.containsKey(parentId) && !repository.existsById(parentId)) {
+                        errors[i] = parent != null && errors[parent] != null
+                                ? "La transacción padre con ID " + parentId + " fue rechazada"
+                                : "La transacción padre con ID " + parentId + " no existe";
+                    } else if (existing != null && !parentId.equals(existing.getParentId())
+                            && closesCycle(id, parentId, acceptedParents, anchors, reparented)) {
+                        errors[i] = "Asignar parentId " + parentId + " a la transacción " + id +
+                                " crearía un ciclo en la jerarquía";
+                    }
+                    if (errors[i] != null) {
+                        continue;
+                    }
+                }
+
+                acceptedParents.put(id, parentId);
+                if (existing == null) {
+                    anchors.put(id, parentId == null ? null : anchors.getOrDefault(parentId, parentId));
+                } else if (!Objects.equals(existing.getParentId(), parentId)) {
+                    reparented = true;
+                }
+                acceptedRows[accepted.size()] = i;
+                accepted.add(new Transaction(id, item.getAmount(), item.getType(), parentId));
+            }
+            try {
+                repository.saveAll(accepted);
+                break;
+            } catch (InvalidParentException e) {
+                if (attempt == MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+
+        BatchItemResult[] results = new BatchItemResult[n];
+        for (int a = 0; a < accepted.size(); a++) {
+            Transaction transaction = accepted.get(a);
+            results[acceptedRows[a]] = BatchItemResult.ok(transaction.getId(), transaction.getVersion());
+        }
+        for (int i = 0; i < n; i++) {
+            if (results[i] == null) {
+                BatchTransactionRequest item = items.get(i);
+                results[i] = BatchItemResult.error(item != null ? item.getId() : null, errors[i]);
+            }
+        }
+        return new BatchResponse(accepted.size(), n - accepted.size(), Arrays.asList(results));
+    }
+
     /**
      * Obtiene una transacción por ID.
      */
@@ -77,6 +292,29 @@ public class TransactionService {
         return toResponse(transaction);
     }
 
+    /**
+     * Versión actual de una transacción, sin armar la respuesta (para If-None-Match).
+     */
+    public long getTransactionVersion(Long id) {
+        Transaction transaction = repository.findById(id);
+        if (transaction == null) {
+            throw new TransactionNotFoundException("Transacción con ID " + id + " no encontrada");
+        }
+        return transaction.getVersion();
+    }
+
+    /**
+     * Versión actual del subárbol de una transacción: cambia con cada escritura que puede
+     * cambiar su suma. Se lee sin calcular la suma; leída antes de calculateSum(), nunca es
+     * más nueva que la suma calculada.
+     */
+    public long getSubtreeVersion(Long id) {
+        if (!repository.existsById(id)) {
+            throw new TransactionNotFoundException("Transacción con ID " + id + " no encontrada");
+        }
+        return versions.version(id);
+    }
+
     /**
      * Obtiene todos los IDs de transacciones de un tipo dado.
      */
@@ -84,51 +322,133 @@ public class TransactionService {
         return repository.findIdsByType(type);
     }
 
+    /**
+     * Obtiene hasta limit IDs de un tipo mayores que after (desde el primero si es null),
+     * en orden ascendente. El índice por tipo ya está ordenado, así que cada página cuesta
+     * lo mismo sin importar cuántos IDs tenga el tipo.
+     */
+    public IdPage getTransactionIdsByType(String type, Long after, int limit) {
+        if (limit < 1 || limit > MAX_ID_PAGE_SIZE) {
+            throw new InvalidPageRequestException("limit debe estar entre 1 y " + MAX_ID_PAGE_SIZE);
+        }
+        List<Long> ids = repository.findIdsByType(type, after, limit + 1);
+        if (ids.size() <= limit) {
+            return new IdPage(ids, null);
+        }
+        ids.remove(limit);
+        return new IdPage(ids, ids.get(limit - 1));
+    }
+
+    /**
+     * Cantidad de transacciones de un tipo.
+     */
+    public long countTransactionsByType(String type) {
+        return repository.countByType(type);
+    }
+
+    /**
+     * Agregados de un tipo (cantidad, total, mínimo y máximo). El repositorio los mantiene
+     * en cada escritura, así que no se recorren las transacciones del tipo.
+     */
+    public TypeStatsResponse getTypeStats(String type) {
+        return toResponse(repository.findTypeStats(type));
+    }
+
+    /**
+     * Agregados de todos los tipos con transacciones, ordenados por tipo.
+     */
+    public List<TypeStatsResponse> getAllTypeStats() {
+        List<TypeStats> all = repository.findAllTypeStats();
+        List<TypeStatsResponse> result = new ArrayList<>(all.size());
+        for (TypeStats stats : all) {
+            result.add(toResponse(stats));
+        }
+        return result;
+    }
+
     /**
      * Calcula el monto total de una transacción incluyendo todas sus descendientes.
-     * Usa un algoritmo DFS recursivo para recorrer la jerarquía.
+     * El repositorio mantiene la suma de cada subárbol actualizada en cada escritura,
+     * por lo que no se recorre la jerarquía; si la caché de sumas está habilitada, la
+     * suma se sirve desde ella mientras ninguna escritura la invalide.
      */
     public BigDecimal calculateSum(Long id) {
-        Transaction transaction = repository.findById(id);
-        if (transaction == null) {
+        return calculateVersionedSum(id).sum();
+    }
+
+    /**
+     * Como calculateSum(), junto con la versión del subárbol que corresponde a la suma
+     * servida (para el ETag). Con stale-while-revalidate una suma vencida viene con su
+     * versión vieja, no con la actual.
+     */
+    public SumCache.VersionedSum calculateVersionedSum(Long id) {
+        SumCache.VersionedSum sum = sumCache.getVersioned(id, key -> repository.findSubtreeSum(key));
+        if (sum == null) {
             throw new TransactionNotFoundException("Transacción con ID " + id + " no encontrada");
         }
-
-        // Usar un Set para evitar procesar la misma transacción dos veces
-        // (por si hubiera algún ciclo que no detectamos)
-        Set<Long> visited = new HashSet<>();
-        return calculateSumRecursive(id, visited);
+        return sum;
     }
 
     /**
-     * Método recursivo para calcular la suma de una transacción y sus descendientes.
+     * Obtiene hasta limit transacciones con ID mayor que after (desde la primera si es
+     * null), en orden de ID. Se pide una fila de más al repositorio para saber si hay otra
+     * página sin contar el resto; en ese caso el cursor es el ID de la última de la página.
      */
-    private BigDecimal calculateSumRecursive(Long id, Set<Long> visited) {
-        // Prevenir ciclos infinitos
-        if (visited.contains(id)) {
-            return BigDecimal.ZERO;
+    public TransactionPage getTransactionsPage(Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        List<Transaction> rows = repository.findPage(after, limit + 1);
+        int size = Math.min(rows.size(), limit);
+        List<TransactionResponse> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(toResponse(rows.get(i)));
         }
-        visited.add(id);
+        Long nextCursor = rows.size() > limit ? rows.get(limit - 1).getId() : null;
+        return new TransactionPage(items, nextCursor);
+    }
 
-        Transaction transaction = repository.findById(id);
-        if (transaction == null) {
-            return BigDecimal.ZERO;
+    /**
+     * Obtiene los IDs de los ancestros de una transacción, desde su padre hasta la raíz.
+     */
+    public List<Long> getAncestorIds(Long id) {
+        List<Long> ancestorIds = repository.findAncestorIds(id);
+        if (ancestorIds == null) {
+            throw new TransactionNotFoundException("Transacción con ID " + id + " no encontrada");
         }
+        return ancestorIds;
+    }
 
-        // Suma del monto actual
-        BigDecimal sum = transaction.getAmount() != null ? transaction.getAmount() : BigDecimal.ZERO;
+    /**
+     * Contadores de la caché de sumas.
+     */
+    public SumCacheStatsResponse getSumCacheStats() {
+        return new SumCacheStatsResponse(sumCache.size(), sumCache.getMaximumSize(), sumCache.hitCount(),
+                sumCache.missCount(), sumCache.staleHitCount(), sumCache.evictionCount(),
+                sumCache.isStaleWhileRevalidate());
+    }
 
-        // Sumar todos los montos de las transacciones hijas
-        List<Transaction> children = repository.findByParentId(id);
-        for (Transaction child : children) {
-            sum = sum.add(calculateSumRecursive(child.getId(), visited));
+    private boolean saveIfAnyVersion(Transaction transaction, long[] expectedVersions) {
+        if (expectedVersions.length == 1) {
+            return repository.saveIfVersion(transaction, expectedVersions[0]);
+        }
+        while (true) {
+            Transaction current = repository.findById(transaction.getId());
+            long version = current != null ? current.getVersion() : 0;
+            if (Arrays.stream(expectedVersions).noneMatch(expected -> expected == version)) {
+                return false;
+            }
+            if (repository.saveIfVersion(transaction, version)) {
+                return true;
+            }
         }
-
-        return sum;
     }
 
     /**
-     * Valida que el parentId sea válido y no cree ciclos.
+     * Valida que el parentId no sea la propia transacción y que exista. Las transacciones
+     * no se borran, así que un padre que existe acá sigue existiendo al guardar; los ciclos,
+     * en cambio, dependen de otras escrituras concurrentes y los rechaza el repositorio
+     * de forma atómica con la escritura.
      */
     private void validateParentId(Long transactionId, Long parentId, boolean isUpdate) {
         // El parentId no puede ser el mismo que el ID de la transacción
@@ -145,59 +465,81 @@ public class TransactionService {
                     "La transacción padre con ID " + parentId + " no existe"
             );
         }
-
-        // Verificar que no se creen ciclos
-        // Si el parentId ya tiene como ancestro al transactionId, se crearía un ciclo
-        if (wouldCreateCycle(transactionId, parentId)) {
-            throw new InvalidParentException(
-                    "Asignar parentId " + parentId + " a la transacción " + transactionId +
-                            " crearía un ciclo en la jerarquía"
-            );
-        }
     }
 
     /**
-     * Verifica si asignar un parentId crearía un ciclo en la jerarquía.
+     * Verifica si una transacción existente del lote cerraría un ciclo al colgar de parentId.
+     *
+     * Las altas del lote no pueden ser ancestro de una transacción existente, así que la
+     * búsqueda empieza en el primer ancestro de parentId que ya está en el almacén (anchors).
+     * Mientras ninguna transacción existente haya cambiado de padre en el lote, el almacén
+     * describe la jerarquía y lo responde isAncestor(); si no, se sube la cadena leyendo el
+     * padre de lo ya aceptado en el lote antes que el del almacén.
      */
-    private boolean wouldCreateCycle(Long transactionId, Long parentId) {
+    private boolean closesCycle(Long transactionId, Long parentId, Map<Long, Long> acceptedParents,
+                                Map<Long, Long> anchors, boolean reparented) {
+        Long start = anchors.containsKey(parentId) ? anchors.get(parentId) : parentId;
+        if (start == null) {
+            return false;
+        }
+        if (!reparented) {
+            return start.equals(transactionId) || repository.isAncestor(transactionId, start);
+        }
         Set<Long> visited = new HashSet<>();
-        Long currentId = parentId;
-
-        // Recorrer hacia arriba en la jerarquía
-        while (currentId != null) {
-            // Si encontramos el transactionId en la cadena de ancestros, hay un ciclo
-            if (currentId.equals(transactionId)) {
+        for (Long current = start; current != null && visited.add(current); ) {
+            if (current.equals(transactionId)) {
                 return true;
             }
-
-            // Si ya visitamos este nodo, hay un ciclo
-            if (visited.contains(currentId)) {
-                return true;
-            }
-
-            visited.add(currentId);
-
-            // Obtener el padre de la transacción actual
-            Transaction current = repository.findById(currentId);
-            if (current == null) {
-                break;
+            if (acceptedParents.containsKey(current)) {
+                current = acceptedParents.get(current);
+            } else {
+                Transaction transaction = repository.findById(current);
+                current = transaction != null ? transaction.getParentId() : null;
             }
-
-            currentId = current.getParentId();
         }
-
         return false;
     }
 
+    /**
+     * Valida los campos requeridos de una transacción del lote; retorna el error o null.
+     */
+    private static String validateFields(BatchTransactionRequest item) {
+        if (item == null) {
+            return "la transacción es requerida";
+        }
+        if (item.getId() == null) {
+            return "id es requerido";
+        }
+        if (item.getAmount() == null) {
+            return "amount es requerido";
+        }
+        if (item.getAmount().signum() <= 0) {
+            return "amount debe ser positivo";
+        }
+        if (item.getType() == null) {
+            return "type es requerido";
+        }
+        return null;
+    }
+
     /**
      * Convierte una entidad Transaction a TransactionResponse.
      */
     private TransactionResponse toResponse(Transaction transaction) {
-        return new TransactionResponse(
+        TransactionResponse response = new TransactionResponse(
                 transaction.getId(),
                 transaction.getAmount(),
                 transaction.getType(),
                 transaction.getParentId()
         );
+        response.setVersion(transaction.getVersion());
+        return response;
+    }
+
+    /**
+     * Convierte los agregados de un tipo a DTO de respuesta.
+     */
+    private TypeStatsResponse toResponse(TypeStats stats) {
+        return new TypeStatsResponse(stats.getType(), stats.getCount(), stats.getTotal(), stats.getMin(), stats.getMax());
     }
 }
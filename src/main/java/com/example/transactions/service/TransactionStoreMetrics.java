@@ -0,0 +1,144 @@
+package com.example.transactions.service;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
+import com.example.transactions.repository.TransactionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gauges del almacén y contadores de la caché de sumas.
+ *
+ * - transactions.store.size: transacciones guardadas
+ * - transactions.types: tipos distintos en el índice por tipo
+ * - transactions.hierarchy.max.depth: profundidad máxima de la jerarquía (una raíz tiene 0)
+ * - transactions.sum.cache.requests (result = hit, miss o stale) y
+ *   transactions.sum.cache.evictions: los contadores de SumCache, los mismos que informa
+ *   GET /transactions/sum-cache; transactions.sum.cache.size, las entradas en la caché
+ *
+ * El tamaño y los tipos salen de los agregados por tipo, que el repositorio mantiene en
+ * cada escritura: leerlos cuesta O(tipos), así que se calculan en cada lectura de la
+ * métrica. La profundidad, en cambio, no se mantiene en ningún índice y hay que recorrer
+ * el almacén entero: se recalcula en segundo plano cada transactions.metrics.depth-refresh
+ * y el gauge informa el último valor. El recorrido no toma locks, así que con escrituras
+ * concurrentes el valor es aproximado.
+ *
+ * Una suma no recorre nodos (el motor de jerarquía la mantiene en cada escritura), así que
+ * su costo se ve en el timer de findSubtreeSum (MeteredTransactionRepository) y en los
+ * aciertos de la caché, no en una cantidad de nodos visitados.
+ */
+public class TransactionStoreMetrics implements MeterBinder {
+
+    // Transacciones por página al buscar las raíces
+    private static final int PAGE_SIZE = 10_000;
+
+    private final TransactionRepository repository;
+    private final SumCache sumCache;
+    private volatile int maxDepth;
+
+    public TransactionStoreMetrics(TransactionRepository repository, SumCache sumCache) {
+        this.repository = repository;
+        this.sumCache = sumCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("transactions.store.size", this, TransactionStoreMetrics::storeSize)
+                .description("Transacciones guardadas")
+                .register(registry);
+        Gauge.builder("transactions.types", this, metrics -> metrics.repository.findAllTypeStats().size())
+                .description("Tipos distintos con al menos una transacción")
+                .register(registry);
+        Gauge.builder("transactions.hierarchy.max.depth", this, TransactionStoreMetrics::getMaxDepth)
+                .description("Profundidad máxima de la jerarquía en el último recorrido")
+                .register(registry);
+
+        FunctionCounter.builder("transactions.sum.cache.requests", sumCache, SumCache::hitCount)
+                .description("Sumas pedidas a la caché")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("transactions.sum.cache.requests", sumCache, SumCache::missCount)
+                .description("Sumas pedidas a la caché")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("transactions.sum.cache.requests", sumCache, SumCache::staleHitCount)
+                .description("Sumas pedidas a la caché")
+                .tag("result", "stale")
+                .register(registry);
+        FunctionCounter.builder("transactions.sum.cache.evictions", sumCache, SumCache::evictionCount)
+                .description("Sumas desalojadas de la caché")
+                .register(registry);
+        Gauge.builder("transactions.sum.cache.size", sumCache, SumCache::size)
+                .description("Sumas en la caché")
+                .register(registry);
+    }
+
+    private double storeSize() {
+        long size = 0;
+        for (TypeStats stats : repository.findAllTypeStats()) {
+            size += stats.getCount();
+        }
+        return size;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Recorre la jerarquía por niveles desde las raíces (transacciones sin padre o con un
+     * padre que no fue guardado) y guarda la cantidad de niveles menos uno. Las
+     * transacciones de un ciclo, que no cuelgan de ninguna raíz, no se cuentan.
+     */
+    @Scheduled(fixedDelayString = "${transactions.metrics.depth-refresh:PT5M}")
+    public void refreshMaxDepth() {
+        long[] level = roots();
+        int levelSize = level.length;
+        int depth = -1;
+        while (levelSize > 0) {
+            depth++;
+            long[] next = new long[Math.max(16, levelSize)];
+            int nextSize = 0;
+            for (int i = 0; i < levelSize; i++) {
+                for (Transaction child : repository.findByParentId(level[i])) {
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = child.getId();
+                }
+            }
+            level = next;
+            levelSize = nextSize;
+        }
+        maxDepth = Math.max(0, depth);
+    }
+
+    private long[] roots() {
+        long[] roots = new long[16];
+        int size = 0;
+        Long after = null;
+        List<Transaction> page;
+        do {
+            page = repository.findPage(after, PAGE_SIZE);
+            for (Transaction transaction : page) {
+                Long parentId = transaction.getParentId();
+                if (parentId == null || !repository.existsById(parentId)) {
+                    if (size == roots.length) {
+                        roots = Arrays.copyOf(roots, size * 2);
+                    }
+                    roots[size++] = transaction.getId();
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        return Arrays.copyOf(roots, size);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.transactions.controller;
+
+import com.example.transactions.exception.VersionConflictException;
+import com.example.transactions.service.TransactionService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para ETags.
+ */
+class ETagsTest {
+
+    @Test
+    void testTransactionAndSubtree_AreDistinct() {
+        // Act
+        String transaction = ETags.transaction(7);
+        String subtree = ETags.subtree(7);
+
+        // Assert
+        assertTrue(transaction.startsWith("\"") && transaction.endsWith("\""));
+        assertEquals("\"s7\"", subtree);
+        assertNotEquals(transaction, subtree);
+    }
+
+    @Test
+    void testTransaction_IsNotTheBareVersion() {
+        // Act & Assert - Con la época del arranque, "1" de otro arranque no coincide
+        assertNotEquals("\"1\"", ETags.transaction(1));
+        assertNotEquals(ETags.transaction(1), ETags.transaction(2));
+        assertArrayEquals(new long[] {1}, ETags.expectedVersions(ETags.transaction(1)));
+    }
+
+    @Test
+    void testMatchesAny_ListWeakAndWildcard() {
+        // Act & Assert
+        assertTrue(ETags.matchesAny("\"3\", \"7\"", "\"7\""));
+        assertTrue(ETags.matchesAny("W/\"7\"", "\"7\""));
+        assertTrue(ETags.matchesAny("*", "\"s9\""));
+        assertFalse(ETags.matchesAny("\"s7\"", "\"7\""));
+    }
+
+    @Test
+    void testExpectedVersions_StrongETagAndWildcard() {
+        // Act & Assert
+        assertArrayEquals(new long[] {3}, ETags.expectedVersions(" " + ETags.transaction(3) + " "));
+        assertArrayEquals(new long[] {TransactionService.ANY_EXISTING_VERSION}, ETags.expectedVersions("*"));
+    }
+
+    @Test
+    void testExpectedVersions_ListKeepsEveryStrongETag() {
+        // Act & Assert - Los ETags débiles o ajenos de la lista no coinciden con ninguna versión
+        assertArrayEquals(new long[] {3, 7}, ETags.expectedVersions(
+                ETags.transaction(3) + ", W/" + ETags.transaction(5) + ", \"s6\"," + ETags.transaction(7)));
+    }
+
+    @Test
+    void testExpectedVersions_WeakOrForeignETagConflicts() {
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> ETags.expectedVersions("W/" + ETags.transaction(3)));
+        assertThrows(VersionConflictException.class, () -> ETags.expectedVersions("\"s3\""));
+        assertThrows(VersionConflictException.class, () -> ETags.expectedVersions(ETags.transaction(0)));
+        assertThrows(VersionConflictException.class, () -> ETags.expectedVersions("\"3\""));
+        assertThrows(VersionConflictException.class, () -> ETags.expectedVersions("W/\"3\", \"s3\""));
+    }
+}
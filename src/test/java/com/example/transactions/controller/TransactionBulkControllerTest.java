@@ -0,0 +1,107 @@
+package com.example.transactions.controller;
+
+import com.example.transactions.exception.GlobalExceptionHandler;
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.model.Transaction;
+import com.example.transactions.service.NdjsonExportService;
+import com.example.transactions.service.NdjsonIngestService;
+import com.example.transactions.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests unitarios para TransactionBulkController.
+ *
+ * Usa el service real sobre un repositorio en memoria: la respuesta se escribe mientras
+ * se lee el cuerpo, así que se verifica el NDJSON que produce el despacho asíncrono.
+ */
+class TransactionBulkControllerTest {
+
+    private MockMvc mockMvc;
+    private TransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepositoryImpl();
+        TransactionService transactionService = new TransactionService(repository);
+        ObjectMapper objectMapper = new ObjectMapper();
+        NdjsonIngestService ingestService = new NdjsonIngestService(transactionService, objectMapper, 2);
+        NdjsonExportService exportService = new NdjsonExportService(transactionService, objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionBulkController(ingestService, exportService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testIngest_StreamsEvents() throws Exception {
+        // Arrange
+        String body = """
+                {"id": 1, "amount": 100.0, "type": "cars"}
+                {"id": 2, "amount": 50.0, "type": "cars", "parent_id": 1}
+                {"id": 3, "amount": 10.0, "type": "cars", "parent_id": 99}
+                """;
+
+        // Act
+        MvcResult started = mockMvc.perform(post("/transactions/ingest")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // Assert
+        String[] events = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, events.length);
+        assertEquals("{\"event\":\"progress\",\"lines\":2,\"applied\":2,\"rejected\":0}", events[0]);
+        assertTrue(events[1].startsWith("{\"event\":\"rejected\",\"line\":3,\"id\":3,"));
+        assertEquals("{\"event\":\"done\",\"lines\":3,\"applied\":2,\"rejected\":1}", events[3]);
+        assertNotNull(repository.findById(2L));
+    }
+
+    @Test
+    void testIngest_WrongContentType_ReturnsUnsupportedMediaType() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/transactions/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void testExport_StreamsTransactionsAfterCursor() throws Exception {
+        // Arrange
+        repository.save(new Transaction(3L, new BigDecimal("10.5"), "travel", 1L));
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50"), "cars", 1L));
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/transactions/export").param("after", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // Assert
+        assertEquals("{\"id\":2,\"amount\":50,\"type\":\"cars\",\"parent_id\":1}\n"
+                        + "{\"id\":3,\"amount\":10.5,\"type\":\"travel\",\"parent_id\":1}\n",
+                result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+}
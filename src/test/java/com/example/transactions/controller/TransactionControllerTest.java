@@ -1,11 +1,20 @@
 package com.example.transactions.controller;
 
+import com.example.transactions.dto.BatchItemResult;
+import com.example.transactions.dto.BatchResponse;
+import com.example.transactions.dto.IdPage;
 import com.example.transactions.dto.StatusResponse;
+import com.example.transactions.dto.SumCacheStatsResponse;
 import com.example.transactions.dto.SumResponse;
+import com.example.transactions.dto.TransactionPage;
 import com.example.transactions.dto.TransactionRequest;
 import com.example.transactions.dto.TransactionResponse;
+import com.example.transactions.dto.TypeStatsResponse;
+import com.example.transactions.exception.InvalidPageRequestException;
 import com.example.transactions.exception.InvalidParentException;
 import com.example.transactions.exception.TransactionNotFoundException;
+import com.example.transactions.exception.VersionConflictException;
+import com.example.transactions.service.SumCache;
 import com.example.transactions.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,7 +28,10 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -232,6 +244,114 @@ class TransactionControllerTest {
         verify(transactionService).createOrUpdateTransaction(eq(id), any(TransactionRequest.class));
     }
 
+    @Test
+    void testCreateOrUpdateTransaction_IfMatch_PassesExpectedVersionAndReturnsETag() throws Exception {
+        // Arrange
+        Long id = 1L;
+        TransactionResponse updated = new TransactionResponse(id, new BigDecimal("100.0"), "cars", null);
+        updated.setVersion(4L);
+        when(transactionService.createOrUpdateTransaction(eq(id), any(TransactionRequest.class), aryEq(new long[] {3L})))
+                .thenReturn(updated);
+
+        // Act & Assert
+        mockMvc.perform(put("/transactions/{id}", id)
+                        .header("If-Match", ETags.transaction(3))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.transaction(4)));
+
+        verify(transactionService).createOrUpdateTransaction(eq(id), any(TransactionRequest.class), aryEq(new long[] {3L}));
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_IfMatchStar_RequiresExisting() throws Exception {
+        // Arrange
+        Long id = 1L;
+        when(transactionService.createOrUpdateTransaction(eq(id), any(TransactionRequest.class),
+                aryEq(new long[] {TransactionService.ANY_EXISTING_VERSION}))).thenReturn(transactionResponse);
+
+        // Act & Assert
+        mockMvc.perform(put("/transactions/{id}", id)
+                        .header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk());
+
+        verify(transactionService).createOrUpdateTransaction(eq(id), any(TransactionRequest.class),
+                aryEq(new long[] {TransactionService.ANY_EXISTING_VERSION}));
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_VersionConflict_ReturnsPreconditionFailed() throws Exception {
+        // Arrange
+        Long id = 1L;
+        when(transactionService.createOrUpdateTransaction(eq(id), any(TransactionRequest.class), aryEq(new long[] {2L})))
+                .thenThrow(new VersionConflictException("La transacción con ID 1 no tiene la versión 2"));
+
+        // Act & Assert
+        mockMvc.perform(put("/transactions/{id}", id)
+                        .header("If-Match", ETags.transaction(2))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("La transacción con ID 1 no tiene la versión 2"));
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_WeakOrMalformedIfMatch_ReturnsPreconditionFailed() throws Exception {
+        for (String ifMatch : List.of("W/\"3\"", "3", "\"abc\"", "\"0\"")) {
+            // Act & Assert - La comparación es fuerte: nunca coincide y no llega al service
+            mockMvc.perform(put("/transactions/{id}", 1L)
+                            .header("If-Match", ifMatch)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isPreconditionFailed());
+        }
+        verifyNoInteractions(transactionService);
+    }
+
+    // ========== Tests para PUT /transactions/batch ==========
+
+    @Test
+    void testCreateOrUpdateBatch_ReturnsPerItemResults() throws Exception {
+        // Arrange
+        BatchResponse batchResponse = new BatchResponse(1, 1, List.of(
+                BatchItemResult.ok(10L, 1L),
+                BatchItemResult.error(11L, "La transacción padre con ID 99 no existe")));
+        when(transactionService.createOrUpdateBatch(anyList())).thenReturn(batchResponse);
+        String body = "[{\"id\": 10, \"amount\": 100.0, \"type\": \"cars\"}," +
+                " {\"id\": 11, \"amount\": 5.0, \"type\": \"cars\", \"parent_id\": 99}]";
+
+        // Act & Assert
+        mockMvc.perform(put("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("ok"))
+                .andExpect(jsonPath("$.results[0].version").value(1))
+                .andExpect(jsonPath("$.results[0].error").doesNotExist())
+                .andExpect(jsonPath("$.results[1].status").value("error"))
+                .andExpect(jsonPath("$.results[1].version").doesNotExist());
+
+        verify(transactionService).createOrUpdateBatch(argThat(items -> items.size() == 2
+                && items.get(1).getId() == 11L && items.get(1).getParentId() == 99L));
+        verify(transactionService, never()).createOrUpdateTransaction(any(), any());
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_BodyNotAList_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionService);
+    }
+
     // ========== Tests para GET /transactions/{id} ==========
 
     @Test
@@ -251,6 +371,62 @@ class TransactionControllerTest {
         verify(transactionService).getTransactionById(id);
     }
 
+    @Test
+    void testGetTransaction_ReturnsVersionAsETag() throws Exception {
+        // Arrange
+        Long id = 1L;
+        transactionResponse.setVersion(7L);
+        when(transactionService.getTransactionById(id)).thenReturn(transactionResponse);
+
+        // Act & Assert - La versión va en el header, no en el cuerpo
+        mockMvc.perform(get("/transactions/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.transaction(7)))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void testGetTransaction_IfNoneMatchCurrentVersion_ReturnsNotModified() throws Exception {
+        // Arrange
+        Long id = 1L;
+        when(transactionService.getTransactionVersion(id)).thenReturn(7L);
+
+        // Act & Assert - Sin cuerpo y sin armar la respuesta
+        mockMvc.perform(get("/transactions/{id}", id).header("If-None-Match", ETags.transaction(6) + ", W/" + ETags.transaction(7)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ETags.transaction(7)))
+                .andExpect(content().string(""));
+
+        verify(transactionService, never()).getTransactionById(any());
+    }
+
+    @Test
+    void testGetTransaction_IfNoneMatchOldVersion_ReturnsBody() throws Exception {
+        // Arrange
+        Long id = 1L;
+        transactionResponse.setVersion(8L);
+        when(transactionService.getTransactionVersion(id)).thenReturn(8L);
+        when(transactionService.getTransactionById(id)).thenReturn(transactionResponse);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/{id}", id).header("If-None-Match", ETags.transaction(7)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.transaction(8)))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void testGetTransaction_IfNoneMatch_NotFound_ReturnsNotFound() throws Exception {
+        // Arrange
+        Long id = 999L;
+        when(transactionService.getTransactionVersion(id))
+                .thenThrow(new TransactionNotFoundException("Transacción con ID " + id + " no encontrada"));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/{id}", id).header("If-None-Match", "*"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testGetTransaction_NotFound_ReturnsNotFound() throws Exception {
         // Arrange
@@ -266,6 +442,84 @@ class TransactionControllerTest {
         verify(transactionService).getTransactionById(id);
     }
 
+    // ========== Tests para GET /transactions ==========
+
+    @Test
+    void testGetTransactions_DefaultLimit_ReturnsPageWithCursor() throws Exception {
+        // Arrange
+        TransactionPage page = new TransactionPage(
+                List.of(new TransactionResponse(1L, new BigDecimal("100"), "cars", null)), 1L);
+        when(transactionService.getTransactionsPage(null, 100)).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.next_cursor").value(1));
+
+        verify(transactionService).getTransactionsPage(null, 100);
+    }
+
+    @Test
+    void testGetTransactions_WithCursor_LastPageHasNullCursor() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionsPage(40L, 5)).thenReturn(new TransactionPage(List.of(), null));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions").param("after", "40").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.next_cursor").doesNotExist());
+
+        verify(transactionService).getTransactionsPage(40L, 5);
+    }
+
+    @Test
+    void testGetTransactions_InvalidLimit_ReturnsBadRequest() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionsPage(null, 0))
+                .thenThrow(new InvalidPageRequestException("limit debe estar entre 1 y 1000"));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("limit debe estar entre 1 y 1000"));
+    }
+
+    // ========== Tests para GET /transactions/{id}/ancestors ==========
+
+    @Test
+    void testGetTransactionAncestors_Success() throws Exception {
+        // Arrange
+        Long id = 12L;
+        when(transactionService.getAncestorIds(id)).thenReturn(List.of(11L, 10L));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/{id}/ancestors", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value(11))
+                .andExpect(jsonPath("$[1]").value(10));
+
+        verify(transactionService).getAncestorIds(id);
+    }
+
+    @Test
+    void testGetTransactionAncestors_NotFound_ReturnsNotFound() throws Exception {
+        // Arrange
+        Long id = 999L;
+        when(transactionService.getAncestorIds(id))
+                .thenThrow(new TransactionNotFoundException("Transacción con ID " + id + " no encontrada"));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/{id}/ancestors", id))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").exists());
+
+        verify(transactionService).getAncestorIds(id);
+    }
+
     // ========== Tests para GET /transactions/types/{type} ==========
 
     @Test
@@ -300,6 +554,99 @@ class TransactionControllerTest {
         verify(transactionService).getTransactionIdsByType(type);
     }
 
+    @Test
+    void testGetTransactionIdsByType_WithLimit_ReturnsPageAndNextLink() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionIdsByType("cars", 3L, 2)).thenReturn(new IdPage(List.of(7L, 9L), 9L));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/types/{type}", "cars").param("after", "3").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1]").value(9))
+                .andExpect(header().string("Link", "<http://localhost/transactions/types/cars?after=9&limit=2>; rel=\"next\""));
+
+        verify(transactionService, never()).getTransactionIdsByType("cars");
+    }
+
+    @Test
+    void testGetTransactionIdsByType_AfterWithoutLimit_UsesDefaultAndLastPageHasNoLink() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionIdsByType("cars", 9L, TransactionService.DEFAULT_ID_PAGE_SIZE))
+                .thenReturn(new IdPage(List.of(11L), null));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/types/{type}", "cars").param("after", "9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(11))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void testGetTransactionIdsByType_InvalidLimit_ReturnsBadRequest() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionIdsByType("cars", null, 0))
+                .thenThrow(new InvalidPageRequestException("limit debe estar entre 1 y 10000"));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/types/{type}", "cars").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("limit debe estar entre 1 y 10000"));
+    }
+
+    // ========== Tests para GET /transactions/types/{type}/count ==========
+
+    @Test
+    void testCountTransactionsByType_Success() throws Exception {
+        // Arrange
+        when(transactionService.countTransactionsByType("cars")).thenReturn(3_000_000L);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/types/{type}/count", "cars"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3_000_000));
+
+        verify(transactionService).countTransactionsByType("cars");
+        verify(transactionService, never()).getTransactionIdsByType("cars");
+    }
+
+    // ========== Tests para GET /transactions/types/{type}/stats y GET /transactions/types ==========
+
+    @Test
+    void testGetTypeStats_Success() throws Exception {
+        // Arrange
+        when(transactionService.getTypeStats("cars")).thenReturn(new TypeStatsResponse(
+                "cars", 2, new BigDecimal("150.0"), new BigDecimal("50.0"), new BigDecimal("100.0")));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/types/{type}/stats", "cars"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("cars"))
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.total_amount").value(150.0))
+                .andExpect(jsonPath("$.min_amount").value(50.0))
+                .andExpect(jsonPath("$.max_amount").value(100.0));
+
+        verify(transactionService).getTypeStats("cars");
+    }
+
+    @Test
+    void testGetAllTypeStats_Success() throws Exception {
+        // Arrange
+        when(transactionService.getAllTypeStats()).thenReturn(List.of(
+                new TypeStatsResponse("cars", 1, BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN),
+                new TypeStatsResponse("food", 1, BigDecimal.ZERO, null, null)));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/types"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].type").value("cars"))
+                .andExpect(jsonPath("$[1].min_amount").isEmpty());
+
+        verify(transactionService).getAllTypeStats();
+    }
+
     // ========== Tests para GET /transactions/sum/{id} ==========
 
     @Test
@@ -307,21 +654,21 @@ class TransactionControllerTest {
         // Arrange
         Long id = 10L;
         BigDecimal sum = new BigDecimal("20000.0");
-        when(transactionService.calculateSum(id)).thenReturn(sum);
+        when(transactionService.calculateVersionedSum(id)).thenReturn(new SumCache.VersionedSum(sum, 42L));
 
         // Act & Assert
         mockMvc.perform(get("/transactions/sum/{id}", id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.sum").value(20000.0));
 
-        verify(transactionService).calculateSum(id);
+        verify(transactionService).calculateVersionedSum(id);
     }
 
     @Test
     void testGetTransactionSum_NotFound_ReturnsNotFound() throws Exception {
         // Arrange
         Long id = 999L;
-        when(transactionService.calculateSum(id))
+        when(transactionService.calculateVersionedSum(id))
                 .thenThrow(new TransactionNotFoundException("Transacción con ID " + id + " no encontrada"));
 
         // Act & Assert
@@ -329,7 +676,66 @@ class TransactionControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.error").exists());
 
-        verify(transactionService).calculateSum(id);
+        verify(transactionService).calculateVersionedSum(id);
+    }
+
+    @Test
+    void testGetTransactionSum_ReturnsSubtreeVersionAsETag() throws Exception {
+        // Arrange
+        Long id = 10L;
+        when(transactionService.getSubtreeVersion(id)).thenReturn(42L);
+        when(transactionService.calculateVersionedSum(id)).thenReturn(new SumCache.VersionedSum(new BigDecimal("205.0"), 42L));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/sum/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"s42\""))
+                .andExpect(jsonPath("$.sum").value(205.0));
+    }
+
+    @Test
+    void testGetTransactionSum_IfNoneMatchCurrentVersion_ReturnsNotModifiedWithoutCalculating() throws Exception {
+        // Arrange
+        Long id = 10L;
+        when(transactionService.getSubtreeVersion(id)).thenReturn(42L);
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/sum/{id}", id).header("If-None-Match", "\"s42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"s42\""))
+                .andExpect(content().string(""));
+
+        verify(transactionService, never()).calculateVersionedSum(any());
+    }
+
+    @Test
+    void testGetTransactionSum_IfNoneMatchTransactionETag_DoesNotMatch() throws Exception {
+        // Arrange - El ETag de la transacción no sirve para la suma aunque el número coincida
+        Long id = 10L;
+        when(transactionService.getSubtreeVersion(id)).thenReturn(42L);
+        when(transactionService.calculateVersionedSum(id)).thenReturn(new SumCache.VersionedSum(new BigDecimal("205.0"), 42L));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/sum/{id}", id).header("If-None-Match", "\"42\""))
+                .andExpect(status().isOk());
+    }
+
+    // ========== Tests para GET /transactions/sum-cache ==========
+
+    @Test
+    void testGetSumCacheStats_Success() throws Exception {
+        // Arrange
+        when(transactionService.getSumCacheStats())
+                .thenReturn(new SumCacheStatsResponse(3, 100, 40, 5, 0, 1, false));
+
+        // Act & Assert
+        mockMvc.perform(get("/transactions/sum-cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maximum_size").value(100))
+                .andExpect(jsonPath("$.hits").value(40))
+                .andExpect(jsonPath("$.evictions").value(1));
+
+        verify(transactionService).getSumCacheStats();
     }
 
     @Test
@@ -337,13 +743,13 @@ class TransactionControllerTest {
         // Arrange
         Long id = 10L;
         BigDecimal sum = new BigDecimal("15000.0");
-        when(transactionService.calculateSum(id)).thenReturn(sum);
+        when(transactionService.calculateVersionedSum(id)).thenReturn(new SumCache.VersionedSum(sum, 42L));
 
         // Act & Assert
         mockMvc.perform(get("/transactions/sum/{id}", id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.sum").value(15000.0));
 
-        verify(transactionService).calculateSum(id);
+        verify(transactionService).calculateVersionedSum(id);
     }
 }
@@ -0,0 +1,56 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para BatchItemResult y BatchResponse.
+ */
+class BatchItemResultTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOk() {
+        // Act
+        BatchItemResult result = BatchItemResult.ok(10L, 3L);
+
+        // Assert
+        assertEquals(10L, result.getId());
+        assertEquals("ok", result.getStatus());
+        assertEquals(3L, result.getVersion());
+        assertNull(result.getError());
+    }
+
+    @Test
+    void testError() {
+        // Act
+        BatchItemResult result = BatchItemResult.error(11L, "amount es requerido");
+
+        // Assert
+        assertEquals(11L, result.getId());
+        assertEquals("error", result.getStatus());
+        assertNull(result.getVersion());
+        assertEquals("amount es requerido", result.getError());
+    }
+
+    @Test
+    void testSerialize_OmitsNullFields() throws Exception {
+        // Arrange
+        BatchResponse response = new BatchResponse(1, 1, List.of(
+                BatchItemResult.ok(10L, 1L),
+                BatchItemResult.error(11L, "type es requerido")));
+
+        // Act
+        String json = objectMapper.writeValueAsString(response);
+
+        // Assert
+        assertEquals("{\"applied\":1,\"rejected\":1,\"results\":["
+                + "{\"id\":10,\"status\":\"ok\",\"version\":1},"
+                + "{\"id\":11,\"status\":\"error\",\"error\":\"type es requerido\"}]}", json);
+    }
+}
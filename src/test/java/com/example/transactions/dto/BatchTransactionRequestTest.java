@@ -0,0 +1,64 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para BatchTransactionRequest.
+ */
+class BatchTransactionRequestTest {
+
+    private Validator validator;
+
+    @BeforeEach
+    void setUp() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @Test
+    void testConstructorWithAllFields() {
+        // Act
+        BatchTransactionRequest request = new BatchTransactionRequest(10L, new BigDecimal("100.0"), "cars", 5L);
+
+        // Assert
+        assertEquals(10L, request.getId());
+        assertEquals(new BigDecimal("100.0"), request.getAmount());
+        assertEquals("cars", request.getType());
+        assertEquals(5L, request.getParentId());
+    }
+
+    @Test
+    void testDeserialize_ReadsIdAndParentId() throws Exception {
+        // Arrange
+        String json = "{\"id\": 11, \"amount\": 5.0, \"type\": \"cars\", \"parent_id\": 10}";
+
+        // Act
+        BatchTransactionRequest request = new ObjectMapper().readValue(json, BatchTransactionRequest.class);
+
+        // Assert
+        assertEquals(11L, request.getId());
+        assertEquals(10L, request.getParentId());
+    }
+
+    @Test
+    void testValidation_IdNull_ViolatesNotNull() {
+        // Arrange
+        BatchTransactionRequest request = new BatchTransactionRequest(null, new BigDecimal("100.0"), "cars", null);
+
+        // Act
+        Set<ConstraintViolation<BatchTransactionRequest>> violations = validator.validate(request);
+
+        // Assert
+        assertEquals(1, violations.size());
+        assertEquals("id es requerido", violations.iterator().next().getMessage());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para CountResponse.
+ */
+class CountResponseTest {
+
+    @Test
+    void testSerialize() throws Exception {
+        // Act
+        String json = new ObjectMapper().writeValueAsString(new CountResponse(42L));
+
+        // Assert
+        assertEquals("{\"count\":42}", json);
+    }
+
+    @Test
+    void testSetterAndGetter() {
+        // Arrange
+        CountResponse response = new CountResponse();
+
+        // Act
+        response.setCount(7L);
+
+        // Assert
+        assertEquals(7L, response.getCount());
+    }
+}
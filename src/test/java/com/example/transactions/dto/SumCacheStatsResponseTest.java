@@ -0,0 +1,53 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SumCacheStatsResponse.
+ */
+class SumCacheStatsResponseTest {
+
+    @Test
+    void testSerialize() throws Exception {
+        // Act
+        JsonNode json = new ObjectMapper().valueToTree(new SumCacheStatsResponse(3, 100, 40, 5, 2, 1, true));
+
+        // Assert
+        assertEquals(7, json.size());
+        assertEquals(3, json.get("size").asInt());
+        assertEquals(100, json.get("maximum_size").asInt());
+        assertEquals(40, json.get("hits").asLong());
+        assertEquals(5, json.get("misses").asLong());
+        assertEquals(2, json.get("stale_hits").asLong());
+        assertEquals(1, json.get("evictions").asLong());
+        assertTrue(json.get("stale_while_revalidate").asBoolean());
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        // Arrange
+        SumCacheStatsResponse response = new SumCacheStatsResponse();
+
+        // Act
+        response.setSize(1);
+        response.setMaximumSize(10);
+        response.setHits(7L);
+        response.setMisses(3L);
+        response.setStaleHits(2L);
+        response.setEvictions(4L);
+        response.setStaleWhileRevalidate(true);
+
+        // Assert
+        assertEquals(1, response.getSize());
+        assertEquals(10, response.getMaximumSize());
+        assertEquals(7L, response.getHits());
+        assertEquals(3L, response.getMisses());
+        assertEquals(2L, response.getStaleHits());
+        assertEquals(4L, response.getEvictions());
+        assertTrue(response.isStaleWhileRevalidate());
+    }
+}
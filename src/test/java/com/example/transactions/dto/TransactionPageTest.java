@@ -0,0 +1,44 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TransactionPage.
+ */
+class TransactionPageTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testSerialize_UsesSnakeCaseCursor() throws Exception {
+        // Arrange
+        TransactionPage page = new TransactionPage(
+                List.of(new TransactionResponse(7L, new BigDecimal("1.5"), "cars", 3L)), 7L);
+
+        // Act
+        String json = objectMapper.writeValueAsString(page);
+
+        // Assert
+        assertEquals("{\"items\":[{\"id\":7,\"amount\":1.5,\"type\":\"cars\",\"parent_id\":3}],\"next_cursor\":7}", json);
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        // Arrange
+        TransactionPage page = new TransactionPage();
+
+        // Act
+        page.setItems(List.of());
+        page.setNextCursor(42L);
+
+        // Assert
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(42L, page.getNextCursor());
+    }
+}
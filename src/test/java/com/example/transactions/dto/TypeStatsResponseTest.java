@@ -0,0 +1,47 @@
+package com.example.transactions.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TypeStatsResponse.
+ */
+class TypeStatsResponseTest {
+
+    @Test
+    void testSerialize_UsesSnakeCaseAmounts() throws Exception {
+        // Arrange
+        TypeStatsResponse response = new TypeStatsResponse("cars", 2, new BigDecimal("150.5"),
+                new BigDecimal("50.5"), new BigDecimal("100"));
+
+        // Act
+        String json = new ObjectMapper().writeValueAsString(response);
+
+        // Assert
+        assertEquals("{\"type\":\"cars\",\"count\":2,\"total_amount\":150.5,\"min_amount\":50.5,\"max_amount\":100}", json);
+    }
+
+    @Test
+    void testSettersAndGetters() {
+        // Arrange
+        TypeStatsResponse response = new TypeStatsResponse();
+
+        // Act
+        response.setType("food");
+        response.setCount(3);
+        response.setTotalAmount(BigDecimal.TEN);
+        response.setMinAmount(BigDecimal.ONE);
+        response.setMaxAmount(new BigDecimal("5"));
+
+        // Assert
+        assertEquals("food", response.getType());
+        assertEquals(3, response.getCount());
+        assertEquals(BigDecimal.TEN, response.getTotalAmount());
+        assertEquals(BigDecimal.ONE, response.getMinAmount());
+        assertEquals(new BigDecimal("5"), response.getMaxAmount());
+    }
+}
@@ -3,11 +3,16 @@ package com.example.transactions.exception;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -207,6 +212,47 @@ class GlobalExceptionHandlerTest {
 
     // ========== Tests para Exception genérica ==========
 
+    @Test
+    void testHandleMessageNotReadableException() {
+        // Arrange - Por ejemplo un objeto donde PUT /transactions/batch espera una lista
+        HttpMessageNotReadableException exception = new HttpMessageNotReadableException(
+                "Cannot deserialize value of type `java.util.ArrayList`", new MockHttpInputMessage(new byte[0]));
+
+        // Act
+        ResponseEntity<Map<String, String>> response = exceptionHandler.handleMessageNotReadableException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Cuerpo de la solicitud inválido", response.getBody().get("error"));
+    }
+
+    @Test
+    void testHandleMediaTypeNotSupportedException() {
+        // Arrange - Por ejemplo JSON en POST /transactions/ingest, que espera NDJSON
+        HttpMediaTypeNotSupportedException exception = new HttpMediaTypeNotSupportedException(
+                MediaType.APPLICATION_JSON, List.of(MediaType.APPLICATION_NDJSON));
+
+        // Act
+        ResponseEntity<Map<String, String>> response = exceptionHandler.handleMediaTypeNotSupportedException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.getStatusCode());
+        assertEquals("Content-Type no soportado: application/json", response.getBody().get("error"));
+    }
+
+    @Test
+    void testHandleInvalidPageRequestException() {
+        // Arrange
+        InvalidPageRequestException exception = new InvalidPageRequestException("limit debe estar entre 1 y 1000");
+
+        // Act
+        ResponseEntity<Map<String, String>> response = exceptionHandler.handleInvalidPageRequestException(exception);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("limit debe estar entre 1 y 1000", response.getBody().get("error"));
+    }
+
     @Test
     void testHandleGenericException() {
         // Arrange
@@ -272,6 +318,24 @@ class GlobalExceptionHandlerTest {
         assertTrue(response.getBody().get("error").contains("Error interno del servidor"));
     }
 
+    // ========== Tests para VersionConflictException ==========
+
+    @Test
+    void testHandleVersionConflictException() {
+        // Arrange
+        String message = "La transacción con ID 10 no tiene la versión 3";
+        VersionConflictException exception = new VersionConflictException(message);
+
+        // Act
+        ResponseEntity<Map<String, String>> response = exceptionHandler.handleVersionConflictException(exception);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(message, response.getBody().get("error"));
+    }
+
     // ========== Tests de formato de respuesta ==========
 
     @Test
@@ -0,0 +1,41 @@
+package com.example.transactions.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para InvalidPageRequestException.
+ */
+class InvalidPageRequestExceptionTest {
+
+    @Test
+    void testConstructorWithMessage() {
+        // Arrange
+        String message = "limit debe estar entre 1 y 1000";
+
+        // Act
+        InvalidPageRequestException exception = new InvalidPageRequestException(message);
+
+        // Assert
+        assertNotNull(exception);
+        assertEquals(message, exception.getMessage());
+        assertNull(exception.getCause());
+        assertTrue(exception instanceof RuntimeException);
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        // Arrange
+        String message = "Página inválida";
+        Throwable cause = new IllegalArgumentException("Causa original");
+
+        // Act
+        InvalidPageRequestException exception = new InvalidPageRequestException(message, cause);
+
+        // Assert
+        assertNotNull(exception);
+        assertEquals(message, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+}
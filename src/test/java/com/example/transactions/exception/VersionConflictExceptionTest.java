@@ -0,0 +1,41 @@
+package com.example.transactions.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para VersionConflictException.
+ */
+class VersionConflictExceptionTest {
+
+    @Test
+    void testConstructorWithMessage() {
+        // Arrange
+        String message = "La transacción con ID 10 no tiene la versión 3";
+
+        // Act
+        VersionConflictException exception = new VersionConflictException(message);
+
+        // Assert
+        assertNotNull(exception);
+        assertEquals(message, exception.getMessage());
+        assertNull(exception.getCause());
+        assertTrue(exception instanceof RuntimeException);
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        // Arrange
+        String message = "Versión desactualizada";
+        Throwable cause = new IllegalStateException("Causa original");
+
+        // Act
+        VersionConflictException exception = new VersionConflictException(message, cause);
+
+        // Assert
+        assertNotNull(exception);
+        assertEquals(message, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+}
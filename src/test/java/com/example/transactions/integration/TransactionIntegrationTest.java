@@ -5,6 +5,7 @@ import com.example.transactions.dto.TransactionRequest;
 import com.example.transactions.exception.GlobalExceptionHandler;
 import com.example.transactions.repository.TransactionRepository;
 import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.example.transactions.service.SumCache;
 import com.example.transactions.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,7 +15,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -415,6 +419,33 @@ class TransactionIntegrationTest {
                 .andExpect(jsonPath("$.sum").value(23000.0));
     }
 
+    @Test
+    void testGetSum_StaleWhileRevalidate_ETagMatchesServedSum() throws Exception {
+        // Arrange - Caché con stale-while-revalidate; los recálculos corren cuando el test decide
+        List<Runnable> refreshes = new ArrayList<>();
+        service = new TransactionService(repository, new SumCache(100, true, refreshes::add));
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionController(service))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        createTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        String cachedTag = mockMvc.perform(get("/transactions/sum/{id}", 1L))
+                .andReturn().getResponse().getHeader("ETag");
+        createTransaction(1L, new TransactionRequest(new BigDecimal("200"), "cars", null));
+
+        // Act - Un GET recibe la suma vencida y, ya recalculada, la revalida con su ETag
+        String staleTag = mockMvc.perform(get("/transactions/sum/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sum").value(100))
+                .andReturn().getResponse().getHeader("ETag");
+        refreshes.forEach(Runnable::run);
+
+        // Assert - El ETag es el de la suma servida, así que no valida la suma vieja como actual
+        assertEquals(cachedTag, staleTag);
+        mockMvc.perform(get("/transactions/sum/{id}", 1L).header("If-None-Match", staleTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sum").value(200));
+    }
+
     // ========== Métodos auxiliares ==========
 
     private void createTransaction(Long id, TransactionRequest request) throws Exception {
@@ -143,6 +143,21 @@ class TransactionTest {
         assertNull(transaction.getAmount());
     }
 
+    @Test
+    void testVersion_DefaultsToZeroAndDoesNotAffectEquality() {
+        // Arrange
+        Transaction transaction = new Transaction(1L, new BigDecimal("100.0"), "cars", null);
+        Transaction sameId = new Transaction(1L, new BigDecimal("100.0"), "cars", null);
+
+        // Act
+        sameId.setVersion(3L);
+
+        // Assert
+        assertEquals(0L, transaction.getVersion());
+        assertEquals(3L, sameId.getVersion());
+        assertEquals(transaction, sameId);
+    }
+
     @Test
     void testSetAmount_DecimalPrecision() {
         // Arrange
@@ -0,0 +1,210 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para EulerTourIndex, a través del repositorio con
+ * transactions.hierarchy.engine=euler-tour.
+ */
+class EulerTourIndexTest {
+
+    private TransactionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepositoryImpl(null, null, "euler-tour");
+    }
+
+    @Test
+    void testSubtreeSum_Hierarchy() {
+        // Arrange - 10 -> 11 -> 12
+        repository.save(new Transaction(10L, new BigDecimal("5000"), "cars", null));
+        repository.save(new Transaction(11L, new BigDecimal("10000"), "shopping", 10L));
+        repository.save(new Transaction(12L, new BigDecimal("5000"), "shopping", 11L));
+
+        // Act & Assert
+        assertEquals(new BigDecimal("20000"), repository.findSubtreeSum(10L));
+        assertEquals(new BigDecimal("15000"), repository.findSubtreeSum(11L));
+        assertEquals(new BigDecimal("5000"), repository.findSubtreeSum(12L));
+        assertNull(repository.findSubtreeSum(99L));
+    }
+
+    @Test
+    void testSubtreeSum_AmountUpdate() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "a", null));
+        repository.save(new Transaction(2L, new BigDecimal("50"), "a", 1L));
+
+        // Act
+        repository.save(new Transaction(2L, new BigDecimal("70.25"), "a", 1L));
+
+        // Assert
+        assertEquals(new BigDecimal("170.25"), repository.findSubtreeSum(1L));
+        assertEquals(new BigDecimal("70.25"), repository.findSubtreeSum(2L));
+    }
+
+    @Test
+    void testSubtreeSum_NullAmountCountsAsZero() {
+        // Arrange
+        repository.save(new Transaction(1L, null, "a", null));
+        repository.save(new Transaction(2L, new BigDecimal("3.5"), "a", 1L));
+
+        // Act & Assert
+        assertEquals(new BigDecimal("3.5"), repository.findSubtreeSum(1L));
+    }
+
+    @Test
+    void testSubtreeSum_ReparentMovesWholeSubtree() {
+        // Arrange - 1 -> 2 -> 3 y 4 como otra raíz
+        repository.save(new Transaction(1L, new BigDecimal("1"), "a", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "a", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("100"), "a", 2L));
+        repository.save(new Transaction(4L, new BigDecimal("1000"), "a", null));
+
+        // Act - El subárbol de 2 pasa a colgar de 4
+        repository.save(new Transaction(2L, new BigDecimal("10"), "a", 4L));
+
+        // Assert
+        assertEquals(new BigDecimal("1"), repository.findSubtreeSum(1L));
+        assertEquals(new BigDecimal("1110"), repository.findSubtreeSum(4L));
+        assertEquals(new BigDecimal("110"), repository.findSubtreeSum(2L));
+    }
+
+    @Test
+    void testSubtreeSum_ChildrenSavedBeforeParent() {
+        // Arrange - Los hijos llegan antes que su padre
+        repository.save(new Transaction(2L, new BigDecimal("20"), "a", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("30"), "a", 2L));
+        assertEquals(new BigDecimal("50"), repository.findSubtreeSum(2L));
+
+        // Act
+        repository.save(new Transaction(1L, new BigDecimal("1"), "a", null));
+
+        // Assert
+        assertEquals(new BigDecimal("51"), repository.findSubtreeSum(1L));
+    }
+
+    @Test
+    void testSubtreeSum_DeepChainWithMoves() {
+        // Arrange - Cadena de 100.000 niveles
+        int depth = 100_000;
+        repository.save(new Transaction(0L, BigDecimal.ONE, "chain", null));
+        for (long id = 1; id < depth; id++) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "chain", id - 1));
+        }
+
+        // Act - La mitad inferior de la cadena pasa a colgar de la raíz y vuelve
+        repository.save(new Transaction(50_000L, BigDecimal.ONE, "chain", 0L));
+        BigDecimal midAfterMove = repository.findSubtreeSum(49_999L);
+        repository.save(new Transaction(50_000L, BigDecimal.ONE, "chain", 49_999L));
+
+        // Assert
+        assertEquals(new BigDecimal(depth), repository.findSubtreeSum(0L));
+        assertEquals(BigDecimal.ONE, midAfterMove);
+        assertEquals(new BigDecimal(50_001), repository.findSubtreeSum(49_999L));
+        assertEquals(BigDecimal.ONE, repository.findSubtreeSum(depth - 1L));
+    }
+
+    @Test
+    void testIsAncestor_FollowsMoves() {
+        // Arrange - 1 -> 2 -> 3 y 4 como otra raíz
+        repository.save(new Transaction(1L, new BigDecimal("1"), "a", null));
+        repository.save(new Transaction(2L, new BigDecimal("1"), "a", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("1"), "a", 2L));
+        repository.save(new Transaction(4L, new BigDecimal("1"), "a", null));
+        assertTrue(repository.isAncestor(1L, 3L));
+
+        // Act
+        repository.save(new Transaction(2L, new BigDecimal("1"), "a", 4L));
+
+        // Assert
+        assertFalse(repository.isAncestor(1L, 3L));
+        assertTrue(repository.isAncestor(4L, 3L));
+        assertFalse(repository.isAncestor(3L, 3L));
+        assertFalse(repository.isAncestor(3L, 4L));
+        assertFalse(repository.isAncestor(99L, 3L));
+    }
+
+    @Test
+    void testSubtreeSum_MatchesMaterializedEngine() {
+        // Arrange - Mismas operaciones aleatorias sobre ambos motores
+        TransactionRepositoryImpl materialized = new TransactionRepositoryImpl(null, null, "materialized");
+        Random random = new Random(7);
+        int ids = 300;
+
+        // Act
+        for (int step = 0; step < 5_000; step++) {
+            long id = random.nextInt(ids);
+            Long parentId = random.nextInt(5) == 0 ? null : (long) random.nextInt(ids);
+            if (parentId != null && createsCycle(materialized, id, parentId)) {
+                parentId = null;
+            }
+            BigDecimal amount = random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(10_000), 2);
+            Transaction transaction = new Transaction(id, amount, "t" + random.nextInt(3), parentId);
+            materialized.save(transaction);
+            repository.save(new Transaction(id, amount, transaction.getType(), parentId));
+        }
+
+        // Assert
+        for (long id = 0; id < ids; id++) {
+            BigDecimal expected = materialized.findSubtreeSum(id);
+            BigDecimal actual = repository.findSubtreeSum(id);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(0, expected.compareTo(actual), "suma de " + id);
+            }
+            for (long other = 0; other < ids; other += 7) {
+                assertEquals(materialized.isAncestor(other, id), repository.isAncestor(other, id),
+                        other + " ancestro de " + id);
+            }
+        }
+    }
+
+    @Test
+    void testRestore_BuildsTreapsFromSnapshot(@TempDir Path directory) throws IOException {
+        // Arrange
+        TransactionRepositoryImpl source = new TransactionRepositoryImpl(null, new SnapshotStore(directory), "euler-tour");
+        for (long id = 0; id < 20_000; id++) {
+            source.save(new Transaction(id, BigDecimal.ONE, "a", id == 0 ? null : (id - 1) / 3));
+        }
+        source.checkpoint();
+
+        // Act
+        TransactionRepositoryImpl restored = new TransactionRepositoryImpl(null, new SnapshotStore(directory), "euler-tour");
+        restored.save(new Transaction(20_000L, new BigDecimal("5"), "a", 1L));
+
+        // Assert
+        assertEquals(new BigDecimal(20_005), restored.findSubtreeSum(0L));
+        assertEquals(0, source.findSubtreeSum(1L).add(new BigDecimal("5")).compareTo(restored.findSubtreeSum(1L)));
+        assertEquals(source.findSubtreeSum(2L), restored.findSubtreeSum(2L));
+    }
+
+    @Test
+    void testCreate_UnknownEngineThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionRepositoryImpl(null, null, "splay"));
+    }
+
+    private static boolean createsCycle(TransactionRepositoryImpl repository, long id, long parentId) {
+        Long current = parentId;
+        int steps = 0;
+        while (current != null && steps++ < 10_000) {
+            if (current == id) {
+                return true;
+            }
+            Transaction parent = repository.findById(current);
+            current = parent != null ? parent.getParentId() : null;
+        }
+        return false;
+    }
+}
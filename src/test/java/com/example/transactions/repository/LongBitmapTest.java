@@ -0,0 +1,155 @@
+package com.example.transactions.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LongBitmap.
+ */
+class LongBitmapTest {
+
+    private LongBitmap bitmap;
+
+    @BeforeEach
+    void setUp() {
+        bitmap = new LongBitmap();
+    }
+
+    @Test
+    void testAdd_ReportsNewValues() {
+        // Act & Assert
+        assertTrue(bitmap.add(10L));
+        assertFalse(bitmap.add(10L));
+        assertTrue(bitmap.contains(10L));
+        assertFalse(bitmap.contains(11L));
+        assertEquals(1, bitmap.cardinality());
+    }
+
+    @Test
+    void testRemove_ReportsRemovedValues() {
+        // Arrange
+        bitmap.add(10L);
+
+        // Act & Assert
+        assertTrue(bitmap.remove(10L));
+        assertFalse(bitmap.remove(10L));
+        assertFalse(bitmap.remove(999_999L));
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void testForEach_AscendingIncludingNegativeAndExtremeValues() {
+        // Arrange
+        long[] values = {5L, -3L, Long.MAX_VALUE, 70_000L, Long.MIN_VALUE, 0L, 65_535L, 65_536L};
+        for (long value : values) {
+            bitmap.add(value);
+        }
+
+        // Act
+        List<Long> iterated = new ArrayList<>();
+        bitmap.forEach(iterated::add);
+
+        // Assert
+        assertEquals(List.of(Long.MIN_VALUE, -3L, 0L, 5L, 65_535L, 65_536L, 70_000L, Long.MAX_VALUE), iterated);
+    }
+
+    @Test
+    void testDenseContainer_ConvertsAndKeepsValues() {
+        // Act - Más de 4096 valores en el mismo contenedor fuerzan el contenedor bitmap
+        for (long value = 0; value < 10_000; value++) {
+            bitmap.add(value);
+        }
+        for (long value = 0; value < 10_000; value += 2) {
+            bitmap.remove(value);
+        }
+
+        // Assert - Al vaciarse por debajo del umbral vuelve a un arreglo
+        assertEquals(5_000, bitmap.cardinality());
+        assertTrue(bitmap.contains(9_999L));
+        assertFalse(bitmap.contains(9_998L));
+        for (long value = 1; value < 10_000; value += 4) {
+            bitmap.remove(value);
+        }
+        assertEquals(2_500, bitmap.cardinality());
+        assertTrue(bitmap.contains(3L));
+        assertFalse(bitmap.contains(1L));
+    }
+
+    @Test
+    void testCopy_IsIndependent() {
+        // Arrange
+        bitmap.add(1L);
+        bitmap.add(100_000L);
+
+        // Act
+        LongBitmap copy = bitmap.copy();
+        bitmap.add(2L);
+        copy.remove(1L);
+
+        // Assert
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(bitmap.contains(1L));
+        assertEquals(1, copy.cardinality());
+        assertTrue(copy.contains(100_000L));
+    }
+
+    @Test
+    void testRandomOperations_MatchTreeSet() {
+        // Arrange
+        Random random = new Random(7);
+        TreeSet<Long> expected = new TreeSet<>();
+
+        // Act
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(200_000) - 50_000L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+        }
+
+        // Assert
+        List<Long> iterated = new ArrayList<>();
+        bitmap.forEach(iterated::add);
+        assertEquals(new ArrayList<>(expected), iterated);
+        assertEquals(expected.size(), bitmap.cardinality());
+    }
+
+    @Test
+    void testForEachFrom_MatchesTreeSetTailInBothContainers() {
+        // Arrange - Un contenedor denso (bitmap), uno disperso (arreglo) y valores negativos
+        Random random = new Random(11);
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long value = random.nextInt(1 << 16);
+            expected.add(value);
+            bitmap.add(value);
+        }
+        for (long value : new long[]{-70_000L, -1L, 200_000L, 200_005L, Long.MAX_VALUE}) {
+            expected.add(value);
+            bitmap.add(value);
+        }
+
+        for (long from : new long[]{Long.MIN_VALUE, -70_000L, -5L, 0L, 1L, 4_097L, 65_535L, 65_536L, 200_001L, Long.MAX_VALUE}) {
+            // Act - Hasta 50 valores desde from
+            List<Long> page = new ArrayList<>();
+            boolean completed = bitmap.forEachFrom(from, value -> {
+                page.add(value);
+                return page.size() < 50;
+            });
+
+            // Assert
+            List<Long> tail = expected.tailSet(from, true).stream().limit(50).toList();
+            assertEquals(tail, page, "from " + from);
+            assertEquals(expected.tailSet(from, true).size() < 50, completed, "from " + from);
+        }
+    }
+}
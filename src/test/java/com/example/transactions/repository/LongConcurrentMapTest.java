@@ -0,0 +1,185 @@
+package com.example.transactions.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LongConcurrentMap.
+ *
+ * Cubre el segmento denso, el segmento hash, la migración entre ambos
+ * y lecturas concurrentes durante el crecimiento.
+ */
+class LongConcurrentMapTest {
+
+    private LongConcurrentMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new LongConcurrentMap<>();
+    }
+
+    @Test
+    void testGet_MissingKey() {
+        assertNull(map.get(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void testPut_ReturnsPreviousValue() {
+        // Act
+        String first = map.put(5L, "a");
+        String second = map.put(5L, "b");
+
+        // Assert
+        assertNull(first);
+        assertEquals("a", second);
+        assertEquals("b", map.get(5L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testPut_SequentialIdsUseDenseSegment() {
+        // Act
+        for (long id = 0; id < 10_000; id++) {
+            map.put(id, "v" + id);
+        }
+
+        // Assert
+        assertTrue(map.isDense(0L));
+        assertTrue(map.isDense(9_999L));
+        assertEquals("v4321", map.get(4321L));
+        assertEquals(10_000, map.size());
+    }
+
+    @Test
+    void testPut_SparseAndNegativeIdsUseHashSegment() {
+        // Act
+        map.put(-7L, "negative");
+        map.put(Long.MAX_VALUE, "max");
+        map.put(1_000_000_000_000L, "far");
+
+        // Assert
+        assertFalse(map.isDense(-7L));
+        assertFalse(map.isDense(Long.MAX_VALUE));
+        assertEquals("negative", map.get(-7L));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+        assertEquals("far", map.get(1_000_000_000_000L));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testPut_KeysAheadOfDenseSegmentAreMigrated() {
+        // Arrange - 5000 se guarda en el segmento hash porque el denso todavía no llega
+        map.put(5_000L, "ahead");
+        assertFalse(map.isDense(5_000L));
+
+        // Act - El segmento denso crece secuencialmente hasta alcanzarlo
+        for (long id = 0; id < 5_000; id++) {
+            map.put(id, "v" + id);
+        }
+
+        // Assert
+        assertTrue(map.isDense(5_000L));
+        assertEquals("ahead", map.get(5_000L));
+        assertEquals(5_001, map.size());
+        assertEquals("ahead", map.put(5_000L, "updated"));
+        assertEquals(5_001, map.values().size());
+    }
+
+    @Test
+    void testPut_NullValue_ThrowsException() {
+        assertThrows(NullPointerException.class, () -> map.put(1L, null));
+    }
+
+    @Test
+    void testValues_ContainsBothSegments() {
+        // Arrange
+        map.put(0L, "dense");
+        map.put(-1L, "hash");
+
+        // Act
+        List<String> values = map.values();
+
+        // Assert
+        assertEquals(2, values.size());
+        assertTrue(values.containsAll(List.of("dense", "hash")));
+    }
+
+    @Test
+    void testGet_ConcurrentReadersNeverMissExistingKeys() throws Exception {
+        // Arrange - Claves ya escritas que los lectores verifican mientras el mapa crece
+        int existing = 2_000;
+        for (long id = 0; id < existing; id++) {
+            map.put(id * 7919, "v" + id);
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(executor.submit(() -> {
+                int misses = 0;
+                while (writing.get()) {
+                    for (long id = 0; id < existing; id++) {
+                        if (map.get(id * 7919) == null) {
+                            misses++;
+                        }
+                    }
+                }
+                return misses;
+            }));
+        }
+        for (long id = 0; id < 200_000; id++) {
+            map.put(id, "w" + id);
+            if (id % 7919 == 0) {
+                map.put(-id - 1, "n");
+            }
+        }
+        writing.set(false);
+
+        // Assert
+        for (Future<Integer> reader : readers) {
+            assertEquals(0, reader.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testReserveDense_MigratesAheadKeysAndCoversRange() {
+        // Arrange - Una clave adelantada cae en el segmento hash
+        map.put(50_000L, "ahead");
+        assertFalse(map.isDense(50_000L));
+
+        // Act
+        map.reserveDense(100_000L);
+
+        // Assert
+        assertTrue(map.isDense(50_000L));
+        assertTrue(map.isDense(100_000L));
+        assertEquals("ahead", map.get(50_000L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testReserveDense_IgnoresKeysOutsideDenseRange() {
+        // Act
+        map.reserveDense(Long.MAX_VALUE);
+        map.reserveDense(-1L);
+
+        // Assert
+        assertFalse(map.isDense(0L));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para MaterializedSumIndex. Las transacciones se escriben directamente en
+ * el almacén para armar jerarquías que save() no aceptaría.
+ */
+class MaterializedSumIndexTest {
+
+    private LongConcurrentMap<Transaction> transactions;
+    private Map<Long, Set<Long>> childrenIndex;
+    private MaterializedSumIndex index;
+
+    @BeforeEach
+    void setUp() {
+        transactions = new LongConcurrentMap<>();
+        childrenIndex = new ConcurrentHashMap<>();
+        index = new MaterializedSumIndex(transactions, childrenIndex);
+    }
+
+    @Test
+    void testOnSave_ParentCycleWithoutTheSavedIdIsWalkedOnce() {
+        // Arrange - 1 y 2 son padre uno del otro
+        store(new Transaction(1L, BigDecimal.ZERO, "a", 2L));
+        store(new Transaction(2L, BigDecimal.ZERO, "a", 1L));
+        Transaction child = store(new Transaction(3L, new BigDecimal("5"), "a", 1L));
+
+        // Act
+        index.onSave(null, child);
+
+        // Assert
+        assertEquals(new BigDecimal("5"), index.subtreeSum(3L));
+        assertEquals(new BigDecimal("5"), index.subtreeSum(1L));
+        assertEquals(new BigDecimal("5"), index.subtreeSum(2L));
+    }
+
+    @Test
+    void testOnSave_CycleAfterAPrefixAddsDeltaOncePerAncestor() {
+        // Arrange - 10 -> 1 -> 2 -> 3 -> 1
+        store(new Transaction(10L, BigDecimal.ZERO, "a", 1L));
+        store(new Transaction(1L, BigDecimal.ZERO, "a", 2L));
+        store(new Transaction(2L, BigDecimal.ZERO, "a", 3L));
+        store(new Transaction(3L, BigDecimal.ZERO, "a", 1L));
+        Transaction child = store(new Transaction(20L, new BigDecimal("7"), "a", 10L));
+
+        // Act
+        index.onSave(null, child);
+
+        // Assert
+        for (long id : new long[] {10L, 1L, 2L, 3L, 20L}) {
+            assertEquals(new BigDecimal("7"), index.subtreeSum(id), "ID " + id);
+        }
+    }
+
+    @Test
+    void testOnSave_ChainWithoutCycle() {
+        // Arrange - 1 -> 2 -> 3
+        index.onSave(null, store(new Transaction(1L, new BigDecimal("1"), "a", null)));
+        index.onSave(null, store(new Transaction(2L, new BigDecimal("10"), "a", 1L)));
+
+        // Act
+        index.onSave(null, store(new Transaction(3L, new BigDecimal("100"), "a", 2L)));
+
+        // Assert
+        assertEquals(new BigDecimal("111"), index.subtreeSum(1L));
+        assertEquals(new BigDecimal("110"), index.subtreeSum(2L));
+        assertEquals(new BigDecimal("100"), index.subtreeSum(3L));
+    }
+
+    private Transaction store(Transaction transaction) {
+        transactions.put(transaction.getId(), transaction);
+        if (transaction.getParentId() != null) {
+            childrenIndex.computeIfAbsent(transaction.getParentId(), k -> ConcurrentHashMap.newKeySet())
+                    .add(transaction.getId());
+        }
+        return transaction;
+    }
+}
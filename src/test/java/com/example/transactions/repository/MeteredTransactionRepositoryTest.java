@@ -0,0 +1,98 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para MeteredTransactionRepository.
+ */
+class MeteredTransactionRepositoryTest {
+
+    private SimpleMeterRegistry registry;
+    private MeteredTransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        repository = new MeteredTransactionRepository(new TransactionRepositoryImpl(), registry);
+    }
+
+    @Test
+    void testOperations_DelegateAndRecordOneTimerPerMethod() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+
+        // Act
+        repository.save(new Transaction(2L, new BigDecimal("50"), "cars", 1L));
+        Transaction found = repository.findById(2L);
+        BigDecimal sum = repository.findSubtreeSum(1L);
+        boolean ancestor = repository.isAncestor(1L, 2L);
+
+        // Assert
+        assertEquals(new BigDecimal("50"), found.getAmount());
+        assertEquals(new BigDecimal("150"), sum);
+        assertTrue(ancestor);
+        assertEquals(2, timerCount("save"));
+        assertEquals(1, timerCount("findById"));
+        assertEquals(1, timerCount("findSubtreeSum"));
+        assertEquals(1, timerCount("isAncestor"));
+        assertEquals(0, timerCount("findAll"));
+    }
+
+    @Test
+    void testFindIdsByType_OverloadsHaveSeparateTimers() {
+        // Arrange
+        repository.saveAll(List.of(
+                new Transaction(1L, BigDecimal.ONE, "food", null),
+                new Transaction(2L, BigDecimal.ONE, "food", null)));
+
+        // Act
+        List<Long> all = repository.findIdsByType("food");
+        List<Long> page = repository.findIdsByType("food", 1L, 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), all);
+        assertEquals(List.of(2L), page);
+        assertEquals(1, timerCount("saveAll"));
+        assertEquals(1, timerCount("findIdsByType"));
+        assertEquals(1, timerCount("findIdsByTypePage"));
+    }
+
+    @Test
+    void testSaveIfVersion_RecordsRejectedWrites() {
+        // Arrange
+        repository.save(new Transaction(1L, BigDecimal.ONE, "cars", null));
+
+        // Act
+        boolean saved = repository.saveIfVersion(new Transaction(1L, BigDecimal.TEN, "cars", null), 5);
+
+        // Assert
+        assertFalse(saved);
+        assertEquals(BigDecimal.ONE, repository.findById(1L).getAmount());
+        assertEquals(1, timerCount("saveIfVersion"));
+    }
+
+    @Test
+    void testGetDelegate_ReadsAreNotRecorded() {
+        // Arrange
+        repository.save(new Transaction(1L, BigDecimal.ONE, "cars", null));
+
+        // Act
+        Transaction found = repository.getDelegate().findById(1L);
+
+        // Assert
+        assertNotNull(found);
+        assertEquals(0, timerCount("findById"));
+    }
+
+    private long timerCount(String method) {
+        return registry.get(MeteredTransactionRepository.TIMER).tag("method", method).timer().count();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.transactions.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para OffHeapLongIntMap.
+ */
+class OffHeapLongIntMapTest {
+
+    @Test
+    void testGet_MissingKey() {
+        OffHeapLongIntMap map = new OffHeapLongIntMap(16);
+
+        assertEquals(OffHeapLongIntMap.MISSING, map.get(42L));
+    }
+
+    @Test
+    void testPut_ReplacesExistingValue() {
+        // Arrange
+        OffHeapLongIntMap map = new OffHeapLongIntMap(16);
+        map.put(42L, 1);
+
+        // Act
+        map.put(42L, 7);
+
+        // Assert
+        assertEquals(7, map.get(42L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testPut_GrowsBeyondInitialCapacity() {
+        // Arrange
+        OffHeapLongIntMap map = new OffHeapLongIntMap(4);
+
+        // Act - Incluye claves negativas y extremas
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31L - 5_000, i);
+        }
+        map.put(Long.MIN_VALUE, 0);
+        map.put(Long.MAX_VALUE, 1);
+
+        // Assert
+        assertEquals(10_002, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i * 31L - 5_000));
+        }
+        assertEquals(0, map.get(Long.MIN_VALUE));
+        assertEquals(1, map.get(Long.MAX_VALUE));
+        assertTrue(map.offHeapBytes() > 0);
+    }
+}
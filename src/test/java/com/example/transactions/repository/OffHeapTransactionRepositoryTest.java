@@ -0,0 +1,466 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.exception.InvalidParentException;
+import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para OffHeapTransactionRepository.
+ *
+ * Verifica que la implementación columnar se comporta igual que la implementación
+ * en heap: altas, actualizaciones, índices por tipo y por padre, y sumas materializadas.
+ */
+class OffHeapTransactionRepositoryTest {
+
+    private OffHeapTransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // Capacidad mínima para ejercitar el crecimiento de las columnas
+        repository = new OffHeapTransactionRepository(16);
+    }
+
+    @Test
+    void testSave_NewTransaction() {
+        // Arrange
+        Transaction transaction = new Transaction(1L, new BigDecimal("100.0"), "cars", null);
+
+        // Act
+        repository.save(transaction);
+
+        // Assert
+        Transaction saved = repository.findById(1L);
+        assertNotNull(saved);
+        assertEquals(1L, saved.getId());
+        assertEquals(new BigDecimal("100.0"), saved.getAmount());
+        assertEquals("cars", saved.getType());
+        assertNull(saved.getParentId());
+        assertTrue(repository.existsById(1L));
+    }
+
+    @Test
+    void testSave_UpdateExistingTransaction() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(10L, new BigDecimal("1.0"), "cars", null));
+
+        // Act
+        repository.save(new Transaction(1L, new BigDecimal("200.0"), "shopping", 10L));
+
+        // Assert
+        Transaction saved = repository.findById(1L);
+        assertEquals(new BigDecimal("200.0"), saved.getAmount());
+        assertEquals("shopping", saved.getType());
+        assertEquals(10L, saved.getParentId());
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    void testSave_NullAmount() {
+        // Act
+        repository.save(new Transaction(1L, null, "cars", null));
+
+        // Assert
+        assertNull(repository.findById(1L).getAmount());
+        assertEquals(BigDecimal.ZERO, repository.findSubtreeSum(1L));
+    }
+
+    @Test
+    void testSave_NullType_ThrowsException() {
+        Transaction transaction = new Transaction(1L, new BigDecimal("100.0"), null, null);
+
+        assertThrows(NullPointerException.class, () -> repository.save(transaction));
+        assertFalse(repository.existsById(1L));
+    }
+
+    @Test
+    void testSave_AmountOutOfRange_ThrowsException() {
+        Transaction transaction = new Transaction(1L, new BigDecimal("1E+400"), "cars", null);
+
+        assertThrows(IllegalArgumentException.class, () -> repository.save(transaction));
+        assertFalse(repository.existsById(1L));
+    }
+
+    @Test
+    void testSave_SubtreeSumOutOfRange_LeavesStoreUnchanged() {
+        // Arrange - 95000000000000000 + 0.01 no entra en un long con escala 2
+        repository.save(new Transaction(1L, new BigDecimal("95000000000000000"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("5"), "food", null));
+        repository.save(new Transaction(3L, new BigDecimal("0.05"), "food", 2L));
+        BigDecimal parentSum = repository.findSubtreeSum(1L);
+
+        // Act & Assert - Alta, cambio de monto y cambio de padre que desbordarían la suma de 1
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(new Transaction(4L, new BigDecimal("0.01"), "travel", 1L)));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(new Transaction(1L, new BigDecimal("95000000000000000.01"), "cars", null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(new Transaction(3L, new BigDecimal("0.05"), "travel", 1L)));
+
+        // Assert - Ni el almacén ni los índices cambiaron
+        assertFalse(repository.existsById(4L));
+        assertEquals(3, repository.findAll().size());
+        assertEquals(List.of(1L, 2L, 3L), repository.findPage(null, 10).stream().map(Transaction::getId).toList());
+        assertTrue(repository.findIdsByType("travel").isEmpty());
+        assertEquals(List.of(2L, 3L), repository.findIdsByType("food"));
+        assertEquals(0, repository.findTypeStats("travel").getCount());
+        assertEquals(0, new BigDecimal("5.05").compareTo(repository.findTypeStats("food").getTotal()));
+        assertTrue(repository.findByParentId(1L).isEmpty());
+        assertEquals(2L, repository.findById(3L).getParentId());
+        assertEquals(1L, repository.findById(1L).getVersion());
+        assertEquals(1L, repository.findById(3L).getVersion());
+        assertEquals(parentSum, repository.findSubtreeSum(1L));
+        assertEquals(0, new BigDecimal("5.05").compareTo(repository.findSubtreeSum(2L)));
+        assertEquals(List.of(2L), repository.findAncestorIds(3L));
+    }
+
+    @Test
+    void testSave_ReparentWithinSameTreeUpdatesSharedAncestorsOnce() {
+        // Arrange - 1 -> 2 -> 3 y 1 -> 4
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 2L));
+        repository.save(new Transaction(4L, new BigDecimal("1000"), "cars", 1L));
+
+        // Act - 3 pasa de 2 a 4 y cambia su monto; 1 es ancestro de las dos cadenas
+        repository.save(new Transaction(3L, new BigDecimal("200"), "cars", 4L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("1211").compareTo(repository.findSubtreeSum(1L)));
+        assertEquals(0, new BigDecimal("10").compareTo(repository.findSubtreeSum(2L)));
+        assertEquals(0, new BigDecimal("1200").compareTo(repository.findSubtreeSum(4L)));
+    }
+
+    @Test
+    void testSubtreeListener_ReparentNotifiesBothChains() {
+        // Arrange - 1 -> 2 -> 3 y 4 aparte
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 2L));
+        repository.save(new Transaction(4L, new BigDecimal("1000"), "cars", null));
+        List<Long> notified = new ArrayList<>();
+        repository.setSubtreeListener(notified::add);
+
+        // Act - 3 pasa de 2 a 4
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 4L));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L), notified.stream().sorted().toList());
+    }
+
+    @Test
+    void testFindById_NonExistingTransaction() {
+        assertNull(repository.findById(999L));
+        assertFalse(repository.existsById(999L));
+    }
+
+    @Test
+    void testFindIdsByType_UpdatesWhenTypeChanges() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("200.0"), "cars", null));
+        repository.save(new Transaction(3L, new BigDecimal("300.0"), "cars", null));
+
+        // Act - La transacción del medio de la lista cambia de tipo
+        repository.save(new Transaction(2L, new BigDecimal("200.0"), "shopping", null));
+
+        // Assert
+        assertEquals(List.of(1L, 3L), repository.findIdsByType("cars"));
+        assertEquals(List.of(2L), repository.findIdsByType("shopping"));
+        assertTrue(repository.findIdsByType("unknown").isEmpty());
+        assertEquals(2, repository.countByType("cars"));
+        assertEquals(1, repository.countByType("shopping"));
+        assertEquals(0, repository.countByType("unknown"));
+    }
+
+    @Test
+    void testFindIdsByTypePage_SortedAndIgnoresPlaceholders() {
+        // Arrange - Altas desordenadas; 20 cuelga de 15, que todavía no existe
+        for (long id : new long[]{40L, 10L, 30L, 20L}) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "cars", id == 20L ? 15L : null));
+        }
+        repository.save(new Transaction(25L, BigDecimal.ONE, "food", null));
+
+        // Act
+        List<Long> first = repository.findIdsByType("cars", null, 3);
+        List<Long> second = repository.findIdsByType("cars", first.get(2), 3);
+
+        // Assert
+        assertEquals(List.of(10L, 20L, 30L), first);
+        assertEquals(List.of(40L), second);
+        assertEquals(4, repository.countByType("cars"));
+        assertTrue(repository.findIdsByType("cars", Long.MAX_VALUE, 3).isEmpty());
+        assertTrue(repository.findIdsByType("unknown", null, 3).isEmpty());
+
+        // Act - La fila fantasma se da de alta con el mismo tipo
+        repository.save(new Transaction(15L, BigDecimal.ONE, "cars", null));
+
+        // Assert
+        assertEquals(List.of(15L, 20L), repository.findIdsByType("cars", 10L, 2));
+    }
+
+    @Test
+    void testFindByParentId_ChildSavedBeforeParent() {
+        // Arrange - El padre todavía no existe: ocupa una fila fantasma
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+        assertFalse(repository.existsById(1L));
+        assertNull(repository.findById(1L));
+
+        // Act
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+
+        // Assert
+        List<Transaction> children = repository.findByParentId(1L);
+        assertEquals(1, children.size());
+        assertEquals(2L, children.get(0).getId());
+        assertEquals(new BigDecimal("150.0"), repository.findSubtreeSum(1L));
+        assertEquals(2, repository.findAll().size());
+    }
+
+    @Test
+    void testFindByParentId_Reparent() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("30.0"), "food", 1L));
+        repository.save(new Transaction(4L, new BigDecimal("20.0"), "food", 1L));
+
+        // Act
+        repository.save(new Transaction(3L, new BigDecimal("30.0"), "food", 2L));
+
+        // Assert
+        List<Transaction> rootChildren = repository.findByParentId(1L);
+        assertEquals(2, rootChildren.size());
+        assertTrue(rootChildren.stream().noneMatch(t -> t.getId().equals(3L)));
+        assertEquals(3L, repository.findByParentId(2L).get(0).getId());
+        assertTrue(repository.findByParentId(999L).isEmpty());
+    }
+
+    @Test
+    void testFindSubtreeSum_AmountUpdateAndReparent() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("200.0"), "cars", null));
+        repository.save(new Transaction(3L, new BigDecimal("50.0"), "shopping", 1L));
+        repository.save(new Transaction(4L, new BigDecimal("25.0"), "food", 3L));
+
+        // Act
+        repository.save(new Transaction(4L, new BigDecimal("5.0"), "food", 3L));
+        repository.save(new Transaction(3L, new BigDecimal("60.0"), "shopping", 2L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("100.0").compareTo(repository.findSubtreeSum(1L)));
+        assertEquals(0, new BigDecimal("265.0").compareTo(repository.findSubtreeSum(2L)));
+        assertEquals(0, new BigDecimal("65.0").compareTo(repository.findSubtreeSum(3L)));
+        assertNull(repository.findSubtreeSum(999L));
+    }
+
+    @Test
+    void testIsAncestor_ReparentAndChildSavedBeforeParent() {
+        // Arrange - 3 se guarda antes que su padre 2; 10 es otra raíz
+        repository.save(new Transaction(3L, new BigDecimal("1.0"), "cars", 2L));
+        repository.save(new Transaction(1L, new BigDecimal("1.0"), "cars", null));
+        repository.save(new Transaction(10L, new BigDecimal("1.0"), "cars", null));
+        assertFalse(repository.isAncestor(2L, 3L));
+        assertTrue(repository.findAncestorIds(3L).isEmpty());
+
+        // Act
+        repository.save(new Transaction(2L, new BigDecimal("1.0"), "cars", 1L));
+        boolean beforeMove = repository.isAncestor(1L, 3L);
+        repository.save(new Transaction(2L, new BigDecimal("1.0"), "cars", 10L));
+
+        // Assert
+        assertTrue(beforeMove);
+        assertFalse(repository.isAncestor(1L, 3L));
+        assertTrue(repository.isAncestor(10L, 3L));
+        assertFalse(repository.isAncestor(3L, 10L));
+        assertEquals(List.of(2L, 10L), repository.findAncestorIds(3L));
+        assertNull(repository.findAncestorIds(999L));
+    }
+
+    @Test
+    void testIsAncestor_DeepChainSavedLeafFirst() {
+        // Arrange - Cadena de 100.000 niveles guardada de la hoja a la raíz
+        int depth = 100_000;
+        for (long id = depth - 1; id >= 0; id--) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "chain", id == 0 ? null : id - 1));
+        }
+
+        // Act
+        boolean rootIsAncestor = repository.isAncestor(0L, depth - 1L);
+        repository.save(new Transaction(50_000L, BigDecimal.ONE, "chain", null));
+
+        // Assert
+        assertTrue(rootIsAncestor);
+        assertEquals(0, new BigDecimal(50_000).compareTo(repository.findSubtreeSum(0L)));
+        assertFalse(repository.isAncestor(0L, depth - 1L));
+        assertTrue(repository.isAncestor(1_234L, 5_678L));
+        assertFalse(repository.isAncestor(5_678L, 1_234L));
+        assertEquals(depth - 50_001, repository.findAncestorIds(depth - 1L).size());
+    }
+
+    @Test
+    void testSave_ManyRowsGrowsColumns() {
+        // Act
+        for (long id = 1; id <= 5_000; id++) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "type-" + (id % 7), id == 1 ? null : id / 2));
+        }
+
+        // Assert
+        assertEquals(5_000, repository.findAll().size());
+        assertEquals(0, new BigDecimal("5000").compareTo(repository.findSubtreeSum(1L)));
+        assertEquals(2L, repository.findById(4L).getParentId());
+        assertTrue(repository.offHeapBytes() > 0);
+    }
+
+    @Test
+    void testNullArguments_ThrowException() {
+        assertThrows(NullPointerException.class, () -> repository.findById(null));
+        assertThrows(NullPointerException.class, () -> repository.existsById(null));
+        assertThrows(NullPointerException.class, () -> repository.findIdsByType(null));
+        assertThrows(NullPointerException.class, () -> repository.findByParentId(null));
+    }
+
+    @Test
+    void testSaveIfVersion_ComparesAndAssignsVersions() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+
+        // Act
+        boolean stale = repository.saveIfVersion(new Transaction(1L, new BigDecimal("1"), "travel", null), 2L);
+        boolean current = repository.saveIfVersion(new Transaction(1L, new BigDecimal("150"), "cars", null), 1L);
+        boolean missing = repository.saveIfVersion(new Transaction(3L, new BigDecimal("5"), "cars", null), 1L);
+
+        // Assert
+        assertFalse(stale);
+        assertTrue(current);
+        assertFalse(missing);
+        assertEquals(2L, repository.findById(1L).getVersion());
+        assertEquals(1L, repository.findById(2L).getVersion());
+        assertNull(repository.findById(3L));
+        assertTrue(repository.findIdsByType("travel").isEmpty());
+        assertEquals(0, new BigDecimal("160").compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testSaveAll_AppliesInOrderAndRejectsInvalidBatch() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+
+        // Act
+        repository.saveAll(List.of(
+                new Transaction(3L, new BigDecimal("5"), "travel", 2L),
+                new Transaction(2L, new BigDecimal("10"), "cars", 1L),
+                new Transaction(1L, new BigDecimal("150"), "cars", null)));
+
+        // Assert - El hijo guardado antes que su padre queda en el subárbol
+        assertEquals(2L, repository.findById(1L).getVersion());
+        assertEquals(1L, repository.findById(3L).getVersion());
+        assertEquals(0, new BigDecimal("165").compareTo(repository.findSubtreeSum(1L)));
+        assertThrows(NullPointerException.class, () -> repository.saveAll(List.of(
+                new Transaction(4L, new BigDecimal("1"), "cars", null),
+                new Transaction(5L, new BigDecimal("1"), null, null))));
+        assertNull(repository.findById(4L));
+    }
+
+    @Test
+    void testSave_CycleIsRejectedWithoutChanges() {
+        // Arrange - 1 -> 2 -> 3; 5 cuelga de 4, que todavía no existe
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 2L));
+        repository.save(new Transaction(5L, new BigDecimal("1000"), "cars", 4L));
+
+        // Act & Assert
+        assertThrows(InvalidParentException.class,
+                () -> repository.save(new Transaction(1L, new BigDecimal("1"), "cars", 3L)));
+        assertThrows(InvalidParentException.class,
+                () -> repository.save(new Transaction(4L, new BigDecimal("1"), "cars", 5L)));
+        assertThrows(InvalidParentException.class, () -> repository.saveAll(List.of(
+                new Transaction(6L, new BigDecimal("1"), "cars", null),
+                new Transaction(2L, new BigDecimal("10"), "cars", 5L),
+                new Transaction(5L, new BigDecimal("1000"), "cars", 3L))));
+        assertNull(repository.findById(1L).getParentId());
+        assertEquals(1L, repository.findById(1L).getVersion());
+        assertNull(repository.findById(4L));
+        assertNull(repository.findById(6L));
+        assertEquals(1L, repository.findById(2L).getParentId());
+        assertEquals(0, new BigDecimal("111").compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testFindPage_OrdersByIdAndSkipsPlaceholders() {
+        // Arrange - 50 cuelga de 40, que todavía no existe (fila fantasma)
+        repository.save(new Transaction(30L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(50L, new BigDecimal("2"), "cars", 40L));
+        repository.save(new Transaction(-1L, new BigDecimal("3"), "cars", null));
+        repository.save(new Transaction(10L, new BigDecimal("4"), "cars", null));
+
+        // Act
+        List<Transaction> first = repository.findPage(null, 2);
+        List<Transaction> second = repository.findPage(first.get(1).getId(), 10);
+
+        // Assert
+        assertEquals(List.of(-1L, 10L), first.stream().map(Transaction::getId).toList());
+        assertEquals(List.of(30L, 50L), second.stream().map(Transaction::getId).toList());
+        assertEquals(40L, second.get(1).getParentId());
+
+        // Act - La fila fantasma se da de alta y aparece en su lugar
+        repository.save(new Transaction(40L, new BigDecimal("5"), "cars", null));
+
+        // Assert
+        assertEquals(List.of(40L, 50L), repository.findPage(30L, 10).stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void testFindTypeStats_TracksAmountAndTypeChanges() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40.50"), "cars", 1L));
+        repository.save(new Transaction(3L, null, "cars", 7L));
+
+        // Act - El máximo baja y 2 pasa a food; 7 sigue siendo fantasma
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, null, "food", 1L));
+        TypeStats cars = repository.findTypeStats("cars");
+        TypeStats food = repository.findTypeStats("food");
+
+        // Assert
+        assertEquals(2, cars.getCount());
+        assertEquals(0, BigDecimal.ONE.compareTo(cars.getTotal()));
+        assertEquals(0, BigDecimal.ONE.compareTo(cars.getMax()));
+        assertEquals(1, food.getCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(food.getTotal()));
+        assertNull(food.getMin());
+        assertEquals(List.of("cars", "food"), repository.findAllTypeStats().stream().map(TypeStats::getType).toList());
+    }
+
+    @Test
+    void testFindTypeStats_ResavingSameTypeAndAmountKeepsStats() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40"), "cars", null));
+        repository.save(new Transaction(3L, new BigDecimal("70"), "cars", null));
+
+        // Act - Se vuelven a guardar el máximo y el mínimo sin cambios y el mínimo con otro padre
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40"), "cars", 3L));
+        TypeStats cars = repository.findTypeStats("cars");
+
+        // Assert
+        assertEquals(3, cars.getCount());
+        assertEquals(0, new BigDecimal("210").compareTo(cars.getTotal()));
+        assertEquals(0, new BigDecimal("40").compareTo(cars.getMin()));
+        assertEquals(0, new BigDecimal("100").compareTo(cars.getMax()));
+        assertEquals(2, repository.findById(1L).getVersion());
+    }
+}
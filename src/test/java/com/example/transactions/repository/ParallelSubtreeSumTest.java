@@ -0,0 +1,112 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para ParallelSubtreeSum.
+ */
+class ParallelSubtreeSumTest {
+
+    private final LongConcurrentMap<Transaction> transactions = new LongConcurrentMap<>();
+    private final Map<Long, Set<Long>> children = new ConcurrentHashMap<>();
+
+    @Test
+    void testComputeAll_SmallTree() {
+        // Arrange - 1 -> (2 -> 4), 3; la 5 cuelga de un padre que no existe
+        save(1L, "100", null);
+        save(2L, "50", 1L);
+        save(3L, "25", 1L);
+        save(4L, "10", 2L);
+        save(5L, "7", 99L);
+        Map<Long, BigDecimal> sums = new ConcurrentHashMap<>();
+
+        // Act
+        ParallelSubtreeSum.computeAll(transactions, children, sums, ForkJoinPool.commonPool(), 1);
+
+        // Assert
+        assertEquals(0, new BigDecimal("185").compareTo(sums.get(1L)));
+        assertEquals(0, new BigDecimal("60").compareTo(sums.get(2L)));
+        assertEquals(0, new BigDecimal("25").compareTo(sums.get(3L)));
+        assertEquals(0, new BigDecimal("10").compareTo(sums.get(4L)));
+        assertEquals(0, new BigDecimal("7").compareTo(sums.get(5L)));
+        assertNull(sums.get(99L));
+    }
+
+    @Test
+    void testComputeAll_ParallelMatchesSequentialOnRandomForest() {
+        // Arrange - Bosque aleatorio con montos nulos
+        Random random = new Random(42);
+        for (long id = 0; id < 50_000; id++) {
+            Long parentId = id == 0 || random.nextInt(100) == 0 ? null : (long) random.nextInt((int) id);
+            String amount = random.nextInt(10) == 0 ? null : String.valueOf(random.nextInt(10_000));
+            save(id, amount, parentId);
+        }
+        Map<Long, BigDecimal> sequential = new ConcurrentHashMap<>();
+        Map<Long, BigDecimal> parallel = new ConcurrentHashMap<>();
+
+        // Act
+        ParallelSubtreeSum.computeAll(transactions, children, sequential, ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelSubtreeSum.computeAll(transactions, children, parallel, pool, 64);
+        } finally {
+            pool.shutdown();
+        }
+
+        // Assert
+        assertEquals(50_000, parallel.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void testComputeAll_DeepChainAndSkewedTree() {
+        // Arrange - Cadena 0 -> 1 -> ... de 200.000 niveles, cada uno con una hoja al costado
+        int depth = 200_000;
+        for (long id = 0; id < depth; id++) {
+            save(id, "1", id == 0 ? null : id - 1);
+            save(depth + id, "2", id);
+        }
+        Map<Long, BigDecimal> sums = new ConcurrentHashMap<>();
+
+        // Act
+        ParallelSubtreeSum.computeAll(transactions, children, sums, ForkJoinPool.commonPool(), 16);
+
+        // Assert
+        assertEquals(0, BigDecimal.valueOf(3L * depth).compareTo(sums.get(0L)));
+        assertEquals(0, BigDecimal.valueOf(3L).compareTo(sums.get(depth - 1L)));
+        assertEquals(2 * depth, sums.size());
+    }
+
+    @Test
+    void testComputeAll_CycleIsSummedOnce() {
+        // Arrange - 1 -> 2 -> 3 -> 1, escrito directo sin validar
+        save(1L, "1", 3L);
+        save(2L, "2", 1L);
+        save(3L, "4", 2L);
+        Map<Long, BigDecimal> sums = new ConcurrentHashMap<>();
+
+        // Act
+        ParallelSubtreeSum.computeAll(transactions, children, sums, ForkJoinPool.commonPool(), 1);
+
+        // Assert - Cada nodo del ciclo termina con una suma finita que incluye su propio monto
+        assertEquals(3, sums.size());
+        assertEquals(0, new BigDecimal("7").compareTo(sums.values().stream().max(BigDecimal::compareTo).orElseThrow()));
+    }
+
+    private void save(long id, String amount, Long parentId) {
+        transactions.put(id, new Transaction(id, amount != null ? new BigDecimal(amount) : null, "cars", parentId));
+        if (parentId != null) {
+            children.computeIfAbsent(parentId, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+}
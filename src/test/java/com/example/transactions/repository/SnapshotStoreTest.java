@@ -0,0 +1,158 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SnapshotStore.
+ */
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SnapshotStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new SnapshotStore(directory);
+    }
+
+    @Test
+    void testLoad_NoSnapshot() throws IOException {
+        assertNull(store.load());
+    }
+
+    @Test
+    void testWriteAndLoad_RoundTrip() throws IOException {
+        // Arrange - Filas desordenadas, monto nulo y un monto que no entra en un long
+        BigDecimal wide = new BigDecimal("123456789012345678901234567890.12");
+        List<Transaction> rows = List.of(
+                new Transaction(20L, new BigDecimal("50.5"), "shopping", 10L),
+                new Transaction(10L, new BigDecimal("100"), "cars", null),
+                new Transaction(30L, null, "cars", 20L),
+                new Transaction(40L, wide, "ñandú", 10L));
+
+        // Act
+        store.write(7, rows);
+        SnapshotStore.Snapshot snapshot = store.load();
+
+        // Assert
+        assertEquals(7, snapshot.generation());
+        assertEquals(4, snapshot.rowCount());
+        assertEquals(3, snapshot.typeCount());
+        assertEquals(10L, snapshot.id(0));
+        assertEquals(40L, snapshot.id(3));
+
+        Transaction child = snapshot.transaction(1);
+        assertEquals(20L, child.getId());
+        assertEquals(new BigDecimal("50.5"), child.getAmount());
+        assertEquals("shopping", child.getType());
+        assertEquals(10L, child.getParentId());
+        assertNull(snapshot.transaction(2).getAmount());
+        assertNull(snapshot.transaction(0).getParentId());
+        assertEquals(wide, snapshot.transaction(3).getAmount());
+        assertEquals("ñandú", snapshot.typeName(snapshot.typeCode(3)));
+        assertSame(snapshot.transaction(0).getType(), snapshot.transaction(2).getType());
+    }
+
+    @Test
+    void testWriteAndLoad_KeepsVersions() throws IOException {
+        // Arrange
+        Transaction updated = new Transaction(1L, new BigDecimal("100"), "cars", null);
+        updated.setVersion(5L);
+        Transaction created = new Transaction(2L, new BigDecimal("10"), "cars", 1L);
+        created.setVersion(1L);
+
+        // Act
+        store.write(0, List.of(created, updated));
+        SnapshotStore.Snapshot snapshot = store.load();
+
+        // Assert
+        assertEquals(5L, snapshot.transaction(0).getVersion());
+        assertEquals(1L, snapshot.transaction(1).getVersion());
+    }
+
+    @Test
+    void testWrite_ComputesSubtreeSums() throws IOException {
+        // Arrange - 1 -> 2 -> 3, y 4 cuyo padre no existe
+        List<Transaction> rows = List.of(
+                new Transaction(3L, new BigDecimal("5"), "a", 2L),
+                new Transaction(1L, new BigDecimal("100"), "a", null),
+                new Transaction(2L, new BigDecimal("20"), "a", 1L),
+                new Transaction(4L, new BigDecimal("7"), "a", 99L));
+
+        // Act
+        store.write(0, rows);
+        SnapshotStore.Snapshot snapshot = store.load();
+
+        // Assert
+        assertEquals(0, new BigDecimal("125").compareTo(snapshot.subtreeSum(0)));
+        assertEquals(0, new BigDecimal("25").compareTo(snapshot.subtreeSum(1)));
+        assertEquals(0, new BigDecimal("5").compareTo(snapshot.subtreeSum(2)));
+        assertEquals(0, new BigDecimal("7").compareTo(snapshot.subtreeSum(3)));
+    }
+
+    @Test
+    void testWrite_ReplacesPreviousSnapshot() throws IOException {
+        // Arrange
+        store.write(1, List.of(new Transaction(1L, BigDecimal.ONE, "a", null)));
+
+        // Act
+        store.write(2, List.of());
+        SnapshotStore.Snapshot snapshot = store.load();
+
+        // Assert
+        assertEquals(2, snapshot.generation());
+        assertEquals(0, snapshot.rowCount());
+    }
+
+    @Test
+    void testLoad_CorruptedSnapshotThrows() throws IOException {
+        // Arrange
+        List<Transaction> rows = new ArrayList<>();
+        for (long id = 0; id < 100; id++) {
+            rows.add(new Transaction(id, BigDecimal.TEN, "a", null));
+        }
+        store.write(0, rows);
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(SnapshotStore.FILE_NAME).toFile(), "rw")) {
+            file.seek(file.length() / 2);
+            file.write(0x55);
+        }
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> store.load());
+    }
+
+    @Test
+    void testLoad_FormatVersionOneIsNotSupported() throws IOException {
+        // Arrange - Un snapshot válido con la versión del formato cambiada a 1 y el CRC recalculado
+        store.write(0, List.of(new Transaction(1L, BigDecimal.TEN, "a", null)));
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(SnapshotStore.FILE_NAME).toFile(), "rw")) {
+            file.seek(Long.BYTES);
+            file.writeInt(1);
+            byte[] content = new byte[(int) file.length() - Long.BYTES];
+            file.seek(0);
+            file.readFully(content);
+            CRC32C crc = new CRC32C();
+            crc.update(content);
+            file.writeLong(crc.getValue());
+        }
+
+        // Act & Assert
+        IOException exception = assertThrows(IOException.class, () -> store.load());
+        assertTrue(exception.getMessage().contains("no soportada"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.transactions.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SubtreeTraversal.
+ */
+class SubtreeTraversalTest {
+
+    @Test
+    void testWalk_PreorderAndPostorder() {
+        // Arrange - 1 -> (2 -> 4), 3
+        Map<Long, Set<Long>> children = new HashMap<>();
+        children.put(1L, Set.of(2L));
+        children.put(2L, Set.of(4L));
+        List<String> events = new ArrayList<>();
+
+        // Act
+        SubtreeTraversal.walk(children, 1L, id -> events.add("enter " + id), id -> events.add("exit " + id));
+
+        // Assert
+        assertEquals(List.of("enter 1", "enter 2", "enter 4", "exit 4", "exit 2", "exit 1"), events);
+    }
+
+    @Test
+    void testWalk_SkipsSubtreeWhenEnterReturnsFalse() {
+        // Arrange
+        Map<Long, Set<Long>> children = new HashMap<>();
+        children.put(1L, Set.of(2L, 3L));
+        children.put(2L, Set.of(4L));
+        List<Long> visited = new ArrayList<>();
+
+        // Act
+        SubtreeTraversal.walk(children, 1L, id -> {
+            visited.add(id);
+            return id != 2L;
+        });
+
+        // Assert
+        assertEquals(3, visited.size());
+        assertFalse(visited.contains(4L));
+    }
+
+    @Test
+    void testWalk_MillionDeepChainDoesNotOverflow() {
+        // Arrange - Cadena 0 -> 1 -> ... -> 999.999
+        int depth = 1_000_000;
+        Map<Long, Set<Long>> children = new HashMap<>(depth * 2);
+        for (long id = 0; id < depth - 1; id++) {
+            children.put(id, Set.of(id + 1));
+        }
+        AtomicLong entered = new AtomicLong();
+        AtomicLong exited = new AtomicLong();
+
+        // Act
+        SubtreeTraversal.walk(children, 0L, id -> entered.incrementAndGet() > 0, id -> exited.incrementAndGet());
+
+        // Assert
+        assertEquals(depth, entered.get());
+        assertEquals(depth, exited.get());
+    }
+
+    @Test
+    void testWalk_StopsWhenCycleReturnsToRoot() {
+        // Arrange - 1 -> 2 -> 3 -> 1
+        Map<Long, Set<Long>> children = new HashMap<>();
+        children.put(1L, Set.of(2L));
+        children.put(2L, Set.of(3L));
+        children.put(3L, Set.of(1L));
+        List<Long> visited = new ArrayList<>();
+
+        // Act
+        SubtreeTraversal.walk(children, 1L, visited::add);
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), visited);
+    }
+
+    @Test
+    void testWalk_NestedWalkOnSameThread() {
+        // Arrange
+        Map<Long, Set<Long>> children = new HashMap<>();
+        children.put(1L, Set.of(2L));
+        children.put(10L, Set.of(11L));
+        List<Long> visited = new ArrayList<>();
+
+        // Act - Un recorrido anidado no debe pisar la pila del externo
+        SubtreeTraversal.walk(children, 1L, id -> {
+            visited.add(id);
+            if (id == 1L) {
+                SubtreeTraversal.walk(children, 10L, visited::add);
+            }
+            return true;
+        });
+
+        // Assert
+        assertEquals(List.of(1L, 10L, 11L, 2L), visited);
+    }
+}
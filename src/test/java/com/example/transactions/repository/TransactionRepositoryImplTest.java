@@ -1,11 +1,26 @@
 package com.example.transactions.repository;
 
+import com.example.transactions.exception.InvalidParentException;
 import com.example.transactions.model.Transaction;
+import com.example.transactions.model.TypeStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -151,7 +166,7 @@ class TransactionRepositoryImplTest {
     @Test
     void testFindById_NullId_ThrowsException() {
         // Act & Assert
-        // ConcurrentHashMap no acepta claves null, por lo que lanzará NullPointerException
+        // El almacén usa claves long primitivas: un ID null lanza NullPointerException al desempaquetarse
         assertThrows(NullPointerException.class, () -> repository.findById(null));
     }
 
@@ -176,7 +191,7 @@ class TransactionRepositoryImplTest {
     @Test
     void testExistsById_NullId_ThrowsException() {
         // Act & Assert
-        // ConcurrentHashMap no acepta claves null, por lo que lanzará NullPointerException
+        // El almacén usa claves long primitivas: un ID null lanza NullPointerException al desempaquetarse
         assertThrows(NullPointerException.class, () -> repository.existsById(null));
     }
 
@@ -236,6 +251,30 @@ class TransactionRepositoryImplTest {
         assertTrue(ids.isEmpty());
     }
 
+    @Test
+    void testFindIdsByTypePage_WalksTypeInOrderByCursor() {
+        // Arrange - IDs de dos tipos intercalados, más de un contenedor del bitmap
+        for (long id = 200_000; id >= 0; id -= 7) {
+            repository.save(new Transaction(id, BigDecimal.ONE, id % 2 == 0 ? "cars" : "food", null));
+        }
+        repository.save(new Transaction(14L, BigDecimal.ONE, "food", null));
+
+        // Act
+        List<Long> walked = new ArrayList<>();
+        List<Long> page = repository.findIdsByType("cars", null, 1000);
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            page = repository.findIdsByType("cars", page.get(page.size() - 1), 1000);
+        }
+
+        // Assert
+        assertEquals(repository.findIdsByType("cars"), walked);
+        assertEquals(walked.size(), repository.countByType("cars"));
+        assertFalse(walked.contains(14L));
+        assertEquals(List.of(24L, 38L), repository.findIdsByType("cars", 10L, 2));
+        assertTrue(repository.findIdsByType("cars", Long.MAX_VALUE, 2).isEmpty());
+    }
+
     @Test
     void testFindIdsByType_EmptyRepository() {
         // Act
@@ -516,4 +555,956 @@ class TransactionRepositoryImplTest {
         assertEquals(1, repository.findByParentId(10L).size());
         assertEquals(2L, repository.findByParentId(10L).get(0).getId());
     }
+
+    @Test
+    void testFindByParentId_WithParentIdRemoved() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+
+        // Act - La transacción deja de tener padre
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", null));
+
+        // Assert
+        assertTrue(repository.findByParentId(1L).isEmpty());
+    }
+
+    @Test
+    void testFindByParentId_UpdateWithoutParentChange_DoesNotDuplicateChild() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+
+        // Act - Se actualiza el monto manteniendo el mismo padre
+        repository.save(new Transaction(2L, new BigDecimal("80.0"), "shopping", 1L));
+
+        // Assert - El hijo aparece una sola vez y con los datos actualizados
+        List<Transaction> children = repository.findByParentId(1L);
+        assertEquals(1, children.size());
+        assertEquals(new BigDecimal("80.0"), children.get(0).getAmount());
+    }
+
+    @Test
+    void testFindByParentId_ChildSavedBeforeParent() {
+        // Arrange - El hijo se guarda antes que su padre
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+
+        // Act
+        List<Transaction> children = repository.findByParentId(1L);
+
+        // Assert
+        assertEquals(1, children.size());
+        assertEquals(2L, children.get(0).getId());
+    }
+
+    // ========== Tests para findSubtreeSum ==========
+
+    @Test
+    void testFindSubtreeSum_NonExistingTransaction() {
+        assertNull(repository.findSubtreeSum(999L));
+    }
+
+    @Test
+    void testFindSubtreeSum_IncludesAllDescendants() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("25.0"), "food", 2L));
+
+        // Assert
+        assertEquals(new BigDecimal("175.0"), repository.findSubtreeSum(1L));
+        assertEquals(new BigDecimal("75.0"), repository.findSubtreeSum(2L));
+        assertEquals(new BigDecimal("25.0"), repository.findSubtreeSum(3L));
+    }
+
+    @Test
+    void testFindSubtreeSum_AmountUpdatePropagatesToAncestors() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("25.0"), "food", 2L));
+
+        // Act
+        repository.save(new Transaction(3L, new BigDecimal("10.0"), "food", 2L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("160.0").compareTo(repository.findSubtreeSum(1L)));
+        assertEquals(0, new BigDecimal("60.0").compareTo(repository.findSubtreeSum(2L)));
+        assertEquals(0, new BigDecimal("10.0").compareTo(repository.findSubtreeSum(3L)));
+    }
+
+    @Test
+    void testFindSubtreeSum_ReparentMovesWholeSubtree() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("200.0"), "cars", null));
+        repository.save(new Transaction(3L, new BigDecimal("50.0"), "shopping", 1L));
+        repository.save(new Transaction(4L, new BigDecimal("25.0"), "food", 3L));
+
+        // Act - Se mueve el subárbol de 3 (3 + 4) de la raíz 1 a la raíz 2, cambiando su monto
+        repository.save(new Transaction(3L, new BigDecimal("60.0"), "shopping", 2L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("100.0").compareTo(repository.findSubtreeSum(1L)));
+        assertEquals(0, new BigDecimal("285.0").compareTo(repository.findSubtreeSum(2L)));
+        assertEquals(0, new BigDecimal("85.0").compareTo(repository.findSubtreeSum(3L)));
+    }
+
+    @Test
+    void testFindSubtreeSum_ChildSavedBeforeParent() {
+        // Arrange - Los hijos se guardan antes que su padre
+        repository.save(new Transaction(3L, new BigDecimal("25.0"), "food", 2L));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+
+        // Act
+        repository.save(new Transaction(1L, new BigDecimal("100.0"), "cars", null));
+
+        // Assert
+        assertEquals(new BigDecimal("175.0"), repository.findSubtreeSum(1L));
+        assertEquals(new BigDecimal("75.0"), repository.findSubtreeSum(2L));
+    }
+
+    @Test
+    void testFindSubtreeSum_NullAmountCountsAsZero() {
+        // Arrange
+        repository.save(new Transaction(1L, null, "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("50.0"), "shopping", 1L));
+
+        // Assert
+        assertEquals(new BigDecimal("50.0"), repository.findSubtreeSum(1L));
+    }
+
+    @Test
+    void testFindSubtreeSum_ConcurrentWritesStayExact() throws InterruptedException {
+        // Arrange - Cadena 1 <- 2 <- ... <- 20
+        int depth = 20;
+        repository.save(new Transaction(1L, BigDecimal.ZERO, "chain", null));
+        for (long id = 2; id <= depth; id++) {
+            repository.save(new Transaction(id, BigDecimal.ZERO, "chain", id - 1));
+        }
+
+        // Act - Varios hilos actualizan montos de toda la cadena a la vez
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            final int seed = thread;
+            executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    long id = 1 + (seed * 7L + i) % depth;
+                    BigDecimal amount = new BigDecimal(i % 13).add(new BigDecimal("0.01"));
+                    repository.save(new Transaction(id, amount, "chain", id == 1 ? null : id - 1));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assert - La suma materializada coincide con la suma de los montos finales
+        BigDecimal expected = BigDecimal.ZERO;
+        for (long id = 1; id <= depth; id++) {
+            expected = expected.add(repository.findById(id).getAmount());
+        }
+        assertEquals(0, expected.compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testSave_ConcurrentUpsertsKeepStoreAndIndexesConsistent() throws InterruptedException {
+        for (String engine : List.of("materialized", "euler-tour")) {
+            // Arrange - Árbol 1 <- 2, 3 <- 4..7 <- ... con 256 transacciones
+            TransactionRepositoryImpl concurrent = new TransactionRepositoryImpl(null, null, engine);
+            int size = 256;
+            List<String> types = List.of("cars", "shopping", "travel", "food");
+            for (long id = 1; id <= size; id++) {
+                concurrent.save(new Transaction(id, BigDecimal.ONE, "cars", id == 1 ? null : id / 2));
+            }
+
+            // Act - 32 escritores cambian monto y tipo de los mismos IDs; uno de cada 50
+            // cambios además mueve la transacción bajo otro ID menor (sin formar ciclos)
+            ExecutorService executor = Executors.newFixedThreadPool(32);
+            for (int thread = 0; thread < 32; thread++) {
+                final long seed = thread;
+                executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 2_000; i++) {
+                        long id = 2 + random.nextInt(size - 1);
+                        Long parentId = random.nextInt(50) == 0
+                                ? 1 + (long) random.nextInt((int) id - 1)
+                                : concurrent.findById(id).getParentId();
+                        concurrent.save(new Transaction(id, BigDecimal.valueOf(random.nextInt(1000), 2),
+                                types.get(random.nextInt(types.size())), parentId));
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+            // Assert - Cada ID está en el conjunto de su tipo actual y en ningún otro
+            int indexed = 0;
+            for (String type : types) {
+                for (Long id : concurrent.findIdsByType(type)) {
+                    assertEquals(type, concurrent.findById(id).getType(), engine + " id " + id);
+                    indexed++;
+                }
+            }
+            assertEquals(size, indexed, engine);
+
+            // Assert - Las sumas coinciden con las calculadas desde cero sobre el estado final
+            BigDecimal[] expected = new BigDecimal[size + 1];
+            for (int id = size; id >= 1; id--) {
+                Transaction transaction = concurrent.findById((long) id);
+                expected[id] = expected[id] == null ? transaction.getAmount() : expected[id].add(transaction.getAmount());
+                if (transaction.getParentId() != null) {
+                    int parentId = transaction.getParentId().intValue();
+                    expected[parentId] = expected[parentId] == null ? expected[id] : expected[parentId].add(expected[id]);
+                }
+            }
+            for (long id = 1; id <= size; id++) {
+                assertEquals(0, expected[(int) id].compareTo(concurrent.findSubtreeSum(id)), engine + " id " + id);
+            }
+        }
+    }
+
+    @Test
+    void testSave_ConcurrentInsertsInAnyOrderKeepSumsExact() throws InterruptedException {
+        for (String engine : List.of("materialized", "euler-tour")) {
+            // Arrange - Árbol 1 <- 2, 3 <- 4..7 <- ... con 2048 transacciones, repartidas
+            // entre los hilos en orden aleatorio: unas altas son de hojas (lock de jerarquía
+            // compartido) y otras de padres cuyos hijos ya se guardaron (exclusivo)
+            TransactionRepositoryImpl concurrent = new TransactionRepositoryImpl(null, null, engine);
+            int size = 2048;
+            List<Long> ids = new ArrayList<>();
+            for (long id = 1; id <= size; id++) {
+                ids.add(id);
+            }
+            Collections.shuffle(ids, new Random(7));
+
+            // Act - 32 hilos dan de alta su parte a la vez
+            ExecutorService executor = Executors.newFixedThreadPool(32);
+            for (int thread = 0; thread < 32; thread++) {
+                List<Long> part = ids.subList(thread * size / 32, (thread + 1) * size / 32);
+                executor.submit(() -> {
+                    for (Long id : part) {
+                        concurrent.save(new Transaction(id, BigDecimal.valueOf(id), "cars", id == 1 ? null : id / 2));
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+            // Assert - Cada suma es la del subárbol completo y cada transacción cuelga de la raíz
+            BigDecimal[] expected = new BigDecimal[size + 1];
+            for (int id = size; id >= 1; id--) {
+                expected[id] = expected[id] == null ? BigDecimal.valueOf(id) : expected[id].add(BigDecimal.valueOf(id));
+                if (id > 1) {
+                    expected[id / 2] = expected[id / 2] == null ? expected[id] : expected[id / 2].add(expected[id]);
+                }
+            }
+            for (long id = 1; id <= size; id++) {
+                assertEquals(0, expected[(int) id].compareTo(concurrent.findSubtreeSum(id)), engine + " id " + id);
+                assertEquals(id > 1, concurrent.isAncestor(1L, id), engine + " id " + id);
+            }
+        }
+    }
+
+    @Test
+    void testSave_VisibleTransactionAlreadyHasItsSum() throws InterruptedException {
+        for (String engine : List.of("materialized", "euler-tour")) {
+            // Arrange - Raíz 0 con monto 1; un escritor cuelga de ella 1..n, también con monto 1
+            TransactionRepositoryImpl concurrent = new TransactionRepositoryImpl(null, null, engine);
+            concurrent.save(new Transaction(0L, BigDecimal.ONE, "cars", null));
+            int n = 20_000;
+            Thread writer = new Thread(() -> {
+                for (long id = 1; id <= n; id++) {
+                    concurrent.save(new Transaction(id, BigDecimal.ONE, "cars", 0L));
+                }
+            });
+
+            // Act - Mientras tanto se lee cada alta apenas aparece en el almacén
+            writer.start();
+            List<String> failures = new ArrayList<>();
+            for (long id = 1; id <= n && failures.isEmpty(); ) {
+                if (concurrent.findById(id) == null) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                BigDecimal own = concurrent.findSubtreeSum(id);
+                BigDecimal root = concurrent.findSubtreeSum(0L);
+                if (own == null || root.compareTo(BigDecimal.valueOf(id + 1)) < 0) {
+                    failures.add("id " + id + ": suma " + own + ", raíz " + root);
+                }
+                id++;
+            }
+            writer.join(30_000);
+
+            // Assert - Una transacción visible ya suma en la suya y en la de su padre
+            assertEquals(List.of(), failures, engine);
+        }
+    }
+
+    @Test
+    void testSave_ConcurrentOppositeReparents_OnlyOneIsAccepted() throws InterruptedException {
+        for (String engine : List.of("materialized", "euler-tour")) {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            for (int round = 0; round < 200; round++) {
+                // Arrange - 1 y 2 son raíces
+                TransactionRepositoryImpl concurrent = new TransactionRepositoryImpl(null, null, engine);
+                concurrent.save(new Transaction(1L, BigDecimal.ONE, "cars", null));
+                concurrent.save(new Transaction(2L, BigDecimal.TEN, "cars", null));
+                CountDownLatch start = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(2);
+                AtomicInteger rejected = new AtomicInteger();
+
+                // Act - A la vez: 1 bajo 2 y 2 bajo 1
+                for (long[] write : new long[][] {{1L, 2L}, {2L, 1L}}) {
+                    executor.submit(() -> {
+                        try {
+                            start.await();
+                            concurrent.save(new Transaction(write[0], write[0] == 1L ? BigDecimal.ONE : BigDecimal.TEN,
+                                    "cars", write[1]));
+                        } catch (InvalidParentException e) {
+                            rejected.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                        return null;
+                    });
+                }
+                start.countDown();
+                assertTrue(done.await(10, TimeUnit.SECONDS));
+
+                // Assert - Una se rechazó y la otra dejó una cadena sin ciclo: un alta bajo 1
+                // termina y la raíz suma todo
+                assertEquals(1, rejected.get(), engine);
+                concurrent.save(new Transaction(3L, new BigDecimal("5"), "cars", 1L));
+                long root = concurrent.findById(1L).getParentId() == null ? 1L : 2L;
+                assertNull(concurrent.findById(root).getParentId(), engine);
+                assertEquals(0, new BigDecimal("16").compareTo(concurrent.findSubtreeSum(root)), engine);
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testSave_ReparentUnderDescendantIsRejected() {
+        // Arrange - 1 -> 2 -> 3
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 2L));
+
+        // Act & Assert
+        InvalidParentException exception = assertThrows(InvalidParentException.class,
+                () -> repository.save(new Transaction(1L, new BigDecimal("1"), "cars", 3L)));
+        assertTrue(exception.getMessage().contains("crearía un ciclo"));
+        assertNull(repository.findById(1L).getParentId());
+        assertEquals(1L, repository.findById(1L).getVersion());
+        assertEquals(0, new BigDecimal("111").compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testSave_ParentSavedAfterChildCannotCloseCycle() {
+        // Arrange - 2 cuelga de 1, que todavía no fue guardado
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+
+        // Act & Assert - Dar de alta 1 bajo 2 cerraría 1 -> 2 -> 1
+        assertThrows(InvalidParentException.class,
+                () -> repository.save(new Transaction(1L, new BigDecimal("1"), "cars", 2L)));
+        assertNull(repository.findById(1L));
+    }
+
+    // ========== Tests para versiones y saveIfVersion ==========
+
+    @Test
+    void testSave_AssignsVersions() {
+        // Act
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(1L, new BigDecimal("150"), "travel", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+
+        // Assert
+        assertEquals(2L, repository.findById(1L).getVersion());
+        assertEquals(1L, repository.findById(2L).getVersion());
+    }
+
+    @Test
+    void testSaveIfVersion_OnlyMatchingVersionWins() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+
+        // Act
+        boolean stale = repository.saveIfVersion(new Transaction(1L, new BigDecimal("1"), "travel", null), 2L);
+        boolean current = repository.saveIfVersion(new Transaction(1L, new BigDecimal("150"), "cars", null), 1L);
+        boolean created = repository.saveIfVersion(new Transaction(2L, new BigDecimal("5"), "cars", 1L), 0L);
+
+        // Assert - La escritura rechazada no tocó el almacén ni los índices
+        assertFalse(stale);
+        assertTrue(current);
+        assertTrue(created);
+        assertEquals(new BigDecimal("150"), repository.findById(1L).getAmount());
+        assertEquals(2L, repository.findById(1L).getVersion());
+        assertTrue(repository.findIdsByType("travel").isEmpty());
+        assertEquals(0, new BigDecimal("155").compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testSaveIfVersion_ConcurrentWritersOnSameVersion_OneWins() throws InterruptedException {
+        // Arrange
+        repository.save(new Transaction(1L, BigDecimal.ZERO, "cars", null));
+        int writers = 16;
+        AtomicInteger wins = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act - Todos escriben con If-Match de la versión 1
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        for (int thread = 0; thread < writers; thread++) {
+            final int amount = thread + 1;
+            executor.submit(() -> {
+                start.await();
+                if (repository.saveIfVersion(new Transaction(1L, BigDecimal.valueOf(amount), "cars", null), 1L)) {
+                    wins.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1, wins.get());
+        assertEquals(2L, repository.findById(1L).getVersion());
+    }
+
+    @Test
+    void testVersions_SurviveRestartFromLogAndSnapshot(@TempDir Path directory) throws IOException {
+        // Arrange - Una versión queda en el snapshot y otra solo en el log
+        Path walDirectory = directory.resolve("wal");
+        SnapshotStore snapshots = new SnapshotStore(directory.resolve("snapshot"));
+        try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ofMillis(1), 1 << 20)) {
+            TransactionRepositoryImpl durable = new TransactionRepositoryImpl(log, snapshots);
+            durable.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+            durable.save(new Transaction(1L, new BigDecimal("110"), "cars", null));
+            durable.save(new Transaction(2L, new BigDecimal("5"), "cars", 1L));
+            durable.checkpoint();
+            durable.save(new Transaction(1L, new BigDecimal("120"), "cars", null));
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log, snapshots);
+        }
+
+        // Assert
+        assertEquals(3L, recovered.findById(1L).getVersion());
+        assertEquals(1L, recovered.findById(2L).getVersion());
+        assertFalse(recovered.saveIfVersion(new Transaction(1L, BigDecimal.ONE, "cars", null), 2L));
+    }
+
+    @Test
+    void testSaveAll_AppliesInOrderAndAssignsVersions() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+
+        // Act
+        repository.saveAll(List.of(
+                new Transaction(2L, new BigDecimal("10"), "cars", 1L),
+                new Transaction(3L, new BigDecimal("5"), "travel", 2L),
+                new Transaction(1L, new BigDecimal("150"), "cars", null)));
+
+        // Assert
+        assertEquals(2L, repository.findById(1L).getVersion());
+        assertEquals(1L, repository.findById(3L).getVersion());
+        assertEquals(0, new BigDecimal("165").compareTo(repository.findSubtreeSum(1L)));
+        assertEquals(List.of(2L, 1L), repository.findAncestorIds(3L));
+    }
+
+    @Test
+    void testSaveAll_NullTypeRejectsWholeBatch() {
+        // Arrange
+        List<Transaction> batch = List.of(
+                new Transaction(1L, new BigDecimal("100"), "cars", null),
+                new Transaction(2L, new BigDecimal("10"), null, 1L));
+
+        // Act & Assert
+        assertThrows(NullPointerException.class, () -> repository.saveAll(batch));
+        assertNull(repository.findById(1L));
+    }
+
+    @Test
+    void testSaveAll_CycleThroughEarlierItemRejectsWholeBatch() {
+        // Arrange - 1 y 2 son raíces
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", null));
+
+        // Act & Assert - Cada cambio de padre es válido solo, pero juntos forman 1 -> 2 -> 1
+        assertThrows(InvalidParentException.class, () -> repository.saveAll(List.of(
+                new Transaction(3L, new BigDecimal("100"), "cars", null),
+                new Transaction(1L, new BigDecimal("1"), "cars", 2L),
+                new Transaction(2L, new BigDecimal("10"), "cars", 1L))));
+        assertNull(repository.findById(3L));
+        assertNull(repository.findById(1L).getParentId());
+        assertNull(repository.findById(2L).getParentId());
+    }
+
+    @Test
+    void testSubtreeListener_ReparentNotifiesBothChains() {
+        // Arrange - 1 -> 2 -> 3 y 4 aparte
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 2L));
+        repository.save(new Transaction(4L, new BigDecimal("1000"), "cars", null));
+        List<Long> notified = new ArrayList<>();
+        repository.setSubtreeListener(notified::add);
+
+        // Act - 3 pasa de 2 a 4
+        repository.save(new Transaction(3L, new BigDecimal("100"), "cars", 4L));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L), notified.stream().sorted().toList());
+    }
+
+    @Test
+    void testSubtreeListener_BatchNotifiesEachIdOnce() {
+        // Arrange - 1 -> 2
+        repository.save(new Transaction(1L, new BigDecimal("1"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("10"), "cars", 1L));
+        List<Long> notified = new ArrayList<>();
+        repository.setSubtreeListener(notified::add);
+
+        // Act - Dos altas bajo 2
+        repository.saveAll(List.of(
+                new Transaction(3L, new BigDecimal("100"), "cars", 2L),
+                new Transaction(4L, new BigDecimal("1000"), "cars", 2L)));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L), notified.stream().sorted().toList());
+    }
+
+    @Test
+    void testSaveAll_SurvivesRestartFromLog(@TempDir Path directory) throws IOException {
+        // Arrange
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            new TransactionRepositoryImpl(log, null).saveAll(List.of(
+                    new Transaction(1L, new BigDecimal("100"), "cars", null),
+                    new Transaction(2L, new BigDecimal("10"), "cars", 1L),
+                    new Transaction(1L, new BigDecimal("120"), "cars", null)));
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log, null);
+        }
+
+        // Assert
+        assertEquals(2L, recovered.findById(1L).getVersion());
+        assertEquals(0, new BigDecimal("130").compareTo(recovered.findSubtreeSum(1L)));
+    }
+
+    // ========== Tests para findTypeStats ==========
+
+    @Test
+    void testFindTypeStats_TracksAmountAndTypeChanges() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40"), "cars", 1L));
+        repository.save(new Transaction(3L, null, "cars", null));
+        repository.save(new Transaction(4L, new BigDecimal("5"), "food", null));
+
+        // Act - 1 baja su monto (deja de ser el máximo) y 2 pasa a food
+        repository.save(new Transaction(1L, new BigDecimal("10"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40"), "food", 1L));
+        TypeStats cars = repository.findTypeStats("cars");
+        TypeStats food = repository.findTypeStats("food");
+
+        // Assert
+        assertEquals(2, cars.getCount());
+        assertEquals(0, BigDecimal.TEN.compareTo(cars.getTotal()));
+        assertEquals(0, BigDecimal.TEN.compareTo(cars.getMin()));
+        assertEquals(0, BigDecimal.TEN.compareTo(cars.getMax()));
+        assertEquals(2, food.getCount());
+        assertEquals(0, new BigDecimal("45").compareTo(food.getTotal()));
+        assertEquals(0, new BigDecimal("5").compareTo(food.getMin()));
+        assertEquals(0, new BigDecimal("40").compareTo(food.getMax()));
+        assertEquals(List.of("cars", "food"), repository.findAllTypeStats().stream().map(TypeStats::getType).toList());
+        assertEquals(0, repository.findTypeStats("travel").getCount());
+    }
+
+    @Test
+    void testFindTypeStats_ResavingSameTypeAndAmountKeepsStats() {
+        // Arrange
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40"), "cars", null));
+        repository.save(new Transaction(3L, new BigDecimal("70"), "cars", null));
+
+        // Act - Se vuelven a guardar el máximo y el mínimo sin cambios y el mínimo con otro padre
+        repository.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("40"), "cars", 3L));
+        TypeStats cars = repository.findTypeStats("cars");
+
+        // Assert
+        assertEquals(3, cars.getCount());
+        assertEquals(0, new BigDecimal("210").compareTo(cars.getTotal()));
+        assertEquals(0, new BigDecimal("40").compareTo(cars.getMin()));
+        assertEquals(0, new BigDecimal("100").compareTo(cars.getMax()));
+        assertEquals(2, repository.findById(1L).getVersion());
+    }
+
+    @Test
+    void testFindTypeStats_ConcurrentUpdatesMatchRecount() throws InterruptedException {
+        // Arrange - 4 escritores cambian monto y tipo de IDs al azar
+        String[] types = {"cars", "food", "travel"};
+        for (long id = 0; id < 1_000; id++) {
+            repository.save(new Transaction(id, BigDecimal.ONE, types[(int) (id % 3)], null));
+        }
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            Random random = new Random(w);
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    long id = random.nextInt(1_000);
+                    BigDecimal amount = random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(10_000), 2);
+                    repository.save(new Transaction(id, amount, types[random.nextInt(3)], null));
+                }
+            }));
+        }
+
+        // Act
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Assert - Igual a recorrer todas las transacciones
+        for (String type : types) {
+            List<BigDecimal> amounts = repository.findAll().stream()
+                    .filter(t -> t.getType().equals(type))
+                    .map(Transaction::getAmount)
+                    .toList();
+            List<BigDecimal> present = amounts.stream().filter(Objects::nonNull).toList();
+            TypeStats stats = repository.findTypeStats(type);
+            assertEquals(amounts.size(), stats.getCount());
+            assertEquals(0, present.stream().reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(stats.getTotal()));
+            assertEquals(0, present.stream().min(BigDecimal::compareTo).orElseThrow().compareTo(stats.getMin()));
+            assertEquals(0, present.stream().max(BigDecimal::compareTo).orElseThrow().compareTo(stats.getMax()));
+        }
+    }
+
+    @Test
+    void testFindTypeStats_AfterRestartFromLogAndSnapshot(@TempDir Path directory) throws IOException {
+        // Arrange - Parte de los datos en el snapshot y parte solo en el log
+        Path walDirectory = directory.resolve("wal");
+        SnapshotStore snapshots = new SnapshotStore(directory.resolve("snapshot"));
+        try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ofMillis(1), 1 << 20)) {
+            TransactionRepositoryImpl durable = new TransactionRepositoryImpl(log, snapshots);
+            for (long id = 0; id < 10_000; id++) {
+                durable.save(new Transaction(id, BigDecimal.valueOf(id, 2), id % 2 == 0 ? "cars" : "food", null));
+            }
+            durable.checkpoint();
+            durable.save(new Transaction(9_998L, null, "cars", null));
+            durable.save(new Transaction(10_000L, new BigDecimal("500"), "food", null));
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log, snapshots);
+        }
+        TypeStats cars = recovered.findTypeStats("cars");
+        TypeStats food = recovered.findTypeStats("food");
+
+        // Assert - cars: 0,00 + 0,02 + ... + 99,96 (sin 99,98); food: 0,01 + ... + 99,99 + 500
+        assertEquals(5_000, cars.getCount());
+        assertEquals(0, new BigDecimal("249850.02").compareTo(cars.getTotal()));
+        assertEquals(0, new BigDecimal("99.96").compareTo(cars.getMax()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(cars.getMin()));
+        assertEquals(5_001, food.getCount());
+        assertEquals(0, new BigDecimal("250500.00").compareTo(food.getTotal()));
+        assertEquals(0, new BigDecimal("500").compareTo(food.getMax()));
+    }
+
+    // ========== Tests para findPage ==========
+
+    @Test
+    void testFindPage_WalksAllIdsInOrderByCursor() {
+        // Arrange - IDs densos, dispersos y negativos guardados desordenados
+        List<Long> ids = new ArrayList<>(List.of(-5L, 0L, 1L, 2L, 3L, 70_000L, 1L << 40, Long.MAX_VALUE));
+        for (long id = 10; id < 2_000; id += 3) {
+            ids.add(id);
+        }
+        List<Long> shuffled = new ArrayList<>(ids);
+        Collections.shuffle(shuffled, new Random(3));
+        for (Long id : shuffled) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "cars", null));
+        }
+        repository.save(new Transaction(2L, BigDecimal.TEN, "travel", null));
+
+        // Act - Páginas de 7 siguiendo el último ID como cursor
+        List<Long> walked = new ArrayList<>();
+        List<Transaction> page = repository.findPage(null, 7);
+        while (!page.isEmpty()) {
+            page.forEach(t -> walked.add(t.getId()));
+            page = repository.findPage(page.get(page.size() - 1).getId(), 7);
+        }
+
+        // Assert
+        Collections.sort(ids);
+        assertEquals(ids, walked);
+        assertEquals(BigDecimal.TEN, repository.findPage(1L, 1).get(0).getAmount());
+        assertTrue(repository.findPage(Long.MAX_VALUE, 10).isEmpty());
+        assertTrue(repository.findPage(null, 0).isEmpty());
+    }
+
+    @Test
+    void testFindPage_AfterRestartFromLogAndSnapshot(@TempDir Path directory) throws IOException {
+        // Arrange - Unos IDs quedan en el snapshot y otros solo en el log
+        Path walDirectory = directory.resolve("wal");
+        SnapshotStore snapshots = new SnapshotStore(directory.resolve("snapshot"));
+        try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ofMillis(1), 1 << 20)) {
+            TransactionRepositoryImpl durable = new TransactionRepositoryImpl(log, snapshots);
+            for (long id = 0; id < 100; id += 2) {
+                durable.save(new Transaction(id, BigDecimal.ONE, "cars", null));
+            }
+            durable.checkpoint();
+            for (long id = 1; id < 100; id += 2) {
+                durable.save(new Transaction(id, BigDecimal.ONE, "cars", null));
+            }
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(walDirectory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log, snapshots);
+        }
+
+        // Assert
+        List<Transaction> page = recovered.findPage(null, 200);
+        assertEquals(100, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(i, page.get(i).getId());
+        }
+        assertEquals(List.of(50L, 51L), recovered.findPage(49L, 2).stream().map(Transaction::getId).toList());
+    }
+
+    // ========== Tests para isAncestor y findAncestorIds ==========
+
+    @Test
+    void testIsAncestor_ChainAndSiblings() {
+        // Arrange - 1 -> 2 -> 3 y 1 -> 4
+        repository.save(new Transaction(1L, new BigDecimal("1.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("1.0"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("1.0"), "cars", 2L));
+        repository.save(new Transaction(4L, new BigDecimal("1.0"), "cars", 1L));
+
+        // Act & Assert
+        assertTrue(repository.isAncestor(1L, 3L));
+        assertTrue(repository.isAncestor(2L, 3L));
+        assertFalse(repository.isAncestor(3L, 1L));
+        assertFalse(repository.isAncestor(4L, 3L));
+        assertFalse(repository.isAncestor(3L, 3L));
+        assertFalse(repository.isAncestor(999L, 3L));
+        assertEquals(List.of(2L, 1L), repository.findAncestorIds(3L));
+        assertTrue(repository.findAncestorIds(1L).isEmpty());
+        assertNull(repository.findAncestorIds(999L));
+    }
+
+    @Test
+    void testIsAncestor_ReparentRelabelsWholeSubtree() {
+        // Arrange - 1 -> 2 -> 3 y 10 como otra raíz
+        repository.save(new Transaction(1L, new BigDecimal("1.0"), "cars", null));
+        repository.save(new Transaction(2L, new BigDecimal("1.0"), "cars", 1L));
+        repository.save(new Transaction(3L, new BigDecimal("1.0"), "cars", 2L));
+        repository.save(new Transaction(10L, new BigDecimal("1.0"), "cars", null));
+
+        // Act
+        repository.save(new Transaction(2L, new BigDecimal("1.0"), "cars", 10L));
+
+        // Assert
+        assertFalse(repository.isAncestor(1L, 3L));
+        assertTrue(repository.isAncestor(10L, 3L));
+        assertEquals(List.of(2L, 10L), repository.findAncestorIds(3L));
+    }
+
+    @Test
+    void testIsAncestor_ChildSavedBeforeParent() {
+        // Arrange - 3 y 2 referencian a padres todavía no guardados
+        repository.save(new Transaction(3L, new BigDecimal("1.0"), "cars", 2L));
+        repository.save(new Transaction(2L, new BigDecimal("1.0"), "cars", 1L));
+        assertFalse(repository.isAncestor(1L, 3L));
+
+        // Act
+        repository.save(new Transaction(1L, new BigDecimal("1.0"), "cars", null));
+
+        // Assert
+        assertTrue(repository.isAncestor(1L, 3L));
+        assertEquals(List.of(2L, 1L), repository.findAncestorIds(3L));
+    }
+
+    @Test
+    void testIsAncestor_DeepChainSavedLeafFirst() {
+        // Arrange - Cadena de 200.000 niveles guardada de la hoja a la raíz: cada alta
+        // encuentra a sus hijos ya guardados
+        int depth = 200_000;
+        for (long id = depth - 1; id >= 0; id--) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "chain", id == 0 ? null : id - 1));
+        }
+
+        // Act
+        boolean rootIsAncestor = repository.isAncestor(0L, depth - 1L);
+        repository.save(new Transaction(150_000L, BigDecimal.ONE, "chain", null));
+
+        // Assert
+        assertTrue(rootIsAncestor);
+        assertEquals(new BigDecimal(150_000), repository.findSubtreeSum(0L));
+        assertFalse(repository.isAncestor(0L, depth - 1L));
+        assertTrue(repository.isAncestor(12_345L, 67_890L));
+        assertFalse(repository.isAncestor(67_890L, 12_345L));
+        assertEquals(depth - 150_001, repository.findAncestorIds(depth - 1L).size());
+    }
+
+    @Test
+    void testIsAncestor_RestoredFromSnapshot(@TempDir Path directory) throws IOException {
+        // Arrange
+        TransactionRepositoryImpl source = new TransactionRepositoryImpl(null, new SnapshotStore(directory));
+        for (long id = 0; id < 10_000; id++) {
+            source.save(new Transaction(id, BigDecimal.ONE, "type", id == 0 ? null : (id - 1) / 2));
+        }
+        source.checkpoint();
+
+        // Act
+        TransactionRepositoryImpl recovered = new TransactionRepositoryImpl(null, new SnapshotStore(directory));
+
+        // Assert - 9999 -> 4999 -> 2499 -> 1249 -> ... -> 0
+        assertTrue(recovered.isAncestor(0L, 9_999L));
+        assertTrue(recovered.isAncestor(1_249L, 9_999L));
+        assertFalse(recovered.isAncestor(2L, 9_999L));
+        assertEquals(source.findAncestorIds(9_999L), recovered.findAncestorIds(9_999L));
+    }
+
+    @Test
+    void testFindIdsByType_ReturnsIdsInAscendingOrder() {
+        // Arrange
+        repository.save(new Transaction(30L, new BigDecimal("1.0"), "cars", null));
+        repository.save(new Transaction(10L, new BigDecimal("1.0"), "cars", null));
+        repository.save(new Transaction(20L, new BigDecimal("1.0"), "cars", null));
+
+        // Act & Assert
+        assertEquals(List.of(10L, 20L, 30L), repository.findIdsByType("cars"));
+    }
+
+    @Test
+    void testWriteAheadLog_RestartRebuildsStoreAndIndexes(@TempDir Path directory) throws IOException {
+        // Arrange - Altas, un cambio de tipo y un cambio de padre registrados en el log
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            TransactionRepositoryImpl durable = new TransactionRepositoryImpl(log);
+            durable.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+            durable.save(new Transaction(2L, new BigDecimal("50"), "cars", 1L));
+            durable.save(new Transaction(3L, new BigDecimal("25"), "shopping", 2L));
+            durable.save(new Transaction(4L, new BigDecimal("10"), "cars", null));
+            durable.save(new Transaction(3L, new BigDecimal("30"), "travel", 4L));
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log);
+        }
+
+        // Assert
+        assertEquals(4, recovered.findAll().size());
+        assertEquals("travel", recovered.findById(3L).getType());
+        assertEquals(List.of(1L, 2L, 4L), recovered.findIdsByType("cars"));
+        assertTrue(recovered.findIdsByType("shopping").isEmpty());
+        assertTrue(recovered.findByParentId(2L).isEmpty());
+        assertEquals(1, recovered.findByParentId(4L).size());
+        assertEquals(0, new BigDecimal("150").compareTo(recovered.findSubtreeSum(1L)));
+        assertEquals(0, new BigDecimal("40").compareTo(recovered.findSubtreeSum(4L)));
+    }
+
+    @Test
+    void testWriteAheadLog_RestartRecomputesSumsOfWideTree(@TempDir Path directory) throws IOException {
+        // Arrange - Árbol ancho y aleatorio, con montos actualizados y cambios de padre en el log
+        Random random = new Random(7);
+        int size = 20_000;
+        TransactionRepositoryImpl durable;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            durable = new TransactionRepositoryImpl(log);
+            for (long id = 0; id < size; id++) {
+                Long parentId = id == 0 ? null : (long) random.nextInt((int) id);
+                durable.save(new Transaction(id, BigDecimal.valueOf(random.nextInt(1000)), "cars", parentId));
+            }
+            for (int i = 0; i < 1000; i++) {
+                long id = 1 + random.nextInt(size - 1);
+                durable.save(new Transaction(id, BigDecimal.valueOf(random.nextInt(1000)), "cars", (long) random.nextInt((int) id)));
+            }
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log);
+        }
+
+        // Assert
+        for (long id = 0; id < size; id++) {
+            assertEquals(0, durable.findSubtreeSum(id).compareTo(recovered.findSubtreeSum(id)), "id " + id);
+        }
+        assertTrue(recovered.isAncestor(0L, size - 1L));
+    }
+
+    @Test
+    void testCheckpoint_RestartLoadsSnapshotAndLogTail(@TempDir Path directory) throws IOException {
+        // Arrange - Parte del contenido queda en el snapshot y parte solo en el log
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            TransactionRepositoryImpl durable = new TransactionRepositoryImpl(log, new SnapshotStore(directory));
+            durable.save(new Transaction(1L, new BigDecimal("100"), "cars", null));
+            durable.save(new Transaction(2L, new BigDecimal("50"), "cars", 1L));
+            durable.save(new Transaction(3L, new BigDecimal("25"), "shopping", 2L));
+            durable.checkpoint();
+            durable.save(new Transaction(4L, new BigDecimal("10"), "shopping", 1L));
+            durable.save(new Transaction(2L, new BigDecimal("60"), "travel", 1L));
+        }
+
+        // Act
+        TransactionRepositoryImpl recovered;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Duration.ofMillis(1), 1 << 20)) {
+            recovered = new TransactionRepositoryImpl(log, new SnapshotStore(directory));
+        }
+
+        // Assert
+        assertEquals(4, recovered.findAll().size());
+        assertEquals(List.of(1L), recovered.findIdsByType("cars"));
+        assertEquals(List.of(3L, 4L), recovered.findIdsByType("shopping"));
+        assertEquals(List.of(2L), recovered.findIdsByType("travel"));
+        assertEquals(2, recovered.findByParentId(1L).size());
+        assertEquals(0, new BigDecimal("195").compareTo(recovered.findSubtreeSum(1L)));
+        assertEquals(0, new BigDecimal("85").compareTo(recovered.findSubtreeSum(2L)));
+    }
+
+    @Test
+    void testCheckpoint_LoadsLargeSnapshotInParallel(@TempDir Path directory) throws IOException {
+        // Arrange - Suficientes filas para repartir la carga en varios rangos
+        TransactionRepositoryImpl source = new TransactionRepositoryImpl(null, new SnapshotStore(directory));
+        int rows = 50_000;
+        for (long id = 0; id < rows; id++) {
+            source.save(new Transaction(id, BigDecimal.ONE, "type-" + (id % 7), id == 0 ? null : (id - 1) / 2));
+        }
+        source.checkpoint();
+
+        // Act
+        TransactionRepositoryImpl recovered = new TransactionRepositoryImpl(null, new SnapshotStore(directory));
+
+        // Assert
+        assertEquals(rows, recovered.findAll().size());
+        assertEquals(source.findIdsByType("type-3"), recovered.findIdsByType("type-3"));
+        assertEquals(2, recovered.findByParentId(100L).size());
+        assertEquals(0, new BigDecimal(rows).compareTo(recovered.findSubtreeSum(0L)));
+        assertEquals(source.findSubtreeSum(12L), recovered.findSubtreeSum(12L));
+    }
+
+    @Test
+    void testCheckpoint_WithoutSnapshotStoreThrows() {
+        assertThrows(IllegalStateException.class, () -> repository.checkpoint());
+    }
 }
@@ -0,0 +1,219 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.TypeStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TypeAggregates.
+ */
+class TypeAggregatesTest {
+
+    private TypeAggregates aggregates;
+
+    // Montos actuales por tipo, lo que recorrería el repositorio al recalcular extremos
+    private final Map<String, List<BigDecimal>> amounts = new HashMap<>();
+    private final AtomicInteger scans = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        aggregates = new TypeAggregates();
+    }
+
+    @Test
+    void testStats_AddAndRemove() {
+        // Arrange
+        add("cars", "100");
+        add("cars", "50.5");
+        add("cars", null);
+        add("food", "7");
+
+        // Act
+        remove("cars", "50.5");
+        TypeStats cars = stats("cars");
+
+        // Assert - El monto null cuenta pero no suma
+        assertEquals(2, cars.getCount());
+        assertEquals(0, new BigDecimal("100").compareTo(cars.getTotal()));
+        assertEquals(0, new BigDecimal("100").compareTo(cars.getMin()));
+        assertEquals(0, new BigDecimal("100").compareTo(cars.getMax()));
+        assertEquals(1, stats("food").getCount());
+    }
+
+    @Test
+    void testStats_UnknownType() {
+        // Act
+        TypeStats stats = stats("unknown");
+
+        // Assert
+        assertEquals(0, stats.getCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(stats.getTotal()));
+        assertNull(stats.getMin());
+        assertNull(stats.getMax());
+    }
+
+    @Test
+    void testStats_RemovingExtremeRescansOnceOnRead() {
+        // Arrange
+        add("cars", "10");
+        add("cars", "20");
+        add("cars", "30");
+
+        // Act - Quitar un monto del medio no invalida; quitar el máximo sí
+        remove("cars", "20");
+        TypeStats unchanged = stats("cars");
+        remove("cars", "30");
+        TypeStats first = stats("cars");
+        TypeStats second = stats("cars");
+
+        // Assert
+        assertEquals(0, new BigDecimal("30").compareTo(unchanged.getMax()));
+        assertEquals(0, new BigDecimal("10").compareTo(first.getMax()));
+        assertEquals(0, new BigDecimal("10").compareTo(second.getMin()));
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    void testStats_ReplacingExtremeByLargerDoesNotRescan() {
+        // Arrange
+        add("cars", "10");
+        add("cars", "20");
+
+        // Act - Como hace el repositorio: primero el monto nuevo y después el anterior
+        add("cars", "25");
+        remove("cars", "20");
+        TypeStats stats = stats("cars");
+
+        // Assert
+        assertEquals(0, new BigDecimal("25").compareTo(stats.getMax()));
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    void testStats_WriteDuringRescanIsNotLost() {
+        // Arrange - El recorrido ve un estado y una escritura llega antes de publicar
+        add("cars", "10");
+        add("cars", "50");
+        remove("cars", "50");
+        boolean[] wrote = {false};
+        TypeAggregates.AmountScanner racingScanner = (type, action) -> {
+            scans.incrementAndGet();
+            amounts.getOrDefault(type, List.of()).forEach(action);
+            if (!wrote[0]) {
+                wrote[0] = true;
+                add("cars", "99");
+            }
+        };
+
+        // Act
+        TypeStats stats = aggregates.stats("cars", racingScanner);
+
+        // Assert - El primer recorrido no se publica y el segundo incluye el 99
+        assertEquals(2, scans.get());
+        assertEquals(0, new BigDecimal("99").compareTo(stats.getMax()));
+        assertEquals(0, new BigDecimal("10").compareTo(stats.getMin()));
+    }
+
+    @Test
+    void testAddAll_MergesPartialAggregates() {
+        // Act
+        aggregates.addAll("cars", 3, new BigDecimal("60"), new BigDecimal("5"), new BigDecimal("40"));
+        aggregates.addAll("cars", 2, BigDecimal.ZERO, null, null);
+        aggregates.addAll("cars", 1, new BigDecimal("-1"), new BigDecimal("-1"), new BigDecimal("-1"));
+        TypeStats stats = stats("cars");
+
+        // Assert
+        assertEquals(6, stats.getCount());
+        assertEquals(0, new BigDecimal("59").compareTo(stats.getTotal()));
+        assertEquals(0, new BigDecimal("-1").compareTo(stats.getMin()));
+        assertEquals(0, new BigDecimal("40").compareTo(stats.getMax()));
+    }
+
+    @Test
+    void testAll_SortedAndSkipsEmptyTypes() {
+        // Arrange
+        add("travel", "1");
+        add("cars", "2");
+        add("food", "3");
+        remove("food", "3");
+
+        // Act
+        List<TypeStats> all = aggregates.all(this::scan);
+
+        // Assert
+        assertEquals(List.of("cars", "travel"), all.stream().map(TypeStats::getType).toList());
+    }
+
+    @Test
+    void testAdd_ConcurrentWritersKeepExactTotal() throws InterruptedException {
+        // Arrange - Montos con escalas distintas desde varios hilos
+        int threads = 8;
+        int perThread = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    aggregates.add("cars", new BigDecimal("0.01"));
+                    aggregates.add("cars", new BigDecimal("3"));
+                    aggregates.remove("cars", new BigDecimal("3.000"));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        // Act
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        TypeStats stats = stats("cars");
+
+        // Assert
+        assertEquals(threads * perThread, stats.getCount());
+        assertEquals(0, new BigDecimal("400.00").compareTo(stats.getTotal()));
+    }
+
+    private void add(String type, String amount) {
+        BigDecimal value = amount != null ? new BigDecimal(amount) : null;
+        if (value != null) {
+            amounts.computeIfAbsent(type, k -> new ArrayList<>()).add(value);
+        }
+        aggregates.add(type, value);
+    }
+
+    private void remove(String type, String amount) {
+        BigDecimal value = amount != null ? new BigDecimal(amount) : null;
+        if (value != null) {
+            amounts.get(type).remove(value);
+        }
+        aggregates.remove(type, value);
+    }
+
+    private TypeStats stats(String type) {
+        return aggregates.stats(type, this::scan);
+    }
+
+    private void scan(String type, Consumer<BigDecimal> action) {
+        scans.incrementAndGet();
+        amounts.getOrDefault(type, List.of()).forEach(action);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.transactions.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TypeDictionary.
+ */
+class TypeDictionaryTest {
+
+    private TypeDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new TypeDictionary();
+    }
+
+    @Test
+    void testIntern_AssignsDenseCodes() {
+        // Act
+        int cars = dictionary.intern("cars");
+        int shopping = dictionary.intern("shopping");
+
+        // Assert
+        assertEquals(0, cars);
+        assertEquals(1, shopping);
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void testIntern_SameTypeReturnsSameCode() {
+        // Arrange
+        int first = dictionary.intern("cars");
+
+        // Act
+        int second = dictionary.intern(new String("cars"));
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void testCodeOf_UnknownType() {
+        assertEquals(TypeDictionary.NO_CODE, dictionary.codeOf("unknown"));
+    }
+
+    @Test
+    void testNameOf_ReturnsInternedName() {
+        // Arrange - Más tipos que la capacidad inicial para forzar el crecimiento
+        for (int i = 0; i < 100; i++) {
+            dictionary.intern("type-" + i);
+        }
+
+        // Act & Assert
+        assertEquals("type-0", dictionary.nameOf(dictionary.codeOf("type-0")));
+        assertEquals("type-99", dictionary.nameOf(dictionary.codeOf("type-99")));
+    }
+
+    @Test
+    void testIntern_NullType_ThrowsException() {
+        assertThrows(NullPointerException.class, () -> dictionary.intern(null));
+    }
+
+    @Test
+    void testRelease_CodeIsReusedByNextNewType() {
+        // Arrange
+        int cars = dictionary.intern("cars");
+        int shopping = dictionary.intern("shopping");
+
+        // Act
+        dictionary.release("cars", cars);
+        int food = dictionary.intern("food");
+
+        // Assert
+        assertEquals(TypeDictionary.NO_CODE, dictionary.codeOf("cars"));
+        assertEquals(cars, food);
+        assertEquals("food", dictionary.nameOf(food));
+        assertEquals(2, dictionary.intern("cars"));
+        assertEquals(1, shopping);
+    }
+
+    @Test
+    void testRelease_TypesThatComeAndGoKeepCodesBounded() {
+        // Act - 10.000 tipos, cada uno se libera antes de que aparezca el siguiente
+        int maxCode = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int code = dictionary.intern("type-" + i);
+            maxCode = Math.max(maxCode, code);
+            dictionary.release("type-" + i, code);
+        }
+
+        // Assert
+        assertEquals(0, maxCode);
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void testRelease_StaleCodeIsIgnored() {
+        // Arrange - "cars" se libera y su código pasa a "food"
+        int cars = dictionary.intern("cars");
+        dictionary.release("cars", cars);
+        int food = dictionary.intern("food");
+
+        // Act - Una segunda baja de "cars" con el código viejo
+        dictionary.release("cars", cars);
+
+        // Assert
+        assertEquals(food, dictionary.codeOf("food"));
+        assertEquals("food", dictionary.nameOf(food));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.transactions.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TypeIndex.
+ */
+class TypeIndexTest {
+
+    private TypeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TypeIndex();
+    }
+
+    @Test
+    void testIds_SortedAscending() {
+        // Arrange
+        index.add("cars", 30L);
+        index.add("cars", 10L);
+        index.add("cars", 20L);
+
+        // Act & Assert
+        assertEquals(List.of(10L, 20L, 30L), index.ids("cars"));
+        assertEquals(3, index.count("cars"));
+    }
+
+    @Test
+    void testIds_UnknownType() {
+        assertTrue(index.ids("unknown").isEmpty());
+        assertEquals(0, index.count("unknown"));
+        assertNull(index.snapshot("unknown"));
+    }
+
+    @Test
+    void testPage_StartsAtCursorAndStopsAtLimit() {
+        // Arrange - Un ID por contenedor bajo y otro en un bloque alto
+        index.add("cars", 5L);
+        index.add("cars", 1L);
+        index.add("cars", 70_000L);
+        index.add("cars", 3L);
+        index.add("shopping", 4L);
+
+        // Act & Assert
+        assertEquals(List.of(1L, 3L), index.page("cars", Long.MIN_VALUE, 2));
+        assertEquals(List.of(5L, 70_000L), index.page("cars", 4L, 10));
+        assertEquals(List.of(70_000L), index.page("cars", 70_000L, 10));
+        assertTrue(index.page("cars", 70_001L, 10).isEmpty());
+        assertTrue(index.page("cars", Long.MIN_VALUE, 0).isEmpty());
+        assertTrue(index.page("unknown", Long.MIN_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void testRemove_LastIdReleasesType() {
+        // Arrange
+        index.add("cars", 1L);
+        index.add("shopping", 2L);
+        assertEquals(2, index.typeCount());
+
+        // Act - La única transacción de "cars" cambia de tipo
+        index.remove("cars", 1L);
+        index.add("shopping", 1L);
+
+        // Assert
+        assertEquals(1, index.typeCount());
+        assertTrue(index.ids("cars").isEmpty());
+        assertEquals(List.of(1L, 2L), index.ids("shopping"));
+    }
+
+    @Test
+    void testAdd_ReusesTypeAfterRelease() {
+        // Arrange
+        index.add("cars", 1L);
+        index.remove("cars", 1L);
+
+        // Act
+        index.add("cars", 5L);
+
+        // Assert
+        assertEquals(List.of(5L), index.ids("cars"));
+        assertEquals(1, index.typeCount());
+    }
+
+    @Test
+    void testAdd_CodeReusedByAnotherTypeDoesNotMixIds() {
+        // Arrange - "cars" se libera y "food" recibe su código
+        index.add("cars", 1L);
+        index.remove("cars", 1L);
+
+        // Act
+        index.add("food", 2L);
+        index.add("cars", 3L);
+
+        // Assert
+        assertEquals(List.of(2L), index.ids("food"));
+        assertEquals(List.of(3L), index.ids("cars"));
+        assertEquals(2, index.typeCount());
+    }
+
+    @Test
+    void testAddRemove_ConcurrentTypeChurnKeepsTypesApart() throws InterruptedException {
+        // Arrange - "stable" no cambia; cada hilo agrega y quita su propio tipo, así los
+        // códigos se liberan y se reutilizan todo el tiempo
+        index.add("stable", 0L);
+        int threads = 8;
+        AtomicInteger mixed = new AtomicInteger();
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            final long base = (thread + 1) * 1_000_000L;
+            final String type = "type-" + thread;
+            executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    index.add(type, base + i);
+                    for (Long id : index.ids(type)) {
+                        if (id < base || id >= base + 1_000_000L) {
+                            mixed.incrementAndGet();
+                        }
+                    }
+                    index.remove(type, base + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(0, mixed.get());
+        assertEquals(List.of(0L), index.ids("stable"));
+        assertEquals(1, index.typeCount());
+    }
+
+    @Test
+    void testRemove_UnknownIdOrType_IsNoOp() {
+        // Arrange
+        index.add("cars", 1L);
+
+        // Act
+        index.remove("cars", 2L);
+        index.remove("unknown", 1L);
+
+        // Assert
+        assertEquals(List.of(1L), index.ids("cars"));
+    }
+
+    @Test
+    void testSnapshot_NotAffectedByLaterWrites() {
+        // Arrange
+        index.add("cars", 1L);
+        LongBitmap snapshot = index.snapshot("cars");
+
+        // Act
+        index.add("cars", 2L);
+
+        // Assert
+        assertEquals(1, snapshot.cardinality());
+        assertEquals(2, index.count("cars"));
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.transactions.repository;
+
+import com.example.transactions.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para WriteAheadLog.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog log;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Test
+    void testReplay_EmptyLog() throws IOException {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+
+        // Act
+        long records = log.replay(t -> fail("No debería haber registros"));
+
+        // Assert
+        assertEquals(0, records);
+    }
+
+    @Test
+    void testAppendAndReplay_RoundTrip() throws IOException {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        log.replay(t -> { });
+        log.awaitDurable(log.append(new Transaction(10L, new BigDecimal("5000.25"), "cars", null)));
+        log.awaitDurable(log.append(new Transaction(11L, null, "compras ñandú", 10L)));
+        log.awaitDurable(log.append(new Transaction(12L, new BigDecimal("-123456789012345678901234.5"), "x", 10L)));
+        log.close();
+
+        // Act
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        List<Transaction> replayed = new ArrayList<>();
+        long records = log.replay(replayed::add);
+
+        // Assert
+        assertEquals(3, records);
+        assertEquals(10L, replayed.get(0).getId());
+        assertEquals(new BigDecimal("5000.25"), replayed.get(0).getAmount());
+        assertEquals("cars", replayed.get(0).getType());
+        assertNull(replayed.get(0).getParentId());
+        assertNull(replayed.get(1).getAmount());
+        assertEquals("compras ñandú", replayed.get(1).getType());
+        assertEquals(new BigDecimal("-123456789012345678901234.5"), replayed.get(2).getAmount());
+        assertEquals(10L, replayed.get(2).getParentId());
+    }
+
+    @Test
+    void testReplay_DiscardsTornTail() throws IOException {
+        // Arrange - Dos registros completos y el segundo cortado a la mitad
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        log.replay(t -> { });
+        log.awaitDurable(log.append(new Transaction(1L, new BigDecimal("1"), "a", null)));
+        long firstRecordEnd = Files.size(WriteAheadLog.segmentPath(directory, 0));
+        log.awaitDurable(log.append(new Transaction(2L, new BigDecimal("2"), "a", null)));
+        log.close();
+        truncate(firstRecordEnd + 5);
+
+        // Act
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        List<Transaction> replayed = new ArrayList<>();
+        log.replay(replayed::add);
+        log.awaitDurable(log.append(new Transaction(3L, new BigDecimal("3"), "a", null)));
+        log.close();
+
+        // Assert - La cola se descartó y el nuevo registro quedó a continuación del válido
+        assertEquals(1, replayed.size());
+        assertEquals(1L, replayed.get(0).getId());
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        List<Long> ids = new ArrayList<>();
+        log.replay(t -> ids.add(t.getId()));
+        assertEquals(List.of(1L, 3L), ids);
+    }
+
+    @Test
+    void testReplay_StopsAtCorruptedRecord() throws IOException {
+        // Arrange - Se altera un byte del payload del segundo registro
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        log.replay(t -> { });
+        log.awaitDurable(log.append(new Transaction(1L, new BigDecimal("1"), "a", null)));
+        long firstRecordEnd = Files.size(WriteAheadLog.segmentPath(directory, 0));
+        log.awaitDurable(log.append(new Transaction(2L, new BigDecimal("2"), "a", null)));
+        log.close();
+        try (RandomAccessFile file = new RandomAccessFile(WriteAheadLog.segmentPath(directory, 0).toFile(), "rw")) {
+            file.seek(firstRecordEnd + 12);
+            file.write(0x7F);
+        }
+
+        // Act
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        List<Long> ids = new ArrayList<>();
+        log.replay(t -> ids.add(t.getId()));
+
+        // Assert
+        assertEquals(List.of(1L), ids);
+        assertEquals(firstRecordEnd, Files.size(WriteAheadLog.segmentPath(directory, 0)));
+    }
+
+    @Test
+    void testAppend_BeforeReplayThrows() throws IOException {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> log.append(new Transaction(1L, BigDecimal.ONE, "a", null)));
+    }
+
+    @Test
+    void testGroupCommit_ConcurrentAppendsShareSyncs() throws Exception {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ofMillis(5), 1 << 20);
+        log.replay(t -> { });
+        int threads = 16;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            long base = t * 1000L;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    log.awaitDurable(log.append(new Transaction(base + i, BigDecimal.ONE, "a", null)));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        // Assert - Todos los registros son durables con menos fsync que registros
+        assertTrue(log.syncCount() < threads * perThread,
+                "fsync: " + log.syncCount());
+        log.close();
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        assertEquals(threads * perThread, log.replay(t -> { }));
+    }
+
+    @Test
+    void testRotate_ReplayFromGenerationSkipsOlderSegments() throws IOException {
+        // Arrange - Un registro antes de rotar y otro después
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        log.replay(t -> { });
+        log.awaitDurable(log.append(new Transaction(1L, BigDecimal.ONE, "a", null)));
+        long generation = log.rotate();
+        log.awaitDurable(log.append(new Transaction(2L, BigDecimal.ONE, "a", null)));
+        log.close();
+
+        // Act
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        List<Long> ids = new ArrayList<>();
+        log.replay(generation, t -> ids.add(t.getId()));
+
+        // Assert - El segmento anterior se descartó y se sigue escribiendo en el último
+        assertEquals(1, generation);
+        assertEquals(List.of(2L), ids);
+        assertFalse(Files.exists(WriteAheadLog.segmentPath(directory, 0)));
+        assertEquals(generation, log.generation());
+    }
+
+    @Test
+    void testRotate_SegmentExistsBeforeAnyAppend() throws IOException {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+
+        // Act - Los segmentos se crean (y se fuerza el directorio) al abrirlos, no al escribir
+        log.replay(t -> { });
+        long generation = log.rotate();
+
+        // Assert
+        assertTrue(Files.exists(WriteAheadLog.segmentPath(directory, 0)));
+        assertTrue(Files.exists(WriteAheadLog.segmentPath(directory, generation)));
+        assertEquals(0, Files.size(WriteAheadLog.segmentPath(directory, generation)));
+    }
+
+    @Test
+    void testReplay_AllSegmentsInOrder() throws IOException {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        log.replay(t -> { });
+        for (long id = 1; id <= 3; id++) {
+            log.awaitDurable(log.append(new Transaction(id, BigDecimal.ONE, "a", null)));
+            log.rotate();
+        }
+        log.close();
+
+        // Act
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        List<Long> ids = new ArrayList<>();
+        log.replay(t -> ids.add(t.getId()));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), ids);
+        assertEquals(3, log.generation());
+    }
+
+    @Test
+    void testDeleteSegmentsBefore() throws IOException {
+        // Arrange
+        log = WriteAheadLog.open(directory, Duration.ZERO, 1 << 20);
+        log.replay(t -> { });
+        log.rotate();
+        log.rotate();
+
+        // Act
+        log.deleteSegmentsBefore(2);
+
+        // Assert
+        assertFalse(Files.exists(WriteAheadLog.segmentPath(directory, 0)));
+        assertFalse(Files.exists(WriteAheadLog.segmentPath(directory, 1)));
+        assertTrue(Files.exists(WriteAheadLog.segmentPath(directory, 2)));
+    }
+
+    private void truncate(long size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(WriteAheadLog.segmentPath(directory, 0).toFile(), "rw")) {
+            file.setLength(size);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.transactions.service;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para NdjsonExportService.
+ */
+class NdjsonExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TransactionRepository repository;
+    private NdjsonExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepositoryImpl();
+        exportService = new NdjsonExportService(new TransactionService(repository), objectMapper);
+    }
+
+    @Test
+    void testExport_WritesAllPagesInIdOrder() throws IOException {
+        // Arrange - Más de dos páginas, guardadas de mayor a menor ID
+        int count = 2 * TransactionService.MAX_PAGE_SIZE + 5;
+        for (long id = count - 1; id >= 0; id--) {
+            repository.save(new Transaction(id, BigDecimal.ONE, "cars", id == 0 ? null : (id - 1) / 2));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long written = exportService.export(null, output);
+
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(count, written);
+        assertEquals(count, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode line = objectMapper.readTree(lines[i]);
+            assertEquals(i, line.get("id").asLong());
+        }
+    }
+
+    @Test
+    void testExport_AfterCursorAndEmptyStore() throws IOException {
+        // Arrange
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        ByteArrayOutputStream tail = new ByteArrayOutputStream();
+
+        // Act & Assert - Sin transacciones no se escribe nada
+        assertEquals(0, exportService.export(null, empty));
+        assertEquals(0, empty.size());
+
+        // Arrange
+        for (long id = 1; id <= 5; id++) {
+            repository.save(new Transaction(id, BigDecimal.TEN, "cars", null));
+        }
+
+        // Act & Assert
+        assertEquals(2, exportService.export(3L, tail));
+        assertTrue(tail.toString(StandardCharsets.UTF_8).startsWith("{\"id\":4,"));
+    }
+
+    @Test
+    void testExport_OutputCanBeIngestedIntoAnotherStore() throws IOException {
+        // Arrange - Jerarquía con tipos y montos decimales variados
+        for (long id = 0; id < 3_000; id++) {
+            repository.save(new Transaction(id, new BigDecimal(id + ".25"), id % 2 == 0 ? "cars" : "travel",
+                    id == 0 ? null : id / 3));
+        }
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        exportService.export(null, exported);
+        TransactionRepository target = new TransactionRepositoryImpl();
+        NdjsonIngestService ingestService = new NdjsonIngestService(new TransactionService(target), objectMapper, 500);
+
+        // Act
+        ingestService.ingest(new ByteArrayInputStream(exported.toByteArray()), new ByteArrayOutputStream());
+
+        // Assert
+        assertEquals(repository.findAll().size(), target.findAll().size());
+        assertEquals(0, repository.findSubtreeSum(0L).compareTo(target.findSubtreeSum(0L)));
+        assertEquals(repository.findIdsByType("travel").size(), target.findIdsByType("travel").size());
+    }
+
+    @Test
+    void testExport_ParentsWithLargerIdsComeFirstAndRoundTripAcrossBlocks() throws IOException {
+        // Arrange - Árbol ternario numerado al revés: cada hija tiene un ID menor que su padre,
+        // en más de una página del export y de un bloque del ingest
+        int count = 3_000;
+        long root = count - 1;
+        for (long id = root; id >= 0; id--) {
+            long node = root - id;
+            repository.save(new Transaction(id, new BigDecimal(id + ".5"), "cars",
+                    node == 0 ? null : root - (node - 1) / 3));
+        }
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        TransactionRepository target = new TransactionRepositoryImpl();
+        NdjsonIngestService ingestService = new NdjsonIngestService(new TransactionService(target), objectMapper, 100);
+
+        // Act
+        long written = exportService.export(null, exported);
+        ingestService.ingest(new ByteArrayInputStream(exported.toByteArray()), new ByteArrayOutputStream());
+
+        // Assert - Cada línea sale después de la de su padre y la carga no rechaza ninguna
+        String[] lines = exported.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(count, written);
+        assertEquals(count, lines.length);
+        Set<Long> seen = new HashSet<>();
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            if (!node.get("parent_id").isNull()) {
+                assertTrue(seen.contains(node.get("parent_id").asLong()), line);
+            }
+            seen.add(node.get("id").asLong());
+        }
+        assertEquals(count, target.findAll().size());
+        assertEquals(0, repository.findSubtreeSum(root).compareTo(target.findSubtreeSum(root)));
+        assertEquals(0, repository.findSubtreeSum(root - 1).compareTo(target.findSubtreeSum(root - 1)));
+    }
+
+    @Test
+    void testExport_ParentAtOrBeforeAfterCursorIsNotWaitedFor() throws IOException {
+        // Arrange - 2 cuelga de 5 y 5 de 1, que queda antes del cursor
+        repository.save(new Transaction(1L, BigDecimal.ONE, "cars", null));
+        repository.save(new Transaction(5L, BigDecimal.ONE, "cars", 1L));
+        repository.save(new Transaction(2L, BigDecimal.ONE, "cars", 5L));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long written = exportService.export(1L, output);
+
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(5, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.transactions.service;
+
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para NdjsonIngestService.
+ */
+class NdjsonIngestServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TransactionRepository repository;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepositoryImpl();
+        transactionService = new TransactionService(repository);
+    }
+
+    @Test
+    void testIngest_AppliesLinesAndReportsDone() throws IOException {
+        // Arrange - El hijo llega antes que su padre dentro del mismo bloque
+        String body = """
+                {"id": 2, "amount": 50.0, "type": "cars", "parent_id": 1}
+                {"id": 1, "amount": 100.0, "type": "cars"}
+                {"id": 3, "amount": 25, "type": "travel", "parent_id": 2, "extra": {"ignored": [1, 2]}}
+                """;
+
+        // Act
+        List<JsonNode> events = ingest(body, 10);
+
+        // Assert
+        assertEquals(2, events.size());
+        assertEquals("progress", events.get(0).get("event").asText());
+        JsonNode done = events.get(1);
+        assertEquals("done", done.get("event").asText());
+        assertEquals(3, done.get("lines").asLong());
+        assertEquals(3, done.get("applied").asLong());
+        assertEquals(0, done.get("rejected").asLong());
+        assertEquals(0, new BigDecimal("175").compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testIngest_ReportsRejectedLinesWithLineNumbers() throws IOException {
+        // Arrange - Línea 2 cortada, 3 en blanco, 4 sin type, 5 con padre inexistente, 6 con id
+        // string, 7 no es un objeto y 8 tiene dos valores
+        String body = "{\"id\": 1, \"amount\": 100, \"type\": \"cars\"}\r\n"
+                + "{\"id\": 2, \"amount\": \n"
+                + "\n"
+                + "{\"id\": 3, \"amount\": 10}\n"
+                + "{\"id\": 4, \"amount\": 10, \"type\": \"cars\", \"parent_id\": 99}\n"
+                + "{\"id\": \"5\", \"amount\": 10, \"type\": \"cars\"}\n"
+                + "[1, 2]\n"
+                + "{\"id\": 6, \"amount\": 10, \"type\": \"cars\"} {\"id\": 7}";
+
+        // Act
+        List<JsonNode> events = ingest(body, 10);
+
+        // Assert - Los errores de parseo se informan al leer; los de validación, al aplicar el bloque
+        List<JsonNode> rejected = events.stream().filter(e -> "rejected".equals(e.get("event").asText())).toList();
+        assertEquals(List.of(2L, 6L, 7L, 8L, 4L, 5L), rejected.stream().map(e -> e.get("line").asLong()).toList());
+        assertEquals("type es requerido", rejected.get(4).get("error").asText());
+        assertEquals(3, rejected.get(4).get("id").asLong());
+        assertTrue(rejected.get(5).get("error").asText().contains("no existe"));
+        assertTrue(rejected.get(1).get("error").asText().contains("id debe ser un entero"));
+        JsonNode done = events.get(events.size() - 1);
+        assertEquals(8, done.get("lines").asLong());
+        assertEquals(1, done.get("applied").asLong());
+        assertEquals(6, done.get("rejected").asLong());
+        assertNotNull(repository.findById(1L));
+    }
+
+    @Test
+    void testIngest_AppliesInBoundedBatchesWithProgress() throws IOException {
+        // Arrange - Cadena de 10 transacciones en bloques de 3
+        StringBuilder body = new StringBuilder();
+        for (int id = 1; id <= 10; id++) {
+            body.append("{\"id\": ").append(id).append(", \"amount\": 1, \"type\": \"cars\"")
+                    .append(id > 1 ? ", \"parent_id\": " + (id - 1) : "").append("}\n");
+        }
+
+        // Act
+        List<JsonNode> events = ingest(body.toString(), 3);
+
+        // Assert - 4 bloques (3 + 3 + 3 + 1) y el total
+        assertEquals(5, events.size());
+        assertEquals(List.of(3L, 6L, 9L, 10L, 10L), events.stream().map(e -> e.get("applied").asLong()).toList());
+        assertEquals(0, BigDecimal.TEN.compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testIngest_RepeatedIdUpdatesInsteadOfRejecting() throws IOException {
+        // Arrange
+        String body = """
+                {"id": 1, "amount": 100, "type": "cars"}
+                {"id": 2, "amount": 10, "type": "cars", "parent_id": 1}
+                {"id": 1, "amount": 150, "type": "cars"}
+                """;
+
+        // Act
+        List<JsonNode> events = ingest(body, 10);
+
+        // Assert - La segunda aparición cierra el bloque y se aplica como actualización
+        JsonNode done = events.get(events.size() - 1);
+        assertEquals(3, done.get("applied").asLong());
+        assertEquals(2L, repository.findById(1L).getVersion());
+        assertEquals(0, new BigDecimal("160").compareTo(repository.findSubtreeSum(1L)));
+    }
+
+    @Test
+    void testIngest_ChildBeforeParentAcrossBatches_Rejected() throws IOException {
+        // Arrange - Con bloques de 1 el padre todavía no existe al aplicar el hijo
+        String body = """
+                {"id": 2, "amount": 10, "type": "cars", "parent_id": 1}
+                {"id": 1, "amount": 100, "type": "cars"}
+                """;
+
+        // Act
+        List<JsonNode> events = ingest(body, 1);
+
+        // Assert
+        assertEquals("rejected", events.get(0).get("event").asText());
+        assertEquals(1, events.get(0).get("line").asLong());
+        assertNull(repository.findById(2L));
+        assertNotNull(repository.findById(1L));
+    }
+
+    @Test
+    void testIngest_LineTooLong_RejectedAndNextLineApplied() throws IOException {
+        // Arrange
+        String body = "{\"id\": 1, \"amount\": 1, \"type\": \"" + "x".repeat(NdjsonIngestService.MAX_LINE_BYTES) + "\"}\n"
+                + "{\"id\": 2, \"amount\": 1, \"type\": \"cars\"}\n";
+
+        // Act
+        List<JsonNode> events = ingest(body, 10);
+
+        // Assert
+        assertEquals(1, events.get(0).get("line").asLong());
+        assertTrue(events.get(0).get("error").asText().contains("supera"));
+        assertNull(repository.findById(1L));
+        assertNotNull(repository.findById(2L));
+    }
+
+    @Test
+    void testIngest_LargeBodyReadInSmallChunks() throws IOException {
+        // Arrange - 50.000 líneas que el stream entrega de a 7 bytes
+        int count = 50_000;
+        StringBuilder body = new StringBuilder();
+        for (int id = 0; id < count; id++) {
+            body.append("{\"id\":").append(id).append(",\"amount\":1,\"type\":\"cars\"")
+                    .append(id > 0 ? ",\"parent_id\":" + (id - 1) / 2 : "").append("}\n");
+        }
+        InputStream input = new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        new NdjsonIngestService(transactionService, objectMapper, 1000).ingest(input, output);
+
+        // Assert
+        List<JsonNode> events = parseEvents(output);
+        assertEquals(count / 1000 + 1, events.size());
+        assertEquals(count, events.get(events.size() - 1).get("applied").asLong());
+        assertEquals(0, BigDecimal.valueOf(count).compareTo(repository.findSubtreeSum(0L)));
+    }
+
+    @Test
+    void testConstructor_NonPositiveBatchSize_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new NdjsonIngestService(transactionService, objectMapper, 0));
+    }
+
+    private List<JsonNode> ingest(String body, int batchSize) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new NdjsonIngestService(transactionService, objectMapper, batchSize)
+                .ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output);
+        return parseEvents(output);
+    }
+
+    private List<JsonNode> parseEvents(ByteArrayOutputStream output) throws IOException {
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readTree(line));
+        }
+        return events;
+    }
+}
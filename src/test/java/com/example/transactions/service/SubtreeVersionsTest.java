@@ -0,0 +1,59 @@
+package com.example.transactions.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SubtreeVersions.
+ */
+class SubtreeVersionsTest {
+
+    @Test
+    void testBump_ChangesOnlyThatId() {
+        // Arrange
+        SubtreeVersions versions = new SubtreeVersions();
+        long first = versions.version(1L);
+        long second = versions.version(2L);
+
+        // Act
+        versions.bump(1L);
+
+        // Assert - 1 y 2 caen en franjas distintas
+        assertTrue(versions.version(1L) > first);
+        assertEquals(second, versions.version(2L));
+    }
+
+    @Test
+    void testBumpAll_ChangesEveryId() {
+        // Arrange
+        SubtreeVersions versions = new SubtreeVersions();
+        long first = versions.version(1L);
+        long second = versions.version(2L);
+
+        // Act
+        versions.bumpAll();
+
+        // Assert
+        assertTrue(versions.version(1L) > first);
+        assertTrue(versions.version(2L) > second);
+    }
+
+    @Test
+    void testSingleStripe_AllIdsShareVersion() {
+        // Arrange
+        SubtreeVersions versions = new SubtreeVersions(1);
+        long before = versions.version(2L);
+
+        // Act
+        versions.bump(1L);
+
+        // Assert
+        assertTrue(versions.version(2L) > before);
+    }
+
+    @Test
+    void testConstructor_NonPositiveStripes_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new SubtreeVersions(0));
+    }
+}
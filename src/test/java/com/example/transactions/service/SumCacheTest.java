@@ -0,0 +1,264 @@
+package com.example.transactions.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SumCache.
+ */
+class SumCacheTest {
+
+    private final List<Runnable> refreshes = new ArrayList<>();
+
+    @Test
+    void testGet_SecondReadIsHit() {
+        // Arrange
+        SumCache cache = new SumCache(10, false, refreshes::add);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        BigDecimal first = cache.get(1L, id -> load(loads, "100"));
+        BigDecimal second = cache.get(1L, id -> load(loads, "999"));
+
+        // Assert
+        assertEquals(new BigDecimal("100"), first);
+        assertEquals(new BigDecimal("100"), second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testInvalidate_NextReadReloads() {
+        // Arrange
+        SumCache cache = new SumCache(10, false, refreshes::add);
+        cache.get(1L, id -> new BigDecimal("100"));
+        cache.get(2L, id -> new BigDecimal("50"));
+
+        // Act
+        cache.invalidate(1L);
+        BigDecimal reloaded = cache.get(1L, id -> new BigDecimal("150"));
+        BigDecimal other = cache.get(2L, id -> new BigDecimal("999"));
+
+        // Assert - Solo se vence el ID invalidado (salvo que compartan franja, que no es el caso)
+        assertEquals(new BigDecimal("150"), reloaded);
+        assertEquals(new BigDecimal("50"), other);
+    }
+
+    @Test
+    void testInvalidateAll_NextReadsReload() {
+        // Arrange
+        SumCache cache = new SumCache(10, false, refreshes::add);
+        cache.get(1L, id -> new BigDecimal("100"));
+        cache.get(2L, id -> new BigDecimal("50"));
+
+        // Act
+        cache.invalidateAll();
+
+        // Assert
+        assertEquals(new BigDecimal("101"), cache.get(1L, id -> new BigDecimal("101")));
+        assertEquals(new BigDecimal("51"), cache.get(2L, id -> new BigDecimal("51")));
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void testGet_InvalidateDuringLoad_ValueIsNotServedAsCurrent() {
+        // Arrange - Una escritura invalida el ID mientras se calcula su suma
+        SumCache cache = new SumCache(10, false, refreshes::add);
+
+        // Act
+        BigDecimal racing = cache.get(1L, id -> {
+            cache.invalidate(id);
+            return new BigDecimal("100");
+        });
+        BigDecimal next = cache.get(1L, id -> new BigDecimal("150"));
+
+        // Assert - El cálculo en curso se devuelve, pero no queda como vigente
+        assertEquals(new BigDecimal("100"), racing);
+        assertEquals(new BigDecimal("150"), next);
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void testGet_NullIsNotCached() {
+        // Arrange
+        SumCache cache = new SumCache(10, false, refreshes::add);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testAdmission_OneShotScanDoesNotEvictHotIds() {
+        // Arrange - 100 IDs calientes que llenan la caché
+        SumCache cache = new SumCache(100, false, refreshes::add);
+        for (int round = 0; round < 5; round++) {
+            for (long id = 0; id < 100; id++) {
+                cache.get(id, BigDecimal::valueOf);
+            }
+        }
+        long hitsBefore = cache.hitCount();
+
+        // Act - Un recorrido de 10.000 IDs que se piden una sola vez, mezclado con el
+        // tráfico de los calientes
+        for (long id = 1000; id < 11_000; id++) {
+            cache.get(id, BigDecimal::valueOf);
+            cache.get(id % 100, BigDecimal::valueOf);
+        }
+
+        // Assert - Algún ID del recorrido puede entrar si colisiona en el sketch, pero casi
+        // todas las lecturas de los calientes siguen siendo aciertos
+        assertTrue(cache.hitCount() - hitsBefore > 9_900, "aciertos: " + (cache.hitCount() - hitsBefore));
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void testAdmission_FrequentIdEvictsColdOne() {
+        // Arrange
+        SumCache cache = new SumCache(2, false, refreshes::add);
+        cache.get(1L, BigDecimal::valueOf);
+        cache.get(2L, BigDecimal::valueOf);
+
+        // Act - El 3 entra recién cuando se pidió más que la víctima
+        cache.get(3L, BigDecimal::valueOf);
+        long evictionsAfterFirst = cache.evictionCount();
+        cache.get(3L, BigDecimal::valueOf);
+        cache.get(3L, BigDecimal::valueOf);
+
+        // Assert
+        assertEquals(0, evictionsAfterFirst);
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.size());
+        assertEquals(BigDecimal.valueOf(3), cache.get(3L, id -> BigDecimal.ZERO));
+    }
+
+    @Test
+    void testStaleWhileRevalidate_ServesStaleAndRefreshesOnce() {
+        // Arrange
+        SumCache cache = new SumCache(10, true, refreshes::add);
+        AtomicReference<BigDecimal> current = new AtomicReference<>(new BigDecimal("100"));
+        LongFunction<BigDecimal> loader = id -> current.get();
+        cache.get(1L, loader);
+        current.set(new BigDecimal("150"));
+        cache.invalidate(1L);
+
+        // Act - Dos lecturas del valor vencido antes de que corra el recálculo
+        BigDecimal first = cache.get(1L, loader);
+        BigDecimal second = cache.get(1L, loader);
+        refreshes.forEach(Runnable::run);
+        BigDecimal refreshed = cache.get(1L, loader);
+
+        // Assert
+        assertEquals(new BigDecimal("100"), first);
+        assertEquals(new BigDecimal("100"), second);
+        assertEquals(1, refreshes.size());
+        assertEquals(new BigDecimal("150"), refreshed);
+        assertEquals(2, cache.staleHitCount());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void testGetVersioned_StaleValueKeepsItsOwnVersion() {
+        // Arrange
+        SumCache cache = new SumCache(10, true, refreshes::add);
+        long before = cache.getVersions().version(1L);
+        cache.get(1L, id -> new BigDecimal("100"));
+        cache.invalidate(1L);
+
+        // Act
+        SumCache.VersionedSum stale = cache.getVersioned(1L, id -> new BigDecimal("150"));
+
+        // Assert - La suma vieja viene con la versión con la que se calculó, no con la actual
+        assertEquals(new BigDecimal("100"), stale.sum());
+        assertEquals(before, stale.version());
+        assertNotEquals(cache.getVersions().version(1L), stale.version());
+    }
+
+    @Test
+    void testStaleWhileRevalidate_RejectedRefreshServesStaleAndRetries() {
+        // Arrange - Un ejecutor saturado que rechaza todo
+        AtomicInteger attempts = new AtomicInteger();
+        SumCache cache = new SumCache(10, true, task -> {
+            attempts.incrementAndGet();
+            throw new RejectedExecutionException("saturado");
+        });
+        cache.get(1L, id -> new BigDecimal("100"));
+        cache.invalidate(1L);
+
+        // Act
+        BigDecimal first = cache.get(1L, id -> new BigDecimal("150"));
+        BigDecimal second = cache.get(1L, id -> new BigDecimal("150"));
+
+        // Assert
+        assertEquals(new BigDecimal("100"), first);
+        assertEquals(new BigDecimal("100"), second);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testStaleWhileRevalidate_DisabledAtRuntimeReloads() {
+        // Arrange
+        SumCache cache = new SumCache(10, true, refreshes::add);
+        cache.get(1L, id -> new BigDecimal("100"));
+        cache.invalidate(1L);
+
+        // Act
+        cache.setStaleWhileRevalidate(false);
+        BigDecimal sum = cache.get(1L, id -> new BigDecimal("150"));
+
+        // Assert
+        assertEquals(new BigDecimal("150"), sum);
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void testDisabled_AlwaysLoadsAndCountsNothing() {
+        // Arrange
+        SumCache cache = SumCache.disabled();
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.get(1L, id -> load(loads, "100"));
+        cache.get(1L, id -> load(loads, "100"));
+        cache.invalidate(1L);
+
+        // Assert
+        assertFalse(cache.isEnabled());
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.hitCount());
+        assertEquals(0, cache.missCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testConstructor_NegativeSize_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new SumCache(-1, false, refreshes::add));
+    }
+
+    private static BigDecimal load(AtomicInteger loads, String sum) {
+        loads.incrementAndGet();
+        return new BigDecimal(sum);
+    }
+}
@@ -1,9 +1,18 @@
 package com.example.transactions.service;
 
+import com.example.transactions.dto.BatchItemResult;
+import com.example.transactions.dto.BatchResponse;
+import com.example.transactions.dto.BatchTransactionRequest;
+import com.example.transactions.dto.IdPage;
+import com.example.transactions.dto.SumCacheStatsResponse;
+import com.example.transactions.dto.TransactionPage;
 import com.example.transactions.dto.TransactionRequest;
 import com.example.transactions.dto.TransactionResponse;
+import com.example.transactions.dto.TypeStatsResponse;
+import com.example.transactions.exception.InvalidPageRequestException;
 import com.example.transactions.exception.InvalidParentException;
 import com.example.transactions.exception.TransactionNotFoundException;
+import com.example.transactions.exception.VersionConflictException;
 import com.example.transactions.model.Transaction;
 import com.example.transactions.repository.TransactionRepository;
 import com.example.transactions.repository.TransactionRepositoryImpl;
@@ -11,6 +20,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -292,4 +303,568 @@ class TransactionServiceTest {
         assertTrue(result.contains(20L));
         assertFalse(result.contains(30L));
     }
+
+    @Test
+    void testGetTransactionIdsByTypePage_FollowsCursor() {
+        // Arrange
+        for (long id : new long[]{50L, 10L, 40L, 20L, 30L}) {
+            service.createOrUpdateTransaction(id, new TransactionRequest(new BigDecimal("10"), "cars", null));
+        }
+        service.createOrUpdateTransaction(35L, new TransactionRequest(new BigDecimal("10"), "shopping", null));
+
+        // Act
+        IdPage first = service.getTransactionIdsByType("cars", null, 3);
+        IdPage last = service.getTransactionIdsByType("cars", first.getNextCursor(), 3);
+
+        // Assert
+        assertEquals(List.of(10L, 20L, 30L), first.getIds());
+        assertEquals(30L, first.getNextCursor());
+        assertEquals(List.of(40L, 50L), last.getIds());
+        assertNull(last.getNextCursor());
+        assertEquals(5, service.countTransactionsByType("cars"));
+        assertEquals(0, service.countTransactionsByType("travel"));
+    }
+
+    @Test
+    void testGetTransactionIdsByTypePage_InvalidLimit_ThrowsException() {
+        // Act & Assert
+        assertThrows(InvalidPageRequestException.class, () -> service.getTransactionIdsByType("cars", null, 0));
+        assertThrows(InvalidPageRequestException.class,
+                () -> service.getTransactionIdsByType("cars", null, TransactionService.MAX_ID_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testGetTypeStats_AndSummary() {
+        // Arrange
+        service.createOrUpdateTransaction(10L, new TransactionRequest(new BigDecimal("5000"), "cars", null));
+        service.createOrUpdateTransaction(11L, new TransactionRequest(new BigDecimal("1000"), "cars", 10L));
+        service.createOrUpdateTransaction(12L, new TransactionRequest(new BigDecimal("20"), "food", null));
+
+        // Act
+        TypeStatsResponse cars = service.getTypeStats("cars");
+        List<TypeStatsResponse> all = service.getAllTypeStats();
+
+        // Assert
+        assertEquals("cars", cars.getType());
+        assertEquals(2, cars.getCount());
+        assertEquals(0, new BigDecimal("6000").compareTo(cars.getTotalAmount()));
+        assertEquals(0, new BigDecimal("1000").compareTo(cars.getMinAmount()));
+        assertEquals(0, new BigDecimal("5000").compareTo(cars.getMaxAmount()));
+        assertEquals(List.of("cars", "food"), all.stream().map(TypeStatsResponse::getType).toList());
+    }
+
+    @Test
+    void testCalculateSum_AfterAmountUpdate_ReturnsUpdatedSum() {
+        // Arrange
+        service.createOrUpdateTransaction(10L, new TransactionRequest(new BigDecimal("5000.0"), "cars", null));
+        service.createOrUpdateTransaction(11L, new TransactionRequest(new BigDecimal("10000.0"), "shopping", 10L));
+
+        // Act
+        service.createOrUpdateTransaction(11L, new TransactionRequest(new BigDecimal("2000.0"), "shopping", 10L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("7000.0").compareTo(service.calculateSum(10L)));
+    }
+
+    @Test
+    void testCalculateSum_AfterReparent_MovesSubtreeTotal() {
+        // Arrange
+        service.createOrUpdateTransaction(10L, new TransactionRequest(new BigDecimal("5000.0"), "cars", null));
+        service.createOrUpdateTransaction(20L, new TransactionRequest(new BigDecimal("1000.0"), "cars", null));
+        service.createOrUpdateTransaction(11L, new TransactionRequest(new BigDecimal("300.0"), "shopping", 10L));
+        service.createOrUpdateTransaction(12L, new TransactionRequest(new BigDecimal("200.0"), "shopping", 11L));
+
+        // Act
+        service.createOrUpdateTransaction(11L, new TransactionRequest(new BigDecimal("300.0"), "shopping", 20L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("5000.0").compareTo(service.calculateSum(10L)));
+        assertEquals(0, new BigDecimal("1500.0").compareTo(service.calculateSum(20L)));
+    }
+
+    @Test
+    void testCreateTransaction_ReparentUnderDescendant_ThrowsException() {
+        // Arrange - Cadena 1 -> 2 -> ... -> 1000
+        service.createOrUpdateTransaction(1L, new TransactionRequest(BigDecimal.ONE, "chain", null));
+        for (long id = 2; id <= 1000; id++) {
+            service.createOrUpdateTransaction(id, new TransactionRequest(BigDecimal.ONE, "chain", id - 1));
+        }
+
+        // Act & Assert
+        InvalidParentException exception = assertThrows(
+                InvalidParentException.class,
+                () -> service.createOrUpdateTransaction(10L, new TransactionRequest(BigDecimal.ONE, "chain", 900L))
+        );
+        assertTrue(exception.getMessage().contains("crearía un ciclo"));
+        assertEquals(9L, service.getTransactionById(10L).getParentId());
+
+        // Un padre que no es descendiente sí se acepta
+        service.createOrUpdateTransaction(900L, new TransactionRequest(BigDecimal.ONE, "chain", 10L));
+        assertEquals(List.of(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L), service.getAncestorIds(900L));
+    }
+
+    @Test
+    void testGetAncestorIds_WhenNotExists_ThrowsException() {
+        assertThrows(TransactionNotFoundException.class, () -> service.getAncestorIds(999L));
+    }
+
+    // ========== Tests para PUT condicional (versiones) ==========
+
+    @Test
+    void testCreateOrUpdateTransaction_AssignsIncreasingVersions() {
+        // Arrange
+        TransactionRequest request = new TransactionRequest(new BigDecimal("100.0"), "cars", null);
+
+        // Act
+        TransactionResponse created = service.createOrUpdateTransaction(1L, request);
+        TransactionResponse updated = service.createOrUpdateTransaction(1L, request);
+
+        // Assert
+        assertEquals(1L, created.getVersion());
+        assertEquals(2L, updated.getVersion());
+        assertEquals(2L, service.getTransactionById(1L).getVersion());
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_MatchingVersion_Updates() {
+        // Arrange
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100.0"), "cars", null));
+
+        // Act
+        TransactionResponse response = service.createOrUpdateTransaction(
+                1L, new TransactionRequest(new BigDecimal("150.0"), "cars", null), 1L);
+
+        // Assert
+        assertEquals(2L, response.getVersion());
+        assertEquals(new BigDecimal("150.0"), service.getTransactionById(1L).getAmount());
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_StaleVersion_ThrowsAndKeepsCurrent() {
+        // Arrange - Dos clientes leen la versión 1 y el primero escribe
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100.0"), "cars", null));
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("150.0"), "cars", null), 1L);
+
+        // Act & Assert - El segundo falla en lugar de pisar la escritura
+        assertThrows(VersionConflictException.class, () -> service.createOrUpdateTransaction(
+                1L, new TransactionRequest(new BigDecimal("999.0"), "cars", null), 1L));
+        assertEquals(new BigDecimal("150.0"), service.getTransactionById(1L).getAmount());
+        assertEquals(0, new BigDecimal("150.0").compareTo(service.calculateSum(1L)));
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_AnyOfSeveralVersions() {
+        // Arrange - La transacción está en la versión 2
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100.0"), "cars", null));
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("150.0"), "cars", null));
+
+        // Act
+        TransactionResponse saved = service.createOrUpdateTransaction(
+                1L, new TransactionRequest(new BigDecimal("200.0"), "cars", null), new long[] {1L, 2L});
+
+        // Assert - La lista ya no incluye la versión actual (3)
+        assertEquals(3L, saved.getVersion());
+        assertThrows(VersionConflictException.class, () -> service.createOrUpdateTransaction(
+                1L, new TransactionRequest(new BigDecimal("999.0"), "cars", null), new long[] {1L, 2L}));
+        assertEquals(new BigDecimal("200.0"), service.getTransactionById(1L).getAmount());
+    }
+
+    @Test
+    void testCreateOrUpdateTransaction_IfMatchOnMissingTransaction_Throws() {
+        // Arrange
+        TransactionRequest request = new TransactionRequest(new BigDecimal("100.0"), "cars", null);
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> service.createOrUpdateTransaction(1L, request, 1L));
+        assertThrows(VersionConflictException.class,
+                () -> service.createOrUpdateTransaction(1L, request, TransactionService.ANY_EXISTING_VERSION));
+        assertThrows(TransactionNotFoundException.class, () -> service.getTransactionById(1L));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_ChildrenBeforeParents_AppliesAll() {
+        // Arrange - Los hijos llegan antes que sus padres
+        List<BatchTransactionRequest> items = List.of(
+                batchItem(3L, "25", 2L),
+                batchItem(2L, "50", 1L),
+                batchItem(1L, "100", null));
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(items);
+
+        // Assert - Resultados en el orden recibido
+        assertEquals(3, response.getApplied());
+        assertEquals(0, response.getRejected());
+        assertEquals(List.of(3L, 2L, 1L), response.getResults().stream().map(BatchItemResult::getId).toList());
+        assertTrue(response.getResults().stream().allMatch(r -> "ok".equals(r.getStatus()) && r.getVersion() == 1L));
+        assertEquals(0, new BigDecimal("175").compareTo(service.calculateSum(1L)));
+        assertEquals(List.of(2L, 1L), service.getAncestorIds(3L));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_MissingParent_RejectsItemAndDescendants() {
+        // Arrange - 11 cuelga de un padre inexistente y 12 de 11; 13 es independiente
+        List<BatchTransactionRequest> items = List.of(
+                batchItem(12L, "5", 11L),
+                batchItem(11L, "10", 99L),
+                batchItem(13L, "20", null));
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(items);
+
+        // Assert
+        assertEquals(1, response.getApplied());
+        assertEquals(2, response.getRejected());
+        assertEquals("error", response.getResults().get(0).getStatus());
+        assertTrue(response.getResults().get(0).getError().contains("rechazada"));
+        assertTrue(response.getResults().get(1).getError().contains("no existe"));
+        assertNull(response.getResults().get(1).getVersion());
+        assertEquals("ok", response.getResults().get(2).getStatus());
+        assertThrows(TransactionNotFoundException.class, () -> service.getTransactionById(11L));
+        assertThrows(TransactionNotFoundException.class, () -> service.getTransactionById(12L));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_CycleInsideBatch_RejectsCycleOnly() {
+        // Arrange - 1 -> 2 -> 3 -> 1 dentro del lote, y 4 sin padre
+        List<BatchTransactionRequest> items = List.of(
+                batchItem(1L, "1", 3L),
+                batchItem(2L, "2", 1L),
+                batchItem(3L, "3", 2L),
+                batchItem(4L, "4", null));
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(items);
+
+        // Assert
+        assertEquals(1, response.getApplied());
+        assertEquals(3, response.getRejected());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(response.getResults().get(i).getError().contains("ciclo"));
+        }
+        assertEquals(1L, service.getTransactionById(4L).getVersion());
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_ReparentUnderDescendant_Rejected() {
+        // Arrange - 1 -> 2 en el almacén; el lote agrega 3 bajo 2 e intenta colgar 1 de 3
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("50"), "cars", 1L));
+        List<BatchTransactionRequest> items = List.of(
+                batchItem(1L, "100", 3L),
+                batchItem(3L, "10", 2L));
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(items);
+
+        // Assert
+        assertEquals(1, response.getApplied());
+        assertTrue(response.getResults().get(0).getError().contains("ciclo"));
+        assertEquals("ok", response.getResults().get(1).getStatus());
+        assertNull(service.getTransactionById(1L).getParentId());
+        assertEquals(0, new BigDecimal("160").compareTo(service.calculateSum(1L)));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_TwoReparentsClosingCycle_RejectsSecond() {
+        // Arrange - 1 y 2 -> 3 en el almacén; el lote cuelga 1 de 3 y 2 de 1
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("50"), "cars", null));
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("10"), "cars", 2L));
+        List<BatchTransactionRequest> items = List.of(
+                batchItem(2L, "50", 1L),
+                batchItem(1L, "100", 3L));
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(items);
+
+        // Assert - Con 1 ya bajo 3, colgar 2 de 1 cerraría 2 -> 3 -> 1 -> 2
+        assertEquals(1, response.getApplied());
+        assertTrue(response.getResults().get(0).getError().contains("ciclo"));
+        assertEquals("ok", response.getResults().get(1).getStatus());
+        assertNull(service.getTransactionById(2L).getParentId());
+        assertEquals(0, new BigDecimal("160").compareTo(service.calculateSum(2L)));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_ConcurrentReparentClosesCycle_Revalidates() {
+        // Arrange - 1 y 2 son raíces; otra escritura cuelga 1 de 2 entre la validación del
+        // lote y su saveAll()
+        TransactionRepository racing = new TransactionRepositoryImpl() {
+            private boolean raced;
+
+            @Override
+            public void saveAll(List<Transaction> batch) {
+                if (!raced) {
+                    raced = true;
+                    save(new Transaction(1L, new BigDecimal("100"), "cars", 2L));
+                }
+                super.saveAll(batch);
+            }
+        };
+        TransactionService racingService = new TransactionService(racing);
+        racingService.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        racingService.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("50"), "cars", null));
+
+        // Act - El lote cuelga 2 de 1
+        BatchResponse response = racingService.createOrUpdateBatch(List.of(
+                batchItem(2L, "50", 1L),
+                batchItem(4L, "5", null)));
+
+        // Assert - saveAll() rechazó el lote y la segunda validación ya ve 1 bajo 2
+        assertEquals(1, response.getApplied());
+        assertTrue(response.getResults().get(0).getError().contains("ciclo"));
+        assertEquals("ok", response.getResults().get(1).getStatus());
+        assertNull(racingService.getTransactionById(2L).getParentId());
+        assertEquals(0, new BigDecimal("150").compareTo(racingService.calculateSum(2L)));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_InvalidFieldsAndDuplicates_Rejected() {
+        // Arrange
+        List<BatchTransactionRequest> items = Arrays.asList(
+                batchItem(1L, "100", null),
+                batchItem(1L, "200", null),
+                batchItem(null, "10", null),
+                batchItem(2L, "-5", null),
+                new BatchTransactionRequest(3L, new BigDecimal("10"), null, null),
+                batchItem(4L, "10", 4L),
+                null);
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(items);
+
+        // Assert - Solo la primera aparición del ID 1 se aplica
+        assertEquals(1, response.getApplied());
+        assertEquals(6, response.getRejected());
+        List<String> errors = response.getResults().stream().map(BatchItemResult::getError).toList();
+        assertNull(errors.get(0));
+        assertTrue(errors.get(1).contains("duplicado"));
+        assertEquals("id es requerido", errors.get(2));
+        assertEquals("amount debe ser positivo", errors.get(3));
+        assertEquals("type es requerido", errors.get(4));
+        assertTrue(errors.get(5).contains("propio padre"));
+        assertNotNull(errors.get(6));
+        assertEquals(new BigDecimal("100"), service.getTransactionById(1L).getAmount());
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_UpdatesExistingAndBumpsVersion() {
+        // Arrange
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(List.of(
+                batchItem(1L, "150", null),
+                batchItem(2L, "50", 1L)));
+
+        // Assert
+        assertEquals(2L, response.getResults().get(0).getVersion());
+        assertEquals(1L, response.getResults().get(1).getVersion());
+        assertEquals(0, new BigDecimal("200").compareTo(service.calculateSum(1L)));
+    }
+
+    @Test
+    void testCreateOrUpdateBatch_Empty_ReturnsEmptyResponse() {
+        // Act
+        BatchResponse response = service.createOrUpdateBatch(List.of());
+
+        // Assert
+        assertEquals(0, response.getApplied());
+        assertEquals(0, response.getRejected());
+        assertTrue(response.getResults().isEmpty());
+    }
+
+    // ========== Tests para getTransactionsPage ==========
+
+    @Test
+    void testGetTransactionsPage_FollowsCursorUntilLastPage() {
+        // Arrange
+        for (long id : new long[]{5L, 1L, 4L, 2L, 3L}) {
+            service.createOrUpdateTransaction(id, new TransactionRequest(new BigDecimal("10"), "cars", null));
+        }
+
+        // Act
+        TransactionPage first = service.getTransactionsPage(null, 2);
+        TransactionPage second = service.getTransactionsPage(first.getNextCursor(), 2);
+        TransactionPage last = service.getTransactionsPage(second.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), first.getItems().stream().map(TransactionResponse::getId).toList());
+        assertEquals(2L, first.getNextCursor());
+        assertEquals(List.of(3L, 4L), second.getItems().stream().map(TransactionResponse::getId).toList());
+        assertEquals(List.of(5L), last.getItems().stream().map(TransactionResponse::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testGetTransactionsPage_ExactlyFullLastPage_HasNoCursor() {
+        // Arrange
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("10"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("10"), "cars", null));
+
+        // Act
+        TransactionPage page = service.getTransactionsPage(null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetTransactionsPage_InvalidLimit_ThrowsException() {
+        // Act & Assert
+        assertThrows(InvalidPageRequestException.class, () -> service.getTransactionsPage(null, 0));
+        assertThrows(InvalidPageRequestException.class,
+                () -> service.getTransactionsPage(null, TransactionService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testCalculateSum_Cached_DescendantWriteInvalidatesAncestors() {
+        // Arrange - 1 <- 2 <- 3 y 4 aparte, con las sumas en caché
+        service = new TransactionService(repository, new SumCache(100, false, Runnable::run));
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("10"), "cars", 1L));
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("1"), "cars", 2L));
+        service.createOrUpdateTransaction(4L, new TransactionRequest(new BigDecimal("7"), "cars", null));
+        for (long id = 1; id <= 4; id++) {
+            service.calculateSum(id);
+        }
+
+        // Act
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("5"), "cars", 2L));
+
+        // Assert - Se recalculan 3, 2 y 1; la suma de 4 sigue en caché
+        assertEquals(0, new BigDecimal("115").compareTo(service.calculateSum(1L)));
+        assertEquals(0, new BigDecimal("15").compareTo(service.calculateSum(2L)));
+        assertEquals(0, new BigDecimal("5").compareTo(service.calculateSum(3L)));
+        assertEquals(0, new BigDecimal("7").compareTo(service.calculateSum(4L)));
+        assertEquals(7, service.getSumCacheStats().getMisses());
+        assertEquals(1, service.getSumCacheStats().getHits());
+    }
+
+    @Test
+    void testCalculateSum_Cached_ReparentInvalidatesOldPath() {
+        // Arrange - 1 <- 2 <- 3 y 4 aparte
+        service = new TransactionService(repository, new SumCache(100, false, Runnable::run));
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("10"), "cars", 1L));
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("1"), "cars", 2L));
+        service.createOrUpdateTransaction(4L, new TransactionRequest(new BigDecimal("7"), "cars", null));
+        for (long id = 1; id <= 4; id++) {
+            service.calculateSum(id);
+        }
+
+        // Act - 3 pasa de colgar de 2 a colgar de 4
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("1"), "cars", 4L));
+
+        // Assert
+        assertEquals(0, new BigDecimal("110").compareTo(service.calculateSum(1L)));
+        assertEquals(0, new BigDecimal("10").compareTo(service.calculateSum(2L)));
+        assertEquals(0, new BigDecimal("8").compareTo(service.calculateSum(4L)));
+    }
+
+    @Test
+    void testCalculateSum_Cached_BatchInvalidatesAllPaths() {
+        // Arrange
+        service = new TransactionService(repository, new SumCache(100, false, Runnable::run));
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("10"), "cars", 1L));
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("7"), "cars", null));
+        service.calculateSum(1L);
+        service.calculateSum(3L);
+
+        // Act - Un alta bajo 2 y el paso de 2 de colgar de 1 a colgar de 3
+        service.createOrUpdateBatch(List.of(batchItem(5L, "1", 2L), batchItem(2L, "10", 3L)));
+
+        // Assert
+        assertEquals(0, new BigDecimal("100").compareTo(service.calculateSum(1L)));
+        assertEquals(0, new BigDecimal("18").compareTo(service.calculateSum(3L)));
+    }
+
+    @Test
+    void testGetSubtreeVersion_ChangesOnlyForAffectedSubtrees() {
+        // Arrange - 1 <- 2 y 3 aparte
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("10"), "cars", 1L));
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("7"), "cars", null));
+        long root = service.getSubtreeVersion(1L);
+        long other = service.getSubtreeVersion(3L);
+
+        // Act
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("20"), "cars", 1L));
+
+        // Assert
+        assertNotEquals(root, service.getSubtreeVersion(1L));
+        assertEquals(other, service.getSubtreeVersion(3L));
+    }
+
+    @Test
+    void testGetSubtreeVersion_ReparentChangesOldAndNewParent() {
+        // Arrange
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(2L, new TransactionRequest(new BigDecimal("10"), "cars", 1L));
+        service.createOrUpdateTransaction(3L, new TransactionRequest(new BigDecimal("7"), "cars", null));
+        long oldParent = service.getSubtreeVersion(1L);
+        long newParent = service.getSubtreeVersion(3L);
+
+        // Act
+        service.createOrUpdateBatch(List.of(batchItem(2L, "10", 3L)));
+
+        // Assert
+        assertNotEquals(oldParent, service.getSubtreeVersion(1L));
+        assertNotEquals(newParent, service.getSubtreeVersion(3L));
+    }
+
+    @Test
+    void testGetSubtreeVersion_DeepPathChangesOnlyItsChain() {
+        // Arrange - Una cadena de 300 niveles y otra raíz aparte
+        int depth = 300;
+        for (long id = 0; id < depth; id++) {
+            service.createOrUpdateTransaction(id, new TransactionRequest(BigDecimal.ONE, "cars", id == 0 ? null : id - 1));
+        }
+        service.createOrUpdateTransaction(10_000L, new TransactionRequest(BigDecimal.ONE, "cars", null));
+        long root = service.getSubtreeVersion(0L);
+        long other = service.getSubtreeVersion(10_000L);
+
+        // Act
+        service.createOrUpdateTransaction(depth - 1L, new TransactionRequest(BigDecimal.TEN, "cars", depth - 2L));
+
+        // Assert
+        assertNotEquals(root, service.getSubtreeVersion(0L));
+        assertEquals(other, service.getSubtreeVersion(10_000L));
+    }
+
+    @Test
+    void testGetSubtreeVersion_NotFound_ThrowsException() {
+        // Act & Assert
+        assertThrows(TransactionNotFoundException.class, () -> service.getSubtreeVersion(99L));
+    }
+
+    @Test
+    void testGetTransactionVersion() {
+        // Arrange
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("150"), "cars", null));
+
+        // Act & Assert
+        assertEquals(2L, service.getTransactionVersion(1L));
+        assertThrows(TransactionNotFoundException.class, () -> service.getTransactionVersion(99L));
+    }
+
+    @Test
+    void testGetSumCacheStats_Disabled() {
+        // Act
+        service.createOrUpdateTransaction(1L, new TransactionRequest(new BigDecimal("100"), "cars", null));
+        service.calculateSum(1L);
+        SumCacheStatsResponse stats = service.getSumCacheStats();
+
+        // Assert
+        assertEquals(0, stats.getMaximumSize());
+        assertEquals(0, stats.getMisses());
+    }
+
+    private static BatchTransactionRequest batchItem(Long id, String amount, Long parentId) {
+        return new BatchTransactionRequest(id, new BigDecimal(amount), "cars", parentId);
+    }
 }
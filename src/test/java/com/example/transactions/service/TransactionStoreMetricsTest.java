@@ -0,0 +1,93 @@
+package com.example.transactions.service;
+
+import com.example.transactions.model.Transaction;
+import com.example.transactions.repository.TransactionRepository;
+import com.example.transactions.repository.TransactionRepositoryImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TransactionStoreMetrics.
+ */
+class TransactionStoreMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private TransactionRepository repository;
+    private SumCache sumCache;
+    private TransactionStoreMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        repository = new TransactionRepositoryImpl();
+        sumCache = new SumCache(10, false, Runnable::run);
+        metrics = new TransactionStoreMetrics(repository, sumCache);
+        metrics.bindTo(registry);
+    }
+
+    @Test
+    void testGauges_ReflectStoreContents() {
+        // Arrange
+        repository.save(new Transaction(1L, BigDecimal.ONE, "cars", null));
+        repository.save(new Transaction(2L, BigDecimal.ONE, "cars", 1L));
+        repository.save(new Transaction(3L, BigDecimal.ONE, "food", 1L));
+
+        // Act
+        double size = registry.get("transactions.store.size").gauge().value();
+        double types = registry.get("transactions.types").gauge().value();
+
+        // Assert
+        assertEquals(3, size);
+        assertEquals(2, types);
+    }
+
+    @Test
+    void testRefreshMaxDepth_LongestChainFromAnyRoot() {
+        // Arrange - Dos árboles: 1 → 2 → 3 → 4 y 10 → 11; 20 cuelga de un padre no guardado
+        repository.save(new Transaction(1L, BigDecimal.ONE, "cars", null));
+        repository.save(new Transaction(2L, BigDecimal.ONE, "cars", 1L));
+        repository.save(new Transaction(3L, BigDecimal.ONE, "cars", 2L));
+        repository.save(new Transaction(4L, BigDecimal.ONE, "cars", 3L));
+        repository.save(new Transaction(10L, BigDecimal.ONE, "food", null));
+        repository.save(new Transaction(11L, BigDecimal.ONE, "food", 10L));
+        repository.save(new Transaction(20L, BigDecimal.ONE, "food", 99L));
+
+        // Act
+        metrics.refreshMaxDepth();
+
+        // Assert
+        assertEquals(3, metrics.getMaxDepth());
+        assertEquals(3, registry.get("transactions.hierarchy.max.depth").gauge().value());
+    }
+
+    @Test
+    void testRefreshMaxDepth_EmptyStoreIsZero() {
+        // Act
+        metrics.refreshMaxDepth();
+
+        // Assert
+        assertEquals(0, metrics.getMaxDepth());
+    }
+
+    @Test
+    void testSumCacheCounters_ExposeHitsAndMisses() {
+        // Arrange
+        sumCache.get(1L, id -> BigDecimal.TEN);
+
+        // Act
+        sumCache.get(1L, id -> BigDecimal.TEN);
+        sumCache.get(2L, id -> BigDecimal.ONE);
+
+        // Assert
+        assertEquals(1, registry.get("transactions.sum.cache.requests").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2, registry.get("transactions.sum.cache.requests").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(2, registry.get("transactions.sum.cache.size").gauge().value());
+    }
+}